@@ -0,0 +1,34 @@
+package com.lbu.lbuauth.commons.configurations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class PasswordHashingConfiguration {
+
+    @Value("${custom.properties.password.hashing.pool.size}")
+    private Integer poolSize;
+
+    @Value("${custom.properties.password.hashing.queue.capacity}")
+    private Integer queueCapacity;
+
+    @Bean("passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        // Hashing is CPU bound, so unless a size is configured the pool has one thread per core
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hashing-");
+        // When the pool and its queue are full the hash is rejected instead of holding a request thread
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -12,6 +12,7 @@ public enum ErrorConstants {
     ACCOUNT_NOT_AVAILABLE_USERNAME_ERROR("The provided username does not exist. Please create a new account or use a valid username.", 4004),
     ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR("The provided user id does not exist.", 4005),
     ACCOUNT_ALREADY_AVAILABLE_ERROR("The provided username or email already available.", 4006),
+    TOO_MANY_LOGIN_ATTEMPTS("Too many failed login attempts. Please try again later.", 4007),
 
     ACCOUNT_ACTIVATED_ERROR("Given account already activated.", 5000),
     ACCOUNT_ACTIVATION_OLD_TOKEN_VALID_ERROR("Existing account activation link still usable please use it to activate.", 5001),
@@ -29,8 +30,12 @@ public enum ErrorConstants {
     INVALID_CREDENTIALS("Invalid credentials provided.", 7000),
 
     EMAIL_SEND_FAILED("Email sending failed.", 8000),
+    EMAIL_OUTBOX_LEASE_TOO_SHORT("The email outbox lease is shorter than a batch of emails can take to send.", 8001),
 
-    INTERNAL_ERROR("An error occurred.", 9000);
+    INTERNAL_ERROR("An error occurred.", 9000),
+    PASSWORD_HASHING_BUSY("The service is busy. Please try logging in again shortly.", 9001),
+    SERVICE_ACCOUNT_INVALID("A service account is not configured as username:password.", 9002),
+    SERVICE_ACCOUNT_USERNAME_TAKEN("A service account username belongs to a user which is not a service account.", 9003);
 
     private final String errorMessage;
     private final Integer errorCode;
@@ -0,0 +1,28 @@
+package com.lbu.lbuauth.commons.endpoints;
+
+import com.lbu.lbuauth.dtos.LoginThrottleStatisticsDto;
+import com.lbu.lbuauth.services.LoginThrottleService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "loginthrottle")
+public class LoginThrottleEndpoint {
+
+    private final LoginThrottleService loginThrottleService;
+
+    public LoginThrottleEndpoint(LoginThrottleService loginThrottleService) {
+        this.loginThrottleService = loginThrottleService;
+    }
+
+    /**
+     * Exposes the counters of the login throttle at /actuator/loginthrottle.
+     *
+     * @return The current state of the login throttle.
+     */
+    @ReadOperation
+    public LoginThrottleStatisticsDto statistics() {
+        return loginThrottleService.getStatistics();
+    }
+}
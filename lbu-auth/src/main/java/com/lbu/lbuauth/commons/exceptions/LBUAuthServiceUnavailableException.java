@@ -0,0 +1,12 @@
+package com.lbu.lbuauth.commons.exceptions;
+
+public class LBUAuthServiceUnavailableException extends LBUAuthRuntimeException {
+
+    public LBUAuthServiceUnavailableException(String message, Integer code) {
+        super(message, code);
+    }
+
+    public LBUAuthServiceUnavailableException(String message, Throwable throwable, Integer code) {
+        super(message, throwable, code);
+    }
+}
@@ -0,0 +1,14 @@
+package com.lbu.lbuauth.commons.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class LBUAuthTooManyRequestsException extends LBUAuthRuntimeException {
+
+    private final Long retryAfterSeconds;
+
+    public LBUAuthTooManyRequestsException(String message, Integer code, Long retryAfterSeconds) {
+        super(message, code);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -55,10 +55,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throw new LBUAuthRuntimeException(JWT_TOKEN_NOT_AVAILABLE.getErrorMessage(), JWT_TOKEN_NOT_AVAILABLE.getErrorCode());
         }
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtService.validateToken(token)) {
-                UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) jwtService.getAuthentication(token);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) jwtService.getAuthentication(token);
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
     }
 
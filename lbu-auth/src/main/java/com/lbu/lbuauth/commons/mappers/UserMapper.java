@@ -0,0 +1,59 @@
+package com.lbu.lbuauth.commons.mappers;
+
+import com.lbu.lbuauth.dtos.LoginDto;
+import com.lbu.lbuauth.dtos.UserDto;
+import com.lbu.lbuauth.models.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps between User entities and the user DTOs with plain accessor calls.
+ */
+@Component
+public class UserMapper {
+
+    /**
+     * Maps the details of a new user to a User. The id, the role and the account flags are owned by the service and are
+     * not taken from the request.
+     *
+     * @param userDto The UserDto to map.
+     * @return The new User.
+     */
+    public User toUser(UserDto userDto) {
+        User user = new User();
+        user.setUsername(userDto.getUserName());
+        user.setPassword(userDto.getPassword());
+        user.setFirstName(userDto.getFirstName());
+        user.setLastName(userDto.getLastName());
+        user.setEmail(userDto.getEmail());
+        return user;
+    }
+
+    /**
+     * Maps login credentials to a User holding the username and the password.
+     *
+     * @param loginDto The LoginDto to map.
+     * @return The User with the credentials.
+     */
+    public User toUser(LoginDto loginDto) {
+        User user = new User();
+        user.setUsername(loginDto.getUserName());
+        user.setPassword(loginDto.getPassword());
+        return user;
+    }
+
+    /**
+     * Maps a User to a UserDto. The password is never copied to the DTO.
+     *
+     * @param user The User to map.
+     * @return The UserDto.
+     */
+    public UserDto toUserDto(User user) {
+        UserDto userDto = new UserDto();
+        userDto.setUserId(user.getId());
+        userDto.setUserName(user.getUsername());
+        userDto.setFirstName(user.getFirstName());
+        userDto.setLastName(user.getLastName());
+        userDto.setEmail(user.getEmail());
+        return userDto;
+    }
+}
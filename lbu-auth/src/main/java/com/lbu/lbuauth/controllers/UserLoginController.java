@@ -9,6 +9,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,12 +33,22 @@ public interface UserLoginController {
             description = "User not available",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
     )
+    @ApiResponse(
+            responseCode = "429",
+            description = "Too many failed login attempts",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "503",
+            description = "Service busy",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
     @ApiResponse(
             responseCode = "500",
             description = "Internal Server error",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
     )
-    ResponseEntity<JWTTokenDto> login(@RequestBody LoginDto loginDto);
+    ResponseEntity<JWTTokenDto> login(@RequestBody LoginDto loginDto, HttpServletRequest request);
 
     @GetMapping("/token/{userId}")
     @Operation(summary = "Activate User")
@@ -1,8 +1,11 @@
 package com.lbu.lbuauth.controllers.impl;
 
 import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.commons.exceptions.LBUAuthServiceUnavailableException;
+import com.lbu.lbuauth.commons.exceptions.LBUAuthTooManyRequestsException;
 import com.lbu.lbuauth.dtos.MessageDto;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
@@ -34,6 +37,41 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDto);
     }
 
+    /**
+     * Handles exceptions of type LBUAuthServiceUnavailableException by returning a ResponseEntity
+     * with a MessageDto containing the exception message and code. Sets the HTTP status
+     * to 503 (Service Unavailable) with a Retry-After header, so clients back off while the
+     * service is saturated.
+     *
+     * @param ex The LBUAuthServiceUnavailableException instance.
+     * @return ResponseEntity<MessageDto> containing the error details.
+     */
+    @ExceptionHandler(LBUAuthServiceUnavailableException.class)
+    public ResponseEntity<MessageDto> handleException(LBUAuthServiceUnavailableException ex) {
+        MessageDto errorDto = new MessageDto();
+        errorDto.setMessage(ex.getMessage());
+        errorDto.setCode(ex.getCode());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(errorDto);
+    }
+
+    /**
+     * Handles exceptions of type LBUAuthTooManyRequestsException by returning a ResponseEntity
+     * with a MessageDto containing the exception message and code. Sets the HTTP status
+     * to 429 (Too Many Requests) with a Retry-After header holding the remaining lockout.
+     *
+     * @param ex The LBUAuthTooManyRequestsException instance.
+     * @return ResponseEntity<MessageDto> containing the error details.
+     */
+    @ExceptionHandler(LBUAuthTooManyRequestsException.class)
+    public ResponseEntity<MessageDto> handleException(LBUAuthTooManyRequestsException ex) {
+        MessageDto errorDto = new MessageDto();
+        errorDto.setMessage(ex.getMessage());
+        errorDto.setCode(ex.getCode());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorDto);
+    }
+
     /**
      * Handles exceptions of type LockedException by returning a ResponseEntity with
      * a MessageDto containing a predefined error message and code. Logs the exception
@@ -1,11 +1,11 @@
 package com.lbu.lbuauth.controllers.impl;
 
+import com.lbu.lbuauth.commons.mappers.UserMapper;
 import com.lbu.lbuauth.controllers.UserController;
 import com.lbu.lbuauth.dtos.MessageDto;
 import com.lbu.lbuauth.dtos.UserDto;
 import com.lbu.lbuauth.models.User;
 import com.lbu.lbuauth.services.UserService;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -13,12 +13,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserControllerImpl implements UserController {
 
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
-    public UserControllerImpl(UserService userService, ModelMapper modelMapper) {
-        // Initializes UserControllerImpl with UserService and ModelMapper instances.
+    public UserControllerImpl(UserService userService, UserMapper userMapper) {
+        // Initializes UserControllerImpl with UserService and UserMapper instances.
         this.userService = userService;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
     }
 
     /**
@@ -29,10 +29,8 @@ public class UserControllerImpl implements UserController {
      */
     @Override
     public ResponseEntity<UserDto> createUser(UserDto userDto) {
-        User savedUser = userService.createUser(modelMapper.map(userDto, User.class));
-        UserDto createdUserDto = modelMapper.map(savedUser, UserDto.class);
-        createdUserDto.setPassword(null);
-        return ResponseEntity.ok(createdUserDto);
+        User savedUser = userService.createUser(userMapper.toUser(userDto));
+        return ResponseEntity.ok(userMapper.toUserDto(savedUser));
     }
 
     /**
@@ -45,10 +43,7 @@ public class UserControllerImpl implements UserController {
     @Override
     public ResponseEntity<UserDto> getUser(String userId, String authToken) {
         User user = userService.getUserByUserId(userId, authToken);
-        UserDto userDto = modelMapper.map(user, UserDto.class);
-        userDto.setUserName(user.getUsername());
-        userDto.setPassword(null);
-        return ResponseEntity.ok(userDto);
+        return ResponseEntity.ok(userMapper.toUserDto(user));
     }
 
     /**
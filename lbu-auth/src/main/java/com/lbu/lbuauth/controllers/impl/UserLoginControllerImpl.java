@@ -1,18 +1,20 @@
 package com.lbu.lbuauth.controllers.impl;
 
 import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.commons.mappers.UserMapper;
 import com.lbu.lbuauth.controllers.UserLoginController;
 import com.lbu.lbuauth.dtos.JWTTokenDto;
 import com.lbu.lbuauth.dtos.LoginDto;
 import com.lbu.lbuauth.dtos.MessageDto;
-import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.services.LoginThrottleService;
 import com.lbu.lbuauth.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.RestController;
 
 import static com.lbu.lbuauth.commons.constants.ErrorConstants.INVALID_CREDENTIALS;
@@ -25,33 +27,51 @@ public class UserLoginControllerImpl implements UserLoginController {
 
     private final UserService userService;
 
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottleService loginThrottleService;
 
-    public UserLoginControllerImpl(UserService userService, ModelMapper modelMapper, AuthenticationManager authenticationManager) {
+    public UserLoginControllerImpl(UserService userService, UserMapper userMapper, AuthenticationManager authenticationManager,
+                                   LoginThrottleService loginThrottleService) {
         this.userService = userService;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
         this.authenticationManager = authenticationManager;
+        this.loginThrottleService = loginThrottleService;
     }
 
     /**
-     * Authenticates a user based on the provided login credentials.
+     * Authenticates a user based on the provided login credentials. Attempts for a username or from a client IP which
+     * are locked out by the login throttle are rejected before any database or hashing work. The client IP is the
+     * remote address of the request, which is taken from the X-Forwarded-For header only when the request came through
+     * one of the proxies trusted with server.tomcat.remoteip.internal-proxies, so users behind a proxy are not throttled
+     * as one client and a client connecting directly cannot choose its own IP.
      *
      * @param loginDto The login credentials containing username and password.
+     * @param request  The HTTP request, which provides the client IP.
      * @return ResponseEntity containing a JWT token upon successful authentication.
      * @throws LBUAuthRuntimeException if authentication fails.
      */
     @Override
-    public ResponseEntity<JWTTokenDto> login(LoginDto loginDto) {
+    public ResponseEntity<JWTTokenDto> login(LoginDto loginDto, HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        loginThrottleService.checkAllowed(loginDto.getUserName(), clientIp);
         // Authenticate user with provided credentials
-        Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginDto.getUserName(), loginDto.getPassword()));
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginDto.getUserName(), loginDto.getPassword()));
+        } catch (AuthenticationException e) {
+            loginThrottleService.recordFailure(loginDto.getUserName(), clientIp);
+            throw e;
+        }
         if (authentication.isAuthenticated()) {
-            // If authenticated, generate JWT token and return
+            // If authenticated, generate JWT token and return, the password was already verified by the authentication
             log.info("user successfully authenticated {}", loginDto.getUserName());
-            return ResponseEntity.ok(userService.generateLoginToken(modelMapper.map(loginDto, User.class), true));
+            loginThrottleService.recordSuccess(loginDto.getUserName(), clientIp);
+            return ResponseEntity.ok(userService.generateLoginToken(userMapper.toUser(loginDto), false));
         } else {
             // If authentication fails, throw exception
             log.error(INVALID_CREDENTIALS.getErrorMessage());
+            loginThrottleService.recordFailure(loginDto.getUserName(), clientIp);
             throw new LBUAuthRuntimeException(INVALID_CREDENTIALS.getErrorMessage(), INVALID_CREDENTIALS.getErrorCode());
         }
     }
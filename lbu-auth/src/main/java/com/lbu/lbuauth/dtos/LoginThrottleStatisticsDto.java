@@ -0,0 +1,29 @@
+package com.lbu.lbuauth.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Login Throttle Statistics Data Transfer Object")
+public class LoginThrottleStatisticsDto {
+    @Schema(description = "Usernames with recent failed logins")
+    private Integer trackedUsernames;
+
+    @Schema(description = "Usernames currently locked out")
+    private Integer lockedUsernames;
+
+    @Schema(description = "Client IPs with recent failed logins")
+    private Integer trackedClientIps;
+
+    @Schema(description = "Client IPs currently locked out")
+    private Integer lockedClientIps;
+
+    @Schema(description = "Login attempts rejected since startup")
+    private Long rejectedAttempts;
+
+    @Schema(description = "Lockouts imposed since startup")
+    private Long lockouts;
+
+    @Schema(description = "Entries evicted to keep the throttle within its size since startup")
+    private Long evictions;
+}
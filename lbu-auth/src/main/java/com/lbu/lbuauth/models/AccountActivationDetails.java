@@ -10,13 +10,16 @@ import java.sql.Timestamp;
 
 @Data
 @Entity
-@Table(name = "account_activation_details")
+@Table(name = "account_activation_details",
+        indexes = {@Index(name = "idx_account_activation_created", columnList = "created_timestamp")})
 public class AccountActivationDetails {
 
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
+    // Hash of the activation token, the token itself is only sent to the user
+    @Column(unique = true)
     private String token;
 
     @OneToOne
@@ -0,0 +1,48 @@
+package com.lbu.lbuauth.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Table(name = "outbox_email",
+        indexes = {@Index(name = "idx_outbox_email_due", columnList = "sent_timestamp, next_attempt_timestamp")})
+public class OutboxEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    // The hash of the activation token the email carries, so each token is queued once and its Message-ID is stable across retries
+    @Column(name = "idempotency_key", unique = true, nullable = false)
+    private String idempotencyKey;
+
+    private String recipient;
+
+    private String subject;
+
+    // Carries the activation link, so it is cleared once the email is sent
+    @Column(length = 4000)
+    private String body;
+
+    private Integer attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_timestamp")
+    private Timestamp nextAttemptTimestamp;
+
+    @Column(name = "sent_timestamp")
+    private Timestamp sentTimestamp;
+
+    // Set once the email failed permanently or ran out of attempts, so it is no longer retried
+    @Column(name = "dead_lettered_timestamp")
+    private Timestamp deadLetteredTimestamp;
+
+    @Column(name = "created_timestamp")
+    @CreationTimestamp
+    private Timestamp createdTimestamp;
+}
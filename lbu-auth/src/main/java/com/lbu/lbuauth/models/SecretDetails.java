@@ -32,4 +32,7 @@ public class SecretDetails {
     @Column(name = "updated_timestamp")
     @UpdateTimestamp
     private Timestamp updatedTimestamp;
+
+    @Column(name = "expires_timestamp")
+    private Timestamp expiresTimestamp;
 }
@@ -7,6 +7,7 @@ import java.security.PublicKey;
 
 @Data
 public class SecretWrapper {
+    private String keyId;
     private PublicKey publicKey;
     private PrivateKey privateKey;
 }
@@ -9,7 +9,7 @@ import java.sql.Timestamp;
 
 @Data
 @Entity
-@Table(name = "user_metadata")
+@Table(name = "user_metadata", uniqueConstraints = @UniqueConstraint(name = "uk_user_metadata_user", columnNames = "user_id"))
 public class UserMetaData {
 
     @Id
@@ -18,7 +18,7 @@ public class UserMetaData {
 
     private Timestamp lastLoginTimestamp;
 
-    @ManyToOne
+    @OneToOne
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -7,6 +7,7 @@ public enum RoleType {
 
     USER("ROLE_GENERAL_USER", 0),
     STUDENT("ROLE_STUDENT", 1),
+    SERVICE("ROLE_SERVICE", 2),
     ADMIN("ROLE_ADMIN", 3);
 
     private final String stringRoleType;
@@ -1,9 +1,16 @@
 package com.lbu.lbuauth.repositories;
 
 import com.lbu.lbuauth.models.AccountActivationDetails;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +21,22 @@ public interface AccountActivationDetailsRepository extends CrudRepository<Accou
     Optional<AccountActivationDetails> findByToken(String token);
 
     Optional<AccountActivationDetails> findByUser_Id(String userId);
+
+    @Query("SELECT a.id FROM AccountActivationDetails a WHERE a.createdTimestamp < :expiredBefore ORDER BY a.createdTimestamp")
+    List<String> findExpiredIds(@Param("expiredBefore") Timestamp expiredBefore, Pageable pageable);
+
+    @Query("SELECT a.token FROM AccountActivationDetails a WHERE a.id IN :ids AND a.createdTimestamp < :expiredBefore")
+    List<String> findExpiredTokens(@Param("ids") Collection<String> ids, @Param("expiredBefore") Timestamp expiredBefore);
+
+    // Tokens issued before tokens were hashed are stored as they are, as 36 character UUIDs
+    @Query("SELECT a.token FROM AccountActivationDetails a WHERE LENGTH(a.token) = 36")
+    List<String> findLegacyTokens(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AccountActivationDetails a SET a.token = :tokenHash WHERE a.token = :token")
+    int replaceToken(@Param("token") String token, @Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM AccountActivationDetails a WHERE a.id IN :ids AND a.createdTimestamp < :expiredBefore")
+    int deleteExpired(@Param("ids") Collection<String> ids, @Param("expiredBefore") Timestamp expiredBefore);
 }
@@ -0,0 +1,69 @@
+package com.lbu.lbuauth.repositories;
+
+import com.lbu.lbuauth.models.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, String> {
+
+    // Lock timeout -2 is SKIP LOCKED, so dispatchers running on several instances claim different emails
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.sentTimestamp IS NULL AND e.nextAttemptTimestamp <= :now " +
+            "ORDER BY e.nextAttemptTimestamp, e.id")
+    List<OutboxEmail> findDueEmails(@Param("now") Timestamp now, Pageable pageable);
+
+    // The body carries the activation link, so it is not kept once the email is sent
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.sentTimestamp = :sentTimestamp, e.body = NULL, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<String> ids, @Param("sentTimestamp") Timestamp sentTimestamp);
+
+    // Only rows still unsent are touched, so an email removed while it was being sent is not brought back
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.nextAttemptTimestamp = :nextAttemptTimestamp, e.lastError = :lastError " +
+            "WHERE e.id IN :ids AND e.sentTimestamp IS NULL")
+    int scheduleRetry(@Param("ids") Collection<String> ids, @Param("nextAttemptTimestamp") Timestamp nextAttemptTimestamp,
+                      @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.deadLetteredTimestamp = :deadLetteredTimestamp, e.nextAttemptTimestamp = NULL, " +
+            "e.body = NULL, e.lastError = :lastError WHERE e.id IN :ids AND e.sentTimestamp IS NULL")
+    int deadLetter(@Param("ids") Collection<String> ids, @Param("deadLetteredTimestamp") Timestamp deadLetteredTimestamp,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.sentTimestamp < :sentBefore")
+    int deleteSentBefore(@Param("sentBefore") Timestamp sentBefore);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.idempotencyKey = :idempotencyKey AND e.sentTimestamp IS NULL")
+    int deleteUnsent(@Param("idempotencyKey") String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.idempotencyKey IN :idempotencyKeys AND e.sentTimestamp IS NULL")
+    int deleteAllUnsent(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.idempotencyKey = :newIdempotencyKey WHERE e.idempotencyKey = :idempotencyKey")
+    int replaceIdempotencyKey(@Param("idempotencyKey") String idempotencyKey, @Param("newIdempotencyKey") String newIdempotencyKey);
+
+    long countBySentTimestampIsNullAndDeadLetteredTimestampIsNull();
+
+    long countByDeadLetteredTimestampIsNotNull();
+
+    @Query("SELECT MIN(e.createdTimestamp) FROM OutboxEmail e WHERE e.sentTimestamp IS NULL AND e.deadLetteredTimestamp IS NULL")
+    Timestamp findOldestPendingTimestamp();
+}
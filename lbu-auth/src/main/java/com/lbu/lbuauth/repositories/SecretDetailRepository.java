@@ -5,9 +5,11 @@ import com.lbu.lbuauth.models.enums.SecretType;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface SecretDetailRepository extends CrudRepository<SecretDetails, String> {
 
-    SecretDetails findBySecretType(SecretType secretType);
+    List<SecretDetails> findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType secretType);
 
 }
@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserMetaDataRepository extends JpaRepository<UserMetaData, String> {
+public interface UserMetaDataRepository extends JpaRepository<UserMetaData, String>, UserMetaDataRepositoryCustom {
 }
@@ -0,0 +1,9 @@
+package com.lbu.lbuauth.repositories;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+public interface UserMetaDataRepositoryCustom {
+
+    int[] upsertLastLoginTimestamps(Map<String, Timestamp> lastLoginTimestamps);
+}
@@ -0,0 +1,41 @@
+package com.lbu.lbuauth.repositories;
+
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class UserMetaDataRepositoryImpl implements UserMetaDataRepositoryCustom {
+
+    private static final String UPSERT_LAST_LOGIN_TIMESTAMP = "INSERT INTO user_metadata "
+            + "(id, user_id, last_login_timestamp, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "last_login_timestamp = GREATEST(COALESCE(last_login_timestamp, VALUES(last_login_timestamp)), VALUES(last_login_timestamp)), "
+            + "updated_timestamp = VALUES(updated_timestamp)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserMetaDataRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes the last login timestamps of many users in one JDBC batch. A user without metadata gets a new row, and an
+     * existing row keeps the later of its stored and the given timestamp, so a late flush never moves a login back.
+     *
+     * @param lastLoginTimestamps The last login timestamp of each user, keyed by user id.
+     * @return The update counts of the batch.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public int[] upsertLastLoginTimestamps(Map<String, Timestamp> lastLoginTimestamps) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = lastLoginTimestamps.entrySet().stream()
+                .map(entry -> new Object[]{UUID.randomUUID().toString(), entry.getKey(), entry.getValue(), now, now})
+                .toList();
+        return jdbcTemplate.batchUpdate(UPSERT_LAST_LOGIN_TIMESTAMP, rows);
+    }
+}
@@ -2,6 +2,9 @@ package com.lbu.lbuauth.repositories;
 
 import com.lbu.lbuauth.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -9,4 +12,8 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     User findByUsername(String userName);
 
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") String id, @Param("password") String password);
+
 }
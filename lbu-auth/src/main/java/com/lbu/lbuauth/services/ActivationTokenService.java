@@ -0,0 +1,18 @@
+package com.lbu.lbuauth.services;
+
+import com.lbu.lbuauth.models.AccountActivationDetails;
+
+import java.util.Optional;
+
+public interface ActivationTokenService {
+
+    String generateToken();
+
+    String hashToken(String token);
+
+    Optional<AccountActivationDetails> findByToken(String token);
+
+    void hashLegacyTokens();
+
+    void sweepExpiredTokens();
+}
@@ -4,9 +4,9 @@ import com.lbu.lbuauth.models.User;
 
 public interface EmailService {
 
+    String ACTIVATION_EMAIL_SUBJECT = "Activate Your Account";
+
     String ACTIVATION_EMAIL_TMPL = """
-            Subject: Activate Your Account
-                            
             Dear %s,
                             
             Welcome to our platform! We're excited to have you join our community.
@@ -0,0 +1,15 @@
+package com.lbu.lbuauth.services;
+
+import com.lbu.lbuauth.models.SecretWrapper;
+import io.jsonwebtoken.JwtParser;
+
+public interface JwtKeyService {
+
+    SecretWrapper getSigningKey();
+
+    JwtParser getJwtParser();
+
+    void reloadKeys();
+
+    void rotateSigningKey();
+}
@@ -0,0 +1,10 @@
+package com.lbu.lbuauth.services;
+
+public interface LoginActivityService {
+
+    void recordLogin(String userId);
+
+    void flushIfDue();
+
+    void flush();
+}
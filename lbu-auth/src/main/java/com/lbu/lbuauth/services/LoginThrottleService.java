@@ -0,0 +1,16 @@
+package com.lbu.lbuauth.services;
+
+import com.lbu.lbuauth.dtos.LoginThrottleStatisticsDto;
+
+public interface LoginThrottleService {
+
+    void checkAllowed(String username, String clientIp);
+
+    void recordFailure(String username, String clientIp);
+
+    void recordSuccess(String username, String clientIp);
+
+    void purgeIdle();
+
+    LoginThrottleStatisticsDto getStatistics();
+}
@@ -0,0 +1,6 @@
+package com.lbu.lbuauth.services;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public interface PasswordHashingService extends PasswordEncoder {
+}
@@ -0,0 +1,6 @@
+package com.lbu.lbuauth.services;
+
+public interface ServiceAccountService {
+
+    void provisionServiceAccounts();
+}
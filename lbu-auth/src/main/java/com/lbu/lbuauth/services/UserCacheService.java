@@ -0,0 +1,14 @@
+package com.lbu.lbuauth.services;
+
+import com.lbu.lbuauth.models.User;
+
+import java.util.Optional;
+
+public interface UserCacheService {
+
+    Optional<User> getUser(String userId);
+
+    void evictUser(String userId);
+
+    void evictAll();
+}
@@ -0,0 +1,190 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.AccountActivationDetails;
+import com.lbu.lbuauth.repositories.AccountActivationDetailsRepository;
+import com.lbu.lbuauth.repositories.OutboxEmailRepository;
+import com.lbu.lbuauth.services.ActivationTokenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.INTERNAL_ERROR;
+
+@Slf4j
+@Service
+public class ActivationTokenServiceImpl implements ActivationTokenService {
+
+    private static final int TOKEN_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    @Value("${custom.properties.account.activation.resend.hours}")
+    private Long resendLimit;
+
+    @Value("${custom.properties.account.activation.sweep.batch.size}")
+    private Integer sweepBatchSize;
+
+    private final AccountActivationDetailsRepository activationDetailsRepository;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Counter sweptCounter;
+
+    /**
+     * Constructor for ActivationTokenServiceImpl.
+     *
+     * @param activationDetailsRepository Repository of the account activation details.
+     * @param outboxEmailRepository       Repository of the queued activation emails.
+     * @param transactionTemplate         Template for the short transaction of each sweep batch.
+     * @param meterRegistry               Registry used to publish the swept tokens.
+     */
+    public ActivationTokenServiceImpl(AccountActivationDetailsRepository activationDetailsRepository,
+                                      OutboxEmailRepository outboxEmailRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.activationDetailsRepository = activationDetailsRepository;
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sweptCounter = meterRegistry.counter("lbu.auth.activation.tokens.swept");
+    }
+
+    /**
+     * Generates a new activation token of 128 random bits, encoded as 22 URL safe characters.
+     *
+     * @return The activation token to send to the user.
+     */
+    @Override
+    public String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * Hashes an activation token with SHA-256 into 43 URL safe characters. Only the hash is stored, so the activation
+     * details do not reveal usable tokens. The token is random, so an unsalted fast hash is enough.
+     *
+     * @param token The activation token.
+     * @return The hash of the token as it is stored.
+     */
+    @Override
+    public String hashToken(String token) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
+        }
+    }
+
+    /**
+     * Finds the activation details of a token through the unique index on its hash. Every token is hashed before the
+     * lookup, so a stored hash read from the database does not activate an account when it is submitted as a token.
+     *
+     * @param token The activation token from the activation link.
+     * @return The activation details of the token if available.
+     */
+    @Override
+    public Optional<AccountActivationDetails> findByToken(String token) {
+        if (Objects.isNull(token)) {
+            return Optional.empty();
+        }
+        return activationDetailsRepository.findByToken(hashToken(token));
+    }
+
+    /**
+     * Replaces the tokens issued before tokens were hashed with their hashes once the application is ready, along with
+     * the idempotency keys of their queued emails, so the links already sent keep working and no token is stored as it
+     * is. The tokens are replaced in batches, each in its own short transaction. Once no such token is left this is a
+     * single indexed read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Override
+    public void hashLegacyTokens() {
+        long hashed = 0;
+        while (true) {
+            List<String> tokens = activationDetailsRepository.findLegacyTokens(PageRequest.of(0, sweepBatchSize));
+            if (tokens.isEmpty()) {
+                break;
+            }
+            Integer replaced = transactionTemplate.execute(status -> {
+                int replacedTokens = 0;
+                for (String token : tokens) {
+                    String tokenHash = hashToken(token);
+                    replacedTokens += activationDetailsRepository.replaceToken(token, tokenHash);
+                    outboxEmailRepository.replaceIdempotencyKey(token, tokenHash);
+                }
+                return replacedTokens;
+            });
+            if (Objects.isNull(replaced) || replaced == 0) {
+                break;
+            }
+            hashed += replaced;
+            if (tokens.size() < sweepBatchSize) {
+                break;
+            }
+        }
+        if (hashed > 0) {
+            log.info("hashed {} account activation tokens issued before tokens were hashed", hashed);
+        }
+    }
+
+    /**
+     * Periodically deletes the activation details whose token has expired. The expired rows are found with a plain
+     * read on the created timestamp index and deleted by id in batches, each in its own short transaction, so only the
+     * rows of one batch are locked at a time and activations are never blocked behind the sweep. The queued emails of
+     * the swept tokens which were never sent are deleted in the same transaction, so their activation links are not
+     * kept and not sent after the token is gone.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.account.activation.sweep.seconds}",
+            initialDelayString = "${custom.properties.account.activation.sweep.seconds}",
+            timeUnit = TimeUnit.SECONDS)
+    public void sweepExpiredTokens() {
+        Timestamp expiredBefore = Timestamp.from(Instant.now().minus(Duration.ofHours(resendLimit)));
+        long swept = 0;
+        while (true) {
+            List<String> ids = activationDetailsRepository.findExpiredIds(expiredBefore, PageRequest.of(0, sweepBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<String> tokens = activationDetailsRepository.findExpiredTokens(ids, expiredBefore);
+                if (!tokens.isEmpty()) {
+                    outboxEmailRepository.deleteAllUnsent(tokens);
+                }
+                return activationDetailsRepository.deleteExpired(ids, expiredBefore);
+            });
+            if (Objects.isNull(deleted) || deleted == 0) {
+                break;
+            }
+            swept += deleted;
+            if (ids.size() < sweepBatchSize) {
+                break;
+            }
+        }
+        if (swept > 0) {
+            sweptCounter.increment(swept);
+            log.info("deleted {} expired account activation tokens", swept);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.OutboxEmail;
+import com.lbu.lbuauth.repositories.OutboxEmailRepository;
+import com.lbu.lbuauth.services.EmailDispatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.EMAIL_OUTBOX_LEASE_TOO_SHORT;
+
+@Slf4j
+@Service
+public class EmailDispatchServiceImpl implements EmailDispatchService {
+
+    private static final String MESSAGE_ID_HEADER = "Message-ID";
+    // An SMTP reply in the 5xx range is a permanent failure, sending the same email again gets the same reply
+    private static final Pattern PERMANENT_REPLY = Pattern.compile("^5\\d\\d\\b");
+
+    @Value("${custom.properties.email.from}")
+    private String from;
+
+    @Value("${custom.properties.email.outbox.batch.size}")
+    private Integer batchSize;
+
+    @Value("${custom.properties.email.outbox.lease.seconds}")
+    private Long leaseSeconds;
+
+    @Value("${custom.properties.email.outbox.retry.backoff.base.millis}")
+    private Long backoffBaseMillis;
+
+    @Value("${custom.properties.email.outbox.retry.backoff.max.millis}")
+    private Long backoffMaxMillis;
+
+    @Value("${custom.properties.email.outbox.retention.hours}")
+    private Long retentionHours;
+
+    @Value("${custom.properties.email.outbox.max.attempts}")
+    private Integer maxAttempts;
+
+    @Value("${spring.mail.properties.mail.smtp.connectiontimeout}")
+    private Long connectionTimeoutMillis;
+
+    @Value("${spring.mail.properties.mail.smtp.timeout}")
+    private Long readTimeoutMillis;
+
+    @Value("${spring.mail.properties.mail.smtp.writetimeout}")
+    private Long writeTimeoutMillis;
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer batchTimer;
+    private final Timer deliveryLagTimer;
+    private final AtomicLong pendingEmails = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong deadLetteredEmails = new AtomicLong();
+
+    /**
+     * Constructor for EmailDispatchServiceImpl.
+     *
+     * @param outboxEmailRepository Repository of the queued emails.
+     * @param mailSender            Sender of the emails over SMTP.
+     * @param transactionTemplate   Template for the short transactions which claim and complete the emails.
+     * @param meterRegistry         Registry used to publish the sent, failed, dead lettered and pending emails.
+     */
+    public EmailDispatchServiceImpl(OutboxEmailRepository outboxEmailRepository,
+                                    JavaMailSender mailSender,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.sentCounter = meterRegistry.counter("lbu.auth.email.outbox.sent");
+        this.failedCounter = meterRegistry.counter("lbu.auth.email.outbox.failed");
+        this.deadLetteredCounter = meterRegistry.counter("lbu.auth.email.outbox.dead.lettered");
+        this.batchTimer = meterRegistry.timer("lbu.auth.email.outbox.batch");
+        this.deliveryLagTimer = meterRegistry.timer("lbu.auth.email.outbox.delivery.lag");
+        meterRegistry.gauge("lbu.auth.email.outbox.pending", pendingEmails);
+        meterRegistry.gauge("lbu.auth.email.outbox.lag.seconds", oldestPendingAgeSeconds);
+        meterRegistry.gauge("lbu.auth.email.outbox.dead.lettered.pending", deadLetteredEmails);
+    }
+
+    /**
+     * Checks that the lease of a claimed batch outlasts the slowest send of the batch, one connection followed by a
+     * write and a reply timing out for every email. A shorter lease expires while the batch is still being sent, so
+     * another dispatcher claims the same emails and sends them a second time.
+     *
+     * @throws LBUAuthRuntimeException If the lease is not longer than the slowest send of a batch.
+     */
+    @PostConstruct
+    public void validateLease() {
+        long slowestBatchMillis = connectionTimeoutMillis + batchSize * (writeTimeoutMillis + readTimeoutMillis);
+        if (TimeUnit.SECONDS.toMillis(leaseSeconds) <= slowestBatchMillis) {
+            log.error("Email outbox lease of {} s is not longer than the {} ms a batch of {} emails can take to send",
+                    leaseSeconds, slowestBatchMillis, batchSize);
+            throw new LBUAuthRuntimeException(EMAIL_OUTBOX_LEASE_TOO_SHORT.getErrorMessage(), EMAIL_OUTBOX_LEASE_TOO_SHORT.getErrorCode());
+        }
+    }
+
+    /**
+     * Sends the queued emails. Each round claims a batch of due emails in a short transaction, which pushes their next
+     * attempt past a lease so another dispatcher instance does not pick them up, and sends the whole batch over one SMTP
+     * connection outside of any transaction. Sent emails are marked sent, and emails the mail server did not accept are
+     * scheduled again with an exponential backoff with jitter. An email with an invalid recipient, one the mail server
+     * rejected with a permanent 5xx reply, or one which failed the maximum number of attempts is dead lettered and no
+     * longer retried. Every email of a token carries the same Message-ID, so a batch sent again after a crash before it
+     * was marked sent can be recognised as a duplicate by the receiving side.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.email.outbox.dispatch.millis}",
+            initialDelayString = "${custom.properties.email.outbox.dispatch.millis}", timeUnit = TimeUnit.MILLISECONDS)
+    public void dispatchEmails() {
+        while (true) {
+            List<OutboxEmail> emails = transactionTemplate.execute(status -> claimDueEmails());
+            if (Objects.isNull(emails) || emails.isEmpty() || !send(emails) || emails.size() < batchSize) {
+                break;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxEmailRepository.deleteSentBefore(
+                Timestamp.from(Instant.now().minus(Duration.ofHours(retentionHours)))));
+        updateLag();
+    }
+
+    private List<OutboxEmail> claimDueEmails() {
+        Instant now = Instant.now();
+        List<OutboxEmail> emails = outboxEmailRepository.findDueEmails(Timestamp.from(now), PageRequest.of(0, batchSize));
+        emails.forEach(email -> {
+            email.setAttempts(email.getAttempts() + 1);
+            email.setNextAttemptTimestamp(Timestamp.from(now.plusSeconds(leaseSeconds)));
+        });
+        return outboxEmailRepository.saveAll(emails);
+    }
+
+    private boolean send(List<OutboxEmail> emails) {
+        Map<MimeMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        Map<OutboxEmail, Exception> failures = new IdentityHashMap<>();
+        for (OutboxEmail email : emails) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            if (!messages.isEmpty()) {
+                // One send call delivers the whole batch over a single SMTP connection
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            }
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, exception) -> failures.put(messages.get(message), exception));
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        } catch (MailException e) {
+            messages.values().forEach(email -> failures.put(email, e));
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        failures.remove(null);
+        List<OutboxEmail> sentEmails = emails.stream().filter(email -> !failures.containsKey(email)).collect(Collectors.toList());
+        if (!sentEmails.isEmpty()) {
+            Instant sentAt = Instant.now();
+            transactionTemplate.executeWithoutResult(status -> outboxEmailRepository.markSent(
+                    sentEmails.stream().map(OutboxEmail::getId).collect(Collectors.toList()), Timestamp.from(sentAt)));
+            sentCounter.increment(sentEmails.size());
+            sentEmails.forEach(email -> deliveryLagTimer.record(
+                    Duration.between(email.getCreatedTimestamp().toInstant(), sentAt)));
+            log.info("Sent {} outbox emails", sentEmails.size());
+        }
+        if (!failures.isEmpty()) {
+            failedCounter.increment(failures.size());
+            log.error("An error occurred while sending {} outbox emails", failures.size(), failures.values().iterator().next());
+            scheduleRetry(failures);
+        }
+        return failures.isEmpty();
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+        helper.setFrom(from);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        message.setHeader(MESSAGE_ID_HEADER, "<" + email.getIdempotencyKey() + "@lbu-auth>");
+        return message;
+    }
+
+    // The emails are updated by id rather than saved, since saving an email deleted while it was sent inserts it again
+    private void scheduleRetry(Map<OutboxEmail, Exception> failures) {
+        Map<Boolean, List<OutboxEmail>> deadLettered = failures.keySet().stream().collect(Collectors.partitioningBy(
+                email -> email.getAttempts() >= maxAttempts || isPermanent(failures.get(email))));
+        if (!deadLettered.get(true).isEmpty()) {
+            deadLetter(deadLettered.get(true), failures);
+        }
+        Instant now = Instant.now();
+        // Emails which failed the same way on the same attempt are backed off together with one update
+        Map<Integer, Map<String, List<String>>> retries = deadLettered.get(false).stream()
+                .collect(Collectors.groupingBy(OutboxEmail::getAttempts, Collectors.groupingBy(
+                        email -> abbreviate(failures.get(email).toString()),
+                        Collectors.mapping(OutboxEmail::getId, Collectors.toList()))));
+        if (retries.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> retries.forEach((attempts, errors) ->
+                errors.forEach((lastError, ids) -> outboxEmailRepository.scheduleRetry(ids,
+                        Timestamp.from(now.plusMillis(backoffMillis(attempts))), lastError))));
+    }
+
+    private void deadLetter(List<OutboxEmail> emails, Map<OutboxEmail, Exception> failures) {
+        Timestamp deadLetteredAt = Timestamp.from(Instant.now());
+        Map<String, List<String>> errors = emails.stream().collect(Collectors.groupingBy(
+                email -> abbreviate(failures.get(email).toString()),
+                Collectors.mapping(OutboxEmail::getId, Collectors.toList())));
+        transactionTemplate.executeWithoutResult(status -> errors.forEach((lastError, ids) ->
+                outboxEmailRepository.deadLetter(ids, deadLetteredAt, lastError)));
+        deadLetteredCounter.increment(emails.size());
+        log.error("Dead lettered {} outbox emails {}", emails.size(),
+                emails.stream().map(OutboxEmail::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Whether sending the email again cannot succeed, because a recipient address is invalid or the mail server
+     * rejected the email with a permanent 5xx reply rather than a transient 4xx reply or a connection failure.
+     */
+    private static boolean isPermanent(Exception e) {
+        for (Throwable cause = e; Objects.nonNull(cause); cause = cause.getCause()) {
+            if (cause instanceof AddressException) {
+                return true;
+            }
+            if (cause instanceof SendFailedException sendFailed && Objects.nonNull(sendFailed.getInvalidAddresses())
+                    && sendFailed.getInvalidAddresses().length > 0) {
+                return true;
+            }
+            if (cause instanceof MessagingException && Objects.nonNull(cause.getMessage())
+                    && PERMANENT_REPLY.matcher(cause.getMessage().trim()).find()) {
+                return true;
+            }
+            if (cause == cause.getCause()) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = backoffBaseMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(backoff, backoffMaxMillis);
+        // Half of the backoff is random, so emails that failed together in one batch are not retried together with
+        // the emails of other batches
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private static String abbreviate(String error) {
+        return error.length() <= 1000 ? error : error.substring(0, 997) + "...";
+    }
+
+    private void updateLag() {
+        pendingEmails.set(outboxEmailRepository.countBySentTimestampIsNullAndDeadLetteredTimestampIsNull());
+        deadLetteredEmails.set(outboxEmailRepository.countByDeadLetteredTimestampIsNotNull());
+        Timestamp oldestPending = outboxEmailRepository.findOldestPendingTimestamp();
+        oldestPendingAgeSeconds.set(Objects.isNull(oldestPending) ? 0
+                : Duration.between(oldestPending.toInstant(), Instant.now()).toSeconds());
+    }
+}
@@ -2,16 +2,19 @@ package com.lbu.lbuauth.services.impl;
 
 import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
 import com.lbu.lbuauth.models.AccountActivationDetails;
+import com.lbu.lbuauth.models.OutboxEmail;
 import com.lbu.lbuauth.models.User;
 import com.lbu.lbuauth.repositories.AccountActivationDetailsRepository;
+import com.lbu.lbuauth.repositories.OutboxEmailRepository;
+import com.lbu.lbuauth.services.ActivationTokenService;
 import com.lbu.lbuauth.services.EmailService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
 import java.util.Date;
 import java.util.Optional;
-import java.util.UUID;
 
 import static com.lbu.lbuauth.commons.constants.ErrorConstants.ACCOUNT_ACTIVATION_OLD_TOKEN_VALID_ERROR;
 import static com.lbu.lbuauth.commons.constants.ErrorConstants.EMAIL_SEND_FAILED;
@@ -26,14 +29,22 @@ public class EmailServiceImpl implements EmailService {
     private Long resendLimit;
 
     private final AccountActivationDetailsRepository activationDetailsRepository;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final ActivationTokenService activationTokenService;
 
     /**
      * Initializes an EmailServiceImpl with the provided AccountActivationDetailsRepository.
      *
      * @param activationDetailsRepository The repository used to access account activation details.
+     * @param outboxEmailRepository       The repository the activation emails are queued in for the email dispatcher.
+     * @param activationTokenService      The service generating and hashing the activation tokens.
      */
-    public EmailServiceImpl(AccountActivationDetailsRepository activationDetailsRepository) {
+    public EmailServiceImpl(AccountActivationDetailsRepository activationDetailsRepository,
+                            OutboxEmailRepository outboxEmailRepository,
+                            ActivationTokenService activationTokenService) {
         this.activationDetailsRepository = activationDetailsRepository;
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.activationTokenService = activationTokenService;
     }
 
     /**
@@ -53,6 +64,8 @@ public class EmailServiceImpl implements EmailService {
             long timeDifference = currentDate.getTime() - accountActivationDetails.getCreatedTimestamp().getTime();
             long hours = timeDifference / (1000 * 60 * 60);
             if (resendLimit <= hours) {
+                // The email of the replaced token is not sent if it is still queued
+                outboxEmailRepository.deleteUnsent(accountActivationDetails.getToken());
                 activationDetailsRepository.delete(accountActivationDetails);
                 sendActivation(user);
             } else {
@@ -64,22 +77,30 @@ public class EmailServiceImpl implements EmailService {
     }
 
     /**
-     * Sends an activation email to the specified user. It generates a unique token, logs the email content, saves the
-     * activation details, and sends the email. If any exception occurs during this process, it is caught and rethrown
-     * as an LBUAuthRuntimeException.
+     * Queues an activation email to the specified user. It generates a unique token, saves the activation details with
+     * the hash of the token and writes the email to the outbox in the caller's transaction, so the email is queued
+     * exactly when the token is stored. The email dispatcher sends it afterwards, so the mail server's latency is not part of the signup. If any
+     * exception occurs during this process, it is caught and rethrown as an LBUAuthRuntimeException.
      *
      * @param user The user to send the activation email to.
      */
     private void sendActivation(User user) {
         try {
-            String token = UUID.randomUUID().toString();
-            log.info("*************** Sending an Email ***************");
-            log.info("email: {} content: \n {}", user.getEmail(), String.format(ACTIVATION_EMAIL_TMPL, user.getFirstName() + " " + user.getLastName(), activationLinkPrefix + token));
-            log.info("*************** End an Email ***************");
+            String token = activationTokenService.generateToken();
+            String tokenHash = activationTokenService.hashToken(token);
             AccountActivationDetails activationDetails = new AccountActivationDetails();
             activationDetails.setUser(user);
-            activationDetails.setToken(token);
+            activationDetails.setToken(tokenHash);
             activationDetailsRepository.save(activationDetails);
+            OutboxEmail outboxEmail = new OutboxEmail();
+            outboxEmail.setIdempotencyKey(tokenHash);
+            outboxEmail.setRecipient(user.getEmail());
+            outboxEmail.setSubject(ACTIVATION_EMAIL_SUBJECT);
+            outboxEmail.setBody(String.format(ACTIVATION_EMAIL_TMPL, user.getFirstName() + " " + user.getLastName(), activationLinkPrefix + token));
+            outboxEmail.setAttempts(0);
+            outboxEmail.setNextAttemptTimestamp(new Timestamp(System.currentTimeMillis()));
+            outboxEmailRepository.save(outboxEmail);
+            log.info("queued an activation email to user [{}]", user.getUsername());
         } catch (Exception e) {
             throw new LBUAuthRuntimeException(EMAIL_SEND_FAILED.getErrorMessage(), e, EMAIL_SEND_FAILED.getErrorCode());
         }
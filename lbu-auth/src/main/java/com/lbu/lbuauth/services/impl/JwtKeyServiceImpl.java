@@ -0,0 +1,309 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.SecretDetails;
+import com.lbu.lbuauth.models.SecretWrapper;
+import com.lbu.lbuauth.models.enums.SecretType;
+import com.lbu.lbuauth.repositories.SecretDetailRepository;
+import com.lbu.lbuauth.services.JwtKeyService;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.JWT_TOKEN_SECRET_NOT_AVAILABLE;
+
+@Slf4j
+@Service
+public class JwtKeyServiceImpl implements JwtKeyService {
+
+    private static final long UNKNOWN_KEY_RELOAD_INTERVAL_MILLIS = 10_000;
+
+    private final SecretDetailRepository secretDetailRepository;
+    private final JwtParser jwtParser;
+    private volatile KeyRing keyRing;
+    private volatile long lastUnknownKeyReload;
+
+    @Value("${custom.properties.jwt.expiration.hours}")
+    private Integer expirationDuration;
+    @Value("${custom.properties.jwt.key.rotation.days}")
+    private Integer rotationDays;
+
+    /**
+     * Constructor for JwtKeyServiceImpl. The JWT parser is built once and resolves the verification key for each
+     * token from the in-memory key ring through the token's kid header.
+     *
+     * @param secretDetailRepository Repository for managing secret details.
+     */
+    public JwtKeyServiceImpl(SecretDetailRepository secretDetailRepository) {
+        this.secretDetailRepository = secretDetailRepository;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new KeyRingLocator())
+                .build();
+    }
+
+    /**
+     * Returns the active signing key pair. If no key has been stored yet, a new RSA key pair is generated and saved.
+     *
+     * @return Wrapper containing the key id and the parsed public and private keys.
+     */
+    @Override
+    public SecretWrapper getSigningKey() {
+        KeyRing ring = currentKeyRing();
+        if (Objects.nonNull(ring.signingKey())) {
+            return ring.signingKey();
+        }
+        synchronized (this) {
+            if (Objects.isNull(keyRing.signingKey())) {
+                secretDetailRepository.save(createSecretDetails());
+                keyRing = loadKeyRing();
+            }
+            return keyRing.signingKey();
+        }
+    }
+
+    /**
+     * Returns the shared JWT parser backed by the in-memory key ring.
+     *
+     * @return The pre-built JWT parser.
+     * @throws LBUAuthRuntimeException If no verification key is available.
+     */
+    @Override
+    public JwtParser getJwtParser() {
+        if (currentKeyRing().verificationKeys().isEmpty()) {
+            throw new LBUAuthRuntimeException(JWT_TOKEN_SECRET_NOT_AVAILABLE.getErrorMessage(), JWT_TOKEN_SECRET_NOT_AVAILABLE.getErrorCode());
+        }
+        return jwtParser;
+    }
+
+    /**
+     * Periodically re-reads the secret details and rebuilds the key ring when a secret row was added, updated or
+     * removed. Expired keys are deleted and the signing key is rotated once it is older than the configured rotation age.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.jwt.key.reload.seconds}",
+            initialDelayString = "${custom.properties.jwt.key.reload.seconds}",
+            timeUnit = TimeUnit.SECONDS)
+    public void reloadKeys() {
+        List<SecretDetails> secretDetails = secretDetailRepository.findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET);
+        List<SecretDetails> expired = expiredKeys(secretDetails);
+        if (!expired.isEmpty()) {
+            log.info("Removing {} expired jwt keys", expired.size());
+            secretDetailRepository.deleteAll(expired);
+            secretDetails.removeAll(expired);
+        }
+        KeyRing ring = keyRing;
+        if (Objects.isNull(ring) || !ring.fingerprint().equals(fingerprint(secretDetails))) {
+            log.info("Secret details changed, reloading the jwt key ring");
+            keyRing = buildKeyRing(secretDetails);
+        }
+        if (isRotationDue(secretDetails)) {
+            rotateSigningKey();
+        }
+    }
+
+    /**
+     * Generates a new signing key and retires the current ones. Retired keys remain valid for verification until every
+     * token signed with them has expired.
+     */
+    @Override
+    public synchronized void rotateSigningKey() {
+        Timestamp retireAt = Timestamp.from(Instant.now().plus(Duration.ofHours(expirationDuration)));
+        List<SecretDetails> secretDetails = secretDetailRepository.findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET);
+        secretDetails.stream()
+                .filter(secret -> Objects.isNull(secret.getExpiresTimestamp()))
+                .forEach(secret -> secret.setExpiresTimestamp(retireAt));
+        secretDetails.add(createSecretDetails());
+        secretDetailRepository.saveAll(secretDetails);
+        keyRing = loadKeyRing();
+        log.info("Rotated the jwt signing key, new key id {}", keyRing.signingKey().getKeyId());
+    }
+
+    private KeyRing currentKeyRing() {
+        KeyRing ring = keyRing;
+        if (Objects.isNull(ring)) {
+            synchronized (this) {
+                if (Objects.isNull(keyRing)) {
+                    keyRing = loadKeyRing();
+                }
+                ring = keyRing;
+            }
+        }
+        return ring;
+    }
+
+    private KeyRing loadKeyRing() {
+        return buildKeyRing(secretDetailRepository.findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET));
+    }
+
+    /**
+     * Parses the stored keys into a new immutable key ring. The newest key which is not retired becomes the signing key
+     * and the oldest key is used for tokens issued before key ids were added to the header. Expired keys are left out
+     * of the ring but not deleted here, since the ring is also built on request threads; they are deleted by the
+     * scheduled reload.
+     *
+     * @param secretDetails Secret details ordered from newest to oldest.
+     * @return The parsed key ring.
+     */
+    private KeyRing buildKeyRing(List<SecretDetails> secretDetails) {
+        List<SecretDetails> expired = expiredKeys(secretDetails);
+        try {
+            SecretWrapper signingKey = null;
+            PublicKey legacyKey = null;
+            Map<String, PublicKey> verificationKeys = new HashMap<>();
+            for (SecretDetails secret : secretDetails) {
+                if (expired.contains(secret)) {
+                    continue;
+                }
+                PublicKey publicKey = stringToPublicKey(secret.getPublicKey());
+                verificationKeys.put(secret.getId(), publicKey);
+                legacyKey = publicKey;
+                if (Objects.isNull(signingKey) && Objects.isNull(secret.getExpiresTimestamp())) {
+                    signingKey = new SecretWrapper();
+                    signingKey.setKeyId(secret.getId());
+                    signingKey.setPublicKey(publicKey);
+                    signingKey.setPrivateKey(stringToPrivateKey(secret.getPrivateKey()));
+                }
+            }
+            return new KeyRing(signingKey, legacyKey, Map.copyOf(verificationKeys), fingerprint(secretDetails));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            log.error("An error occurred while parsing public key and private key", e);
+            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
+        }
+    }
+
+    private List<SecretDetails> expiredKeys(List<SecretDetails> secretDetails) {
+        Instant now = Instant.now();
+        return secretDetails.stream()
+                .filter(secret -> Objects.nonNull(secret.getExpiresTimestamp()) && secret.getExpiresTimestamp().toInstant().isBefore(now))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isRotationDue(List<SecretDetails> secretDetails) {
+        if (rotationDays <= 0) {
+            return false;
+        }
+        Instant rotateBefore = Instant.now().minus(Duration.ofDays(rotationDays));
+        return secretDetails.stream()
+                .filter(secret -> Objects.isNull(secret.getExpiresTimestamp()))
+                .findFirst()
+                .map(secret -> Objects.nonNull(secret.getCreatedTimestamp()) && secret.getCreatedTimestamp().toInstant().isBefore(rotateBefore))
+                .orElse(false);
+    }
+
+    private String fingerprint(List<SecretDetails> secretDetails) {
+        return secretDetails.stream()
+                .map(secret -> secret.getId() + ":" + secret.getUpdatedTimestamp() + ":" + secret.getExpiresTimestamp())
+                .collect(Collectors.joining(","));
+    }
+
+    private SecretDetails createSecretDetails() {
+        try {
+            SecretWrapper secretWrapper = generateSecretWrapper();
+            SecretDetails secret = new SecretDetails();
+            secret.setSecretType(SecretType.JWT_SECRET);
+            secret.setPrivateKey(keyToString(secretWrapper.getPrivateKey()));
+            secret.setPublicKey(keyToString(secretWrapper.getPublicKey()));
+            return secret;
+        } catch (NoSuchAlgorithmException e) {
+            log.error("An error occurred while generating public key and private key", e);
+            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
+        }
+    }
+
+    /**
+     * Converts a string representation of a private key to a PrivateKey object.
+     *
+     * @param privateKeyString The string representation of the private key.
+     * @return PrivateKey object.
+     * @throws NoSuchAlgorithmException If the specified algorithm for key generation is invalid.
+     * @throws InvalidKeySpecException If the provided key specification is invalid.
+     */
+    private PrivateKey stringToPrivateKey(String privateKeyString) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return KeyFactory.getInstance("RSA")
+                .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyString.trim())));
+    }
+
+    /**
+     * Converts a string representation of a public key to a PublicKey object.
+     * @param publicKeyString The string representation of the public key.
+     * @return PublicKey object.
+     * @throws InvalidKeySpecException If the provided key specification is invalid.
+     * @throws NoSuchAlgorithmException If the specified algorithm for key generation is invalid.
+     */
+    private PublicKey stringToPublicKey(String publicKeyString) throws InvalidKeySpecException, NoSuchAlgorithmException {
+        return KeyFactory.getInstance("RSA")
+                .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyString.trim())));
+    }
+
+    /**
+     * Generates a secret key pair for JWT token signing.
+     * @return Wrapper containing the generated public and private keys.
+     * @throws NoSuchAlgorithmException If the specified key pair generation algorithm is invalid.
+     */
+    private SecretWrapper generateSecretWrapper() throws NoSuchAlgorithmException {
+        // Generating KeyPair
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048); // Key size of 2048 bits
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        SecretWrapper secretWrapper = new SecretWrapper();
+        secretWrapper.setPrivateKey(keyPair.getPrivate());
+        secretWrapper.setPublicKey(keyPair.getPublic());
+        return secretWrapper;
+    }
+
+    /**
+     * Converts a public/private key to its string representation.
+     * @param key The key to be converted.
+     * @return String representation of the key.
+     */
+    private String keyToString(Key key) {
+        return Base64.getEncoder().encodeToString(key.getEncoded());
+    }
+
+    private record KeyRing(SecretWrapper signingKey, PublicKey legacyKey, Map<String, PublicKey> verificationKeys,
+                           String fingerprint) {
+    }
+
+    /**
+     * Resolves the verification key of a signed token from its kid header. An unknown key id triggers a rate limited
+     * reload so keys rotated by another instance are picked up without waiting for the scheduled reload.
+     */
+    private class KeyRingLocator extends LocatorAdapter<Key> {
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String keyId = header.getKeyId();
+            if (Objects.isNull(keyId)) {
+                return currentKeyRing().legacyKey();
+            }
+            PublicKey publicKey = currentKeyRing().verificationKeys().get(keyId);
+            if (Objects.isNull(publicKey) && System.currentTimeMillis() - lastUnknownKeyReload > UNKNOWN_KEY_RELOAD_INTERVAL_MILLIS) {
+                lastUnknownKeyReload = System.currentTimeMillis();
+                keyRing = loadKeyRing();
+                publicKey = keyRing.verificationKeys().get(keyId);
+            }
+            if (Objects.isNull(publicKey)) {
+                throw new UnsupportedJwtException("Unknown jwt signing key id " + keyId);
+            }
+            return publicKey;
+        }
+    }
+}
@@ -2,14 +2,14 @@ package com.lbu.lbuauth.services.impl;
 
 import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
 import com.lbu.lbuauth.dtos.JWTTokenDto;
-import com.lbu.lbuauth.models.SecretDetails;
 import com.lbu.lbuauth.models.SecretWrapper;
 import com.lbu.lbuauth.models.User;
-import com.lbu.lbuauth.models.enums.SecretType;
-import com.lbu.lbuauth.repositories.SecretDetailRepository;
-import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.JwtKeyService;
 import com.lbu.lbuauth.services.JwtService;
+import com.lbu.lbuauth.services.UserCacheService;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,10 +19,6 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.*;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -34,22 +30,27 @@ import static com.lbu.lbuauth.commons.constants.ErrorConstants.*;
 @Service
 public class JwtServiceImpl implements JwtService {
     Pattern BEARER_PATTERN = Pattern.compile("Bearer\\s+(.*)");
-    private final SecretDetailRepository secretDetailRepository;
-    private final UserRepository userRepository;
+    private final JwtKeyService jwtKeyService;
+    private final UserCacheService userCacheService;
+    private final Counter dbLookupsAvoidedCounter;
 
     @Value("${custom.properties.jwt.expiration.hours}")
     private Integer expirationDuration;
     @Value("${custom.properties.jwt.issuer}")
     private String tokenIssuer;
+    @Value("${custom.properties.jwt.claims.principal}")
+    private boolean claimsPrincipal;
 
     /**
      * Constructor for JwtServiceImpl.
-     * @param secretDetailRepository Repository for managing secret details.
-     * @param userRepository Repository for managing user data.
+     * @param jwtKeyService Service holding the cached signing and verification keys.
+     * @param userCacheService Short lived cache of user entities.
+     * @param meterRegistry Registry used to publish the avoided user lookups.
      */
-    public JwtServiceImpl(SecretDetailRepository secretDetailRepository, UserRepository userRepository) {
-        this.secretDetailRepository = secretDetailRepository;
-        this.userRepository = userRepository;
+    public JwtServiceImpl(JwtKeyService jwtKeyService, UserCacheService userCacheService, MeterRegistry meterRegistry) {
+        this.jwtKeyService = jwtKeyService;
+        this.userCacheService = userCacheService;
+        this.dbLookupsAvoidedCounter = meterRegistry.counter("lbu.auth.user.db.lookups.avoided");
     }
 
     /**
@@ -74,27 +75,29 @@ public class JwtServiceImpl implements JwtService {
     }
 
     /**
-     * Retrieves authentication details from the JWT token.
+     * Retrieves authentication details from the JWT token. The token is verified once and, when the claims principal
+     * mode is enabled, the principal is built only from the verified claims without loading the user. Otherwise the
+     * user entity is resolved through the short lived user cache.
      * @param authToken The JWT token.
      * @return Authentication details.
-     * @throws LBUAuthRuntimeException If an error occurs during token validation or user retrieval.
+     * @throws LBUAuthRuntimeException If the token is invalid or the user is not available.
      */
     public Authentication getAuthentication(String authToken) {
-        try {
-            Claims claims = validateAndGetClaims(authToken);
-            List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
-            GrantedAuthority authority = new SimpleGrantedAuthority(claims.get(ROLES).toString());
-            grantedAuthorities.add(authority);
-            Optional<User> optionalUser = userRepository.findById(claims.get(USER_ID).toString());
-            if (optionalUser.isPresent()) {
-                UserDetails userDetails = optionalUser.get();
-                return new UsernamePasswordAuthenticationToken(userDetails, null, grantedAuthorities);
-            } else {
-                throw new LBUAuthRuntimeException(JWT_TOKEN_USER_NOT_AVAILABLE.getErrorMessage(), JWT_TOKEN_USER_NOT_AVAILABLE.getErrorCode());
-            }
-        } catch (Exception e) {
-            log.error("An error occurred while generating public key and private key", e);
-            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
+        Claims claims = validateAndGetClaims(authToken);
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        GrantedAuthority authority = new SimpleGrantedAuthority(claims.get(ROLES).toString());
+        grantedAuthorities.add(authority);
+        if (claimsPrincipal) {
+            dbLookupsAvoidedCounter.increment();
+            UserDetails userDetails = new org.springframework.security.core.userdetails.User(claims.getSubject(), "", grantedAuthorities);
+            return new UsernamePasswordAuthenticationToken(userDetails, null, grantedAuthorities);
+        }
+        Optional<User> optionalUser = userCacheService.getUser(claims.get(USER_ID).toString());
+        if (optionalUser.isPresent()) {
+            UserDetails userDetails = optionalUser.get();
+            return new UsernamePasswordAuthenticationToken(userDetails, null, grantedAuthorities);
+        } else {
+            throw new LBUAuthRuntimeException(JWT_TOKEN_USER_NOT_AVAILABLE.getErrorMessage(), JWT_TOKEN_USER_NOT_AVAILABLE.getErrorCode());
         }
     }
 
@@ -115,39 +118,26 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public JWTTokenDto generateJwtToken(User selectedUser) {
-        try {
-            SecretDetails secretDetails = secretDetailRepository.findBySecretType(SecretType.JWT_SECRET);
-            if (Objects.isNull(secretDetails)) {
-                SecretDetails secret = new SecretDetails();
-                secret.setSecretType(SecretType.JWT_SECRET);
-                SecretWrapper secretWrapper = generateSecretWrapper();
-                secret.setPrivateKey(keyToString(secretWrapper.getPrivateKey()));
-                secret.setPublicKey(keyToString(secretWrapper.getPublicKey()));
-                secretDetails = secretDetailRepository.save(secret);
-
-            }
-            JWTTokenDto jwtTokenDto = new JWTTokenDto();
-            Map<String, Object> claims = new HashMap<>();
-            claims.put(ROLES, selectedUser.getRoleType().getStringRoleType());
-            claims.put(USER_ID, selectedUser.getId());
-            claims.put(FIRST_NAME, selectedUser.getFirstName());
-            claims.put(LAST_NAME, selectedUser.getLastName());
-            jwtTokenDto.setJwtToken(Jwts.builder()
-                    .subject(selectedUser.getUsername())
-                    .issuer(tokenIssuer)
-                    .issuedAt(Date.from(Instant.now()))
-                    .encodePayload(true)
-                    .id(UUID.randomUUID().toString())
-                    .expiration(new Date(System.currentTimeMillis() + (expirationDuration * 60 * 60 * 1000)))
-                    .signWith(stringToPrivateKey(secretDetails.getPrivateKey()))
-                    .claims(claims)
-                    .compact());
-            jwtTokenDto.setUserId(selectedUser.getId());
-            return jwtTokenDto;
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            log.error("An error occurred while generating public key and private key", e);
-            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
-        }
+        SecretWrapper signingKey = jwtKeyService.getSigningKey();
+        JWTTokenDto jwtTokenDto = new JWTTokenDto();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES, selectedUser.getRoleType().getStringRoleType());
+        claims.put(USER_ID, selectedUser.getId());
+        claims.put(FIRST_NAME, selectedUser.getFirstName());
+        claims.put(LAST_NAME, selectedUser.getLastName());
+        jwtTokenDto.setJwtToken(Jwts.builder()
+                .header().keyId(signingKey.getKeyId()).and()
+                .subject(selectedUser.getUsername())
+                .issuer(tokenIssuer)
+                .issuedAt(Date.from(Instant.now()))
+                .encodePayload(true)
+                .id(UUID.randomUUID().toString())
+                .expiration(new Date(System.currentTimeMillis() + (expirationDuration * 60 * 60 * 1000)))
+                .signWith(signingKey.getPrivateKey())
+                .claims(claims)
+                .compact());
+        jwtTokenDto.setUserId(selectedUser.getId());
+        return jwtTokenDto;
     }
 
     /**
@@ -158,13 +148,7 @@ public class JwtServiceImpl implements JwtService {
      */
     private Claims validateAndGetClaims(String authToken) {
         try {
-            SecretDetails secretDetails = secretDetailRepository.findBySecretType(SecretType.JWT_SECRET);
-            if (Objects.isNull(secretDetails)) {
-                throw new LBUAuthRuntimeException(JWT_TOKEN_SECRET_NOT_AVAILABLE.getErrorMessage(), JWT_TOKEN_SECRET_NOT_AVAILABLE.getErrorCode());
-            }
-            return (Claims) Jwts.parser()
-                    .verifyWith(stringToPublicKey(secretDetails.getPublicKey()))
-                    .build()
+            return (Claims) jwtKeyService.getJwtParser()
                     .parse(authToken).getPayload();
         } catch (SecurityException | MalformedJwtException e) {
             log.error("Invalid JWT signature", e);
@@ -178,59 +162,9 @@ public class JwtServiceImpl implements JwtService {
         } catch (IllegalArgumentException e) {
             log.error("JWT token compact of handler are invalid", e);
             throw new LBUAuthRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), e, JWT_TOKEN_INVALID_SIGNATURE.getErrorCode());
-        } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
-            log.error("An error occurred while generating public key and private key", e);
-            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e, INTERNAL_ERROR.getErrorCode());
+        } catch (JwtException e) {
+            log.error("Invalid JWT token", e);
+            throw new LBUAuthRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), e, JWT_TOKEN_INVALID_SIGNATURE.getErrorCode());
         }
     }
-
-    /**
-     * Converts a string representation of a private key to a PrivateKey object.
-     *
-     * @param privateKeyString The string representation of the private key.
-     * @return PrivateKey object.
-     * @throws NoSuchAlgorithmException If the specified algorithm for key generation is invalid.
-     * @throws InvalidKeySpecException If the provided key specification is invalid.
-     */
-    private PrivateKey stringToPrivateKey(String privateKeyString) throws NoSuchAlgorithmException, InvalidKeySpecException {
-        return KeyFactory.getInstance("RSA")
-                .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyString.trim())));
-    }
-
-    /**
-     * Generates a secret key pair for JWT token signing.
-     * @return Wrapper containing the generated public and private keys.
-     * @throws NoSuchAlgorithmException If the specified key pair generation algorithm is invalid.
-     */
-    private SecretWrapper generateSecretWrapper() throws NoSuchAlgorithmException {
-        // Generating KeyPair
-        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-        keyPairGenerator.initialize(2048); // Key size of 2048 bits
-        KeyPair keyPair = keyPairGenerator.generateKeyPair();
-        SecretWrapper secretWrapper = new SecretWrapper();
-        secretWrapper.setPrivateKey(keyPair.getPrivate());
-        secretWrapper.setPublicKey(keyPair.getPublic());
-        return secretWrapper;
-    }
-
-    /**
-     * Converts a public/private key to its string representation.
-     * @param key The key to be converted.
-     * @return String representation of the key.
-     */
-    private String keyToString(Key key) {
-        return Base64.getEncoder().encodeToString(key.getEncoded());
-    }
-
-    /**
-     * Converts a string representation of a public key to a PublicKey object.
-     * @param publicKeyString The string representation of the public key.
-     * @return PublicKey object.
-     * @throws InvalidKeySpecException If the provided key specification is invalid.
-     * @throws NoSuchAlgorithmException If the specified algorithm for key generation is invalid.
-     */
-    private PublicKey stringToPublicKey(String publicKeyString) throws InvalidKeySpecException, NoSuchAlgorithmException {
-        return KeyFactory.getInstance("RSA")
-                .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyString.trim())));
-    }
 }
@@ -0,0 +1,144 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.repositories.UserMetaDataRepository;
+import com.lbu.lbuauth.services.LoginActivityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class LoginActivityServiceImpl implements LoginActivityService {
+
+    private final UserMetaDataRepository userMetaDataRepository;
+    private final Map<String, Long> pendingLogins = new ConcurrentHashMap<>();
+    // Counts the pending users, as the size of the map is not atomic with adding a user
+    private final AtomicInteger pendingUsers = new AtomicInteger();
+    private final Counter bufferedCounter;
+    private final Counter collapsedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private volatile long lastFlushAt = System.currentTimeMillis();
+
+    @Value("${custom.properties.login.activity.flush.millis}")
+    private Long flushMillis;
+    @Value("${custom.properties.login.activity.batch.size}")
+    private Integer batchSize;
+    @Value("${custom.properties.login.activity.max.pending}")
+    private Integer maxPending;
+
+    /**
+     * Constructor for LoginActivityServiceImpl.
+     *
+     * @param userMetaDataRepository Repository the last login timestamps are written to.
+     * @param meterRegistry          Registry used to publish the buffered events and the flushed batch sizes.
+     */
+    public LoginActivityServiceImpl(UserMetaDataRepository userMetaDataRepository, MeterRegistry meterRegistry) {
+        this.userMetaDataRepository = userMetaDataRepository;
+        this.bufferedCounter = meterRegistry.counter("lbu.auth.login.activity.events", "result", "buffered");
+        this.collapsedCounter = meterRegistry.counter("lbu.auth.login.activity.events", "result", "collapsed");
+        this.droppedCounter = meterRegistry.counter("lbu.auth.login.activity.events", "result", "dropped");
+        this.failedCounter = meterRegistry.counter("lbu.auth.login.activity.flush.failures");
+        this.batchSizeSummary = meterRegistry.summary("lbu.auth.login.activity.batch.size");
+        meterRegistry.gaugeMapSize("lbu.auth.login.activity.pending", Tags.empty(), pendingLogins);
+    }
+
+    /**
+     * Records a login of the user in the in memory buffer, without touching the database. Repeated logins of a user
+     * before the next flush collapse into one pending timestamp. While the buffer holds the maximum number of users,
+     * logins of further users are dropped rather than growing the buffer or delaying the login. A new user takes a slot
+     * of the bound with an atomic increment while its entry is computed, so concurrent logins never push the buffer past
+     * the maximum.
+     *
+     * @param userId The id of the user who logged in.
+     */
+    @Override
+    public void recordLogin(String userId) {
+        if (Objects.isNull(userId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean[] buffered = new boolean[1];
+        Long pending = pendingLogins.compute(userId, (id, loginAt) -> {
+            if (Objects.nonNull(loginAt)) {
+                return Math.max(loginAt, now);
+            }
+            if (pendingUsers.incrementAndGet() > maxPending) {
+                pendingUsers.decrementAndGet();
+                return null;
+            }
+            buffered[0] = true;
+            return now;
+        });
+        if (buffered[0]) {
+            bufferedCounter.increment();
+        } else if (Objects.nonNull(pending)) {
+            collapsedCounter.increment();
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * Periodically flushes the buffer once it holds a full batch or the flush interval has passed since the last flush.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.login.activity.poll.millis}",
+            initialDelayString = "${custom.properties.login.activity.poll.millis}", timeUnit = TimeUnit.MILLISECONDS)
+    public void flushIfDue() {
+        if (pendingLogins.size() >= batchSize || System.currentTimeMillis() - lastFlushAt >= flushMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered last login timestamps to the user metadata in JDBC batches. A timestamp is removed from the
+     * buffer only once its batch is written and only if no later login replaced it meanwhile. A failed batch stays in
+     * the buffer for the next flush. Also called on shutdown so buffered logins are not lost.
+     */
+    @Override
+    @PreDestroy
+    public synchronized void flush() {
+        lastFlushAt = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> snapshot = new ArrayList<>(pendingLogins.size());
+        pendingLogins.forEach((userId, loginAt) -> snapshot.add(Map.entry(userId, loginAt)));
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<String, Long>> batch = snapshot.subList(from, Math.min(from + batchSize, snapshot.size()));
+            Map<String, Timestamp> lastLoginTimestamps = new HashMap<>();
+            batch.forEach(entry -> lastLoginTimestamps.put(entry.getKey(), new Timestamp(entry.getValue())));
+            try {
+                userMetaDataRepository.upsertLastLoginTimestamps(lastLoginTimestamps);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                log.error("An error occurred while writing {} last login timestamps", batch.size(), e);
+                return;
+            }
+            batchSizeSummary.record(batch.size());
+            batch.forEach(entry -> {
+                if (pendingLogins.remove(entry.getKey(), entry.getValue())) {
+                    pendingUsers.decrementAndGet();
+                }
+            });
+        }
+        if (!snapshot.isEmpty()) {
+            log.info("wrote the last login timestamps of {} users", snapshot.size());
+        }
+    }
+}
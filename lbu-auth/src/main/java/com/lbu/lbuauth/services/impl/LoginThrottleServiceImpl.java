@@ -0,0 +1,291 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthTooManyRequestsException;
+import com.lbu.lbuauth.dtos.LoginThrottleStatisticsDto;
+import com.lbu.lbuauth.services.LoginThrottleService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.TOO_MANY_LOGIN_ATTEMPTS;
+
+@Slf4j
+@Service
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private final Limiter usernameLimiter;
+    private final Limiter clientIpLimiter;
+    private final Counter rejectedCounter;
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Constructor for LoginThrottleServiceImpl.
+     *
+     * @param windowSeconds     The length of the sliding window failed logins are counted in.
+     * @param usernameLimit     The failed logins of a username within the window which lock the username out.
+     * @param clientIpLimit     The failed logins from a client IP within the window which lock the client IP out.
+     * @param lockoutSeconds    The length of the first lockout, doubled by every further lockout.
+     * @param maxLockoutSeconds The longest lockout.
+     * @param decaySeconds      The time without failed logins after which the lockouts of a key are forgotten.
+     * @param maxEntries        The number of usernames, and of client IPs, the throttle keeps track of.
+     * @param stripes           The number of stripes the entries are spread over.
+     * @param meterRegistry     Registry used to publish the rejections, lockouts, evictions and tracked entries.
+     */
+    public LoginThrottleServiceImpl(@Value("${custom.properties.login.throttle.window.seconds}") Long windowSeconds,
+                                    @Value("${custom.properties.login.throttle.username.limit}") Integer usernameLimit,
+                                    @Value("${custom.properties.login.throttle.ip.limit}") Integer clientIpLimit,
+                                    @Value("${custom.properties.login.throttle.lockout.seconds}") Long lockoutSeconds,
+                                    @Value("${custom.properties.login.throttle.lockout.max.seconds}") Long maxLockoutSeconds,
+                                    @Value("${custom.properties.login.throttle.decay.seconds}") Long decaySeconds,
+                                    @Value("${custom.properties.login.throttle.max.entries}") Integer maxEntries,
+                                    @Value("${custom.properties.login.throttle.stripes}") Integer stripes,
+                                    MeterRegistry meterRegistry) {
+        ThrottlePolicy policy = new ThrottlePolicy(TimeUnit.SECONDS.toMillis(windowSeconds),
+                TimeUnit.SECONDS.toMillis(lockoutSeconds), TimeUnit.SECONDS.toMillis(maxLockoutSeconds),
+                TimeUnit.SECONDS.toMillis(decaySeconds));
+        this.usernameLimiter = new Limiter("username", usernameLimit, policy, maxEntries, stripes, meterRegistry);
+        this.clientIpLimiter = new Limiter("ip", clientIpLimit, policy, maxEntries, stripes, meterRegistry);
+        this.rejectedCounter = meterRegistry.counter("lbu.auth.login.throttle.rejected");
+    }
+
+    /**
+     * Rejects the login attempt while the username or the client IP is locked out. Only the in memory counters are
+     * read, so a throttled attempt is rejected before the user is loaded or a password is hashed, and an allowed
+     * attempt costs two map lookups.
+     *
+     * @param username The username of the login attempt.
+     * @param clientIp The IP address the login attempt came from.
+     * @throws LBUAuthTooManyRequestsException If the username or the client IP is locked out.
+     */
+    @Override
+    public void checkAllowed(String username, String clientIp) {
+        long now = clock.millis();
+        long retryAfterMillis = Math.max(usernameLimiter.lockedFor(normalize(username), now), clientIpLimiter.lockedFor(clientIp, now));
+        if (retryAfterMillis > 0) {
+            rejectedCounter.increment();
+            log.warn("login attempt throttled for the user [{}] from [{}]", username, clientIp);
+            throw new LBUAuthTooManyRequestsException(TOO_MANY_LOGIN_ATTEMPTS.getErrorMessage(),
+                    TOO_MANY_LOGIN_ATTEMPTS.getErrorCode(), TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999));
+        }
+    }
+
+    /**
+     * Counts a failed login against the username and the client IP. When either reaches its limit within the sliding
+     * window it is locked out, for twice as long as its previous lockout unless that was longer ago than the decay.
+     *
+     * @param username The username of the failed login.
+     * @param clientIp The IP address the failed login came from.
+     */
+    @Override
+    public void recordFailure(String username, String clientIp) {
+        long now = clock.millis();
+        usernameLimiter.recordFailure(normalize(username), now);
+        clientIpLimiter.recordFailure(clientIp, now);
+    }
+
+    /**
+     * Forgets the failed logins of the username after a successful login. The client IP keeps its count, as it may be
+     * shared by other users.
+     *
+     * @param username The username of the successful login.
+     * @param clientIp The IP address the successful login came from.
+     */
+    @Override
+    public void recordSuccess(String username, String clientIp) {
+        usernameLimiter.reset(normalize(username));
+    }
+
+    /**
+     * Periodically removes the entries which are not locked out and whose failed logins have decayed.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.login.throttle.purge.seconds}",
+            initialDelayString = "${custom.properties.login.throttle.purge.seconds}",
+            timeUnit = TimeUnit.SECONDS)
+    public void purgeIdle() {
+        long now = clock.millis();
+        usernameLimiter.purge(now);
+        clientIpLimiter.purge(now);
+    }
+
+    /**
+     * Returns the current state of the throttle.
+     *
+     * @return The tracked and locked out usernames and client IPs, and the rejections, lockouts and evictions since startup.
+     */
+    @Override
+    public LoginThrottleStatisticsDto getStatistics() {
+        long now = clock.millis();
+        LoginThrottleStatisticsDto statisticsDto = new LoginThrottleStatisticsDto();
+        statisticsDto.setTrackedUsernames(usernameLimiter.size());
+        statisticsDto.setLockedUsernames(usernameLimiter.locked(now));
+        statisticsDto.setTrackedClientIps(clientIpLimiter.size());
+        statisticsDto.setLockedClientIps(clientIpLimiter.locked(now));
+        statisticsDto.setRejectedAttempts((long) rejectedCounter.count());
+        statisticsDto.setLockouts((long) (usernameLimiter.lockoutCounter.count() + clientIpLimiter.lockoutCounter.count()));
+        statisticsDto.setEvictions((long) (usernameLimiter.evictionCounter.count() + clientIpLimiter.evictionCounter.count()));
+        return statisticsDto;
+    }
+
+    private static String normalize(String username) {
+        return Objects.isNull(username) ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record ThrottlePolicy(long windowMillis, long lockoutMillis, long maxLockoutMillis, long decayMillis) {
+    }
+
+    /**
+     * The failed logins of one key, replaced as a whole with compare and set so the counters need no lock. The sliding
+     * window is approximated from two aligned windows, the previous one weighted by how much of it still overlaps.
+     */
+    private record Attempts(long windowStart, int current, int previous, long lockedUntil, int lockouts, long lastFailureAt) {
+
+        private static final Attempts NONE = new Attempts(0, 0, 0, 0, 0, 0);
+
+        private Attempts fail(long now, int limit, ThrottlePolicy policy) {
+            long window = policy.windowMillis();
+            long start = now - now % window;
+            int currentCount = 0;
+            int previousCount = 0;
+            if (windowStart == start) {
+                currentCount = current;
+                previousCount = previous;
+            } else if (windowStart == start - window) {
+                previousCount = current;
+            }
+            currentCount++;
+            double estimate = currentCount + previousCount * (double) (window - (now - start)) / window;
+            int lockoutCount = now - lastFailureAt > policy.decayMillis() ? 0 : lockouts;
+            if (estimate < limit) {
+                return new Attempts(start, currentCount, previousCount, lockedUntil, lockoutCount, now);
+            }
+            long lockout = Math.min(policy.lockoutMillis() << Math.min(lockoutCount, 30), policy.maxLockoutMillis());
+            return new Attempts(start, 0, 0, now + lockout, lockoutCount + 1, now);
+        }
+
+        private boolean isIdle(long now, ThrottlePolicy policy) {
+            long retention = lockouts == 0 ? 2 * policy.windowMillis() : Math.max(2 * policy.windowMillis(), policy.decayMillis());
+            return lockedUntil <= now && now - lastFailureAt > retention;
+        }
+    }
+
+    /**
+     * The counters of one kind of key. They are spread over stripes, each bounded to its share of the entries, so
+     * making room for a new key only scans one small stripe. The bound is approximate under concurrent inserts.
+     */
+    private static final class Limiter {
+        private final int limit;
+        private final ThrottlePolicy policy;
+        private final int stripeCapacity;
+        private final List<Map<String, AtomicReference<Attempts>>> stripes;
+        private final Counter lockoutCounter;
+        private final Counter evictionCounter;
+
+        private Limiter(String kind, int limit, ThrottlePolicy policy, int maxEntries, int stripeCount, MeterRegistry meterRegistry) {
+            this.limit = limit;
+            this.policy = policy;
+            this.stripeCapacity = Math.max(maxEntries / stripeCount, 1);
+            this.stripes = new ArrayList<>(stripeCount);
+            for (int i = 0; i < stripeCount; i++) {
+                stripes.add(new ConcurrentHashMap<>());
+            }
+            this.lockoutCounter = meterRegistry.counter("lbu.auth.login.throttle.lockouts", "key", kind);
+            this.evictionCounter = meterRegistry.counter("lbu.auth.login.throttle.evictions", "key", kind);
+            meterRegistry.gauge("lbu.auth.login.throttle.tracked", Tags.of("key", kind), this, Limiter::size);
+        }
+
+        private long lockedFor(String key, long now) {
+            if (Objects.isNull(key)) {
+                return 0;
+            }
+            AtomicReference<Attempts> attempts = stripe(key).get(key);
+            return Objects.isNull(attempts) ? 0 : Math.max(attempts.get().lockedUntil() - now, 0);
+        }
+
+        private void recordFailure(String key, long now) {
+            if (Objects.isNull(key)) {
+                return;
+            }
+            Map<String, AtomicReference<Attempts>> stripe = stripe(key);
+            AtomicReference<Attempts> attempts = stripe.get(key);
+            if (Objects.isNull(attempts)) {
+                if (stripe.size() >= stripeCapacity && !makeRoom(stripe, now)) {
+                    // Every entry of the stripe is locked out, which already throttles the attack filling it
+                    return;
+                }
+                attempts = stripe.computeIfAbsent(key, k -> new AtomicReference<>(Attempts.NONE));
+            }
+            Attempts previous;
+            Attempts next;
+            do {
+                previous = attempts.get();
+                next = previous.fail(now, limit, policy);
+            } while (!attempts.compareAndSet(previous, next));
+            if (next.lockedUntil() != previous.lockedUntil()) {
+                lockoutCounter.increment();
+            }
+        }
+
+        private void reset(String key) {
+            if (Objects.nonNull(key)) {
+                stripe(key).remove(key);
+            }
+        }
+
+        private boolean makeRoom(Map<String, AtomicReference<Attempts>> stripe, long now) {
+            purge(stripe, now);
+            if (stripe.size() < stripeCapacity) {
+                return true;
+            }
+            // Evict the entry whose last failure is the oldest among those not locked out
+            return stripe.entrySet().stream()
+                    .filter(entry -> entry.getValue().get().lockedUntil() <= now)
+                    .min(Comparator.comparingLong(entry -> entry.getValue().get().lastFailureAt()))
+                    .map(entry -> {
+                        if (stripe.remove(entry.getKey(), entry.getValue())) {
+                            evictionCounter.increment();
+                        }
+                        return true;
+                    })
+                    .orElse(false);
+        }
+
+        private void purge(long now) {
+            stripes.forEach(stripe -> purge(stripe, now));
+        }
+
+        private void purge(Map<String, AtomicReference<Attempts>> stripe, long now) {
+            stripe.values().removeIf(attempts -> attempts.get().isIdle(now, policy));
+        }
+
+        private int size() {
+            return stripes.stream().mapToInt(Map::size).sum();
+        }
+
+        private int locked(long now) {
+            return (int) stripes.stream()
+                    .flatMap(stripe -> stripe.values().stream())
+                    .filter(attempts -> attempts.get().lockedUntil() > now)
+                    .count();
+        }
+
+        private Map<String, AtomicReference<Attempts>> stripe(String key) {
+            return stripes.get((key.hashCode() & Integer.MAX_VALUE) % stripes.size());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.commons.exceptions.LBUAuthServiceUnavailableException;
+import com.lbu.lbuauth.services.PasswordHashingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.PASSWORD_HASHING_BUSY;
+
+@Slf4j
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+
+    private static final String BCRYPT = "bcrypt";
+
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+    private final PasswordEncoder passwordEncoder;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    @Value("${custom.properties.password.hashing.wait.millis}")
+    private Long waitMillis;
+
+    /**
+     * Constructor for PasswordHashingServiceImpl.
+     *
+     * @param passwordHashingExecutor The bounded pool the hashes are computed on.
+     * @param bcryptStrength          The bcrypt cost new hashes are encoded with.
+     * @param meterRegistry           Registry used to publish the hashing latency, queue wait and rejections.
+     */
+    public PasswordHashingServiceImpl(@Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor passwordHashingExecutor,
+                                      @Value("${custom.properties.password.hashing.bcrypt.strength}") Integer bcryptStrength,
+                                      MeterRegistry meterRegistry) {
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(bcryptStrength)));
+        // Hashes of the other default encoders can still be verified, and are upgraded to bcrypt on the next login
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        this.passwordEncoder = delegatingPasswordEncoder;
+        this.encodeTimer = meterRegistry.timer("lbu.auth.password.hash", "operation", "encode");
+        this.matchesTimer = meterRegistry.timer("lbu.auth.password.hash", "operation", "matches");
+        this.queueWaitTimer = meterRegistry.timer("lbu.auth.password.hash.queue.wait");
+        this.rejectedCounter = meterRegistry.counter("lbu.auth.password.hash.rejected");
+        meterRegistry.gauge("lbu.auth.password.hash.queue.size", passwordHashingExecutor, ThreadPoolTaskExecutor::getQueueSize);
+        meterRegistry.gauge("lbu.auth.password.hash.active", passwordHashingExecutor, ThreadPoolTaskExecutor::getActiveCount);
+    }
+
+    /**
+     * Encodes the raw password on the password hashing pool.
+     *
+     * @param rawPassword The password to encode.
+     * @return The encoded password, prefixed with the id of its encoder.
+     * @throws LBUAuthServiceUnavailableException If the pool is saturated or the hash is not computed in time.
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verifies the raw password against the encoded password on the password hashing pool, so a burst of logins
+     * queues on a pool sized to the cores instead of occupying every request thread.
+     *
+     * @param rawPassword     The password to verify.
+     * @param encodedPassword The stored encoded password.
+     * @return True if the passwords match.
+     * @throws LBUAuthServiceUnavailableException If the pool is saturated or the hash is not computed in time.
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks whether the encoded password was produced by another encoder or with a lower bcrypt cost than the
+     * configured one, in which case it is encoded again after a successful login. No hash is computed.
+     *
+     * @param encodedPassword The stored encoded password.
+     * @return True if the password should be encoded again.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T hash(Timer timer, Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.record(hashing);
+            });
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            log.warn("password hashing pool is saturated, rejecting the request");
+            throw new LBUAuthServiceUnavailableException(PASSWORD_HASHING_BUSY.getErrorMessage(), e, PASSWORD_HASHING_BUSY.getErrorCode());
+        }
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A hash still waiting in the queue is dropped, one already running completes and is discarded
+            future.cancel(false);
+            rejectedCounter.increment();
+            log.warn("password hash was not computed within [{}] ms", waitMillis);
+            throw new LBUAuthServiceUnavailableException(PASSWORD_HASHING_BUSY.getErrorMessage(), e, PASSWORD_HASHING_BUSY.getErrorCode());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new LBUAuthServiceUnavailableException(PASSWORD_HASHING_BUSY.getErrorMessage(), e, PASSWORD_HASHING_BUSY.getErrorCode());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException exception) {
+                throw exception;
+            }
+            log.error("An error occurred while hashing a password", e.getCause());
+            throw new LBUAuthRuntimeException(INTERNAL_ERROR.getErrorMessage(), e.getCause(), INTERNAL_ERROR.getErrorCode());
+        }
+    }
+}
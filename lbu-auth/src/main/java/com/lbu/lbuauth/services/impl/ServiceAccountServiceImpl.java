@@ -0,0 +1,99 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.models.enums.RoleType;
+import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.ServiceAccountService;
+import com.lbu.lbuauth.services.UserCacheService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.SERVICE_ACCOUNT_INVALID;
+import static com.lbu.lbuauth.commons.constants.ErrorConstants.SERVICE_ACCOUNT_USERNAME_TAKEN;
+
+@Slf4j
+@Service
+public class ServiceAccountServiceImpl implements ServiceAccountService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UserCacheService userCacheService;
+
+    @Value("${custom.properties.service.accounts}")
+    private String serviceAccounts;
+
+    /**
+     * Constructor for ServiceAccountServiceImpl.
+     *
+     * @param userRepository   Repository the service accounts are stored in.
+     * @param passwordEncoder  Password encoder hashing passwords on the bounded hashing pool.
+     * @param userCacheService Cache of user entities, evicted whenever a service account changes.
+     */
+    public ServiceAccountServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                     UserCacheService userCacheService) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.userCacheService = userCacheService;
+    }
+
+    /**
+     * Creates or updates the configured service accounts once the application is ready. The accounts are configured as
+     * comma separated username:password pairs, and each one becomes an enabled user without an email with the SERVICE
+     * role, which the other services log in as through the login endpoint to call each other. The SERVICE role is only
+     * granted the bulk endpoints the services call, not the endpoints of students or administrators. An existing
+     * account keeps its password hash while the configured password still matches it, so a restart does not hash every
+     * password again.
+     *
+     * @throws LBUAuthRuntimeException If an entry is not a username:password pair, or its username belongs to a user
+     *                                 which is not a service account, so the service does not start with it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public void provisionServiceAccounts() {
+        if (Objects.isNull(serviceAccounts) || serviceAccounts.isBlank()) {
+            log.info("No service accounts are configured");
+            return;
+        }
+        for (String serviceAccount : serviceAccounts.split(",")) {
+            int separator = serviceAccount.indexOf(':');
+            if (separator <= 0 || separator == serviceAccount.length() - 1) {
+                throw new LBUAuthRuntimeException(SERVICE_ACCOUNT_INVALID.getErrorMessage(), SERVICE_ACCOUNT_INVALID.getErrorCode());
+            }
+            provision(serviceAccount.substring(0, separator).trim(), serviceAccount.substring(separator + 1));
+        }
+    }
+
+    private void provision(String username, String password) {
+        User user = userRepository.findByUsername(username);
+        if (Objects.isNull(user)) {
+            user = new User();
+            user.setUsername(username);
+            user.setFirstName(username);
+            user.setLastName("service");
+        } else if (user.getRoleType() != RoleType.SERVICE) {
+            // Never take over a registered user, which would reset their password and change their role
+            log.error("The service account [{}] clashes with an existing user", username);
+            throw new LBUAuthRuntimeException(SERVICE_ACCOUNT_USERNAME_TAKEN.getErrorMessage(), SERVICE_ACCOUNT_USERNAME_TAKEN.getErrorCode());
+        } else if (Boolean.TRUE.equals(user.getEnabled()) && passwordEncoder.matches(password, user.getPassword())) {
+            return;
+        }
+        user.setPassword(passwordEncoder.encode(password));
+        user.setRoleType(RoleType.SERVICE);
+        user.setEnabled(Boolean.TRUE);
+        user.setAccountNonExpired(Boolean.TRUE);
+        user.setAccountNonLocked(Boolean.TRUE);
+        user.setCredentialsNonExpired(Boolean.TRUE);
+        User savedUser = userRepository.save(user);
+        userCacheService.evictUser(savedUser.getId());
+        log.info("provisioned the service account [{}]", username);
+    }
+}
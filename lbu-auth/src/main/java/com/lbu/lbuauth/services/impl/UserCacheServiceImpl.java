@@ -0,0 +1,101 @@
+package com.lbu.lbuauth.services.impl;
+
+import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.UserCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class UserCacheServiceImpl implements UserCacheService {
+
+    private final UserRepository userRepository;
+    private final Map<String, CachedUser> usersById = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    @Value("${custom.properties.jwt.user.cache.seconds}")
+    private Integer cacheSeconds;
+    @Value("${custom.properties.jwt.user.cache.size}")
+    private Integer cacheSize;
+
+    /**
+     * Constructor for UserCacheServiceImpl.
+     *
+     * @param userRepository Repository for managing user data.
+     * @param meterRegistry  Registry used to publish the cache hit and miss counters.
+     */
+    public UserCacheServiceImpl(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.hitCounter = meterRegistry.counter("lbu.auth.user.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("lbu.auth.user.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("lbu.auth.user.cache.size", Tags.empty(), usersById);
+    }
+
+    /**
+     * Returns the user for the given id from the short lived cache, loading it from the database on a miss or when
+     * the cached entry is older than the configured time to live.
+     *
+     * @param userId The id of the user.
+     * @return The user if available.
+     */
+    @Override
+    public Optional<User> getUser(String userId) {
+        CachedUser cachedUser = usersById.get(userId);
+        if (Objects.nonNull(cachedUser) && cachedUser.expiresAt() > System.currentTimeMillis()) {
+            hitCounter.increment();
+            return Optional.of(cachedUser.user());
+        }
+        missCounter.increment();
+        Optional<User> optionalUser = userRepository.findById(userId);
+        if (optionalUser.isPresent()) {
+            if (usersById.size() >= cacheSize) {
+                evictExpired();
+            }
+            if (usersById.size() < cacheSize) {
+                usersById.put(userId, new CachedUser(optionalUser.get(), System.currentTimeMillis() + cacheSeconds * 1000L));
+            }
+        } else {
+            usersById.remove(userId);
+        }
+        return optionalUser;
+    }
+
+    /**
+     * Removes the given user from the cache. Called whenever the user is changed so that a stale entity is never served.
+     *
+     * @param userId The id of the user.
+     */
+    @Override
+    public void evictUser(String userId) {
+        if (Objects.nonNull(userId)) {
+            usersById.remove(userId);
+        }
+    }
+
+    /**
+     * Removes every user from the cache.
+     */
+    @Override
+    public void evictAll() {
+        usersById.clear();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        usersById.values().removeIf(cachedUser -> cachedUser.expiresAt() <= now);
+    }
+
+    private record CachedUser(User user, long expiresAt) {
+    }
+}
@@ -1,23 +1,32 @@
 package com.lbu.lbuauth.services.impl;
 
+import com.lbu.lbuauth.models.User;
 import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.UserCacheService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
 
     /**
      * Constructs a new UserDetailsServiceImpl with the provided UserRepository.
      *
-     * @param userRepository The repository for accessing user data.
+     * @param userRepository   The repository for accessing user data.
+     * @param userCacheService Cache of user entities, evicted whenever a user changes.
      */
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, UserCacheService userCacheService) {
         this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
     }
 
     /**
@@ -33,4 +42,23 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * Replaces the password hash of a user after a successful login, when the stored hash was encoded with an
+     * outdated encoder or cost. Only the password column is updated, so concurrent changes to the user are kept.
+     *
+     * @param userDetails The authenticated user.
+     * @param newPassword The password encoded with the current encoder and cost.
+     * @return The user with the new password hash.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        userRepository.updatePassword(user.getId(), newPassword);
+        userCacheService.evictUser(user.getId());
+        user.setPassword(newPassword);
+        log.info("upgraded the password hash of the user [{}]", user.getUsername());
+        return user;
+    }
+
 }
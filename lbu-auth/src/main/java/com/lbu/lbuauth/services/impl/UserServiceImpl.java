@@ -7,8 +7,11 @@ import com.lbu.lbuauth.models.User;
 import com.lbu.lbuauth.models.enums.RoleType;
 import com.lbu.lbuauth.repositories.AccountActivationDetailsRepository;
 import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.ActivationTokenService;
 import com.lbu.lbuauth.services.EmailService;
 import com.lbu.lbuauth.services.JwtService;
+import com.lbu.lbuauth.services.LoginActivityService;
+import com.lbu.lbuauth.services.UserCacheService;
 import com.lbu.lbuauth.services.UserService;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +34,9 @@ public class UserServiceImpl implements UserService {
     private final JwtService jwtService;
     private final EmailService emailService;
     private final AccountActivationDetailsRepository activationDetailsRepository;
+    private final UserCacheService userCacheService;
+    private final LoginActivityService loginActivityService;
+    private final ActivationTokenService activationTokenService;
     @Value("${custom.properties.account.activation.resend.hours}")
     private Long resendLimit;
 
@@ -38,11 +44,14 @@ public class UserServiceImpl implements UserService {
      * Constructor for UserServiceImpl class.
      * Initializes the UserServiceImpl with necessary dependencies.
      *
-     * @param passwordEncoder               Password encoder for encoding passwords.
+     * @param passwordEncoder               Password encoder hashing passwords on the bounded hashing pool.
      * @param userRepository                Repository for User entities.
      * @param jwtService                    Service for JWT token management.
      * @param emailService                  Service for sending emails.
      * @param activationDetailsRepository   Repository for AccountActivationDetails entities.
+     * @param userCacheService              Cache of user entities, evicted whenever a user changes.
+     * @param loginActivityService          Write-behind buffer of the last login timestamps.
+     * @param activationTokenService        Service looking up the activation tokens by their hash.
      */
 
     public UserServiceImpl(
@@ -50,12 +59,18 @@ public class UserServiceImpl implements UserService {
             UserRepository userRepository,
             JwtService jwtService,
             EmailService emailService,
-            AccountActivationDetailsRepository activationDetailsRepository) {
+            AccountActivationDetailsRepository activationDetailsRepository,
+            UserCacheService userCacheService,
+            LoginActivityService loginActivityService,
+            ActivationTokenService activationTokenService) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.jwtService = jwtService;
         this.emailService = emailService;
         this.activationDetailsRepository = activationDetailsRepository;
+        this.userCacheService = userCacheService;
+        this.loginActivityService = loginActivityService;
+        this.activationTokenService = activationTokenService;
     }
 
     /**
@@ -83,7 +98,7 @@ public class UserServiceImpl implements UserService {
         User savedUser = userRepository.save(user);
         log.info("created a new user [{}]", user.getUsername());
         emailService.sendOrResendActivationLink(savedUser);
-        log.info("successfully send an email to user [{}]", user.getUsername());
+        log.info("successfully queued an activation email to user [{}]", user.getUsername());
         return savedUser;
     }
 
@@ -91,7 +106,7 @@ public class UserServiceImpl implements UserService {
      * Generates a JWT token for user login.
      * Checks if the user exists and is enabled.
      * Validates the password if required.
-     * Generates a JWT token for the user.
+     * Generates a JWT token for the user and records the login in the write-behind login activity buffer.
      *
      * @param user           The user attempting to login.
      * @param isPasswordCheck Whether to validate the user's password.
@@ -121,12 +136,14 @@ public class UserServiceImpl implements UserService {
         if (isPasswordCheck) {
             if (passwordEncoder.matches(user.getPassword(), selectedUser.getPassword())) {
                 log.info("generating a jwt token for the user [{}]", user.getUsername());
+                loginActivityService.recordLogin(selectedUser.getId());
                 return jwtService.generateJwtToken(selectedUser);
             } else {
                 log.error(ACCOUNT_PASSWORD_INVALID_ERROR.getErrorMessage());
                 throw new LBUAuthRuntimeException(ACCOUNT_PASSWORD_INVALID_ERROR.getErrorMessage(), ACCOUNT_PASSWORD_INVALID_ERROR.getErrorCode());
             }
         } else {
+            loginActivityService.recordLogin(selectedUser.getId());
             return jwtService.generateJwtToken(selectedUser);
         }
     }
@@ -164,7 +181,7 @@ public class UserServiceImpl implements UserService {
     @Transactional(rollbackOn = Exception.class)
     @Override
     public void activateAccount(String token) {
-        Optional<AccountActivationDetails> activationDetails = activationDetailsRepository.findByToken(token);
+        Optional<AccountActivationDetails> activationDetails = activationTokenService.findByToken(token);
         if (activationDetails.isPresent()) {
             AccountActivationDetails accountActivationDetails = activationDetails.get();
             Date currentDate = new Date(System.currentTimeMillis());
@@ -182,6 +199,7 @@ public class UserServiceImpl implements UserService {
                         user.setCredentialsNonExpired(Boolean.TRUE);
                         user.setAccountNonLocked(Boolean.TRUE);
                         userRepository.save(user);
+                        userCacheService.evictUser(user.getId());
                     } else {
                         log.error(ACCOUNT_ACTIVATED_ERROR.getErrorMessage());
                         throw new LBUAuthRuntimeException(ACCOUNT_ACTIVATED_ERROR.getErrorMessage(), ACCOUNT_ACTIVATED_ERROR.getErrorCode());
@@ -206,6 +224,7 @@ public class UserServiceImpl implements UserService {
     /**
      * Resends the activation token to a user for account activation.
      * Checks if the previous token is still valid for resending.
+     * Sends a new token to an inactive user whose expired token was already removed.
      *
      * @param userId The ID of the user to resend the activation token.
      * @throws LBUAuthRuntimeException If the previous token is expired or invalid.
@@ -225,7 +244,7 @@ public class UserServiceImpl implements UserService {
                 if (userOptional.isPresent()) {
                     User user = userOptional.get();
                     emailService.sendOrResendActivationLink(userOptional.get());
-                    log.info("successfully send an email to user [{}]", user.getUsername());
+                    log.info("successfully queued an activation email to user [{}]", user.getUsername());
                 } else {
                     log.error(ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorMessage());
                     throw new LBUAuthRuntimeException(ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorMessage(), ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorCode());
@@ -235,8 +254,20 @@ public class UserServiceImpl implements UserService {
                 throw new LBUAuthRuntimeException(ACCOUNT_ACTIVATION_OLD_TOKEN_VALID_ERROR.getErrorMessage(), ACCOUNT_ACTIVATION_OLD_TOKEN_VALID_ERROR.getErrorCode());
             }
         } else {
-            log.error(ACCOUNT_ACTIVATED_ERROR.getErrorMessage());
-            throw new LBUAuthRuntimeException(ACCOUNT_ACTIVATED_ERROR.getErrorMessage(), ACCOUNT_ACTIVATED_ERROR.getErrorCode());
+            // An expired token may already have been removed by the sweeper, an inactive user gets a new one
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> {
+                        log.error(ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorMessage());
+                        return new LBUAuthRuntimeException(
+                                ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorMessage(),
+                                ACCOUNT_NOT_AVAILABLE_USER_ID_ERROR.getErrorCode());
+                    });
+            if (user.getEnabled()) {
+                log.error(ACCOUNT_ACTIVATED_ERROR.getErrorMessage());
+                throw new LBUAuthRuntimeException(ACCOUNT_ACTIVATED_ERROR.getErrorMessage(), ACCOUNT_ACTIVATED_ERROR.getErrorCode());
+            }
+            emailService.sendOrResendActivationLink(user);
+            log.info("successfully queued an activation email to user [{}]", user.getUsername());
         }
     }
 
@@ -271,6 +302,8 @@ public class UserServiceImpl implements UserService {
         }
         User user = optionalUser.get();
         user.setRoleType(RoleType.STUDENT);
-        return userRepository.saveAndFlush(user);
+        User updatedUser = userRepository.saveAndFlush(user);
+        userCacheService.evictUser(userId);
+        return updatedUser;
     }
 }
@@ -0,0 +1,76 @@
+package com.lbu.lbuauth.integrationtests;
+
+import com.lbu.lbuauth.repositories.UserMetaDataRepositoryImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+// The upsert relies on ON DUPLICATE KEY UPDATE and GREATEST, so it is tested on MySQL
+@Testcontainers(disabledWithoutDocker = true)
+public class UserMetaDataRepositoryIntegrationTest {
+
+    @Container
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static UserMetaDataRepositoryImpl userMetaDataRepository;
+
+    @BeforeAll
+    static void createTable() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword()));
+        jdbcTemplate.execute("CREATE TABLE user_metadata (id VARCHAR(255) NOT NULL PRIMARY KEY, user_id VARCHAR(255), "
+                + "last_login_timestamp DATETIME(6), created_timestamp DATETIME(6), updated_timestamp DATETIME(6), "
+                + "CONSTRAINT uk_user_metadata_user UNIQUE (user_id))");
+        userMetaDataRepository = new UserMetaDataRepositoryImpl(jdbcTemplate);
+    }
+
+    @Test
+    public void testWhenUserHasNoMetadata_ThenUpsert_ReturnRowCreated() {
+        String userId = UUID.randomUUID().toString();
+        Timestamp loginAt = timestamp(0);
+        userMetaDataRepository.upsertLastLoginTimestamps(Map.of(userId, loginAt));
+        Assertions.assertEquals(loginAt, lastLogin(userId), "Invalid last login");
+    }
+
+    @Test
+    public void testWhenEarlierLoginFlushedLate_ThenUpsert_ReturnTimestampNotMovedBack() {
+        String userId = UUID.randomUUID().toString();
+        String otherUserId = UUID.randomUUID().toString();
+        userMetaDataRepository.upsertLastLoginTimestamps(Map.of(userId, timestamp(60)));
+        userMetaDataRepository.upsertLastLoginTimestamps(Map.of(userId, timestamp(0), otherUserId, timestamp(0)));
+        Assertions.assertEquals(timestamp(60), lastLogin(userId), "An earlier login should not move the timestamp back");
+        Assertions.assertEquals(timestamp(0), lastLogin(otherUserId), "Invalid last login of the other user");
+
+        userMetaDataRepository.upsertLastLoginTimestamps(Map.of(userId, timestamp(120)));
+        Assertions.assertEquals(timestamp(120), lastLogin(userId), "A later login should move the timestamp forward");
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_metadata WHERE user_id = ?",
+                Integer.class, userId), "A user should have one metadata row");
+    }
+
+    @Test
+    public void testWhenMetadataHasNoLogin_ThenUpsert_ReturnTimestampSet() {
+        String userId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO user_metadata (id, user_id) VALUES (?, ?)", UUID.randomUUID().toString(), userId);
+        userMetaDataRepository.upsertLastLoginTimestamps(Map.of(userId, timestamp(0)));
+        Assertions.assertEquals(timestamp(0), lastLogin(userId), "Invalid last login");
+    }
+
+    private static Timestamp timestamp(long secondsAfterBase) {
+        return Timestamp.from(Instant.parse("2024-05-01T10:00:00Z").plusSeconds(secondsAfterBase));
+    }
+
+    private static Timestamp lastLogin(String userId) {
+        return jdbcTemplate.queryForObject("SELECT last_login_timestamp FROM user_metadata WHERE user_id = ?",
+                Timestamp.class, userId);
+    }
+}
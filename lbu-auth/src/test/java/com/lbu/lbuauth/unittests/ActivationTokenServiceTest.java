@@ -0,0 +1,235 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.models.AccountActivationDetails;
+import com.lbu.lbuauth.repositories.AccountActivationDetailsRepository;
+import com.lbu.lbuauth.repositories.OutboxEmailRepository;
+import com.lbu.lbuauth.services.impl.ActivationTokenServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActivationTokenServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AccountActivationDetailsRepository activationDetailsRepository;
+    private OutboxEmailRepository outboxEmailRepository;
+    private ActivationTokenServiceImpl activationTokenService;
+
+    @BeforeEach
+    void setUp() {
+        activationDetailsRepository = Mockito.mock(AccountActivationDetailsRepository.class);
+        outboxEmailRepository = Mockito.mock(OutboxEmailRepository.class);
+        activationTokenService = new ActivationTokenServiceImpl(activationDetailsRepository, outboxEmailRepository,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), meterRegistry);
+        ReflectionTestUtils.setField(activationTokenService, "resendLimit", 24L);
+        ReflectionTestUtils.setField(activationTokenService, "sweepBatchSize", 2);
+    }
+
+    @Test
+    void testWhenTokensGenerated_ThenHash_ReturnFixedWidthUniqueValues() {
+        Set<String> tokens = new HashSet<>();
+        Set<String> hashes = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String token = activationTokenService.generateToken();
+            Assertions.assertTrue(token.matches("[A-Za-z0-9_-]{22}"), "Token format is invalid " + token);
+            String hash = activationTokenService.hashToken(token);
+            Assertions.assertTrue(hash.matches("[A-Za-z0-9_-]{43}"), "Hash format is invalid " + hash);
+            Assertions.assertEquals(hash, activationTokenService.hashToken(token), "Hash should be stable");
+            tokens.add(token);
+            hashes.add(hash);
+        }
+        Assertions.assertEquals(10_000, tokens.size(), "Tokens should be unique");
+        Assertions.assertEquals(10_000, hashes.size(), "Hashes should be unique");
+    }
+
+    @Test
+    void testWhenTokenLookedUp_ThenFindByToken_ReturnDetailsByHash() {
+        String token = activationTokenService.generateToken();
+        AccountActivationDetails activationDetails = new AccountActivationDetails();
+        when(activationDetailsRepository.findByToken(activationTokenService.hashToken(token))).thenReturn(Optional.of(activationDetails));
+        Assertions.assertSame(activationDetails, activationTokenService.findByToken(token).orElseThrow(), "Details are invalid");
+        verify(activationDetailsRepository, never()).findByToken(token);
+    }
+
+    @Test
+    void testWhenStoredHashSubmitted_ThenFindByToken_ReturnNotFound() {
+        String storedHash = activationTokenService.hashToken(activationTokenService.generateToken());
+        when(activationDetailsRepository.findByToken(storedHash)).thenReturn(Optional.of(new AccountActivationDetails()));
+        Assertions.assertTrue(activationTokenService.findByToken(storedHash).isEmpty(), "Stored hash should not activate its own row");
+        verify(activationDetailsRepository).findByToken(activationTokenService.hashToken(storedHash));
+        verify(activationDetailsRepository, never()).findByToken(storedHash);
+        Assertions.assertTrue(activationTokenService.findByToken(null).isEmpty(), "Missing token should not be found");
+    }
+
+    @Test
+    void testWhenLegacyTokensStored_ThenHashLegacyTokens_ReturnReplacedInBatchesWithEmails() {
+        String firstToken = UUID.randomUUID().toString();
+        String secondToken = UUID.randomUUID().toString();
+        String thirdToken = UUID.randomUUID().toString();
+        when(activationDetailsRepository.findLegacyTokens(any(Pageable.class)))
+                .thenReturn(List.of(firstToken, secondToken), List.of(thirdToken));
+        when(activationDetailsRepository.replaceToken(anyString(), anyString())).thenReturn(1);
+        activationTokenService.hashLegacyTokens();
+        for (String token : List.of(firstToken, secondToken, thirdToken)) {
+            verify(activationDetailsRepository).replaceToken(token, activationTokenService.hashToken(token));
+            verify(outboxEmailRepository).replaceIdempotencyKey(token, activationTokenService.hashToken(token));
+        }
+        verify(activationDetailsRepository, Mockito.times(2)).findLegacyTokens(any(Pageable.class));
+
+        // A link sent before the migration is found through the hash of its token
+        AccountActivationDetails activationDetails = new AccountActivationDetails();
+        when(activationDetailsRepository.findByToken(activationTokenService.hashToken(firstToken))).thenReturn(Optional.of(activationDetails));
+        Assertions.assertSame(activationDetails, activationTokenService.findByToken(firstToken).orElseThrow(), "Details are invalid");
+        verify(activationDetailsRepository, never()).findByToken(firstToken);
+    }
+
+    @Test
+    void testWhenNoLegacyTokensStored_ThenHashLegacyTokens_ReturnNothingReplaced() {
+        when(activationDetailsRepository.findLegacyTokens(any(Pageable.class))).thenReturn(List.of());
+        activationTokenService.hashLegacyTokens();
+        verify(activationDetailsRepository, never()).replaceToken(anyString(), anyString());
+        verify(outboxEmailRepository, never()).replaceIdempotencyKey(anyString(), anyString());
+    }
+
+    @Test
+    void testWhenTokensExpired_ThenSweep_ReturnDeletedInBatchesWithUnsentEmails() {
+        when(activationDetailsRepository.findExpiredIds(any(Timestamp.class), any(Pageable.class)))
+                .thenReturn(List.of("1", "2"), List.of("3"));
+        when(activationDetailsRepository.findExpiredTokens(eq(List.of("1", "2")), any(Timestamp.class))).thenReturn(List.of("hash1", "hash2"));
+        when(activationDetailsRepository.findExpiredTokens(eq(List.of("3")), any(Timestamp.class))).thenReturn(List.of("hash3"));
+        when(activationDetailsRepository.deleteExpired(eq(List.of("1", "2")), any(Timestamp.class))).thenReturn(2);
+        when(activationDetailsRepository.deleteExpired(eq(List.of("3")), any(Timestamp.class))).thenReturn(1);
+        activationTokenService.sweepExpiredTokens();
+        verify(outboxEmailRepository).deleteAllUnsent(List.of("hash1", "hash2"));
+        verify(outboxEmailRepository).deleteAllUnsent(List.of("hash3"));
+        Assertions.assertEquals(3, meterRegistry.get("lbu.auth.activation.tokens.swept").counter().count(), "Invalid swept tokens");
+    }
+
+    @Test
+    void testWhenNoTokensExpired_ThenSweep_ReturnNothingDeleted() {
+        when(activationDetailsRepository.findExpiredIds(any(Timestamp.class), any(Pageable.class))).thenReturn(List.of());
+        activationTokenService.sweepExpiredTokens();
+        verify(activationDetailsRepository, never()).deleteExpired(any(), any(Timestamp.class));
+        verify(outboxEmailRepository, never()).deleteAllUnsent(any());
+        verify(outboxEmailRepository, never()).deleteUnsent(anyString());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.activation.benchmark", matches = "true")
+    void benchmarkActivationLookupAtTenMillionRows() throws Exception {
+        int rows = 10_000_000;
+        int batchSize = 10_000;
+        int lookups = 10_000;
+        try (MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0").withUrlParam("rewriteBatchedStatements", "true")) {
+            mysql.start();
+            try (Connection connection = DriverManager.getConnection(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TABLE account_activation_details (id VARCHAR(255) NOT NULL PRIMARY KEY, " +
+                            "token VARCHAR(255) UNIQUE, user_id VARCHAR(255), created_timestamp DATETIME(6), " +
+                            "updated_timestamp DATETIME(6), INDEX idx_account_activation_created (created_timestamp))");
+                }
+                List<String> issuedTokens = new ArrayList<>();
+                connection.setAutoCommit(false);
+                long start = System.nanoTime();
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO account_activation_details " +
+                        "(id, token, user_id, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?)")) {
+                    for (int row = 0; row < rows; row++) {
+                        String token = activationTokenService.generateToken();
+                        if (row % (rows / lookups) == 0) {
+                            issuedTokens.add(token);
+                        }
+                        Timestamp createdTimestamp = Timestamp.from(Instant.now());
+                        insert.setString(1, UUID.randomUUID().toString());
+                        insert.setString(2, activationTokenService.hashToken(token));
+                        insert.setString(3, UUID.randomUUID().toString());
+                        insert.setTimestamp(4, createdTimestamp);
+                        insert.setTimestamp(5, createdTimestamp);
+                        insert.addBatch();
+                        if ((row + 1) % batchSize == 0) {
+                            insert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                }
+                connection.setAutoCommit(true);
+                System.out.printf("Inserted %d activation tokens in %d s%n", rows, (System.nanoTime() - start) / 1_000_000_000);
+
+                String query = "SELECT id, user_id, created_timestamp FROM account_activation_details WHERE token = ?";
+                try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + query)) {
+                    explain.setString(1, activationTokenService.hashToken(issuedTokens.get(0)));
+                    try (ResultSet resultSet = explain.executeQuery()) {
+                        Assertions.assertTrue(resultSet.next());
+                        Assertions.assertEquals("const", resultSet.getString("type"), "Lookup should use the unique token index");
+                    }
+                }
+                Collections.shuffle(issuedTokens);
+                try (PreparedStatement lookup = connection.prepareStatement(query)) {
+                    // Warm up the buffer pool and the JIT before measuring
+                    lookUp(lookup, issuedTokens.subList(0, 1_000));
+                    long[] hitNanos = lookUp(lookup, issuedTokens);
+                    List<String> unknownTokens = new ArrayList<>();
+                    for (int i = 0; i < lookups; i++) {
+                        unknownTokens.add(activationTokenService.generateToken());
+                    }
+                    long[] missNanos = lookUp(lookup, unknownTokens);
+                    Assertions.assertTrue(Arrays.stream(hitNanos).allMatch(nanos -> nanos > 0), "Issued tokens should be found");
+                    Assertions.assertTrue(Arrays.stream(missNanos).allMatch(nanos -> nanos < 0), "Unknown tokens should not be found");
+                    System.out.printf("%d rows: issued token p50 %d us p99 %d us, unknown token p50 %d us p99 %d us%n", rows,
+                            percentile(hitNanos, 50), percentile(hitNanos, 99), percentile(missNanos, 50), percentile(missNanos, 99));
+                }
+            }
+        }
+    }
+
+    // Times the hash and the indexed lookup of each token, negative when the token was not found
+    private long[] lookUp(PreparedStatement lookup, List<String> tokens) throws Exception {
+        long[] nanos = new long[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            long start = System.nanoTime();
+            lookup.setString(1, activationTokenService.hashToken(tokens.get(i)));
+            boolean found;
+            try (ResultSet resultSet = lookup.executeQuery()) {
+                found = resultSet.next();
+            }
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            nanos[i] = found ? elapsed : -elapsed;
+        }
+        return nanos;
+    }
+
+    private static long percentile(long[] nanos, int percentile) {
+        long[] sorted = Arrays.stream(nanos).map(Math::abs).sorted().toArray();
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000;
+    }
+}
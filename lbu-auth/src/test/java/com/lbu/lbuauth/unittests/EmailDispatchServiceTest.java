@@ -0,0 +1,360 @@
+package com.lbu.lbuauth.unittests;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.OutboxEmail;
+import com.lbu.lbuauth.repositories.OutboxEmailRepository;
+import com.lbu.lbuauth.services.impl.EmailDispatchServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+public class EmailDispatchServiceTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final List<OutboxEmail> outbox = new ArrayList<>();
+    private final AtomicInteger claims = new AtomicInteger();
+    private JavaMailSenderImpl mailSender;
+    private EmailDispatchServiceImpl emailDispatchService;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+        mailSender.getJavaMailProperties().put("mail.smtp.writetimeout", "5000");
+        emailDispatchService = dispatcher(mailSender);
+    }
+
+    @Test
+    void testWhenEmailsQueued_ThenDispatchTwice_ReturnEachTokenDeliveredOnceInBatches() throws Exception {
+        List<OutboxEmail> queued = queue(120);
+        emailDispatchService.dispatchEmails();
+        emailDispatchService.dispatchEmails();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        Assertions.assertEquals(120, received.length, "Every queued email should be delivered once");
+        Assertions.assertEquals(messageIds(queued), receivedMessageIds(received), "Every token should be delivered exactly once");
+        Assertions.assertTrue(queued.stream().allMatch(email -> Objects.nonNull(email.getSentTimestamp())
+                && email.getAttempts() == 1), "Emails were not marked sent");
+        // Two full batches and the rest, then one empty claim on the second run
+        Assertions.assertEquals(4, claims.get(), "Emails should be claimed in batches");
+    }
+
+    @Test
+    void testWhenMailServerUnavailable_ThenDispatchAgain_ReturnEachTokenDeliveredOnce() throws Exception {
+        List<OutboxEmail> queued = queue(10);
+        mailSender.setPort(closedPort());
+        emailDispatchService.dispatchEmails();
+        Assertions.assertEquals(0, greenMail.getReceivedMessages().length, "No email should be delivered");
+        Assertions.assertTrue(queued.stream().allMatch(email -> Objects.isNull(email.getSentTimestamp())
+                && Objects.nonNull(email.getLastError())
+                && email.getNextAttemptTimestamp().after(Timestamp.from(Instant.now()))), "Failed emails were not backed off");
+
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        queued.forEach(email -> email.setNextAttemptTimestamp(Timestamp.from(Instant.now().minusSeconds(1))));
+        emailDispatchService.dispatchEmails();
+        emailDispatchService.dispatchEmails();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        Assertions.assertEquals(10, received.length, "Retried emails should be delivered once");
+        Assertions.assertEquals(messageIds(queued), receivedMessageIds(received), "Every token should be delivered exactly once");
+        Assertions.assertTrue(queued.stream().allMatch(email -> email.getAttempts() == 2), "Invalid attempts");
+    }
+
+    @Test
+    void testWhenLeaseNotLongerThanSlowestBatch_ThenValidateLease_ReturnError() {
+        emailDispatchService.validateLease();
+        ReflectionTestUtils.setField(emailDispatchService, "leaseSeconds", 60L);
+        LBUAuthRuntimeException exception = Assertions.assertThrows(LBUAuthRuntimeException.class,
+                () -> emailDispatchService.validateLease());
+        Assertions.assertEquals(8001, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    void testWhenRecipientInvalid_ThenDispatchTwice_ReturnDeadLetteredOthersDelivered() throws Exception {
+        List<OutboxEmail> queued = queue(3);
+        OutboxEmail invalid = queued.get(0);
+        invalid.setRecipient("<unterminated@lbu.ac.uk");
+        emailDispatchService.dispatchEmails();
+        emailDispatchService.dispatchEmails();
+        Assertions.assertEquals(2, greenMail.getReceivedMessages().length, "Valid emails should be delivered");
+        assertDeadLettered(invalid);
+        Assertions.assertEquals(1, invalid.getAttempts(), "Invalid recipient should not be retried");
+    }
+
+    @Test
+    void testWhenMailServerRejects_ThenDispatch_ReturnPermanentDeadLetteredTransientRetried() throws Exception {
+        List<OutboxEmail> queued = queue(4);
+        OutboxEmail unknown = queued.get(0);
+        unknown.setRecipient("unknown@lbu.ac.uk");
+        OutboxEmail busy = queued.get(1);
+        busy.setRecipient("busy@lbu.ac.uk");
+        JavaMailSenderImpl rejectingSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) throws MailException {
+                Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+                List<MimeMessage> accepted = new ArrayList<>();
+                for (MimeMessage message : mimeMessages) {
+                    String recipient = recipient(message);
+                    if (recipient.equals(unknown.getRecipient())) {
+                        failedMessages.put(message, new SendFailedException("550 5.1.1 Mailbox unavailable"));
+                    } else if (recipient.equals(busy.getRecipient())) {
+                        failedMessages.put(message, new MessagingException("451 4.3.0 Try again later"));
+                    } else {
+                        accepted.add(message);
+                    }
+                }
+                mailSender.send(accepted.toArray(new MimeMessage[0]));
+                throw new MailSendException(failedMessages);
+            }
+        };
+        dispatcher(rejectingSender).dispatchEmails();
+        Assertions.assertEquals(2, greenMail.getReceivedMessages().length, "Accepted emails should be delivered");
+        assertDeadLettered(unknown);
+        Assertions.assertNull(busy.getDeadLetteredTimestamp(), "Transient failure should not be dead lettered");
+        Assertions.assertTrue(busy.getNextAttemptTimestamp().after(Timestamp.from(Instant.now()))
+                && busy.getLastError().contains("451"), "Transient failure was not backed off");
+    }
+
+    @Test
+    void testWhenMaxAttemptsReached_ThenDispatch_ReturnDeadLettered() throws Exception {
+        ReflectionTestUtils.setField(emailDispatchService, "maxAttempts", 2);
+        OutboxEmail email = queue(1).get(0);
+        mailSender.setPort(closedPort());
+        emailDispatchService.dispatchEmails();
+        Assertions.assertNull(email.getDeadLetteredTimestamp(), "First failure should be retried");
+        email.setNextAttemptTimestamp(Timestamp.from(Instant.now().minusSeconds(1)));
+        emailDispatchService.dispatchEmails();
+        assertDeadLettered(email);
+
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        emailDispatchService.dispatchEmails();
+        Assertions.assertEquals(0, greenMail.getReceivedMessages().length, "Dead lettered email should not be sent");
+        Assertions.assertEquals(2, email.getAttempts(), "Invalid attempts");
+    }
+
+    @Test
+    void testWhenEmailDeletedWhileSending_ThenSendFails_ReturnNotInsertedAgain() {
+        OutboxEmail deleted = queue(1).get(0);
+        JavaMailSenderImpl failingSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) throws MailException {
+                // The user asked for the activation email again, so the unsent email was deleted and queued anew
+                synchronized (outbox) {
+                    outbox.remove(deleted);
+                }
+                throw new MailSendException("Connection refused");
+            }
+        };
+        dispatcher(failingSender).dispatchEmails();
+        synchronized (outbox) {
+            Assertions.assertTrue(outbox.isEmpty(), "Deleted email should not be inserted again");
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.email.benchmark", matches = "true")
+    void benchmarkEmailDispatchThroughput() throws Exception {
+        int emails = 2_000;
+        List<OutboxEmail> queued = queue(emails);
+        long start = System.nanoTime();
+        emailDispatchService.dispatchEmails();
+        long batchedNanos = System.nanoTime() - start;
+        Assertions.assertEquals(emails, greenMail.getReceivedMessages().length, "Every queued email should be delivered");
+        Assertions.assertTrue(queued.stream().allMatch(email -> Objects.nonNull(email.getSentTimestamp())));
+
+        start = System.nanoTime();
+        for (int i = 0; i < emails; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+            helper.setFrom("no-reply@lbu.ac.uk");
+            helper.setTo("user" + i + "@lbu.ac.uk");
+            helper.setSubject("Activate your account");
+            helper.setText("Activation link");
+            // One connection per email, as the signup request sent it before the outbox
+            mailSender.send(message);
+        }
+        long singleNanos = System.nanoTime() - start;
+        System.out.printf("%d emails: outbox batches %.0f emails/s, one connection per email %.0f emails/s%n",
+                emails, emails * 1_000_000_000.0 / batchedNanos, emails * 1_000_000_000.0 / singleNanos);
+    }
+
+    private EmailDispatchServiceImpl dispatcher(JavaMailSender sender) {
+        EmailDispatchServiceImpl dispatcher = new EmailDispatchServiceImpl(outboxEmailRepository(), sender,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "from", "no-reply@lbu.ac.uk");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 600L);
+        ReflectionTestUtils.setField(dispatcher, "backoffBaseMillis", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMillis", 300000L);
+        ReflectionTestUtils.setField(dispatcher, "retentionHours", 24L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 10);
+        ReflectionTestUtils.setField(dispatcher, "connectionTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "readTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "writeTimeoutMillis", 5000L);
+        return dispatcher;
+    }
+
+    private static void assertDeadLettered(OutboxEmail email) {
+        Assertions.assertNotNull(email.getDeadLetteredTimestamp(), "Email should be dead lettered");
+        Assertions.assertNull(email.getNextAttemptTimestamp(), "Dead lettered email should not be retried");
+        Assertions.assertNull(email.getBody(), "Activation link should be cleared");
+        Assertions.assertNull(email.getSentTimestamp(), "Dead lettered email was not sent");
+    }
+
+    private static String recipient(MimeMessage message) {
+        try {
+            return message.getAllRecipients()[0].toString();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<OutboxEmail> queue(int count) {
+        List<OutboxEmail> queued = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OutboxEmail email = new OutboxEmail();
+            email.setId(UUID.randomUUID().toString());
+            email.setIdempotencyKey(UUID.randomUUID().toString().replace("-", ""));
+            email.setRecipient("user" + i + "@lbu.ac.uk");
+            email.setSubject("Activate your account");
+            email.setBody("Activation link " + i);
+            email.setAttempts(0);
+            email.setNextAttemptTimestamp(Timestamp.from(Instant.now().minusSeconds(1)));
+            email.setCreatedTimestamp(Timestamp.from(Instant.now()));
+            queued.add(email);
+        }
+        synchronized (outbox) {
+            outbox.addAll(queued);
+        }
+        return queued;
+    }
+
+    private static Map<String, Long> messageIds(List<OutboxEmail> emails) {
+        return emails.stream().collect(Collectors.groupingBy(email -> "<" + email.getIdempotencyKey() + "@lbu-auth>",
+                Collectors.counting()));
+    }
+
+    private static Map<String, Long> receivedMessageIds(MimeMessage[] messages) throws Exception {
+        List<String> messageIds = new ArrayList<>();
+        for (MimeMessage message : messages) {
+            messageIds.add(message.getMessageID());
+        }
+        return messageIds.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    // An in memory outbox stands in for the database, so the dispatcher is tested against a real SMTP server
+    @SuppressWarnings("unchecked")
+    private OutboxEmailRepository outboxEmailRepository() {
+        OutboxEmailRepository repository = Mockito.mock(OutboxEmailRepository.class);
+        when(repository.findDueEmails(any(Timestamp.class), any(Pageable.class))).thenAnswer(invocation -> {
+            claims.incrementAndGet();
+            Timestamp now = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            synchronized (outbox) {
+                return outbox.stream()
+                        .filter(email -> Objects.isNull(email.getSentTimestamp()) && Objects.nonNull(email.getNextAttemptTimestamp())
+                                && !email.getNextAttemptTimestamp().after(now))
+                        .sorted(Comparator.comparing(OutboxEmail::getNextAttemptTimestamp).thenComparing(OutboxEmail::getId))
+                        .limit(pageable.getPageSize())
+                        .collect(Collectors.toList());
+            }
+        });
+        // Like a merge of detached entities, saving an email which is no longer in the outbox inserts it again
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<OutboxEmail> saved = invocation.getArgument(0);
+            synchronized (outbox) {
+                saved.stream().filter(email -> !outbox.contains(email)).forEach(outbox::add);
+            }
+            return new ArrayList<>(saved);
+        });
+        when(repository.scheduleRetry(any(), any(Timestamp.class), any())).thenAnswer(invocation -> {
+            Timestamp nextAttemptTimestamp = invocation.getArgument(1);
+            String lastError = invocation.getArgument(2);
+            return update(invocation.getArgument(0), email -> {
+                email.setNextAttemptTimestamp(nextAttemptTimestamp);
+                email.setLastError(lastError);
+            });
+        });
+        when(repository.deadLetter(any(), any(Timestamp.class), any())).thenAnswer(invocation -> {
+            Timestamp deadLetteredTimestamp = invocation.getArgument(1);
+            String lastError = invocation.getArgument(2);
+            return update(invocation.getArgument(0), email -> {
+                email.setDeadLetteredTimestamp(deadLetteredTimestamp);
+                email.setNextAttemptTimestamp(null);
+                email.setBody(null);
+                email.setLastError(lastError);
+            });
+        });
+        when(repository.markSent(any(), any(Timestamp.class))).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            Timestamp sentTimestamp = invocation.getArgument(1);
+            synchronized (outbox) {
+                List<OutboxEmail> sent = outbox.stream().filter(email -> ids.contains(email.getId())).collect(Collectors.toList());
+                sent.forEach(email -> {
+                    email.setSentTimestamp(sentTimestamp);
+                    email.setLastError(null);
+                });
+                return sent.size();
+            }
+        });
+        return repository;
+    }
+
+    private int update(Collection<String> ids, Consumer<OutboxEmail> change) {
+        synchronized (outbox) {
+            List<OutboxEmail> updated = outbox.stream()
+                    .filter(email -> ids.contains(email.getId()) && Objects.isNull(email.getSentTimestamp()))
+                    .collect(Collectors.toList());
+            updated.forEach(change);
+            return updated.size();
+        }
+    }
+}
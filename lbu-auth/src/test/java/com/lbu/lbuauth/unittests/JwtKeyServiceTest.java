@@ -0,0 +1,239 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.models.SecretDetails;
+import com.lbu.lbuauth.models.SecretWrapper;
+import com.lbu.lbuauth.models.enums.SecretType;
+import com.lbu.lbuauth.repositories.SecretDetailRepository;
+import com.lbu.lbuauth.services.impl.JwtKeyServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JwtKeyServiceTest {
+
+    // Stands in for the secret_detail table, reads return copies the way a new persistence context would
+    private final Map<String, SecretDetails> secretTable = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong(Instant.now().minus(Duration.ofDays(1)).toEpochMilli());
+    private SecretDetailRepository secretDetailRepository;
+    private JwtKeyServiceImpl jwtKeyService;
+
+    @BeforeEach
+    void setUp() {
+        secretDetailRepository = Mockito.mock(SecretDetailRepository.class);
+        when(secretDetailRepository.save(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(secretDetailRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<SecretDetails> secrets = invocation.getArgument(0);
+            List<SecretDetails> saved = new ArrayList<>();
+            secrets.forEach(secret -> saved.add(store(secret)));
+            return saved;
+        });
+        when(secretDetailRepository.findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET)).thenAnswer(invocation ->
+                new ArrayList<>(secretTable.values().stream()
+                        .sorted(Comparator.comparing(SecretDetails::getCreatedTimestamp).reversed())
+                        .map(JwtKeyServiceTest::copy)
+                        .toList()));
+        Mockito.doAnswer(invocation -> {
+            Iterable<SecretDetails> secrets = invocation.getArgument(0);
+            secrets.forEach(secret -> secretTable.remove(secret.getId()));
+            return null;
+        }).when(secretDetailRepository).deleteAll(any());
+        jwtKeyService = keyService();
+    }
+
+    @Test
+    void testWhenNoKeyStored_ThenGetSigningKey_ReturnGeneratedKeyLoadedOnce() {
+        SecretWrapper signingKey = jwtKeyService.getSigningKey();
+        Assertions.assertNotNull(signingKey.getKeyId(), "Signing key should have a key id");
+        Assertions.assertSame(signingKey, jwtKeyService.getSigningKey(), "Signing key should be cached");
+        verify(secretDetailRepository, times(1)).save(any());
+        Assertions.assertEquals(1, secretTable.size(), "One key should be stored");
+
+        // Another instance, or a restart, loads the stored key instead of generating one
+        JwtKeyServiceImpl restarted = keyService();
+        Assertions.assertEquals(signingKey.getKeyId(), restarted.getSigningKey().getKeyId(), "Stored key should be loaded");
+        Assertions.assertEquals(signingKey.getPublicKey(), restarted.getSigningKey().getPublicKey(), "Invalid public key");
+        verify(secretDetailRepository, times(1)).save(any());
+        verify(secretDetailRepository, times(3)).findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET);
+    }
+
+    @Test
+    void testWhenTokenSigned_ThenParse_ReturnClaimsWithoutDatabaseRead() {
+        SecretWrapper signingKey = jwtKeyService.getSigningKey();
+        String token = sign(signingKey.getKeyId(), signingKey.getPrivateKey());
+        Mockito.clearInvocations(secretDetailRepository);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals("alice", parse(jwtKeyService.getJwtParser(), token).getSubject(), "Invalid subject");
+        }
+        Mockito.verifyNoInteractions(secretDetailRepository);
+    }
+
+    @Test
+    void testWhenSigningKeyRotated_ThenParse_ReturnOldAndNewTokensValid() {
+        SecretWrapper oldKey = jwtKeyService.getSigningKey();
+        String oldToken = sign(oldKey.getKeyId(), oldKey.getPrivateKey());
+        jwtKeyService.rotateSigningKey();
+        SecretWrapper newKey = jwtKeyService.getSigningKey();
+        Assertions.assertNotEquals(oldKey.getKeyId(), newKey.getKeyId(), "A new signing key should be used");
+        Assertions.assertNotNull(secretTable.get(oldKey.getKeyId()).getExpiresTimestamp(), "Old key should be retired");
+        String newToken = sign(newKey.getKeyId(), newKey.getPrivateKey());
+        Assertions.assertEquals("alice", parse(jwtKeyService.getJwtParser(), oldToken).getSubject(), "Old token should stay valid");
+        Assertions.assertEquals("alice", parse(jwtKeyService.getJwtParser(), newToken).getSubject(), "New token should be valid");
+    }
+
+    @Test
+    void testWhenKeyRotatedByAnotherInstance_ThenParse_ReturnNewKeyPickedUp() {
+        JwtKeyServiceImpl otherInstance = keyService();
+        jwtKeyService.getSigningKey();
+        otherInstance.rotateSigningKey();
+        SecretWrapper newKey = otherInstance.getSigningKey();
+        // The unknown key id reloads the key ring without waiting for the scheduled reload
+        Assertions.assertEquals("alice", parse(jwtKeyService.getJwtParser(), sign(newKey.getKeyId(), newKey.getPrivateKey())).getSubject(),
+                "Token signed by the other instance should be valid");
+        jwtKeyService.reloadKeys();
+        Assertions.assertEquals(newKey.getKeyId(), jwtKeyService.getSigningKey().getKeyId(), "Reload should pick up the new signing key");
+    }
+
+    @Test
+    void testWhenRetiredKeyExpired_ThenParse_ReturnTokenRejected() {
+        SecretWrapper oldKey = jwtKeyService.getSigningKey();
+        String oldToken = sign(oldKey.getKeyId(), oldKey.getPrivateKey());
+        jwtKeyService.rotateSigningKey();
+        secretTable.get(oldKey.getKeyId()).setExpiresTimestamp(Timestamp.from(Instant.now().minusSeconds(1)));
+        jwtKeyService.reloadKeys();
+        Assertions.assertFalse(secretTable.containsKey(oldKey.getKeyId()), "Expired key should be deleted");
+        Assertions.assertThrows(UnsupportedJwtException.class, () -> parse(jwtKeyService.getJwtParser(), oldToken),
+                "Token signed with a rotated out key should be rejected");
+    }
+
+    @Test
+    void testWhenTokenSignedWithUnknownKey_ThenParse_ReturnTokenRejected() throws Exception {
+        SecretWrapper signingKey = jwtKeyService.getSigningKey();
+        PrivateKey foreignKey = generateKeyPair().getPrivate();
+        Assertions.assertThrows(UnsupportedJwtException.class,
+                () -> parse(jwtKeyService.getJwtParser(), sign(UUID.randomUUID().toString(), foreignKey)), "Unknown key id should be rejected");
+        Assertions.assertThrows(SignatureException.class,
+                () -> parse(jwtKeyService.getJwtParser(), sign(signingKey.getKeyId(), foreignKey)), "Forged signature should be rejected");
+    }
+
+    @Test
+    void testWhenTokenHasNoKeyId_ThenParse_ReturnVerifiedWithOldestKey() {
+        SecretWrapper legacyKey = jwtKeyService.getSigningKey();
+        String legacyToken = sign(null, legacyKey.getPrivateKey());
+        jwtKeyService.rotateSigningKey();
+        Assertions.assertEquals("alice", parse(jwtKeyService.getJwtParser(), legacyToken).getSubject(),
+                "Token issued before key ids should be verified with the oldest key");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.jwt.benchmark", matches = "true")
+    void benchmarkTokenValidation() throws Exception {
+        SecretWrapper signingKey = jwtKeyService.getSigningKey();
+        String token = sign(signingKey.getKeyId(), signingKey.getPrivateKey());
+        String storedPublicKey = secretTable.get(signingKey.getKeyId()).getPublicKey();
+        int validations = 20_000;
+        // Warm up the JIT before measuring
+        for (int i = 0; i < validations; i++) {
+            parse(jwtKeyService.getJwtParser(), token);
+            parse(Jwts.parser().verifyWith(KeyFactory.getInstance("RSA").generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(storedPublicKey)))).build(), token);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < validations; i++) {
+            // The key is read, decoded and a parser built on every validation, as before the key ring
+            SecretDetails secret = secretDetailRepository.findAllBySecretTypeOrderByCreatedTimestampDesc(SecretType.JWT_SECRET).get(0);
+            parse(Jwts.parser().verifyWith(KeyFactory.getInstance("RSA").generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(secret.getPublicKey())))).build(), token);
+        }
+        double perRequestMicros = (System.nanoTime() - start) / 1_000.0 / validations;
+        start = System.nanoTime();
+        for (int i = 0; i < validations; i++) {
+            parse(jwtKeyService.getJwtParser(), token);
+        }
+        double keyRingMicros = (System.nanoTime() - start) / 1_000.0 / validations;
+        System.out.printf("jwt validation without the database read: %.1f us per token parsing the key, %.1f us per token with the key ring%n",
+                perRequestMicros, keyRingMicros);
+        Assertions.assertTrue(keyRingMicros < perRequestMicros, "The key ring should be faster than parsing the key per token");
+    }
+
+    private JwtKeyServiceImpl keyService() {
+        JwtKeyServiceImpl keyService = new JwtKeyServiceImpl(secretDetailRepository);
+        ReflectionTestUtils.setField(keyService, "expirationDuration", 24);
+        ReflectionTestUtils.setField(keyService, "rotationDays", 0);
+        return keyService;
+    }
+
+    private SecretDetails store(SecretDetails secret) {
+        Timestamp now = new Timestamp(clock.addAndGet(1_000));
+        if (secret.getId() == null) {
+            secret.setId(UUID.randomUUID().toString());
+            secret.setCreatedTimestamp(now);
+        }
+        secret.setUpdatedTimestamp(now);
+        secretTable.put(secret.getId(), copy(secret));
+        return secret;
+    }
+
+    private static SecretDetails copy(SecretDetails secret) {
+        SecretDetails copy = new SecretDetails();
+        copy.setId(secret.getId());
+        copy.setSecretType(secret.getSecretType());
+        copy.setPublicKey(secret.getPublicKey());
+        copy.setPrivateKey(secret.getPrivateKey());
+        copy.setCreatedTimestamp(secret.getCreatedTimestamp());
+        copy.setUpdatedTimestamp(secret.getUpdatedTimestamp());
+        copy.setExpiresTimestamp(secret.getExpiresTimestamp());
+        return copy;
+    }
+
+    private static String sign(String keyId, PrivateKey privateKey) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .subject("alice")
+                .issuer("lbu-auth")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(privateKey)
+                .compact();
+    }
+
+    private static Claims parse(JwtParser jwtParser, String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        return keyPairGenerator.generateKeyPair();
+    }
+}
@@ -0,0 +1,110 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.SecretWrapper;
+import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.models.enums.RoleType;
+import com.lbu.lbuauth.services.JwtKeyService;
+import com.lbu.lbuauth.services.UserCacheService;
+import com.lbu.lbuauth.services.impl.JwtServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Optional;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JwtServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserCacheService userCacheService = Mockito.mock(UserCacheService.class);
+    private JwtServiceImpl jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        SecretWrapper signingKey = new SecretWrapper();
+        signingKey.setKeyId("key-1");
+        signingKey.setPublicKey(keyPair.getPublic());
+        signingKey.setPrivateKey(keyPair.getPrivate());
+        JwtKeyService jwtKeyService = Mockito.mock(JwtKeyService.class);
+        when(jwtKeyService.getSigningKey()).thenReturn(signingKey);
+        when(jwtKeyService.getJwtParser()).thenReturn(Jwts.parser().verifyWith(keyPair.getPublic()).build());
+        jwtService = new JwtServiceImpl(jwtKeyService, userCacheService, meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "expirationDuration", 1);
+        ReflectionTestUtils.setField(jwtService, "tokenIssuer", "lbu-auth");
+
+        user = new User();
+        user.setId("6a1d4f3e-2b7c-4c55-9a0e-3c1f2d4b5a6c");
+        user.setUsername("alice");
+        user.setFirstName("Alice");
+        user.setLastName("Smith");
+        user.setRoleType(RoleType.STUDENT);
+        user.setEnabled(Boolean.TRUE);
+    }
+
+    @Test
+    void testWhenClaimsPrincipal_ThenGetAuthentication_ReturnPrincipalWithoutUserLookup() {
+        ReflectionTestUtils.setField(jwtService, "claimsPrincipal", true);
+        String token = jwtService.generateJwtToken(user).getJwtToken();
+        for (int i = 0; i < 10; i++) {
+            Authentication authentication = jwtService.getAuthentication(token);
+            UserDetails principal = (UserDetails) authentication.getPrincipal();
+            Assertions.assertEquals("alice", principal.getUsername(), "Principal should be built from the subject");
+            Assertions.assertEquals(RoleType.STUDENT.getStringRoleType(), authority(authentication), "Invalid role");
+        }
+        Mockito.verifyNoInteractions(userCacheService);
+        Assertions.assertEquals(10, meterRegistry.counter("lbu.auth.user.db.lookups.avoided").count(), "Invalid avoided lookups");
+    }
+
+    @Test
+    void testWhenClaimsPrincipalDisabled_ThenGetAuthentication_ReturnUserFromCache() {
+        ReflectionTestUtils.setField(jwtService, "claimsPrincipal", false);
+        when(userCacheService.getUser(user.getId())).thenReturn(Optional.of(user));
+        String token = jwtService.generateJwtToken(user).getJwtToken();
+        Authentication authentication = jwtService.getAuthentication(token);
+        Assertions.assertSame(user, authentication.getPrincipal(), "Principal should be the cached user");
+        Assertions.assertEquals(RoleType.STUDENT.getStringRoleType(), authority(authentication), "Invalid role");
+        verify(userCacheService, times(1)).getUser(user.getId());
+        Assertions.assertEquals(0, meterRegistry.counter("lbu.auth.user.db.lookups.avoided").count(), "Invalid avoided lookups");
+    }
+
+    @Test
+    void testWhenClaimsPrincipalDisabledAndUserMissing_ThenGetAuthentication_ReturnError() {
+        ReflectionTestUtils.setField(jwtService, "claimsPrincipal", false);
+        when(userCacheService.getUser(user.getId())).thenReturn(Optional.empty());
+        String token = jwtService.generateJwtToken(user).getJwtToken();
+        LBUAuthRuntimeException exception = Assertions.assertThrows(LBUAuthRuntimeException.class,
+                () -> jwtService.getAuthentication(token));
+        Assertions.assertEquals(6004, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    void testWhenTokenTampered_ThenGetAuthentication_ReturnErrorWithoutUserLookup() {
+        ReflectionTestUtils.setField(jwtService, "claimsPrincipal", true);
+        String token = jwtService.generateJwtToken(user).getJwtToken();
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        Assertions.assertThrows(LBUAuthRuntimeException.class, () -> jwtService.getAuthentication(tampered));
+        Mockito.verifyNoInteractions(userCacheService);
+    }
+
+    private static String authority(Authentication authentication) {
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElseThrow();
+    }
+}
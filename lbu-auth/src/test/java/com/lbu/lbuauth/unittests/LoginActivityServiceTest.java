@@ -0,0 +1,179 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.repositories.UserMetaDataRepository;
+import com.lbu.lbuauth.services.impl.LoginActivityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoginActivityServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserMetaDataRepository userMetaDataRepository = Mockito.mock(UserMetaDataRepository.class);
+    private LoginActivityServiceImpl loginActivityService;
+
+    @BeforeEach
+    void setUp() {
+        loginActivityService = new LoginActivityServiceImpl(userMetaDataRepository, meterRegistry);
+        ReflectionTestUtils.setField(loginActivityService, "flushMillis", 5000L);
+        ReflectionTestUtils.setField(loginActivityService, "batchSize", 2);
+        ReflectionTestUtils.setField(loginActivityService, "maxPending", 3);
+    }
+
+    @Test
+    void testWhenUserLogsInRepeatedly_ThenFlush_ReturnOneLatestTimestamp() throws Exception {
+        loginActivityService.recordLogin("alice");
+        loginActivityService.recordLogin("alice");
+        Thread.sleep(5);
+        long lastLoginAt = System.currentTimeMillis();
+        loginActivityService.recordLogin("alice");
+        Assertions.assertEquals(1, pending(), "Logins of a user should collapse into one entry");
+        Assertions.assertEquals(2, events("collapsed"), "Invalid collapsed logins");
+
+        loginActivityService.flush();
+        Map<String, Timestamp> written = writtenBatches().get(0);
+        Assertions.assertEquals(1, written.size(), "One timestamp should be written");
+        Assertions.assertTrue(written.get("alice").getTime() >= lastLoginAt, "The latest login should be written");
+        Assertions.assertEquals(0, pending(), "Written timestamps should leave the buffer");
+    }
+
+    @Test
+    void testWhenBufferFull_ThenNewUserLogsIn_ReturnDropped() {
+        loginActivityService.recordLogin("alice");
+        loginActivityService.recordLogin("bob");
+        loginActivityService.recordLogin("carol");
+        loginActivityService.recordLogin("dave");
+        // Users already pending still collapse while the buffer is full
+        loginActivityService.recordLogin("alice");
+        Assertions.assertEquals(3, pending(), "Buffer should stay bounded");
+        Assertions.assertEquals(1, events("dropped"), "Invalid dropped logins");
+        Assertions.assertEquals(1, events("collapsed"), "Invalid collapsed logins");
+
+        loginActivityService.flush();
+        loginActivityService.recordLogin("dave");
+        Assertions.assertEquals(1, pending(), "Flushed buffer should take new users");
+    }
+
+    @Test
+    void testWhenManyUsersLogInConcurrently_ThenRecordLogin_ReturnBufferNeverPastBound() throws Exception {
+        ReflectionTestUtils.setField(loginActivityService, "maxPending", 100);
+        ExecutorService loginThreads = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> logins = new ArrayList<>();
+            for (int thread = 0; thread < 16; thread++) {
+                int first = thread * 1000;
+                logins.add(loginThreads.submit(() -> {
+                    start.await();
+                    for (int user = first; user < first + 1000; user++) {
+                        loginActivityService.recordLogin("user" + user);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> login : logins) {
+                login.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            loginThreads.shutdownNow();
+        }
+        Assertions.assertEquals(100, pending(), "Buffer should be filled up to the bound and no further");
+        Assertions.assertEquals(100, events("buffered"), "Invalid buffered logins");
+        Assertions.assertEquals(15_900, events("dropped"), "Invalid dropped logins");
+    }
+
+    @Test
+    void testWhenBatchFails_ThenFlush_ReturnKeptAndRetriedOnNextFlush() {
+        when(userMetaDataRepository.upsertLastLoginTimestamps(anyMap()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"))
+                .thenReturn(new int[]{1, 1});
+        loginActivityService.recordLogin("alice");
+        loginActivityService.recordLogin("bob");
+        loginActivityService.flush();
+        Assertions.assertEquals(2, pending(), "Failed batch should stay in the buffer");
+        Assertions.assertEquals(1, meterRegistry.get("lbu.auth.login.activity.flush.failures").counter().count(), "Invalid failures");
+
+        loginActivityService.flush();
+        Assertions.assertEquals(0, pending(), "Retried batch should leave the buffer");
+        List<Map<String, Timestamp>> batches = writtenBatches();
+        Assertions.assertEquals(2, batches.size(), "Batch should be retried");
+        Assertions.assertEquals(batches.get(0), batches.get(1), "Retried batch should hold the same timestamps");
+    }
+
+    @Test
+    void testWhenLoginDuringFlush_ThenFlush_ReturnNewerTimestampKept() {
+        loginActivityService.recordLogin("alice");
+        when(userMetaDataRepository.upsertLastLoginTimestamps(anyMap())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            loginActivityService.recordLogin("alice");
+            return new int[]{1};
+        });
+        loginActivityService.flush();
+        Assertions.assertEquals(1, pending(), "A login during the flush should stay pending");
+    }
+
+    @Test
+    void testWhenShuttingDown_ThenFlush_ReturnEveryPendingLoginWrittenInBatches() throws Exception {
+        Assertions.assertTrue(LoginActivityServiceImpl.class.getMethod("flush").isAnnotationPresent(PreDestroy.class),
+                "Pending logins should be flushed on shutdown");
+        loginActivityService.recordLogin("alice");
+        loginActivityService.recordLogin("bob");
+        loginActivityService.recordLogin("carol");
+        loginActivityService.flush();
+        List<Map<String, Timestamp>> batches = writtenBatches();
+        Assertions.assertEquals(2, batches.size(), "Pending logins should be written in batches of the batch size");
+        Map<String, Timestamp> written = new HashMap<>();
+        batches.forEach(written::putAll);
+        Assertions.assertEquals(3, written.size(), "Every pending login should be written");
+        Assertions.assertEquals(0, pending(), "Buffer should be empty after the flush");
+    }
+
+    @Test
+    void testWhenNothingDue_ThenFlushIfDue_ReturnNothingWritten() {
+        loginActivityService.recordLogin("alice");
+        loginActivityService.flushIfDue();
+        verify(userMetaDataRepository, never()).upsertLastLoginTimestamps(anyMap());
+        loginActivityService.recordLogin("bob");
+        loginActivityService.flushIfDue();
+        verify(userMetaDataRepository, times(1)).upsertLastLoginTimestamps(anyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Timestamp>> writtenBatches() {
+        ArgumentCaptor<Map<String, Timestamp>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(userMetaDataRepository, Mockito.atLeastOnce()).upsertLastLoginTimestamps(batches.capture());
+        return batches.getAllValues();
+    }
+
+    private double pending() {
+        return meterRegistry.get("lbu.auth.login.activity.pending").gauge().value();
+    }
+
+    private double events(String result) {
+        return meterRegistry.get("lbu.auth.login.activity.events").tag("result", result).counter().count();
+    }
+}
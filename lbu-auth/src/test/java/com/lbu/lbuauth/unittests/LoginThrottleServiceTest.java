@@ -0,0 +1,199 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthTooManyRequestsException;
+import com.lbu.lbuauth.dtos.LoginThrottleStatisticsDto;
+import com.lbu.lbuauth.services.impl.LoginThrottleServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public class LoginThrottleServiceTest {
+
+    private static final String CLIENT_IP = "10.0.0.1";
+    // The start of an aligned one minute window
+    private static final long WINDOW_START = 60_000L * 20_000_000L;
+
+    private final MutableClock clock = new MutableClock(WINDOW_START);
+
+    @Test
+    void testWhenFailuresSpanTwoWindows_ThenPreviousWindowWeighted_ReturnLockedAtLimit() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(1000, 4);
+        clock.set(WINDOW_START + 59_000);
+        fail(loginThrottleService, "alice", 4);
+        fail(loginThrottleService, "bob", 4);
+        loginThrottleService.checkAllowed("alice", CLIENT_IP);
+        // Half of the previous window still overlaps, so its 4 failures count as 2
+        clock.set(WINDOW_START + 60_000 + 30_000);
+        fail(loginThrottleService, "alice", 2);
+        loginThrottleService.checkAllowed("alice", CLIENT_IP);
+        fail(loginThrottleService, "alice", 1);
+        Assertions.assertEquals(30, retryAfter(loginThrottleService, "alice"), "Invalid lockout");
+        // Two windows later the failures no longer count
+        clock.set(WINDOW_START + 2 * 60_000 + 30_000);
+        fail(loginThrottleService, "bob", 4);
+        loginThrottleService.checkAllowed("bob", CLIENT_IP);
+    }
+
+    @Test
+    void testWhenLockedOutRepeatedly_ThenLockoutDoubled_ReturnCappedAndDecayed() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(1000, 4);
+        fail(loginThrottleService, "alice", 5);
+        Assertions.assertEquals(30, retryAfter(loginThrottleService, "alice"), "Invalid first lockout");
+        clock.advance(30_000);
+        loginThrottleService.checkAllowed("alice", CLIENT_IP);
+        fail(loginThrottleService, "alice", 5);
+        Assertions.assertEquals(60, retryAfter(loginThrottleService, "alice"), "Lockout should be doubled");
+        clock.advance(60_000);
+        fail(loginThrottleService, "alice", 5);
+        Assertions.assertEquals(120, retryAfter(loginThrottleService, "alice"), "Lockout should be doubled");
+        clock.advance(120_000);
+        fail(loginThrottleService, "alice", 5);
+        Assertions.assertEquals(120, retryAfter(loginThrottleService, "alice"), "Lockout should be capped");
+        // Without failures for longer than the decay the lockouts are forgotten
+        clock.advance(3_601_000);
+        fail(loginThrottleService, "alice", 5);
+        Assertions.assertEquals(30, retryAfter(loginThrottleService, "alice"), "Lockouts should decay");
+    }
+
+    @Test
+    void testWhenClientIpFailsForManyUsers_ThenCheckAllowed_ReturnClientIpLockedOut() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(10, 4);
+        for (int i = 0; i < 10; i++) {
+            loginThrottleService.recordFailure("user" + i, CLIENT_IP);
+        }
+        Assertions.assertEquals(30, retryAfter(loginThrottleService, "someone"), "Client IP should be locked out");
+        loginThrottleService.checkAllowed("someone", "10.0.0.2");
+    }
+
+    @Test
+    void testWhenLoginSucceeds_ThenRecordSuccess_ReturnUsernameFailuresForgotten() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(1000, 4);
+        fail(loginThrottleService, "Alice", 4);
+        loginThrottleService.recordSuccess("alice ", CLIENT_IP);
+        fail(loginThrottleService, "alice", 4);
+        loginThrottleService.checkAllowed("alice", CLIENT_IP);
+    }
+
+    @Test
+    void testWhenStripeFull_ThenNewUsernameFails_ReturnOldestUnlockedEvicted() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(1000, 3);
+        fail(loginThrottleService, "mallory", 5);
+        clock.advance(1_000);
+        fail(loginThrottleService, "alice", 1);
+        clock.advance(1_000);
+        fail(loginThrottleService, "bob", 1);
+        clock.advance(1_000);
+        fail(loginThrottleService, "carol", 1);
+        LoginThrottleStatisticsDto statisticsDto = loginThrottleService.getStatistics();
+        Assertions.assertEquals(3, statisticsDto.getTrackedUsernames(), "Stripe should stay bounded");
+        Assertions.assertEquals(1, statisticsDto.getEvictions(), "Oldest unlocked username should be evicted");
+        Assertions.assertEquals(1, statisticsDto.getLockedUsernames(), "Locked out username should not be evicted");
+        Assertions.assertTrue(retryAfter(loginThrottleService, "mallory") > 0, "Locked out username should stay locked");
+        // Idle usernames are purged to make room before anything is evicted
+        clock.advance(121_000);
+        fail(loginThrottleService, "dave", 1);
+        statisticsDto = loginThrottleService.getStatistics();
+        Assertions.assertEquals(2, statisticsDto.getTrackedUsernames(), "Idle usernames should be purged");
+        Assertions.assertEquals(1, statisticsDto.getEvictions(), "Invalid evictions");
+    }
+
+    @Test
+    void testWhenStripeFullOfLockedUsernames_ThenNewUsernameFails_ReturnNotTracked() {
+        LoginThrottleServiceImpl loginThrottleService = throttle(1000, 1);
+        fail(loginThrottleService, "mallory", 5);
+        fail(loginThrottleService, "alice", 5);
+        LoginThrottleStatisticsDto statisticsDto = loginThrottleService.getStatistics();
+        Assertions.assertEquals(1, statisticsDto.getTrackedUsernames(), "Stripe should stay bounded");
+        Assertions.assertEquals(0, statisticsDto.getEvictions(), "Locked out username should not be evicted");
+        loginThrottleService.checkAllowed("alice", CLIENT_IP);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.throttle.benchmark", matches = "true")
+    void benchmarkAllowedRequests() {
+        LoginThrottleServiceImpl loginThrottleService = new LoginThrottleServiceImpl(300L, 5, 50, 30L, 3600L, 86400L,
+                100_000, 16, new SimpleMeterRegistry());
+        String[] usernames = new String[1024];
+        String[] clientIps = new String[usernames.length];
+        for (int i = 0; i < 100_000; i++) {
+            loginThrottleService.recordFailure("user" + i, "10.0." + (i / 256 % 256) + "." + (i % 256));
+        }
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = "user" + i * 97;
+            clientIps[i] = "10.1." + (i / 256) + "." + (i % 256);
+        }
+        int requests = 10_000_000;
+        for (int i = 0; i < requests; i++) {
+            loginThrottleService.checkAllowed(usernames[i & 1023], clientIps[i & 1023]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            loginThrottleService.checkAllowed(usernames[i & 1023], clientIps[i & 1023]);
+        }
+        double nanosPerRequest = (double) (System.nanoTime() - start) / requests;
+        System.out.printf("login throttle: %.1f ns per allowed request with %d tracked usernames%n",
+                nanosPerRequest, loginThrottleService.getStatistics().getTrackedUsernames());
+        Assertions.assertTrue(nanosPerRequest < 1_000, "An allowed request should cost less than 1 µs");
+    }
+
+    private LoginThrottleServiceImpl throttle(int clientIpLimit, int maxEntries) {
+        LoginThrottleServiceImpl loginThrottleService = new LoginThrottleServiceImpl(60L, 5, clientIpLimit, 30L, 120L,
+                3600L, maxEntries, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(loginThrottleService, "clock", clock);
+        return loginThrottleService;
+    }
+
+    private static void fail(LoginThrottleServiceImpl loginThrottleService, String username, int failures) {
+        for (int i = 0; i < failures; i++) {
+            loginThrottleService.recordFailure(username, CLIENT_IP);
+        }
+    }
+
+    private static long retryAfter(LoginThrottleServiceImpl loginThrottleService, String username) {
+        return Assertions.assertThrows(LBUAuthTooManyRequestsException.class,
+                () -> loginThrottleService.checkAllowed(username, CLIENT_IP)).getRetryAfterSeconds();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        private void set(long millis) {
+            this.millis = millis;
+        }
+
+        private void advance(long millis) {
+            this.millis += millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthServiceUnavailableException;
+import com.lbu.lbuauth.controllers.impl.GlobalExceptionHandler;
+import com.lbu.lbuauth.dtos.MessageDto;
+import com.lbu.lbuauth.services.impl.PasswordHashingServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class PasswordHashingServiceTest {
+
+    private static final String PASSWORD = "Password@123";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor passwordHashingExecutor;
+    private PasswordHashingServiceImpl passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingExecutor = executor(1, 1);
+        passwordHashingService = new PasswordHashingServiceImpl(passwordHashingExecutor, 10, meterRegistry);
+        ReflectionTestUtils.setField(passwordHashingService, "waitMillis", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingExecutor.shutdown();
+    }
+
+    @Test
+    void testWhenPoolAndQueueFull_ThenMatches_ReturnServiceUnavailable() {
+        // One hash running and one queued fill the pool and its queue
+        occupy();
+        occupy();
+        LBUAuthServiceUnavailableException exception = Assertions.assertThrows(LBUAuthServiceUnavailableException.class,
+                () -> passwordHashingService.matches(PASSWORD, "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD)));
+        Assertions.assertEquals(1, meterRegistry.get("lbu.auth.password.hash.rejected").counter().count(), "Invalid rejections");
+        ResponseEntity<MessageDto> response = new GlobalExceptionHandler().handleException(exception);
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode(), "Saturated pool should return 503");
+        Assertions.assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), "Retry-After should be set");
+    }
+
+    @Test
+    void testWhenHashQueuedTooLong_ThenEncode_ReturnServiceUnavailable() {
+        ReflectionTestUtils.setField(passwordHashingService, "waitMillis", 100L);
+        occupy();
+        Assertions.assertThrows(LBUAuthServiceUnavailableException.class, () -> passwordHashingService.encode(PASSWORD));
+        Assertions.assertEquals(1, meterRegistry.get("lbu.auth.password.hash.rejected").counter().count(), "Invalid rejections");
+    }
+
+    @Test
+    void testWhenPasswordEncoded_ThenMatches_ReturnBcryptWithConfiguredCost() {
+        String encodedPassword = passwordHashingService.encode(PASSWORD);
+        Assertions.assertTrue(encodedPassword.startsWith("{bcrypt}$2a$10$"), "Invalid encoded password");
+        Assertions.assertTrue(passwordHashingService.matches(PASSWORD, encodedPassword), "Password should match");
+        Assertions.assertFalse(passwordHashingService.matches("wrong", encodedPassword), "Wrong password should not match");
+        Assertions.assertFalse(passwordHashingService.upgradeEncoding(encodedPassword), "Current hash should not be upgraded");
+    }
+
+    @Test
+    void testWhenHashHasLowerCost_ThenLogin_ReturnPasswordRehashed() {
+        String lowCostPassword = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+        Assertions.assertTrue(passwordHashingService.upgradeEncoding(lowCostPassword), "Lower cost should be upgraded");
+        Assertions.assertTrue(passwordHashingService.upgradeEncoding("{noop}" + PASSWORD), "Other encoders should be upgraded");
+        UserDetails userDetails = User.withUsername("alice").password(lowCostPassword).roles("USER").build();
+        UserDetailsPasswordService userDetailsPasswordService = Mockito.mock(UserDetailsPasswordService.class);
+        when(userDetailsPasswordService.updatePassword(any(), anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setUserDetailsService(username -> userDetails);
+        authenticationProvider.setPasswordEncoder(passwordHashingService);
+        authenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+
+        Assertions.assertTrue(authenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken("alice", PASSWORD)).isAuthenticated(), "User should be authenticated");
+        ArgumentCaptor<String> newPassword = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(userDetailsPasswordService).updatePassword(any(), newPassword.capture());
+        Assertions.assertTrue(newPassword.getValue().startsWith("{bcrypt}$2a$10$"), "Password should be rehashed with the configured cost");
+        Assertions.assertTrue(passwordHashingService.matches(PASSWORD, newPassword.getValue()), "Rehashed password should match");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.hashing.benchmark", matches = "true")
+    void benchmarkLoginBurst() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor benchmarkExecutor = executor(cores, 1024);
+        try {
+            PasswordHashingServiceImpl pooledHashingService = new PasswordHashingServiceImpl(benchmarkExecutor, 10, meterRegistry);
+            ReflectionTestUtils.setField(pooledHashingService, "waitMillis", 60_000L);
+            String encodedPassword = pooledHashingService.encode(PASSWORD);
+            BCryptPasswordEncoder requestThreadEncoder = new BCryptPasswordEncoder(10);
+            String requestThreadPassword = requestThreadEncoder.encode(PASSWORD);
+            int callers = 8 * cores;
+            long[] before = burst(callers, 4, rawPassword -> requestThreadEncoder.matches(rawPassword, requestThreadPassword));
+            long[] after = burst(callers, 4, rawPassword -> pooledHashingService.matches(rawPassword, encodedPassword));
+            System.out.printf("%d concurrent logins on %d cores: request threads p50 %d ms p99 %d ms, hashing pool p50 %d ms p99 %d ms%n",
+                    callers, cores, percentile(before, 50), percentile(before, 99), percentile(after, 50), percentile(after, 99));
+            Assertions.assertEquals(0, meterRegistry.get("lbu.auth.password.hash.rejected").counter().count(), "No login should be rejected");
+        } finally {
+            benchmarkExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.auth.hashing.benchmark", matches = "true")
+    void benchmarkNonLoginRequestsDuringLoginFlood() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor floodExecutor = executor(cores, 2 * cores);
+        try {
+            PasswordHashingServiceImpl pooledHashingService = new PasswordHashingServiceImpl(floodExecutor, 10, meterRegistry);
+            ReflectionTestUtils.setField(pooledHashingService, "waitMillis", 1000L);
+            String encodedPassword = pooledHashingService.encode(PASSWORD);
+            BCryptPasswordEncoder requestThreadEncoder = new BCryptPasswordEncoder(10);
+            String requestThreadPassword = requestThreadEncoder.encode(PASSWORD);
+            long[] before = nonLoginLatencies(rawPassword -> requestThreadEncoder.matches(rawPassword, requestThreadPassword));
+            long[] after = nonLoginLatencies(rawPassword -> {
+                try {
+                    return pooledHashingService.matches(rawPassword, encodedPassword);
+                } catch (LBUAuthServiceUnavailableException e) {
+                    // A rejected client waits before it logs in again
+                    sleep(10);
+                    return false;
+                }
+            });
+            System.out.printf("non login requests during a login flood on %d cores: request threads p50 %d us p99 %d us, " +
+                            "hashing pool p50 %d us p99 %d us%n",
+                    cores, percentile(before, 50), percentile(before, 99), percentile(after, 50), percentile(after, 99));
+            Assertions.assertTrue(percentile(after, 99) < percentile(before, 99), "Hashing pool should keep non login requests fast");
+        } finally {
+            floodExecutor.shutdown();
+        }
+    }
+
+    private void occupy() {
+        passwordHashingExecutor.submit(() -> {
+            release.await();
+            return null;
+        });
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs the logins of every caller at once and returns the latency of each login in milliseconds, sorted
+    private static long[] burst(int callers, int loginsPerCaller, Predicate<String> login) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> calls = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                calls.add(requestThreads.submit((Callable<long[]>) () -> {
+                    start.await();
+                    long[] latencies = new long[loginsPerCaller];
+                    for (int j = 0; j < loginsPerCaller; j++) {
+                        long loginStart = System.nanoTime();
+                        Assertions.assertTrue(login.test(PASSWORD), "Password should match");
+                        latencies[j] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loginStart);
+                    }
+                    return latencies;
+                }));
+            }
+            start.countDown();
+            long[] latencies = new long[callers * loginsPerCaller];
+            for (int i = 0; i < callers; i++) {
+                System.arraycopy(calls.get(i).get(5, TimeUnit.MINUTES), 0, latencies, i * loginsPerCaller, loginsPerCaller);
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        } finally {
+            requestThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Floods a pool of request threads, sized as the default Tomcat pool, with logins and returns the sorted latencies in
+     * microseconds of light requests, standing in for token validation, served by the same pool meanwhile.
+     */
+    private static long[] nonLoginLatencies(Predicate<String> login) throws Exception {
+        int requestThreads = 200;
+        ExecutorService requestPool = Executors.newFixedThreadPool(requestThreads);
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        try {
+            // A few request threads are left free, so the light requests measure CPU contention rather than queueing
+            for (int i = 0; i < requestThreads - 8; i++) {
+                requestPool.submit(() -> {
+                    while (flooding.get()) {
+                        login.test(PASSWORD);
+                    }
+                    return null;
+                });
+            }
+            sleep(1000);
+            byte[] body = PASSWORD.repeat(100).getBytes(StandardCharsets.UTF_8);
+            long[] latencies = new long[1000];
+            for (int i = 0; i < latencies.length; i++) {
+                long start = System.nanoTime();
+                requestPool.submit(() -> MessageDigest.getInstance("SHA-256").digest(body)).get(1, TimeUnit.MINUTES);
+                latencies[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        } finally {
+            flooding.set(false);
+            requestPool.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,101 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.commons.exceptions.LBUAuthRuntimeException;
+import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.models.enums.RoleType;
+import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.UserCacheService;
+import com.lbu.lbuauth.services.impl.ServiceAccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class ServiceAccountServiceTest {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final UserCacheService userCacheService = Mockito.mock(UserCacheService.class);
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private ServiceAccountServiceImpl serviceAccountService;
+
+    @BeforeEach
+    void setUp() {
+        serviceAccountService = new ServiceAccountServiceImpl(userRepository, passwordEncoder, userCacheService);
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testWhenServiceAccountMissing_ThenProvision_ReturnEnabledServiceRoleUser() {
+        configure("lbu-student:first-secret");
+        serviceAccountService.provisionServiceAccounts();
+        ArgumentCaptor<User> user = ArgumentCaptor.forClass(User.class);
+        Mockito.verify(userRepository).save(user.capture());
+        Assertions.assertEquals("lbu-student", user.getValue().getUsername(), "Invalid username");
+        Assertions.assertEquals(RoleType.SERVICE, user.getValue().getRoleType(), "Service account should not be an administrator");
+        Assertions.assertTrue(user.getValue().getEnabled(), "Service account should be enabled");
+        Assertions.assertTrue(passwordEncoder.matches("first-secret", user.getValue().getPassword()), "Invalid password");
+    }
+
+    @Test
+    void testWhenServiceAccountUnchanged_ThenProvision_ReturnNotSaved() {
+        when(userRepository.findByUsername("lbu-student")).thenReturn(user(RoleType.SERVICE, "first-secret"));
+        configure("lbu-student:first-secret");
+        serviceAccountService.provisionServiceAccounts();
+        Mockito.verify(userRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    void testWhenServiceAccountPasswordChanged_ThenProvision_ReturnPasswordUpdated() {
+        User serviceAccount = user(RoleType.SERVICE, "first-secret");
+        when(userRepository.findByUsername("lbu-student")).thenReturn(serviceAccount);
+        configure("lbu-student:second-secret");
+        serviceAccountService.provisionServiceAccounts();
+        Assertions.assertTrue(passwordEncoder.matches("second-secret", serviceAccount.getPassword()), "Password should be updated");
+        Mockito.verify(userCacheService).evictUser(serviceAccount.getId());
+    }
+
+    @Test
+    void testWhenUsernameBelongsToUser_ThenProvision_ReturnErrorUserUntouched() {
+        for (RoleType roleType : new RoleType[]{RoleType.USER, RoleType.STUDENT, RoleType.ADMIN}) {
+            Mockito.reset(userRepository);
+            User registeredUser = user(roleType, "their-password");
+            when(userRepository.findByUsername("lbu-student")).thenReturn(registeredUser);
+            configure("lbu-student:first-secret");
+            LBUAuthRuntimeException exception = Assertions.assertThrows(LBUAuthRuntimeException.class,
+                    () -> serviceAccountService.provisionServiceAccounts());
+            Assertions.assertEquals(9003, exception.getCode(), "Invalid exception code");
+            Assertions.assertEquals(roleType, registeredUser.getRoleType(), "Role of the user should not change");
+            Assertions.assertTrue(passwordEncoder.matches("their-password", registeredUser.getPassword()), "Password should not change");
+            Mockito.verify(userRepository, Mockito.never()).save(any());
+        }
+    }
+
+    @Test
+    void testWhenServiceAccountMalformed_ThenProvision_ReturnError() {
+        configure("lbu-student");
+        LBUAuthRuntimeException exception = Assertions.assertThrows(LBUAuthRuntimeException.class,
+                () -> serviceAccountService.provisionServiceAccounts());
+        Assertions.assertEquals(9002, exception.getCode(), "Invalid exception code");
+    }
+
+    private void configure(String serviceAccounts) {
+        ReflectionTestUtils.setField(serviceAccountService, "serviceAccounts", serviceAccounts);
+    }
+
+    private User user(RoleType roleType, String password) {
+        User user = new User();
+        user.setId("6a1d4f3e-2b7c-4c55-9a0e-3c1f2d4b5a6c");
+        user.setUsername("lbu-student");
+        user.setPassword(passwordEncoder.encode(password));
+        user.setRoleType(roleType);
+        user.setEnabled(Boolean.TRUE);
+        return user;
+    }
+}
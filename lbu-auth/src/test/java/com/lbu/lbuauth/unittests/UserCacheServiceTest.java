@@ -0,0 +1,173 @@
+package com.lbu.lbuauth.unittests;
+
+import com.lbu.lbuauth.models.AccountActivationDetails;
+import com.lbu.lbuauth.models.User;
+import com.lbu.lbuauth.models.enums.RoleType;
+import com.lbu.lbuauth.repositories.AccountActivationDetailsRepository;
+import com.lbu.lbuauth.repositories.UserRepository;
+import com.lbu.lbuauth.services.ActivationTokenService;
+import com.lbu.lbuauth.services.EmailService;
+import com.lbu.lbuauth.services.JwtService;
+import com.lbu.lbuauth.services.LoginActivityService;
+import com.lbu.lbuauth.services.impl.UserCacheServiceImpl;
+import com.lbu.lbuauth.services.impl.UserDetailsServiceImpl;
+import com.lbu.lbuauth.services.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserCacheServiceTest {
+
+    private static final String USER_ID = "6a1d4f3e-2b7c-4c55-9a0e-3c1f2d4b5a6c";
+
+    // Stands in for the user table, reads return copies the way a new persistence context would
+    private final Map<String, User> userTable = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UserRepository userRepository;
+    private UserCacheServiceImpl userCacheService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        when(userRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(userTable.get(invocation.<String>getArgument(0))).map(UserCacheServiceTest::copy));
+        when(userRepository.save(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(userRepository.saveAndFlush(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(userRepository.updatePassword(anyString(), anyString())).thenAnswer(invocation -> {
+            userTable.computeIfPresent(invocation.getArgument(0), (id, user) -> {
+                user.setPassword(invocation.getArgument(1));
+                return user;
+            });
+            return 1;
+        });
+        userCacheService = cache(30, 10000);
+        store(user(Boolean.TRUE, RoleType.USER));
+    }
+
+    @Test
+    void testWhenUserCached_ThenGetUser_ReturnHitWithoutDatabaseRead() {
+        User user = userCacheService.getUser(USER_ID).orElseThrow();
+        Assertions.assertSame(user, userCacheService.getUser(USER_ID).orElseThrow(), "Cached user should be returned");
+        verify(userRepository, times(1)).findById(USER_ID);
+        Assertions.assertEquals(1, meterRegistry.counter("lbu.auth.user.cache", "result", "hit").count(), "Invalid hits");
+        Assertions.assertEquals(1, meterRegistry.counter("lbu.auth.user.cache", "result", "miss").count(), "Invalid misses");
+    }
+
+    @Test
+    void testWhenUserMissing_ThenGetUser_ReturnEmptyNotCached() {
+        Assertions.assertTrue(userCacheService.getUser("missing").isEmpty(), "Missing user should not be found");
+        Assertions.assertTrue(userCacheService.getUser("missing").isEmpty(), "Missing user should not be found");
+        verify(userRepository, times(2)).findById("missing");
+        Assertions.assertEquals(2, meterRegistry.counter("lbu.auth.user.cache", "result", "miss").count(), "Invalid misses");
+    }
+
+    @Test
+    void testWhenEntryExpired_ThenGetUser_ReturnReloaded() {
+        UserCacheServiceImpl expiringCache = cache(0, 10000);
+        expiringCache.getUser(USER_ID);
+        expiringCache.getUser(USER_ID);
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+
+    @Test
+    void testWhenCacheFull_ThenGetUser_ReturnLoadedButNotCached() {
+        UserCacheServiceImpl smallCache = cache(30, 1);
+        User other = user(Boolean.TRUE, RoleType.USER);
+        other.setId("0b9e7c1a-5d3f-4e2b-8a6c-1f2e3d4c5b6a");
+        store(other);
+        smallCache.getUser(USER_ID);
+        Assertions.assertTrue(smallCache.getUser(other.getId()).isPresent(), "User should be loaded when the cache is full");
+        smallCache.getUser(other.getId());
+        smallCache.getUser(USER_ID);
+        verify(userRepository, times(1)).findById(USER_ID);
+        verify(userRepository, times(2)).findById(other.getId());
+    }
+
+    @Test
+    void testWhenAccountActivated_ThenGetUser_ReturnEnabledUser() {
+        store(user(Boolean.FALSE, RoleType.USER));
+        Assertions.assertFalse(userCacheService.getUser(USER_ID).orElseThrow().getEnabled(), "Invalid enabled");
+        ActivationTokenService activationTokenService = Mockito.mock(ActivationTokenService.class);
+        AccountActivationDetails activationDetails = new AccountActivationDetails();
+        activationDetails.setUser(user(Boolean.FALSE, RoleType.USER));
+        activationDetails.setCreatedTimestamp(Timestamp.from(Instant.now()));
+        when(activationTokenService.findByToken("token")).thenReturn(Optional.of(activationDetails));
+
+        userService(activationTokenService).activateAccount("token");
+        Assertions.assertTrue(userCacheService.getUser(USER_ID).orElseThrow().getEnabled(), "Activated user should not be served stale");
+    }
+
+    @Test
+    void testWhenRoleChanged_ThenGetUser_ReturnNewRole() {
+        Assertions.assertEquals(RoleType.USER, userCacheService.getUser(USER_ID).orElseThrow().getRoleType(), "Invalid role");
+        userService(Mockito.mock(ActivationTokenService.class)).updateUserRole(USER_ID, "Bearer token");
+        Assertions.assertEquals(RoleType.STUDENT, userCacheService.getUser(USER_ID).orElseThrow().getRoleType(),
+                "User with a new role should not be served stale");
+    }
+
+    @Test
+    void testWhenPasswordChanged_ThenGetUser_ReturnNewPassword() {
+        User user = userCacheService.getUser(USER_ID).orElseThrow();
+        new UserDetailsServiceImpl(userRepository, userCacheService).updatePassword(user, "new-hash");
+        Assertions.assertEquals("new-hash", userCacheService.getUser(USER_ID).orElseThrow().getPassword(),
+                "User with a new password should not be served stale");
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+
+    private UserCacheServiceImpl cache(int cacheSeconds, int cacheSize) {
+        UserCacheServiceImpl cache = new UserCacheServiceImpl(userRepository, meterRegistry);
+        ReflectionTestUtils.setField(cache, "cacheSeconds", cacheSeconds);
+        ReflectionTestUtils.setField(cache, "cacheSize", cacheSize);
+        return cache;
+    }
+
+    private UserServiceImpl userService(ActivationTokenService activationTokenService) {
+        UserServiceImpl userService = new UserServiceImpl(Mockito.mock(PasswordEncoder.class), userRepository,
+                Mockito.mock(JwtService.class), Mockito.mock(EmailService.class),
+                Mockito.mock(AccountActivationDetailsRepository.class), userCacheService,
+                Mockito.mock(LoginActivityService.class), activationTokenService);
+        ReflectionTestUtils.setField(userService, "resendLimit", 24L);
+        return userService;
+    }
+
+    private User store(User user) {
+        userTable.put(user.getId(), copy(user));
+        return user;
+    }
+
+    private static User user(Boolean enabled, RoleType roleType) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUsername("alice");
+        user.setPassword("old-hash");
+        user.setEnabled(enabled);
+        user.setRoleType(roleType);
+        return user;
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setEnabled(user.getEnabled());
+        copy.setRoleType(user.getRoleType());
+        return copy;
+    }
+}
@@ -20,6 +20,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.*;
 
@@ -27,25 +28,38 @@ import static com.lbu.lbucourse.commons.constants.ErrorConstants.*;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    @Value("${custom.properties.jwt.public.key}")
-    private String publicKey;
+    private final JwtParser jwtParser;
+    private final JwtClaimsCache jwtClaimsCache;
+
+    public AuthServiceImpl(@Value("${custom.properties.jwt.public.key}") String publicKey,
+                           @Value("${custom.properties.jwt.claims.cache.size}") Integer claimsCacheSize) {
+        this.jwtParser = buildJwtParser(publicKey);
+        this.jwtClaimsCache = new JwtClaimsCache(claimsCacheSize);
+    }
 
     @Override
     public boolean validateToken(String token) {
-        return true;
+        return !validateAndGetClaims(token).isEmpty();
     }
 
     @Override
     public Authentication getAuthentication(String authToken) {
+        Claims claims = validateAndGetClaims(authToken);
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        GrantedAuthority authority = new SimpleGrantedAuthority(claims.get(ROLES).toString());
+        grantedAuthorities.add(authority);
+        return new PreAuthenticatedAuthenticationToken(new User(claims.get("sub").toString(), "", grantedAuthorities), authToken, grantedAuthorities);
+    }
+
+    private Claims validateAndGetClaims(String authToken) {
         try {
-            JwtParser jwtParser = Jwts.parser()
-                    .verifyWith(stringToPublicKey(publicKey))
-                    .build();
+            Claims cachedClaims = jwtClaimsCache.get(authToken);
+            if (Objects.nonNull(cachedClaims)) {
+                return cachedClaims;
+            }
             Claims claims = (Claims) jwtParser.parse(authToken).getPayload();
-            List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
-            GrantedAuthority authority = new SimpleGrantedAuthority(claims.get(ROLES).toString());
-            grantedAuthorities.add(authority);
-            return new PreAuthenticatedAuthenticationToken(new User(claims.get("sub").toString(), "", grantedAuthorities), authToken, grantedAuthorities);
+            jwtClaimsCache.put(authToken, claims);
+            return claims;
         } catch (SecurityException | MalformedJwtException e) {
             log.error("Invalid JWT signature", e);
             throw new LBUCourcesRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
@@ -58,8 +72,19 @@ public class AuthServiceImpl implements AuthService {
         } catch (IllegalArgumentException e) {
             log.error("JWT token compact of handler are invalid", e);
             throw new LBUCourcesRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
+        } catch (JwtException e) {
+            log.error("Invalid JWT token", e);
+            throw new LBUCourcesRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
+        }
+    }
+
+    private JwtParser buildJwtParser(String publicKey) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(stringToPublicKey(publicKey))
+                    .build();
         } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
-            log.error("An error occurred while generating public key and private key", e);
+            log.error("An error occurred while generating public key", e);
             throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
     }
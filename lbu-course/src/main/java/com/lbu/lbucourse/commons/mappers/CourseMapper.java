@@ -0,0 +1,48 @@
+package com.lbu.lbucourse.commons.mappers;
+
+import com.lbu.lbucourse.dtos.CourseDto;
+import com.lbu.lbucourse.models.Course;
+import org.springframework.stereotype.Component;
+
+import static com.lbu.lbucourse.controllers.CoursesController.REST_COURSES_COURSE_ID;
+
+/**
+ * Maps between Course entities and CourseDtos with plain accessor calls, so building the course catalogue does no
+ * reflection.
+ */
+@Component
+public class CourseMapper {
+
+    /**
+     * Maps the course details of a CourseDto to a new Course. The id is taken from the href by the caller when needed.
+     *
+     * @param courseDto The CourseDto to map.
+     * @return The new Course.
+     */
+    public Course toCourse(CourseDto courseDto) {
+        Course course = new Course();
+        course.setTitle(courseDto.getTitle());
+        course.setDescription(courseDto.getDescription());
+        course.setFees(courseDto.getFees());
+        course.setDurationInDays(courseDto.getDurationInDays());
+        course.setInstructor(courseDto.getInstructor());
+        return course;
+    }
+
+    /**
+     * Maps a Course to a CourseDto with the href of the course.
+     *
+     * @param course The Course to map.
+     * @return The CourseDto.
+     */
+    public CourseDto toCourseDto(Course course) {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
+        courseDto.setTitle(course.getTitle());
+        courseDto.setDescription(course.getDescription());
+        courseDto.setFees(course.getFees());
+        courseDto.setDurationInDays(course.getDurationInDays());
+        courseDto.setInstructor(course.getInstructor());
+        return courseDto;
+    }
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -54,7 +55,11 @@ public interface CoursesController {
     @ApiResponse(
             responseCode = "200",
             description = "Successfully created the course",
-            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = CourseDto.class))
+    )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Course details not modified since the given ETag"
     )
     @ApiResponse(
             responseCode = "400",
@@ -66,7 +71,8 @@ public interface CoursesController {
             description = "Internal server error",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
     )
-    ResponseEntity<CourseDto> getCourse(@PathVariable String courseId);
+    ResponseEntity<byte[]> getCourse(@PathVariable String courseId,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @DeleteMapping(REST_COURSES_COURSE_ID)
     @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN') or hasRole('GENERAL_USER')")
@@ -136,6 +142,10 @@ public interface CoursesController {
             description = "Successfully created the course",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = CourseDtos.class))
     )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Course details not modified since the given ETag"
+    )
     @ApiResponse(
             responseCode = "400",
             description = "Bad user content",
@@ -146,7 +156,7 @@ public interface CoursesController {
             description = "Internal server error",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
     )
-    ResponseEntity<CourseDtos> getCourses();
+    ResponseEntity<byte[]> getCourses(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     default void validateCoursesWithId(CourseDto courseDto) {
         Matcher matcher = COURSE_ID_PATTERN.matcher(courseDto.getIdHref());
@@ -1,19 +1,23 @@
 package com.lbu.lbucourse.controllers.impl;
 
 import com.lbu.lbucourse.commons.exceptions.LBUCourcesRuntimeException;
+import com.lbu.lbucourse.commons.mappers.CourseMapper;
 import com.lbu.lbucourse.controllers.CoursesController;
+import com.lbu.lbucourse.dtos.CachedCourseResponse;
 import com.lbu.lbucourse.dtos.CourseDto;
 import com.lbu.lbucourse.dtos.CourseDtos;
 import com.lbu.lbucourse.dtos.MessageDto;
 import com.lbu.lbucourse.models.Course;
+import com.lbu.lbucourse.services.CourseCatalogueService;
 import com.lbu.lbucourse.services.CourseService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.INTERNAL_ERROR;
 
@@ -21,18 +25,21 @@ import static com.lbu.lbucourse.commons.constants.ErrorConstants.INTERNAL_ERROR;
 @RestController
 public class CoursesControllerImpl implements CoursesController {
 
-    private final ModelMapper modelMapper;
+    private final CourseMapper courseMapper;
     private final CourseService courseService;
+    private final CourseCatalogueService courseCatalogueService;
 
-    public CoursesControllerImpl(ModelMapper modelMapper, CourseService courseService) {
-        this.modelMapper = modelMapper;
+    public CoursesControllerImpl(CourseMapper courseMapper, CourseService courseService,
+                                 CourseCatalogueService courseCatalogueService) {
+        this.courseMapper = courseMapper;
         this.courseService = courseService;
+        this.courseCatalogueService = courseCatalogueService;
     }
 
     /**
-     * Retrieves details of multiple courses based on the provided list of course IDs. Validates each course ID, retrieves
-     * course details from the service layer, maps them to DTOs, and constructs a response entity with the course DTOs.
-     * If any exception occurs during the conversion or retrieval process, it is logged and rethrown as an LBUCourcesRuntimeException.
+     * Retrieves details of multiple courses based on the provided list of course IDs. Validates each course ID and
+     * retrieves the course DTOs from the cached course catalogue, so no database access or mapping is needed while the
+     * catalogue is cached.
      *
      * @param courseIds List of course IDs to retrieve details for.
      * @return ResponseEntity containing CourseDtos with details of the retrieved courses.
@@ -44,46 +51,26 @@ public class CoursesControllerImpl implements CoursesController {
             validateCourseId(courseId);
         }
         log.info("get the course id {}", courseIds);
-        List<Course> courses = courseService.getCourseDetailsByIds(courseIds);
-        try {
-            CourseDtos courseDtos = new CourseDtos();
-            List<CourseDto> coursesList = courses.stream().map(course -> {
-                CourseDto courseDto = modelMapper.map(course, CourseDto.class);
-                courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
-                return courseDto;
-            }).collect(Collectors.toList());
-            courseDtos.setCourses(coursesList);
-            log.info("get the courses {}", coursesList.size());
-            return ResponseEntity.ok(courseDtos);
-        } catch (Exception e) {
-            log.error("Model conversion error");
-            throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
-        }
+        CourseDtos courseDtos = courseCatalogueService.getCourses(courseIds);
+        log.info("get the courses {}", courseDtos.getCourses().size());
+        return ResponseEntity.ok(courseDtos);
     }
 
     /**
-     * Retrieves details of a single course based on the provided course ID. Validates the course ID, retrieves the course
-     * details from the service layer, maps it to a DTO, and constructs a response entity with the course DTO.
-     * If any exception occurs during the conversion or retrieval process, it is logged and rethrown as an LBUCourcesRuntimeException.
+     * Retrieves details of a single course based on the provided course ID. Validates the course ID and returns the
+     * pre-serialized course from the cached course catalogue with its ETag. If the If-None-Match header holds the
+     * current ETag, 304 Not Modified is returned without a body.
      *
-     * @param courseId The ID of the course to retrieve details for.
-     * @return ResponseEntity containing CourseDto with details of the retrieved course.
+     * @param courseId    The ID of the course to retrieve details for.
+     * @param ifNoneMatch The If-None-Match header of the request, may be null.
+     * @return ResponseEntity containing the JSON CourseDto with details of the retrieved course, or 304 Not Modified.
      */
 
     @Override
-    public ResponseEntity<CourseDto> getCourse(String courseId) {
+    public ResponseEntity<byte[]> getCourse(String courseId, String ifNoneMatch) {
         validateCourseId(courseId);
         log.info("get the course id {}", courseId);
-        Course course = courseService.getCourseById(courseId);
-        try {
-            CourseDto courseDto = modelMapper.map(course, CourseDto.class);
-            courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
-            log.info("get the courses {}", courseDto);
-            return ResponseEntity.ok(courseDto);
-        } catch (Exception e) {
-            log.error("Model conversion error");
-            throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
-        }
+        return toResponse(courseCatalogueService.getCourse(courseId), ifNoneMatch);
     }
 
     /**
@@ -120,15 +107,14 @@ public class CoursesControllerImpl implements CoursesController {
         log.info("creating the course {}", courseDto);
         Course course;
         try {
-            course = modelMapper.map(courseDto, Course.class);
+            course = courseMapper.toCourse(courseDto);
         } catch (Exception e) {
             log.error("Model conversion error {}", courseDto);
             throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
         Course createdCourse = courseService.createCourse(course);
         try {
-            courseDto = modelMapper.map(createdCourse, CourseDto.class);
-            courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
+            courseDto = courseMapper.toCourseDto(createdCourse);
         } catch (Exception e) {
             log.error("Model conversion error {}", courseDto);
             throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -151,7 +137,7 @@ public class CoursesControllerImpl implements CoursesController {
         log.info("updating the course {}", courseDto);
         Course course;
         try {
-            course = modelMapper.map(courseDto, Course.class);
+            course = courseMapper.toCourse(courseDto);
             String[] parts = courseDto.getIdHref().split("/");
             course.setId(parts[parts.length - 1]);
         } catch (Exception e) {
@@ -160,8 +146,7 @@ public class CoursesControllerImpl implements CoursesController {
         }
         Course updatedCourse = courseService.updateCourse(course);
         try {
-            courseDto = modelMapper.map(updatedCourse, CourseDto.class);
-            courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
+            courseDto = courseMapper.toCourseDto(updatedCourse);
         } catch (Exception e) {
             log.error("Model conversion error {}", courseDto);
             throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -170,29 +155,30 @@ public class CoursesControllerImpl implements CoursesController {
     }
 
     /**
-     * Retrieves details of all available courses. Retrieves all courses from the service layer, maps them to DTOs,
-     * and constructs a response entity with the course DTOs. If any exception occurs during the conversion or retrieval process,
-     * it is logged and rethrown as an LBUCourcesRuntimeException.
+     * Retrieves details of all available courses. Returns the pre-serialized course list from the cached course catalogue
+     * with its ETag. If the If-None-Match header holds the current ETag, 304 Not Modified is returned without a body.
      *
-     * @return ResponseEntity containing CourseDtos with details of all available courses.
+     * @param ifNoneMatch The If-None-Match header of the request, may be null.
+     * @return ResponseEntity containing the JSON CourseDtos with details of all available courses, or 304 Not Modified.
      */
 
     @Override
-    public ResponseEntity<CourseDtos> getCourses() {
-        List<Course> courses = courseService.getAllCourses();
-        log.info("get all the courses size: {}", courses.size());
-        try {
-            CourseDtos courseDtos = new CourseDtos();
-            courseDtos.setCourses(courses.stream().map(course -> {
-                CourseDto courseDto = modelMapper.map(course, CourseDto.class);
-                courseDto.setIdHref(REST_COURSES_COURSE_ID.replace("{courseId}", course.getId()));
-                return courseDto;
-            }).collect(Collectors.toList()));
-            log.info("get all the courses size: {}", courseDtos.getCourses().size());
-            return ResponseEntity.ok(courseDtos);
-        } catch (Exception e) {
-            log.error("Model conversion error size: {}", courses.size());
-            throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+    public ResponseEntity<byte[]> getCourses(String ifNoneMatch) {
+        log.info("get all the courses");
+        return toResponse(courseCatalogueService.getAllCourses(), ifNoneMatch);
+    }
+
+    private ResponseEntity<byte[]> toResponse(CachedCourseResponse response, String ifNoneMatch) {
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
         }
+        return ResponseEntity.ok()
+                .eTag(response.getETag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getBody());
     }
 }
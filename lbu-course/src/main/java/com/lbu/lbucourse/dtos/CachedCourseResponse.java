@@ -0,0 +1,45 @@
+package com.lbu.lbucourse.dtos;
+
+import lombok.Getter;
+
+/**
+ * Pre-serialized JSON body of a course response together with its strong ETag, so a cached response can be written
+ * or answered with 304 Not Modified without serializing the courses again.
+ */
+@Getter
+public class CachedCourseResponse {
+
+    private final byte[] body;
+    private final String eTag;
+
+    public CachedCourseResponse(byte[] body, String eTag) {
+        this.body = body;
+        this.eTag = eTag;
+    }
+
+    /**
+     * Checks the If-None-Match header of a request against the ETag of this response. The header may hold a list of
+     * ETags or "*", and as defined for If-None-Match the weak form of the ETag matches as well.
+     *
+     * @param ifNoneMatch The If-None-Match header of the request, may be null.
+     * @return true if the client already has this response.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
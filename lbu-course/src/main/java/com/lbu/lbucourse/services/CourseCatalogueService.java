@@ -0,0 +1,16 @@
+package com.lbu.lbucourse.services;
+
+import com.lbu.lbucourse.dtos.CachedCourseResponse;
+import com.lbu.lbucourse.dtos.CourseDtos;
+
+import java.util.List;
+
+public interface CourseCatalogueService {
+    CachedCourseResponse getAllCourses();
+
+    CachedCourseResponse getCourse(String courseId);
+
+    CourseDtos getCourses(List<String> courseIds);
+
+    void invalidate();
+}
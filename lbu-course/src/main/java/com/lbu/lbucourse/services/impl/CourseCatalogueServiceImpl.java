@@ -0,0 +1,248 @@
+package com.lbu.lbucourse.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbucourse.commons.exceptions.LBUCourcesRuntimeException;
+import com.lbu.lbucourse.commons.mappers.CourseMapper;
+import com.lbu.lbucourse.dtos.CachedCourseResponse;
+import com.lbu.lbucourse.dtos.CourseDto;
+import com.lbu.lbucourse.dtos.CourseDtos;
+import com.lbu.lbucourse.models.Course;
+import com.lbu.lbucourse.repositories.CourseRepository;
+import com.lbu.lbucourse.services.CourseCatalogueService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.COURSE_NOT_AVAILABLE;
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.INTERNAL_ERROR;
+
+@Slf4j
+@Service
+public class CourseCatalogueServiceImpl implements CourseCatalogueService {
+
+    @Value("${custom.properties.courses.cache.ttl.seconds}")
+    private Long ttlSeconds;
+
+    private final CourseRepository courseRepository;
+    private final CourseMapper courseMapper;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Snapshot>> loading = new AtomicReference<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTimer;
+
+    public CourseCatalogueServiceImpl(CourseRepository courseRepository, CourseMapper courseMapper,
+                                      ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.courseRepository = courseRepository;
+        this.courseMapper = courseMapper;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("lbu.course.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("lbu.course.cache.requests", "result", "miss");
+        this.loadTimer = meterRegistry.timer("lbu.course.cache.load");
+    }
+
+    /**
+     * Retrieves the serialized list of all courses from the cached catalogue, loading the catalogue on a miss.
+     *
+     * @return The cached JSON body of all courses and its ETag.
+     */
+    @Override
+    public CachedCourseResponse getAllCourses() {
+        return currentSnapshot().allCourses;
+    }
+
+    /**
+     * Retrieves the serialized course with the given ID from the cached catalogue, loading the catalogue on a miss.
+     *
+     * @param courseId The ID of the course to retrieve.
+     * @return The cached JSON body of the course and its ETag.
+     * @throws LBUCourcesRuntimeException If the course is not available.
+     */
+    @Override
+    public CachedCourseResponse getCourse(String courseId) {
+        CachedCourseResponse response = currentSnapshot().courseResponses.get(courseId);
+        if (Objects.isNull(response)) {
+            log.error(COURSE_NOT_AVAILABLE.getErrorMessage());
+            throw new LBUCourcesRuntimeException(COURSE_NOT_AVAILABLE.getErrorMessage(), COURSE_NOT_AVAILABLE.getErrorCode());
+        }
+        return response;
+    }
+
+    /**
+     * Retrieves the courses for the given IDs from the cached catalogue in the requested order. IDs of courses that are
+     * not available are skipped, the same as a lookup of the IDs in the database.
+     *
+     * @param courseIds The list of course IDs to retrieve details for.
+     * @return CourseDtos with the available courses.
+     */
+    @Override
+    public CourseDtos getCourses(List<String> courseIds) {
+        Map<String, CourseDto> courses = currentSnapshot().courses;
+        List<CourseDto> courseList = new ArrayList<>(courseIds.size());
+        for (String courseId : new LinkedHashSet<>(courseIds)) {
+            CourseDto courseDto = courses.get(courseId);
+            if (Objects.nonNull(courseDto)) {
+                courseList.add(courseDto);
+            }
+        }
+        CourseDtos courseDtos = new CourseDtos();
+        courseDtos.setCourses(courseList);
+        return courseDtos;
+    }
+
+    /**
+     * Invalidates the cached catalogue so the next read loads the courses again. When called inside a transaction the
+     * catalogue is invalidated once the transaction commits, so a read in between cannot cache the old courses again.
+     */
+    @Override
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow();
+                }
+            });
+        } else {
+            invalidateNow();
+        }
+    }
+
+    private void invalidateNow() {
+        version.incrementAndGet();
+        snapshot.set(null);
+        log.info("course catalogue cache invalidated");
+    }
+
+    /**
+     * Returns the cached catalogue, loading it on a miss. Only one read loads the catalogue at a time, the reads which
+     * miss meanwhile wait for that load instead of querying the database themselves. No monitor is held while the
+     * courses are read, a read which misses claims the load with a compare and set and the others join its future.
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot.get();
+        if (isValid(current)) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        while (true) {
+            CompletableFuture<Snapshot> inFlight = loading.get();
+            if (Objects.nonNull(inFlight)) {
+                Snapshot loaded = join(inFlight);
+                // A load which started before an invalidation is not handed to the reads which waited for it
+                if (loaded.version == version.get()) {
+                    return loaded;
+                }
+                continue;
+            }
+            CompletableFuture<Snapshot> claimed = new CompletableFuture<>();
+            if (!loading.compareAndSet(null, claimed)) {
+                continue;
+            }
+            try {
+                current = snapshot.get();
+                if (isValid(current)) {
+                    claimed.complete(current);
+                    return current;
+                }
+                // A load that races with an invalidation keeps the old version and is reloaded by the next read
+                long loadVersion = version.get();
+                Snapshot loaded = loadTimer.record(() -> load(loadVersion));
+                snapshot.set(loaded);
+                claimed.complete(loaded);
+                return loaded;
+            } catch (RuntimeException e) {
+                claimed.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.compareAndSet(claimed, null);
+            }
+        }
+    }
+
+    private static Snapshot join(CompletableFuture<Snapshot> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(Snapshot current) {
+        return Objects.nonNull(current)
+                && current.version == version.get()
+                && System.nanoTime() - current.loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private Snapshot load(long loadVersion) {
+        List<Course> courses = courseRepository.findAll();
+        try {
+            Map<String, CourseDto> courseDtos = new LinkedHashMap<>();
+            Map<String, CachedCourseResponse> courseResponses = new HashMap<>();
+            for (Course course : courses) {
+                CourseDto courseDto = courseMapper.toCourseDto(course);
+                courseDtos.put(course.getId(), courseDto);
+                courseResponses.put(course.getId(), serialize(courseDto));
+            }
+            CourseDtos allCourses = new CourseDtos();
+            allCourses.setCourses(new ArrayList<>(courseDtos.values()));
+            log.info("loaded the course catalogue size: {}", courseDtos.size());
+            return new Snapshot(loadVersion, System.nanoTime(), serialize(allCourses), courseDtos, courseResponses);
+        } catch (Exception e) {
+            log.error("Model conversion error size: {}", courses.size());
+            throw new LBUCourcesRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
+    private CachedCourseResponse serialize(Object value) throws JsonProcessingException, NoSuchAlgorithmException {
+        byte[] body = objectMapper.writeValueAsBytes(value);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+        String eTag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        return new CachedCourseResponse(body, eTag);
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final long loadedAt;
+        private final CachedCourseResponse allCourses;
+        private final Map<String, CourseDto> courses;
+        private final Map<String, CachedCourseResponse> courseResponses;
+
+        private Snapshot(long version, long loadedAt, CachedCourseResponse allCourses, Map<String, CourseDto> courses,
+                         Map<String, CachedCourseResponse> courseResponses) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.allCourses = allCourses;
+            this.courses = courses;
+            this.courseResponses = courseResponses;
+        }
+    }
+}
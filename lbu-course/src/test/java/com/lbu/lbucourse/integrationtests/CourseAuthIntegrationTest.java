@@ -0,0 +1,81 @@
+package com.lbu.lbucourse.integrationtests;
+
+import com.lbu.lbucourse.LbuCourseApplication;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+// Unlike CourseIntegrationTestConfig the auth service is not mocked, so requests carry tokens signed like lbu-auth signs them
+@SpringBootTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = {LbuCourseApplication.class})
+public class CourseAuthIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${custom.properties.jwt.private.key}")
+    private String privateKey;
+
+    @Test
+    public void testWhenCoursesRequestedRepeatedly_ThenSignedToken_ReturnOk() throws Exception {
+        String token = token("ROLE_STUDENT");
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+    }
+
+    @Test
+    public void testWhenCoursesRequested_ThenTamperedToken_ReturnBadRequest() throws Exception {
+        String token = token("ROLE_STUDENT");
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        String[] parts = token.split("\\.");
+        String tamperedToken = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tamperedToken))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(6002));
+    }
+
+    @Test
+    public void testWhenCoursesRequested_ThenTokenWithoutCourseRole_ReturnForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("ROLE_SERVICE")))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    private String token(String role) throws Exception {
+        PrivateKey signingKey = KeyFactory.getInstance("RSA")
+                .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey.trim())));
+        return Jwts.builder()
+                .subject("test")
+                .issuer("lbu-auth")
+                .issuedAt(new Date())
+                .id(UUID.randomUUID().toString())
+                .expiration(Date.from(Instant.now().plusSeconds(3600)))
+                .claims(Map.of("roles", role, "userId", UUID.randomUUID().toString()))
+                .signWith(signingKey)
+                .compact();
+    }
+}
@@ -0,0 +1,105 @@
+package com.lbu.lbucourse.integrationtests;
+
+import com.lbu.lbucourse.commons.mappers.CourseMapper;
+import com.lbu.lbucourse.services.CourseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class CourseCatalogueIntegrationTest extends CourseIntegrationTestConfig {
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String token;
+
+    @BeforeEach
+    public void withAdmin() throws Exception {
+        token = withAuthenticationWithAdmin();
+        createCourse();
+    }
+
+    @Test
+    public void testWhenCoursesRequested_ThenIfNoneMatchCurrentETag_ReturnNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertTrue(result.getResponse().getContentAsByteArray().length > 0, "Courses should be returned");
+
+        MvcResult notModified = mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, eTag))
+                .andReturn();
+        Assertions.assertEquals(0, notModified.getResponse().getContentAsByteArray().length, "304 should not have a body");
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/" + eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
+    @Test
+    public void testWhenCourseCreated_ThenCoursesRequested_ReturnNewETag() throws Exception {
+        String eTag = getCoursesETag();
+        createCourse();
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Assertions.assertNotEquals(eTag, getCoursesETag(), "ETag should change after a committed write");
+    }
+
+    @Test
+    public void testWhenCourseWriteRolledBack_ThenCoursesRequested_ReturnCachedCatalogue() throws Exception {
+        String eTag = getCoursesETag();
+        long loads = meterRegistry.get("lbu.course.cache.load").timer().count();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            courseService.createCourse(courseMapper.toCourse(newCourseDto()));
+            status.setRollbackOnly();
+        });
+        mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        Assertions.assertEquals(loads, meterRegistry.get("lbu.course.cache.load").timer().count(),
+                "A rolled back write should not invalidate the catalogue");
+    }
+
+    private void createCourse() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/courses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .content(asJsonString(newCourseDto())))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    private String getCoursesETag() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/courses")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
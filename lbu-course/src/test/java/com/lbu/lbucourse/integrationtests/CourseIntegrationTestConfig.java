@@ -0,0 +1,63 @@
+package com.lbu.lbucourse.integrationtests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbucourse.LbuCourseApplication;
+import com.lbu.lbucourse.commons.auth.services.AuthService;
+import com.lbu.lbucourse.dtos.CourseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = {LbuCourseApplication.class})
+public abstract class CourseIntegrationTestConfig {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @MockBean
+    protected AuthService authService;
+
+    protected String withAuthenticationWithAdmin() {
+        String token = "afasasfasfasfas";
+        when(authService.validateToken(token)).thenReturn(Boolean.TRUE);
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_ADMIN");
+        grantedAuthorities.add(authority);
+        when(authService.getAuthentication(token)).thenReturn(new PreAuthenticatedAuthenticationToken(new User("test", "", grantedAuthorities), token, grantedAuthorities));
+        return token;
+    }
+
+    protected static CourseDto newCourseDto() {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setTitle("Course " + UUID.randomUUID());
+        courseDto.setDescription("Test course description");
+        courseDto.setFees(new BigDecimal("1000.00"));
+        courseDto.setDurationInDays(90);
+        courseDto.setInstructor("Test Instructor");
+        return courseDto;
+    }
+
+    protected static String asJsonString(final Object obj) {
+        try {
+            return new ObjectMapper().writeValueAsString(obj);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.lbu.lbucourse.unittests;
+
+import com.lbu.lbucourse.commons.exceptions.LBUCourcesRuntimeException;
+import com.lbu.lbucourse.commons.auth.services.impl.AuthServiceImpl;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AuthServiceTest {
+
+    private static final String USER_ID = "6a1d4f3e-2b7c-4c55-9a0e-3c1f2d4b5a6c";
+
+    private KeyPair keyPair;
+    private AuthServiceImpl authService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+        authService = authService(10000);
+    }
+
+    @Test
+    void testWhenValidateTokenRepeatedly_ThenCachedClaims_ParseSignatureOnce() {
+        JwtParser jwtParser = (JwtParser) ReflectionTestUtils.getField(authService, "jwtParser");
+        JwtParser countingParser = Mockito.mock(JwtParser.class, AdditionalAnswers.delegatesTo(jwtParser));
+        ReflectionTestUtils.setField(authService, "jwtParser", countingParser);
+        String token = token(Instant.now().plusSeconds(3600));
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+            Authentication authentication = authService.getAuthentication(token);
+            Assertions.assertEquals("test", authentication.getName(), "Invalid principal name");
+            Assertions.assertEquals("ROLE_STUDENT", authentication.getAuthorities().iterator().next().getAuthority(), "Invalid authority");
+        }
+        Mockito.verify(countingParser, Mockito.times(1)).parse(token);
+    }
+
+    @Test
+    void testWhenValidateToken_ThenTamperedToken_ReturnCustomException() {
+        String token = token(Instant.now().plusSeconds(3600));
+        Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+        String[] parts = token.split("\\.");
+        String tamperedToken = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        LBUCourcesRuntimeException exception = Assertions.assertThrows(LBUCourcesRuntimeException.class,
+                () -> authService.validateToken(tamperedToken));
+        Assertions.assertEquals(6002, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    void testWhenCachedTokenExpires_ThenValidateToken_ReturnExpiredException() throws Exception {
+        String token = token(Instant.now().plusSeconds(1));
+        Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+        // The exp claim has a precision of one second
+        Thread.sleep(2100);
+        LBUCourcesRuntimeException exception = Assertions.assertThrows(LBUCourcesRuntimeException.class,
+                () -> authService.validateToken(token));
+        Assertions.assertEquals(6001, exception.getCode(), "Cached token should not be accepted after it expired");
+    }
+
+    @Test
+    void testWhenManyTokensValidatedConcurrently_ThenClaimsCache_ReturnBoundedAndAllValid() throws Exception {
+        int threads = 8;
+        AuthServiceImpl boundedAuthService = authService(100);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(token(Instant.now().plusSeconds(3600)));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread * 125;
+                results.add(executorService.submit(() -> {
+                    boolean valid = true;
+                    for (int i = 0; i < tokens.size(); i++) {
+                        valid &= boundedAuthService.validateToken(tokens.get((offset + i) % tokens.size()));
+                    }
+                    return valid;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get(), "Every token should be valid");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Map<?, ?> claimsByTokenHash = (Map<?, ?>) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(boundedAuthService, "jwtClaimsCache"), "claimsByTokenHash");
+        Assertions.assertTrue(claimsByTokenHash.size() <= 100 + threads, "Claims cache should stay bounded");
+    }
+
+    private AuthServiceImpl authService(int claimsCacheSize) {
+        return new AuthServiceImpl(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()), claimsCacheSize);
+    }
+
+    private String token(Instant expiration) {
+        return Jwts.builder()
+                .subject("test")
+                .issuer("lbu-auth")
+                .issuedAt(new Date())
+                .id(UUID.randomUUID().toString())
+                .expiration(Date.from(expiration))
+                .claims(Map.of("roles", "ROLE_STUDENT", "userId", USER_ID))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+}
@@ -0,0 +1,109 @@
+package com.lbu.lbucourse.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbucourse.commons.exceptions.LBUCourcesRuntimeException;
+import com.lbu.lbucourse.commons.mappers.CourseMapper;
+import com.lbu.lbucourse.dtos.CachedCourseResponse;
+import com.lbu.lbucourse.models.Course;
+import com.lbu.lbucourse.repositories.CourseRepository;
+import com.lbu.lbucourse.services.impl.CourseCatalogueServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CourseCatalogueServiceTest {
+
+    private final CourseRepository courseRepository = Mockito.mock(CourseRepository.class);
+    private CourseCatalogueServiceImpl courseCatalogueService;
+
+    @BeforeEach
+    void setUp() {
+        courseCatalogueService = new CourseCatalogueServiceImpl(courseRepository, new CourseMapper(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(courseCatalogueService, "ttlSeconds", 300L);
+        when(courseRepository.findAll()).thenReturn(List.of(course("Software Engineering")));
+    }
+
+    @Test
+    void testWhenTtlExpires_ThenGetAllCourses_ReturnReloadedCatalogue() {
+        CachedCourseResponse cached = courseCatalogueService.getAllCourses();
+        Assertions.assertSame(cached, courseCatalogueService.getAllCourses(), "Catalogue should be cached");
+        verify(courseRepository, times(1)).findAll();
+
+        when(courseRepository.findAll()).thenReturn(List.of(course("Software Engineering"), course("Data Science")));
+        ReflectionTestUtils.setField(courseCatalogueService, "ttlSeconds", 0L);
+        CachedCourseResponse reloaded = courseCatalogueService.getAllCourses();
+        verify(courseRepository, times(2)).findAll();
+        Assertions.assertNotEquals(cached.getETag(), reloaded.getETag(), "Expired catalogue should be reloaded");
+    }
+
+    @Test
+    void testWhenInvalidated_ThenGetAllCourses_ReturnReloadedCatalogue() {
+        CachedCourseResponse cached = courseCatalogueService.getAllCourses();
+        courseCatalogueService.invalidate();
+        Assertions.assertNotSame(cached, courseCatalogueService.getAllCourses(), "Invalidated catalogue should be reloaded");
+        verify(courseRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testWhenConcurrentMisses_ThenGetAllCourses_ReturnSingleLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(courseRepository.findAll()).thenAnswer(invocation -> {
+            loading.countDown();
+            Assertions.assertTrue(release.await(10, TimeUnit.SECONDS));
+            return List.of(course("Software Engineering"));
+        });
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CachedCourseResponse>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                reads.add(readers.submit(courseCatalogueService::getAllCourses));
+            }
+            Assertions.assertTrue(loading.await(10, TimeUnit.SECONDS), "Catalogue was not loaded");
+            release.countDown();
+            String eTag = reads.get(0).get(10, TimeUnit.SECONDS).getETag();
+            for (Future<CachedCourseResponse> read : reads) {
+                Assertions.assertEquals(eTag, read.get(10, TimeUnit.SECONDS).getETag(), "Reads should share the load");
+            }
+            verify(courseRepository, times(1)).findAll();
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWhenLoadFails_ThenGetAllCourses_ReturnErrorAndRetriedOnNextRead() {
+        when(courseRepository.findAll()).thenThrow(new LBUCourcesRuntimeException("Database unavailable", 9000))
+                .thenReturn(List.of(course("Software Engineering")));
+        Assertions.assertThrows(LBUCourcesRuntimeException.class, () -> courseCatalogueService.getAllCourses());
+        Assertions.assertNotNull(courseCatalogueService.getAllCourses().getETag(), "Failed load should be retried");
+    }
+
+    private static Course course(String title) {
+        Course course = new Course();
+        course.setId(UUID.randomUUID().toString());
+        course.setTitle(title);
+        course.setDescription(title + " description");
+        course.setFees(new BigDecimal("1000.00"));
+        course.setDurationInDays(90);
+        return course;
+    }
+}
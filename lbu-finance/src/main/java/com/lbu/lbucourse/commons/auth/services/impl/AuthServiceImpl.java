@@ -20,6 +20,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,10 +30,15 @@ import static com.lbu.lbucourse.commons.constants.ErrorConstants.*;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    @Value("${custom.properties.jwt.public.key}")
-    private String publicKey;
-
     Pattern BEARER_PATTERN = Pattern.compile("Bearer\\s+(.*)");
+    private final JwtParser jwtParser;
+    private final JwtClaimsCache jwtClaimsCache;
+
+    public AuthServiceImpl(@Value("${custom.properties.jwt.public.key}") String publicKey,
+                           @Value("${custom.properties.jwt.claims.cache.size}") Integer claimsCacheSize) {
+        this.jwtParser = buildJwtParser(publicKey);
+        this.jwtClaimsCache = new JwtClaimsCache(claimsCacheSize);
+    }
 
     @Override
     public boolean validateToken(String token) {
@@ -78,6 +84,17 @@ public class AuthServiceImpl implements AuthService {
         throw new LBUFinanceRuntimeException(JWT_TOKEN_INVALID.getErrorMessage(), JWT_TOKEN_INVALID.getErrorCode());
     }
 
+    private JwtParser buildJwtParser(String publicKey) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(stringToPublicKey(publicKey))
+                    .build();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            log.error("An error occurred while generating public key", e);
+            throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
     private PublicKey stringToPublicKey(String publicKeyString) throws InvalidKeySpecException, NoSuchAlgorithmException {
         return KeyFactory.getInstance("RSA")
                 .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyString.trim())));
@@ -85,10 +102,13 @@ public class AuthServiceImpl implements AuthService {
 
     private Claims validateAndGetClaims(String authToken) {
         try {
-            return (Claims) Jwts.parser()
-                    .verifyWith(stringToPublicKey(publicKey))
-                    .build()
-                    .parse(authToken).getPayload();
+            Claims cachedClaims = jwtClaimsCache.get(authToken);
+            if (Objects.nonNull(cachedClaims)) {
+                return cachedClaims;
+            }
+            Claims claims = (Claims) jwtParser.parse(authToken).getPayload();
+            jwtClaimsCache.put(authToken, claims);
+            return claims;
         } catch (SecurityException | MalformedJwtException e) {
             log.error("Invalid JWT signature", e);
             throw new LBUFinanceRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
@@ -101,9 +121,9 @@ public class AuthServiceImpl implements AuthService {
         } catch (IllegalArgumentException e) {
             log.error("JWT token compact of handler are invalid", e);
             throw new LBUFinanceRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
-        } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
-            log.error("An error occurred while generating public key and private key", e);
-            throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        } catch (JwtException e) {
+            log.error("Invalid JWT token", e);
+            throw new LBUFinanceRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
         }
     }
 }
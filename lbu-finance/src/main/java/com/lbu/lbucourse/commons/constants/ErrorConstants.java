@@ -16,6 +16,9 @@ public enum ErrorConstants {
     ACCOUNT_NOT_AVAILABLE("Given account id is not available.", 10000),
     ACCOUNT_NOT_VALID_AVAILABLE("Given account is not valid.", 10002),
     INVOICE_NOT_AVAILABLE("Given invoice is not available.", 10003),
+    INVOICE_IDEMPOTENCY_KEY_NOT_AVAILABLE("Given invoice does not have an idempotency key.", 10004),
+    CODE_SEQUENCE_EXHAUSTED("No more codes are available in the sequence.", 10005),
+    INVOICE_REFERENCE_CONFLICT("Given invoice reference is already used by another invoice.", 10006),
 
     INTERNAL_ERROR("An error occurred.", 9000),
     INVALID_ERROR("Invalid Data provided.", 9003),
@@ -6,7 +6,9 @@ import lombok.Getter;
 public enum SuccessConstants {
 
     INVOICE_CANCEL_SUCCESS("Given invoice successfully cancelled.", 2000),
-    INVOICE_PAY_SUCCESS("Given invoice successfully payed.", 2001);
+    INVOICE_PAY_SUCCESS("Given invoice successfully payed.", 2001),
+    INVOICE_INGEST_SUCCESS("Given invoices successfully ingested.", 2002),
+    ACCOUNT_SUMMARY_REBUILD_SUCCESS("Account summaries successfully rebuilt.", 2003);
 
     private final String successMessage;
     private final Integer errorCode;
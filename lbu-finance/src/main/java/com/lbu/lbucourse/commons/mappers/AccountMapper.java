@@ -0,0 +1,79 @@
+package com.lbu.lbucourse.commons.mappers;
+
+import com.lbu.lbucourse.dtos.FinanceAccountDto;
+import com.lbu.lbucourse.dtos.FinanceAccountSummaryDto;
+import com.lbu.lbucourse.dtos.FinanceInvoiceDto;
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
+import com.lbu.lbucourse.models.Invoice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maps between Account entities and FinanceAccountDtos, including the invoices of the account, with plain accessor calls.
+ */
+@Component
+public class AccountMapper {
+
+    private final InvoiceMapper invoiceMapper;
+
+    public AccountMapper(InvoiceMapper invoiceMapper) {
+        this.invoiceMapper = invoiceMapper;
+    }
+
+    /**
+     * Maps a FinanceAccountDto with its invoices to a new Account. The id of the account is owned by the service and is
+     * not taken from the request.
+     *
+     * @param accountDto The FinanceAccountDto to map.
+     * @return The new Account.
+     */
+    public Account toAccount(FinanceAccountDto accountDto) {
+        Account account = new Account();
+        account.setAuthUserHref(accountDto.getAuthUserHref());
+        if (Objects.nonNull(accountDto.getInvoiceList())) {
+            List<Invoice> invoices = new ArrayList<>(accountDto.getInvoiceList().size());
+            for (FinanceInvoiceDto invoiceDto : accountDto.getInvoiceList()) {
+                invoices.add(invoiceMapper.toInvoice(invoiceDto));
+            }
+            account.setInvoiceList(invoices);
+        }
+        return account;
+    }
+
+    /**
+     * Maps an Account with its invoices to a FinanceAccountDto.
+     *
+     * @param account The Account to map.
+     * @return The FinanceAccountDto.
+     */
+    public FinanceAccountDto toFinanceAccountDto(Account account) {
+        FinanceAccountDto accountDto = new FinanceAccountDto();
+        accountDto.setId(account.getId());
+        accountDto.setAuthUserHref(account.getAuthUserHref());
+        accountDto.setInvoiceList(invoiceMapper.toFinanceInvoiceDtos(account.getInvoiceList()));
+        return accountDto;
+    }
+
+    /**
+     * Maps an AccountSummary to a FinanceAccountSummaryDto.
+     *
+     * @param accountSummary The AccountSummary to map.
+     * @return The FinanceAccountSummaryDto.
+     */
+    public FinanceAccountSummaryDto toFinanceAccountSummaryDto(AccountSummary accountSummary) {
+        FinanceAccountSummaryDto accountSummaryDto = new FinanceAccountSummaryDto();
+        accountSummaryDto.setAccountId(accountSummary.getAccountId());
+        accountSummaryDto.setAuthUserHref(accountSummary.getAuthUserHref());
+        accountSummaryDto.setOutstandingTotal(accountSummary.getOutstandingTotal());
+        accountSummaryDto.setOverdueTotal(accountSummary.getOverdueTotal());
+        accountSummaryDto.setOutstandingInvoices(accountSummary.getOutstandingInvoices());
+        accountSummaryDto.setPaidInvoices(accountSummary.getPaidInvoices());
+        accountSummaryDto.setCancelledInvoices(accountSummary.getCancelledInvoices());
+        accountSummaryDto.setVersion(accountSummary.getVersion());
+        return accountSummaryDto;
+    }
+}
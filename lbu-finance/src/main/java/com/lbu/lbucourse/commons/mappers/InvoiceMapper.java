@@ -0,0 +1,68 @@
+package com.lbu.lbucourse.commons.mappers;
+
+import com.lbu.lbucourse.dtos.FinanceInvoiceDto;
+import com.lbu.lbucourse.models.Invoice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maps between Invoice entities and FinanceInvoiceDtos with plain accessor calls, so invoice listings do no reflection.
+ */
+@Component
+public class InvoiceMapper {
+
+    /**
+     * Maps the invoice details of a FinanceInvoiceDto to a new Invoice. The id and the status are owned by the service
+     * and are not taken from the request.
+     *
+     * @param invoiceDto The FinanceInvoiceDto to map.
+     * @return The new Invoice.
+     */
+    public Invoice toInvoice(FinanceInvoiceDto invoiceDto) {
+        Invoice invoice = new Invoice();
+        invoice.setReference(invoiceDto.getReference());
+        invoice.setAmount(invoiceDto.getAmount());
+        invoice.setDueDate(invoiceDto.getDueDate());
+        invoice.setType(invoiceDto.getType());
+        invoice.setIdempotencyKey(invoiceDto.getIdempotencyKey());
+        return invoice;
+    }
+
+    /**
+     * Maps an Invoice to a FinanceInvoiceDto.
+     *
+     * @param invoice The Invoice to map.
+     * @return The FinanceInvoiceDto.
+     */
+    public FinanceInvoiceDto toFinanceInvoiceDto(Invoice invoice) {
+        FinanceInvoiceDto invoiceDto = new FinanceInvoiceDto();
+        invoiceDto.setId(invoice.getId());
+        invoiceDto.setReference(invoice.getReference());
+        invoiceDto.setAmount(invoice.getAmount());
+        invoiceDto.setDueDate(invoice.getDueDate());
+        invoiceDto.setType(invoice.getType());
+        invoiceDto.setStatus(invoice.getStatus());
+        invoiceDto.setIdempotencyKey(invoice.getIdempotencyKey());
+        return invoiceDto;
+    }
+
+    /**
+     * Maps a list of Invoices to FinanceInvoiceDtos.
+     *
+     * @param invoices The Invoices to map, may be null.
+     * @return The FinanceInvoiceDtos, or null if no invoices were given.
+     */
+    public List<FinanceInvoiceDto> toFinanceInvoiceDtos(List<Invoice> invoices) {
+        if (Objects.isNull(invoices)) {
+            return null;
+        }
+        List<FinanceInvoiceDto> invoiceDtos = new ArrayList<>(invoices.size());
+        for (Invoice invoice : invoices) {
+            invoiceDtos.add(toFinanceInvoiceDto(invoice));
+        }
+        return invoiceDtos;
+    }
+}
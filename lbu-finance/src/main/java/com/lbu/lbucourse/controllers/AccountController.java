@@ -2,11 +2,15 @@ package com.lbu.lbucourse.controllers;
 
 import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
 import com.lbu.lbucourse.dtos.FinanceAccountDto;
+import com.lbu.lbucourse.dtos.FinanceAccountDtos;
+import com.lbu.lbucourse.dtos.FinanceAccountSummaryCheckDto;
+import com.lbu.lbucourse.dtos.FinanceAccountSummaryDto;
 import com.lbu.lbucourse.dtos.MessageDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Objects;
 
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.ACCOUNT_NOT_VALID_AVAILABLE;
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.INVOICE_IDEMPOTENCY_KEY_NOT_AVAILABLE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RequestMapping("/finance")
@@ -40,12 +45,32 @@ public interface AccountController {
     )
     ResponseEntity<FinanceAccountDto> getFinanceDetailsForUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String token);
 
+    @GetMapping("/account/summary")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
+    @Operation(summary = "Get Finance Account Summary")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully get the finance account summary",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = FinanceAccountSummaryDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad finance account content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<FinanceAccountSummaryDto> getFinanceSummaryForUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String token);
+
     @PostMapping("/account")
     @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
     @Operation(summary = "Create Finance Account")
     @ApiResponse(
             responseCode = "200",
-            description = "Successfully created the finance account",
+            description = "Successfully created the finance account, with only the invoices created by the request",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = FinanceAccountDto.class))
     )
     @ApiResponse(
@@ -61,9 +86,92 @@ public interface AccountController {
     ResponseEntity<FinanceAccountDto> createFinanceAccount(@RequestBody FinanceAccountDto accountDto,
                                                            @RequestHeader(HttpHeaders.AUTHORIZATION) String token);
 
+    @PostMapping("/accounts/invoices")
+    @PreAuthorize("hasRole('SERVICE')")
+    @Operation(summary = "Ingest Invoices In Bulk")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully ingested the invoices",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad finance account content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<MessageDto> ingestInvoices(@RequestBody FinanceAccountDtos accountDtos);
+
+    @PostMapping("/accounts/summaries/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild Finance Account Summaries")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully rebuilt the finance account summaries",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad finance account content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<MessageDto> rebuildAccountSummaries();
+
+    @GetMapping("/accounts/summaries/check")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Check Finance Account Summaries")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully checked the finance account summaries",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = FinanceAccountSummaryCheckDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad finance account content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<FinanceAccountSummaryCheckDto> checkAccountSummaries();
+
     default void validateFinanceRequest(FinanceAccountDto accountDto) {
         if (Objects.isNull(accountDto.getAuthUserHref())) {
             throw new LBUFinanceRuntimeException(ACCOUNT_NOT_VALID_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_VALID_AVAILABLE.getErrorCode());
         }
     }
+
+    default void validateCreateRequest(FinanceAccountDto accountDto) {
+        validateFinanceRequest(accountDto);
+        if (Objects.nonNull(accountDto.getInvoiceList())) {
+            validateIdempotencyKeys(accountDto);
+        }
+    }
+
+    default void validateIngestRequest(FinanceAccountDto accountDto) {
+        validateFinanceRequest(accountDto);
+        if (Objects.isNull(accountDto.getInvoiceList())) {
+            throw new LBUFinanceRuntimeException(ACCOUNT_NOT_VALID_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_VALID_AVAILABLE.getErrorCode());
+        }
+        validateIdempotencyKeys(accountDto);
+    }
+
+    default void validateIdempotencyKeys(FinanceAccountDto accountDto) {
+        accountDto.getInvoiceList().forEach(invoiceDto -> {
+            if (StringUtils.isBlank(invoiceDto.getIdempotencyKey())) {
+                throw new LBUFinanceRuntimeException(INVOICE_IDEMPOTENCY_KEY_NOT_AVAILABLE.getErrorMessage(), INVOICE_IDEMPOTENCY_KEY_NOT_AVAILABLE.getErrorCode());
+            }
+        });
+    }
 }
@@ -2,34 +2,52 @@ package com.lbu.lbucourse.controllers.impl;
 
 import com.lbu.lbucourse.commons.auth.services.AuthService;
 import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
+import com.lbu.lbucourse.commons.mappers.AccountMapper;
 import com.lbu.lbucourse.controllers.AccountController;
 import com.lbu.lbucourse.dtos.FinanceAccountDto;
+import com.lbu.lbucourse.dtos.FinanceAccountDtos;
+import com.lbu.lbucourse.dtos.FinanceAccountSummaryCheckDto;
+import com.lbu.lbucourse.dtos.FinanceAccountSummaryDto;
+import com.lbu.lbucourse.dtos.MessageDto;
 import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
 import com.lbu.lbucourse.services.AccountService;
+import com.lbu.lbucourse.services.AccountSummaryService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.ACCOUNT_NOT_VALID_AVAILABLE;
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static com.lbu.lbucourse.commons.constants.SuccessConstants.ACCOUNT_SUMMARY_REBUILD_SUCCESS;
+import static com.lbu.lbucourse.commons.constants.SuccessConstants.INVOICE_INGEST_SUCCESS;
 
 @Slf4j
 @RestController
 public class AccountControllerImpl implements AccountController {
 
     private final AccountService accountService;
+    private final AccountSummaryService accountSummaryService;
     private final AuthService authService;
-    private final ModelMapper modelMapper;
+    private final AccountMapper accountMapper;
 
-    AccountControllerImpl(AccountService accountService, AuthService authService, ModelMapper modelMapper) {
+    AccountControllerImpl(AccountService accountService,
+                          AccountSummaryService accountSummaryService,
+                          AuthService authService,
+                          AccountMapper accountMapper) {
         this.accountService = accountService;
+        this.accountSummaryService = accountSummaryService;
         this.authService = authService;
-        this.modelMapper = modelMapper;
+        this.accountMapper = accountMapper;
     }
 
     /**
      * Retrieves the finance account details for the authenticated user specified by the provided token. It validates
-     * the user's authentication, retrieves the account details, and maps them to a FinanceAccountDto using ModelMapper.
+     * the user's authentication, retrieves the account details, and maps them to a FinanceAccountDto using the AccountMapper.
      * If any exception occurs during the mapping process, it is caught and rethrown as an LBUFinanceRuntimeException.
      *
      * @param token The authentication token for the user.
@@ -41,7 +59,28 @@ public class AccountControllerImpl implements AccountController {
         log.info("getting finance account for {}", authUserHref);
         Account account = accountService.getAccountDetailsForAuthHref(authUserHref);
         try {
-            return ResponseEntity.ok(modelMapper.map(account, FinanceAccountDto.class));
+            return ResponseEntity.ok(accountMapper.toFinanceAccountDto(account));
+        } catch (Exception e) {
+            log.error("Model conversion error", e);
+            throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Retrieves the balance summary of the finance account of the authenticated user specified by the provided token. The
+     * summary answers how much the user owes, and how much of it is overdue, without loading the invoices of the account.
+     * If any exception occurs during the mapping process, it is caught and rethrown as an LBUFinanceRuntimeException.
+     *
+     * @param token The authentication token for the user.
+     * @return ResponseEntity containing the FinanceAccountSummaryDto if successful.
+     */
+    @Override
+    public ResponseEntity<FinanceAccountSummaryDto> getFinanceSummaryForUser(String token) {
+        String authUserHref = authService.validateAuthUserHref(token);
+        log.info("getting finance account summary for {}", authUserHref);
+        AccountSummary accountSummary = accountSummaryService.getAccountSummary(authUserHref);
+        try {
+            return ResponseEntity.ok(accountMapper.toFinanceAccountSummaryDto(accountSummary));
         } catch (Exception e) {
             log.error("Model conversion error", e);
             throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -50,9 +89,11 @@ public class AccountControllerImpl implements AccountController {
 
     /**
      * Creates a new finance account based on the provided FinanceAccountDto and the authentication token. It validates
-     * the finance request, validates the user's authentication, maps the FinanceAccountDto to an Account using ModelMapper,
-     * creates the finance account, and maps the created account to a FinanceAccountDto. If any exception occurs during the
-     * process, it is caught and rethrown as an LBUFinanceRuntimeException.
+     * the finance request, including an idempotency key on every invoice, validates the user's authentication, maps the
+     * FinanceAccountDto to an Account using the AccountMapper, creates the finance account, and maps the created account
+     * to a FinanceAccountDto. The response contains only the invoices created by this request, so a retried request
+     * returns no invoices. If any exception occurs during the process, it is caught and rethrown as an
+     * LBUFinanceRuntimeException.
      *
      * @param accountDto The FinanceAccountDto containing the details of the account to be created.
      * @param token      The authentication token for the user.
@@ -60,23 +101,85 @@ public class AccountControllerImpl implements AccountController {
      */
     @Override
     public ResponseEntity<FinanceAccountDto> createFinanceAccount(FinanceAccountDto accountDto, String token) {
-        validateFinanceRequest(accountDto);
+        validateCreateRequest(accountDto);
         String authUserHref = authService.validateAuthUserHref(accountDto.getAuthUserHref(), token);
         log.info("creating finance account for {}", authUserHref);
         Account account;
         try {
-            account = modelMapper.map(accountDto, Account.class);
+            account = accountMapper.toAccount(accountDto);
         } catch (Exception e) {
             log.error("Model conversion error {}", accountDto);
             throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
         Account createdAccount = accountService.createFinanceAccount(account);
         try {
-            return ResponseEntity.ok(modelMapper.map(createdAccount, FinanceAccountDto.class));
+            return ResponseEntity.ok(accountMapper.toFinanceAccountDto(createdAccount));
         } catch (Exception e) {
             log.error("Model conversion error {}", accountDto);
             throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Ingests a batch of invoices sent by the outbox relays of the other services. Each account of the batch is validated,
+     * mapped to an Account with its invoices and all of them are ingested in one call, which stores only the invoices
+     * whose idempotency keys have not been seen before. The endpoint is restricted to the tokens of service accounts, with
+     * the SERVICE role, because the batch contains invoices of many users.
+     *
+     * @param accountDtos The accounts with the invoices to ingest.
+     * @return ResponseEntity containing a message indicating the invoices were ingested.
+     */
+    @Override
+    public ResponseEntity<MessageDto> ingestInvoices(FinanceAccountDtos accountDtos) {
+        if (Objects.isNull(accountDtos.getAccounts())) {
+            throw new LBUFinanceRuntimeException(ACCOUNT_NOT_VALID_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_VALID_AVAILABLE.getErrorCode());
+        }
+        accountDtos.getAccounts().forEach(this::validateIngestRequest);
+        List<Account> accounts = new ArrayList<>(accountDtos.getAccounts().size());
+        try {
+            for (FinanceAccountDto accountDto : accountDtos.getAccounts()) {
+                accounts.add(accountMapper.toAccount(accountDto));
+            }
+        } catch (Exception e) {
+            log.error("Model conversion error {}", accountDtos);
+            throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+        int ingested = accountService.ingestInvoices(accounts);
+        log.info("ingested {} invoices for {} accounts", ingested, accounts.size());
+        MessageDto messageDto = new MessageDto();
+        messageDto.setCode(INVOICE_INGEST_SUCCESS.getErrorCode());
+        messageDto.setMessage(INVOICE_INGEST_SUCCESS.getSuccessMessage());
+        return ResponseEntity.ok(messageDto);
+    }
+
+    /**
+     * Rebuilds the balance summaries of all accounts from their invoices. It is used to backfill the summaries of the
+     * accounts created before the summaries were introduced and to repair the summaries reported by the consistency check.
+     *
+     * @return ResponseEntity containing a message indicating the summaries were rebuilt.
+     */
+    @Override
+    public ResponseEntity<MessageDto> rebuildAccountSummaries() {
+        int rebuilt = accountSummaryService.rebuildAccountSummaries();
+        log.info("rebuilt {} account summaries", rebuilt);
+        MessageDto messageDto = new MessageDto();
+        messageDto.setCode(ACCOUNT_SUMMARY_REBUILD_SUCCESS.getErrorCode());
+        messageDto.setMessage(ACCOUNT_SUMMARY_REBUILD_SUCCESS.getSuccessMessage());
+        return ResponseEntity.ok(messageDto);
+    }
+
+    /**
+     * Checks the balance summaries of all accounts against their invoices without changing them, and reports the accounts
+     * whose summary is missing or does not match their invoices.
+     *
+     * @return ResponseEntity containing the FinanceAccountSummaryCheckDto with the inconsistent accounts.
+     */
+    @Override
+    public ResponseEntity<FinanceAccountSummaryCheckDto> checkAccountSummaries() {
+        List<String> inconsistentAccountIds = accountSummaryService.checkAccountSummaries();
+        FinanceAccountSummaryCheckDto accountSummaryCheckDto = new FinanceAccountSummaryCheckDto();
+        accountSummaryCheckDto.setConsistent(inconsistentAccountIds.isEmpty());
+        accountSummaryCheckDto.setInconsistentAccountIds(inconsistentAccountIds);
+        return ResponseEntity.ok(accountSummaryCheckDto);
+    }
+}
@@ -2,19 +2,17 @@ package com.lbu.lbucourse.controllers.impl;
 
 import com.lbu.lbucourse.commons.auth.services.AuthService;
 import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
+import com.lbu.lbucourse.commons.mappers.InvoiceMapper;
 import com.lbu.lbucourse.controllers.InvoiceController;
-import com.lbu.lbucourse.dtos.FinanceInvoiceDto;
 import com.lbu.lbucourse.dtos.FinanceInvoiceDtos;
 import com.lbu.lbucourse.dtos.MessageDto;
 import com.lbu.lbucourse.models.Invoice;
 import com.lbu.lbucourse.services.InvoiceService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.INTERNAL_ERROR;
 import static com.lbu.lbucourse.commons.constants.SuccessConstants.INVOICE_CANCEL_SUCCESS;
@@ -27,14 +25,14 @@ public class InvoiceControllerImpl implements InvoiceController {
     private final InvoiceService invoiceService;
     private final AuthService authService;
 
-    private final ModelMapper modelMapper;
+    private final InvoiceMapper invoiceMapper;
 
     InvoiceControllerImpl(InvoiceService invoiceService,
                           AuthService authService,
-                          ModelMapper modelMapper) {
+                          InvoiceMapper invoiceMapper) {
         this.invoiceService = invoiceService;
         this.authService = authService;
-        this.modelMapper = modelMapper;
+        this.invoiceMapper = invoiceMapper;
     }
 
     /**
@@ -52,8 +50,7 @@ public class InvoiceControllerImpl implements InvoiceController {
         FinanceInvoiceDtos invoiceDtos = new FinanceInvoiceDtos();
         List<Invoice> invoiceList = invoiceService.getAllInvoicesForUser(authUserHref);
         try {
-            invoiceDtos.setInvoices(invoiceList.stream()
-                    .map(invoice -> modelMapper.map(invoice, FinanceInvoiceDto.class)).collect(Collectors.toList()));
+            invoiceDtos.setInvoices(invoiceMapper.toFinanceInvoiceDtos(invoiceList));
         } catch (Exception e) {
             log.error("Model conversion error", e);
             throw new LBUFinanceRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -0,0 +1,10 @@
+package com.lbu.lbucourse.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FinanceAccountDtos {
+    List<FinanceAccountDto> accounts;
+}
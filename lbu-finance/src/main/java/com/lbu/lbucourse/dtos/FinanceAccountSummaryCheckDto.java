@@ -0,0 +1,15 @@
+package com.lbu.lbucourse.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema($schema = "Finance Account Summary Consistency Check")
+public class FinanceAccountSummaryCheckDto {
+    @Schema($schema = "Whether every account summary matches the invoices of its account")
+    private Boolean consistent;
+    @Schema($schema = "Ids of the accounts whose summary is missing or does not match their invoices")
+    private List<String> inconsistentAccountIds;
+}
@@ -0,0 +1,27 @@
+package com.lbu.lbucourse.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Schema($schema = "Finance Account Summary Details")
+public class FinanceAccountSummaryDto {
+    @Schema($schema = "Account id")
+    private String accountId;
+    @Schema($schema = "Account auth user href")
+    private String authUserHref;
+    @Schema($schema = "Total amount of the outstanding invoices")
+    private BigDecimal outstandingTotal;
+    @Schema($schema = "Total amount of the outstanding invoices past their due date")
+    private BigDecimal overdueTotal;
+    @Schema($schema = "Number of outstanding invoices")
+    private Long outstandingInvoices;
+    @Schema($schema = "Number of paid invoices")
+    private Long paidInvoices;
+    @Schema($schema = "Number of cancelled invoices")
+    private Long cancelledInvoices;
+    @Schema($schema = "Version of the summary, incremented by every change of the account")
+    private Long version;
+}
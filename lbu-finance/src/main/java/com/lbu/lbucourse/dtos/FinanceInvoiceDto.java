@@ -22,4 +22,6 @@ public class FinanceInvoiceDto {
     private Type type;
     @Schema($schema = "Invoice Pay Status")
     private Status status;
+    @Schema($schema = "Invoice Idempotency Key")
+    private String idempotencyKey;
 }
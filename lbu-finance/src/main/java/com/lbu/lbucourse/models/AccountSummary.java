@@ -0,0 +1,38 @@
+package com.lbu.lbucourse.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Table(name = "account_summary")
+public class AccountSummary {
+
+    // One summary per account, keyed by the account id so it is locked and updated without a join
+    @Id
+    private String accountId;
+    @Column(unique = true)
+    private String authUserHref;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal outstandingTotal;
+    private Long outstandingInvoices;
+    private Long paidInvoices;
+    private Long cancelledInvoices;
+
+    // Incremented by every change of the summary, so clients can tell whether the balance changed since they read it
+    @Version
+    private Long version;
+
+    @Column(name = "updated_timestamp")
+    @UpdateTimestamp
+    private Timestamp updatedTimestamp;
+
+    // Overdue depends on today's date rather than on a change of the account, so it is computed when the summary is read
+    @Transient
+    private BigDecimal overdueTotal;
+}
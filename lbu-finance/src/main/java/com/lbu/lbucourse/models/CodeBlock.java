@@ -0,0 +1,22 @@
+package com.lbu.lbucourse.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Table(name = "code_block")
+public class CodeBlock {
+    @Id
+    private String name;
+
+    // First value of the sequence which has not been reserved by any node yet
+    private Long nextValue;
+
+    @Column(name = "updated_timestamp")
+    @UpdateTimestamp
+    private Timestamp updatedTimestamp;
+}
@@ -6,14 +6,13 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.ToString;
-import org.apache.commons.lang3.RandomStringUtils;
 
 import java.time.LocalDate;
-import java.util.Locale;
 
 @Entity
 @Data
-@Table(name = "invoice")
+@Table(name = "invoice",
+        indexes = {@Index(name = "idx_invoice_account_status", columnList = "account_id, status, due_date")})
 public class Invoice {
 
     @Id
@@ -25,18 +24,16 @@ public class Invoice {
     @Pattern(regexp = "[A-Z0-9]*", message = "{reference.format}")
     private String reference;
     private Double amount;
+    @Column(name = "due_date")
     private LocalDate dueDate;
     @Enumerated(EnumType.STRING)
     private Type type;
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Column(unique = true)
+    private String idempotencyKey;
 
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "account_id")
     private Account account;
-
-    public void populateReference() {
-        this.reference = RandomStringUtils.random(8, true, true).toUpperCase(Locale.UK);
-    }
-
 }
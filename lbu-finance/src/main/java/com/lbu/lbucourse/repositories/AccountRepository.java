@@ -2,6 +2,9 @@ package com.lbu.lbucourse.repositories;
 
 import com.lbu.lbucourse.models.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,4 +12,10 @@ import java.util.Optional;
 @Repository
 public interface AccountRepository extends JpaRepository<Account, String> {
     Optional<Account> findAccountByAuthUserHref (String authUserHref);
-}
\ No newline at end of file
+
+    // A concurrent insert for the same user waits on the unique key and then leaves the existing account as it is
+    @Modifying
+    @Query(value = "INSERT INTO account (id, auth_user_href) VALUES (:id, :authUserHref) " +
+            "ON DUPLICATE KEY UPDATE auth_user_href = auth_user_href", nativeQuery = true)
+    int insertAccountIfAbsent(@Param("id") String id, @Param("authUserHref") String authUserHref);
+}
@@ -0,0 +1,37 @@
+package com.lbu.lbucourse.repositories;
+
+import com.lbu.lbucourse.models.AccountSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, String> {
+
+    Optional<AccountSummary> findAccountSummaryByAuthUserHref(String authUserHref);
+
+    // Serialises the changes of one account, so concurrent payments of its invoices do not lose each other's deltas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountSummary s WHERE s.accountId = :accountId")
+    Optional<AccountSummary> findForUpdate(@Param("accountId") String accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountSummary s WHERE s.accountId IN :accountIds")
+    List<AccountSummary> findAllForUpdate(@Param("accountIds") Collection<String> accountIds);
+
+    // Returns 1 when the empty summary was inserted and 0 when the account already has one
+    @Modifying
+    @Query(value = "INSERT INTO account_summary (account_id, auth_user_href, outstanding_total, outstanding_invoices, " +
+            "paid_invoices, cancelled_invoices, version, updated_timestamp) " +
+            "VALUES (:accountId, :authUserHref, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE account_id = account_id", nativeQuery = true)
+    int insertAccountSummaryIfAbsent(@Param("accountId") String accountId, @Param("authUserHref") String authUserHref);
+}
@@ -0,0 +1,20 @@
+package com.lbu.lbucourse.repositories;
+
+import com.lbu.lbucourse.models.CodeBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CodeBlockRepository extends JpaRepository<CodeBlock, String> {
+
+    // Nodes reserving blocks of the same sequence at the same time wait for each other, so their blocks never overlap
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CodeBlock c WHERE c.name = :name")
+    Optional<CodeBlock> findForUpdate(@Param("name") String name);
+}
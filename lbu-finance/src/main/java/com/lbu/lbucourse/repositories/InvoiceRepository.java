@@ -2,9 +2,16 @@ package com.lbu.lbucourse.repositories;
 
 import com.lbu.lbucourse.models.Invoice;
 import com.lbu.lbucourse.models.Status;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +20,42 @@ public interface InvoiceRepository extends JpaRepository<Invoice, String> {
     List<Invoice> findInvoiceByAccount_IdAndStatus(String accountId, Status status);
     Optional<Invoice> findInvoiceByReference(String reference);
 
+    // Serialises status changes of one invoice, so the status it is moved from in the account summary is the stored one
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.reference = :reference")
+    Optional<Invoice> findInvoiceForUpdateByReference(@Param("reference") String reference);
+
     List<Invoice> findAllByAccount_AuthUserHref(String authUserHref);
+
+    @Query("select i.idempotencyKey from Invoice i where i.idempotencyKey in :idempotencyKeys")
+    List<String> findExistingIdempotencyKeys(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+
+    // Returns 1 when the invoice was inserted and 0 when it clashed with any unique key, the idempotency key, the
+    // reference or the id, so a 0 is only a replay when an invoice with the same idempotency key is stored
+    @Modifying
+    @Query(value = "INSERT INTO invoice (id, reference, amount, due_date, type, status, idempotency_key, account_id) " +
+            "VALUES (:id, :reference, :amount, :dueDate, :type, :status, :idempotencyKey, :accountId) " +
+            "ON DUPLICATE KEY UPDATE idempotency_key = idempotency_key", nativeQuery = true)
+    int insertInvoiceIfAbsent(@Param("id") String id, @Param("reference") String reference, @Param("amount") Double amount,
+                              @Param("dueDate") LocalDate dueDate, @Param("type") String type, @Param("status") String status,
+                              @Param("idempotencyKey") String idempotencyKey, @Param("accountId") String accountId);
+
+    @Query("SELECT i.account.id AS accountId, i.status AS status, COUNT(i) AS invoices, COALESCE(SUM(i.amount), 0) AS total " +
+            "FROM Invoice i WHERE i.account.id IN :accountIds GROUP BY i.account.id, i.status")
+    List<StatusTotal> sumInvoicesByStatus(@Param("accountIds") Collection<String> accountIds);
+
+    @Query("SELECT COALESCE(SUM(i.amount), 0) FROM Invoice i " +
+            "WHERE i.account.id = :accountId AND i.status = :status AND i.dueDate < :dueBefore")
+    Double sumInvoicesDueBefore(@Param("accountId") String accountId, @Param("status") Status status,
+                                @Param("dueBefore") LocalDate dueBefore);
+
+    interface StatusTotal {
+        String getAccountId();
+
+        Status getStatus();
+
+        Long getInvoices();
+
+        Double getTotal();
+    }
 }
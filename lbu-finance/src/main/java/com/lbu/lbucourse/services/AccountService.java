@@ -2,8 +2,12 @@ package com.lbu.lbucourse.services;
 
 import com.lbu.lbucourse.models.Account;
 
+import java.util.List;
+
 public interface AccountService {
     Account createFinanceAccount(Account account);
 
     Account getAccountDetailsForAuthHref(String authUserHref);
+
+    int ingestInvoices(List<Account> accounts);
 }
@@ -0,0 +1,22 @@
+package com.lbu.lbucourse.services;
+
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
+import com.lbu.lbucourse.models.Invoice;
+import com.lbu.lbucourse.models.Status;
+
+import java.util.List;
+
+public interface AccountSummaryService {
+    AccountSummary getAccountSummary(String authUserHref);
+
+    void createAccountSummaryIfAbsent(Account account);
+
+    void recordInvoicesAdded(Account account, List<Invoice> invoices);
+
+    void recordStatusChange(Invoice invoice, Status previousStatus);
+
+    int rebuildAccountSummaries();
+
+    List<String> checkAccountSummaries();
+}
@@ -0,0 +1,11 @@
+package com.lbu.lbucourse.services;
+
+import java.util.List;
+
+public interface CodeGeneratorService {
+    String nextReference();
+
+    List<String> nextReferences(int count);
+
+    boolean isValidReference(String reference);
+}
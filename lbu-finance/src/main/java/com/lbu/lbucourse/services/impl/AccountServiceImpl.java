@@ -2,17 +2,29 @@ package com.lbu.lbucourse.services.impl;
 
 import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
 import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.Invoice;
 import com.lbu.lbucourse.models.Status;
 import com.lbu.lbucourse.repositories.AccountRepository;
 import com.lbu.lbucourse.repositories.InvoiceRepository;
 import com.lbu.lbucourse.services.AccountService;
+import com.lbu.lbucourse.services.AccountSummaryService;
+import com.lbu.lbucourse.services.CodeGeneratorService;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.lbu.lbucourse.commons.constants.ErrorConstants.ACCOUNT_NOT_AVAILABLE;
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.INVOICE_REFERENCE_CONFLICT;
 
 @Slf4j
 @Service
@@ -20,48 +32,39 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final InvoiceRepository invoiceRepository;
+    private final AccountSummaryService accountSummaryService;
+    private final CodeGeneratorService codeGeneratorService;
 
-    public AccountServiceImpl(AccountRepository accountRepository, InvoiceRepository invoiceRepository) {
+    public AccountServiceImpl(AccountRepository accountRepository,
+                              InvoiceRepository invoiceRepository,
+                              AccountSummaryService accountSummaryService,
+                              CodeGeneratorService codeGeneratorService) {
         this.accountRepository = accountRepository;
         this.invoiceRepository = invoiceRepository;
+        this.accountSummaryService = accountSummaryService;
+        this.codeGeneratorService = codeGeneratorService;
     }
 
     /**
-     * Creates a finance account based on the provided account details. It first checks if an account already exists
-     * for the given authentication user href. If an account exists, it associates the provided invoices with the existing
-     * account, updates their status to OUTSTANDING, populates their reference, and saves them. If no account exists,
-     * it creates a new finance account, associates the invoices with it, updates their status to OUTSTANDING, populates
-     * their reference, and saves them. This method is annotated with @Transactional to ensure atomicity, rolling back
-     * changes in case of any Exception.
+     * Creates a finance account based on the provided account details, or adds the provided invoices to the existing
+     * account of the authentication user href. The account is created with a database upsert, so concurrent requests for
+     * the same user all end up with the one account instead of failing on its unique authentication user href. Every
+     * invoice is inserted with an upsert on its idempotency key as well, so an invoice which was stored by an earlier or
+     * a concurrent request, such as a retried fine, is skipped instead of stored twice. An invoice which clashes with a
+     * stored invoice of another idempotency key, on its reference or id, fails the request instead of being skipped
+     * silently. The invoices which were created
+     * get the OUTSTANDING status and a generated reference, and are added to the account summary in the same
+     * transaction. This method is annotated with @Transactional to ensure atomicity, rolling back changes in case of any
+     * Exception.
      *
      * @param account The account details to create or update.
-     * @return The created or updated account.
+     * @return The account with only the invoices created by this request.
+     * @throws LBUFinanceRuntimeException If an invoice clashes with an invoice of another idempotency key.
      */
     @Transactional(rollbackOn = Exception.class)
     @Override
     public Account createFinanceAccount(Account account) {
-        Optional<Account> optionalAccount = accountRepository.findAccountByAuthUserHref(account.getAuthUserHref());
-        if (optionalAccount.isPresent()) {
-            Account existingAccount = optionalAccount.get();
-            log.info("Found an existing account since adding the invoice to {}", account);
-            account.getInvoiceList().forEach(invoice -> {
-                invoice.setStatus(Status.OUTSTANDING);
-                invoice.populateReference();
-                invoice.setAccount(existingAccount);
-            });
-            invoiceRepository.saveAllAndFlush(account.getInvoiceList());
-            return accountRepository.findById(existingAccount.getId()).get();
-        } else {
-            log.info("Create a new finance account for {}", account);
-            account.getInvoiceList().forEach(invoice -> {
-                invoice.setStatus(Status.OUTSTANDING);
-                invoice.populateReference();
-                invoice.setAccount(account);
-            });
-            Account savedAccount = accountRepository.save(account);
-            invoiceRepository.saveAllAndFlush(account.getInvoiceList());
-            return accountRepository.findById(savedAccount.getId()).get();
-        }
+        return insertIfAbsent(account, new HashSet<>());
     }
 
     /**
@@ -84,4 +87,83 @@ public class AccountServiceImpl implements AccountService {
             throw new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode());
         }
     }
+
+    /**
+     * Ingests the invoices of a batch of accounts sent by other services. Every invoice carries the idempotency key of the
+     * event it was raised for, so a batch which is delivered again after a timeout or a retry only stores the invoices it
+     * has not stored before. The keys the batch already stored are looked up with one query and skipped without using
+     * up a reference. The accounts, their summaries and the remaining invoices are then inserted with the same upserts
+     * as createFinanceAccount, so a batch racing another batch or a retry of itself skips what the other one stored
+     * instead of failing on a unique key. The accounts are processed in the order of their authentication user href, so
+     * concurrent batches lock the rows of shared accounts in the same order and do not deadlock.
+     *
+     * @param accounts The accounts with the invoices to ingest.
+     * @return The number of invoices which were stored.
+     * @throws LBUFinanceRuntimeException If an invoice clashes with an invoice of another idempotency key.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public int ingestInvoices(List<Account> accounts) {
+        Set<String> idempotencyKeys = accounts.stream()
+                .flatMap(account -> account.getInvoiceList().stream())
+                .map(Invoice::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> seenKeys = idempotencyKeys.isEmpty() ? new HashSet<>()
+                : new HashSet<>(invoiceRepository.findExistingIdempotencyKeys(idempotencyKeys));
+        int ingested = 0;
+        for (Account account : accounts.stream().sorted(Comparator.comparing(Account::getAuthUserHref)).toList()) {
+            ingested += insertIfAbsent(account, seenKeys).getInvoiceList().size();
+        }
+        log.info("Ingested {} invoices for {} accounts", ingested, accounts.size());
+        return ingested;
+    }
+
+    private Account insertIfAbsent(Account account, Set<String> seenKeys) {
+        if (accountRepository.insertAccountIfAbsent(UUID.randomUUID().toString(), account.getAuthUserHref()) == 1) {
+            log.info("Created a new finance account for {}", account.getAuthUserHref());
+        }
+        Account existingAccount = accountRepository.findAccountByAuthUserHref(account.getAuthUserHref())
+                .orElseThrow(() -> new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode()));
+        // Built before the invoices are inserted, so a summary built from the stored invoices does not count them yet
+        accountSummaryService.createAccountSummaryIfAbsent(existingAccount);
+        List<Invoice> createdInvoices = new ArrayList<>();
+        for (Invoice invoice : Objects.requireNonNullElse(account.getInvoiceList(), List.<Invoice>of())) {
+            if (Objects.nonNull(invoice.getIdempotencyKey()) && !seenKeys.add(invoice.getIdempotencyKey())) {
+                log.info("Skipping an already created invoice {}", invoice.getIdempotencyKey());
+                continue;
+            }
+            invoice.setId(UUID.randomUUID().toString());
+            invoice.setStatus(Status.OUTSTANDING);
+            invoice.setReference(codeGeneratorService.nextReference());
+            invoice.setAccount(existingAccount);
+            int inserted = invoiceRepository.insertInvoiceIfAbsent(invoice.getId(), invoice.getReference(), invoice.getAmount(),
+                    invoice.getDueDate(), Objects.isNull(invoice.getType()) ? null : invoice.getType().name(),
+                    invoice.getStatus().name(), invoice.getIdempotencyKey(), existingAccount.getId());
+            if (inserted == 1) {
+                createdInvoices.add(invoice);
+            } else if (isStored(invoice.getIdempotencyKey())) {
+                log.info("Skipping an already created invoice {}", invoice.getIdempotencyKey());
+            } else {
+                log.error("Invoice {} clashed with another invoice on its reference {}", invoice.getIdempotencyKey(),
+                        invoice.getReference());
+                throw new LBUFinanceRuntimeException(INVOICE_REFERENCE_CONFLICT.getErrorMessage(), INVOICE_REFERENCE_CONFLICT.getErrorCode());
+            }
+        }
+        if (!createdInvoices.isEmpty()) {
+            accountSummaryService.recordInvoicesAdded(existingAccount, createdInvoices);
+        }
+        // A detached copy, so the managed account keeps all of its invoices
+        Account createdAccount = new Account();
+        createdAccount.setId(existingAccount.getId());
+        createdAccount.setAuthUserHref(existingAccount.getAuthUserHref());
+        createdAccount.setInvoiceList(createdInvoices);
+        return createdAccount;
+    }
+
+    // The upsert ignores a clash on any unique key, only a stored invoice with the same idempotency key makes it a replay
+    private boolean isStored(String idempotencyKey) {
+        return Objects.nonNull(idempotencyKey)
+                && !invoiceRepository.findExistingIdempotencyKeys(List.of(idempotencyKey)).isEmpty();
+    }
 }
@@ -0,0 +1,308 @@
+package com.lbu.lbucourse.services.impl;
+
+import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
+import com.lbu.lbucourse.models.Invoice;
+import com.lbu.lbucourse.models.Status;
+import com.lbu.lbucourse.repositories.AccountRepository;
+import com.lbu.lbucourse.repositories.AccountSummaryRepository;
+import com.lbu.lbucourse.repositories.InvoiceRepository;
+import com.lbu.lbucourse.services.AccountSummaryService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.ACCOUNT_NOT_AVAILABLE;
+
+@Slf4j
+@Service
+public class AccountSummaryServiceImpl implements AccountSummaryService {
+
+    @Value("${custom.properties.account.summary.rebuild.batch.size}")
+    private Integer rebuildBatchSize;
+
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final AccountRepository accountRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public AccountSummaryServiceImpl(AccountSummaryRepository accountSummaryRepository,
+                                     AccountRepository accountRepository,
+                                     InvoiceRepository invoiceRepository,
+                                     TransactionTemplate transactionTemplate) {
+        this.accountSummaryRepository = accountSummaryRepository;
+        this.accountRepository = accountRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Retrieves the balance summary of the account of the specified authentication user href. The outstanding total and the
+     * invoice counts are read from the summary row, which is kept up to date by every change of the account's invoices,
+     * so no invoice is loaded. The overdue total depends on today's date and is summed over the outstanding invoices
+     * only, and only when the account has any. An account without a summary, which was created before the summaries
+     * were introduced and not backfilled yet, gets its summary built on first read. The summary is created with an
+     * upsert, so concurrent first reads of the same account build it once instead of failing on its key.
+     *
+     * @param authUserHref The authentication user href of the account.
+     * @return The balance summary of the account.
+     * @throws LBUFinanceRuntimeException If the account is not available.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public AccountSummary getAccountSummary(String authUserHref) {
+        AccountSummary accountSummary = accountSummaryRepository.findAccountSummaryByAuthUserHref(authUserHref)
+                .orElseGet(() -> {
+                    Account account = accountRepository.findAccountByAuthUserHref(authUserHref)
+                            .orElseThrow(() -> new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode()));
+                    log.info("Building the missing account summary of {}", authUserHref);
+                    createAccountSummaryIfAbsent(account);
+                    // A locking read, so a summary which a concurrent request created is seen as well
+                    return accountSummaryRepository.findForUpdate(account.getId())
+                            .orElseThrow(() -> new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode()));
+                });
+        BigDecimal overdueTotal = toMoney(0d);
+        if (accountSummary.getOutstandingInvoices() > 0) {
+            overdueTotal = toMoney(invoiceRepository.sumInvoicesDueBefore(accountSummary.getAccountId(), Status.OUTSTANDING, LocalDate.now()));
+        }
+        accountSummary.setOverdueTotal(overdueTotal);
+        return accountSummary;
+    }
+
+    /**
+     * Creates the summary of the account if it does not have one, with an upsert, so concurrent requests creating the
+     * same account do not fail on its summary. A summary which was just created is built from the invoices the account
+     * already has, so invoices which are stored afterwards are added to it with recordInvoicesAdded.
+     *
+     * @param account The account to create the summary for.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public void createAccountSummaryIfAbsent(Account account) {
+        buildIfAbsent(account);
+    }
+
+    /**
+     * Adds newly stored invoices to the summary of their account, in the transaction which stored them. The summary row
+     * is locked first, so concurrent changes of the same account are applied one after the other. When the account has
+     * no summary yet, it is created with an upsert and built from the stored invoices, which already include the new
+     * ones, so two first changes of the same account do not both insert it.
+     *
+     * @param account  The account the invoices were stored for.
+     * @param invoices The stored invoices.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public void recordInvoicesAdded(Account account, List<Invoice> invoices) {
+        Optional<AccountSummary> optionalAccountSummary = accountSummaryRepository.findForUpdate(account.getId());
+        if (optionalAccountSummary.isEmpty()) {
+            invoiceRepository.flush();
+            if (buildIfAbsent(account)) {
+                return;
+            }
+            optionalAccountSummary = accountSummaryRepository.findForUpdate(account.getId());
+        }
+        AccountSummary accountSummary = optionalAccountSummary
+                .orElseThrow(() -> new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode()));
+        invoices.forEach(invoice -> apply(accountSummary, invoice.getStatus(), invoice.getAmount(), 1));
+        accountSummaryRepository.save(accountSummary);
+    }
+
+    /**
+     * Moves an invoice from its previous status to its current status in the summary of its account, in the transaction
+     * which changed the invoice. The summary row is locked first, so concurrent changes of the same account are applied
+     * one after the other. When the account has no summary yet, it is created with an upsert and built from the stored
+     * invoices instead.
+     *
+     * @param invoice        The changed invoice.
+     * @param previousStatus The status of the invoice before the change.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public void recordStatusChange(Invoice invoice, Status previousStatus) {
+        if (previousStatus == invoice.getStatus()) {
+            return;
+        }
+        Optional<AccountSummary> optionalAccountSummary = accountSummaryRepository.findForUpdate(invoice.getAccount().getId());
+        if (optionalAccountSummary.isEmpty()) {
+            invoiceRepository.flush();
+            if (buildIfAbsent(invoice.getAccount())) {
+                return;
+            }
+            optionalAccountSummary = accountSummaryRepository.findForUpdate(invoice.getAccount().getId());
+        }
+        AccountSummary accountSummary = optionalAccountSummary
+                .orElseThrow(() -> new LBUFinanceRuntimeException(ACCOUNT_NOT_AVAILABLE.getErrorMessage(), ACCOUNT_NOT_AVAILABLE.getErrorCode()));
+        apply(accountSummary, previousStatus, invoice.getAmount(), -1);
+        apply(accountSummary, invoice.getStatus(), invoice.getAmount(), 1);
+        accountSummaryRepository.save(accountSummary);
+    }
+
+    /**
+     * Rebuilds the summaries of all accounts from their invoices, for backfilling the summaries of existing accounts or
+     * repairing the summaries reported by the consistency check. Accounts are processed in batches of account ids, with
+     * one aggregate query over the invoices of each batch. Each batch is rebuilt and committed in its own short
+     * transaction, so only the summaries of one batch are locked at a time and payments, cancellations and ingests of
+     * the other accounts are not blocked behind a backfill.
+     *
+     * @return The number of account summaries which were rebuilt.
+     */
+    @Override
+    public int rebuildAccountSummaries() {
+        int rebuilt = 0;
+        Page<Account> accounts;
+        int page = 0;
+        do {
+            accounts = accountRepository.findAll(PageRequest.of(page++, rebuildBatchSize, Sort.by("id")));
+            List<Account> batch = accounts.getContent();
+            Integer rebuiltBatch = transactionTemplate.execute(status -> rebuild(batch).size());
+            rebuilt += Objects.requireNonNullElse(rebuiltBatch, 0);
+        } while (accounts.hasNext());
+        log.info("Rebuilt {} account summaries", rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Checks the summaries of all accounts against their invoices without changing them. An account whose summary is
+     * missing or differs from the totals and counts of its invoices is reported, so it can be repaired with a rebuild.
+     *
+     * @return The ids of the accounts whose summary is not consistent with their invoices.
+     */
+    @Override
+    public List<String> checkAccountSummaries() {
+        List<String> inconsistentAccountIds = new ArrayList<>();
+        Page<Account> accounts;
+        int page = 0;
+        do {
+            accounts = accountRepository.findAll(PageRequest.of(page++, rebuildBatchSize, Sort.by("id")));
+            Map<String, AccountSummary> expectedSummaries = summarise(accounts.getContent());
+            Map<String, AccountSummary> storedSummaries = accountSummaryRepository.findAllById(expectedSummaries.keySet()).stream()
+                    .collect(Collectors.toMap(AccountSummary::getAccountId, Function.identity()));
+            expectedSummaries.forEach((accountId, expected) -> {
+                if (!isConsistent(expected, storedSummaries.get(accountId))) {
+                    inconsistentAccountIds.add(accountId);
+                }
+            });
+        } while (accounts.hasNext());
+        log.info("Found {} inconsistent account summaries", inconsistentAccountIds.size());
+        return inconsistentAccountIds;
+    }
+
+    // Returns true when the account had no summary and it was created and built from the stored invoices
+    private boolean buildIfAbsent(Account account) {
+        if (accountSummaryRepository.insertAccountSummaryIfAbsent(account.getId(), account.getAuthUserHref()) == 0) {
+            return false;
+        }
+        rebuild(List.of(account));
+        return true;
+    }
+
+    private List<AccountSummary> rebuild(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return List.of();
+        }
+        Set<String> accountIds = accounts.stream().map(Account::getId).collect(Collectors.toSet());
+        Map<String, AccountSummary> storedSummaries = lockSummaries(accountIds);
+        if (storedSummaries.size() < accountIds.size()) {
+            // Missing summaries are inserted with the upsert, so one created concurrently by a first change is kept
+            accounts.stream()
+                    .filter(account -> !storedSummaries.containsKey(account.getId()))
+                    .forEach(account -> accountSummaryRepository.insertAccountSummaryIfAbsent(account.getId(), account.getAuthUserHref()));
+            storedSummaries.putAll(lockSummaries(accountIds));
+        }
+        List<AccountSummary> accountSummaries = new ArrayList<>(accounts.size());
+        // The invoices are summed only after the summaries are locked, so no change of them is missed or counted twice
+        summarise(accounts).forEach((accountId, expected) -> {
+            AccountSummary accountSummary = storedSummaries.get(accountId);
+            accountSummary.setOutstandingTotal(expected.getOutstandingTotal());
+            accountSummary.setOutstandingInvoices(expected.getOutstandingInvoices());
+            accountSummary.setPaidInvoices(expected.getPaidInvoices());
+            accountSummary.setCancelledInvoices(expected.getCancelledInvoices());
+            accountSummaries.add(accountSummary);
+        });
+        return accountSummaryRepository.saveAll(accountSummaries);
+    }
+
+    private Map<String, AccountSummary> lockSummaries(Set<String> accountIds) {
+        return accountSummaryRepository.findAllForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(AccountSummary::getAccountId, Function.identity()));
+    }
+
+    private Map<String, AccountSummary> summarise(List<Account> accounts) {
+        Map<String, AccountSummary> accountSummaries = new HashMap<>();
+        for (Account account : accounts) {
+            AccountSummary accountSummary = new AccountSummary();
+            accountSummary.setAccountId(account.getId());
+            accountSummary.setAuthUserHref(account.getAuthUserHref());
+            accountSummary.setOutstandingTotal(toMoney(0d));
+            accountSummary.setOutstandingInvoices(0L);
+            accountSummary.setPaidInvoices(0L);
+            accountSummary.setCancelledInvoices(0L);
+            accountSummaries.put(account.getId(), accountSummary);
+        }
+        if (accountSummaries.isEmpty()) {
+            return accountSummaries;
+        }
+        for (InvoiceRepository.StatusTotal statusTotal : invoiceRepository.sumInvoicesByStatus(accountSummaries.keySet())) {
+            AccountSummary accountSummary = accountSummaries.get(statusTotal.getAccountId());
+            if (Objects.isNull(statusTotal.getStatus())) {
+                continue;
+            }
+            switch (statusTotal.getStatus()) {
+                case OUTSTANDING -> {
+                    accountSummary.setOutstandingInvoices(statusTotal.getInvoices());
+                    accountSummary.setOutstandingTotal(toMoney(statusTotal.getTotal()));
+                }
+                case PAID -> accountSummary.setPaidInvoices(statusTotal.getInvoices());
+                case CANCELLED -> accountSummary.setCancelledInvoices(statusTotal.getInvoices());
+            }
+        }
+        return accountSummaries;
+    }
+
+    private static void apply(AccountSummary accountSummary, Status status, Double amount, int direction) {
+        if (Objects.isNull(status)) {
+            return;
+        }
+        switch (status) {
+            case OUTSTANDING -> {
+                accountSummary.setOutstandingInvoices(accountSummary.getOutstandingInvoices() + direction);
+                accountSummary.setOutstandingTotal(accountSummary.getOutstandingTotal()
+                        .add(toMoney(amount).multiply(BigDecimal.valueOf(direction))));
+            }
+            case PAID -> accountSummary.setPaidInvoices(accountSummary.getPaidInvoices() + direction);
+            case CANCELLED -> accountSummary.setCancelledInvoices(accountSummary.getCancelledInvoices() + direction);
+        }
+    }
+
+    private static boolean isConsistent(AccountSummary expected, AccountSummary stored) {
+        return Objects.nonNull(stored)
+                && expected.getOutstandingTotal().compareTo(stored.getOutstandingTotal()) == 0
+                && expected.getOutstandingInvoices().equals(stored.getOutstandingInvoices())
+                && expected.getPaidInvoices().equals(stored.getPaidInvoices())
+                && expected.getCancelledInvoices().equals(stored.getCancelledInvoices());
+    }
+
+    private static BigDecimal toMoney(Double amount) {
+        return BigDecimal.valueOf(Objects.isNull(amount) ? 0d : amount).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,43 @@
+package com.lbu.lbucourse.services.impl;
+
+import com.lbu.lbucourse.models.CodeBlock;
+import com.lbu.lbucourse.repositories.CodeBlockRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class CodeBlockAllocator {
+
+    private final CodeBlockRepository codeBlockRepository;
+
+    public CodeBlockAllocator(CodeBlockRepository codeBlockRepository) {
+        this.codeBlockRepository = codeBlockRepository;
+    }
+
+    /**
+     * Reserves the next block of values of the named sequence for this node. The reservation runs and commits in its own
+     * transaction, so a block stays reserved when the transaction of the code's caller rolls back, and is never handed to
+     * another node. The sequence row is created on first use; a node which loses the race to create it gets a
+     * DataIntegrityViolationException and reserves again.
+     *
+     * @param name The name of the sequence.
+     * @param blockSize The number of values to reserve.
+     * @return The first value of the reserved block.
+     */
+    @Transactional(value = Transactional.TxType.REQUIRES_NEW, rollbackOn = Exception.class)
+    public long allocate(String name, int blockSize) {
+        CodeBlock codeBlock = codeBlockRepository.findForUpdate(name).orElseGet(() -> {
+            CodeBlock newCodeBlock = new CodeBlock();
+            newCodeBlock.setName(name);
+            newCodeBlock.setNextValue(0L);
+            return newCodeBlock;
+        });
+        long start = codeBlock.getNextValue();
+        codeBlock.setNextValue(start + blockSize);
+        codeBlockRepository.saveAndFlush(codeBlock);
+        log.info("Reserved block {} to {} of the {} sequence", start, start + blockSize, name);
+        return start;
+    }
+}
@@ -0,0 +1,69 @@
+package com.lbu.lbucourse.services.impl;
+
+import com.lbu.lbucourse.services.CodeGeneratorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+public class CodeGeneratorServiceImpl implements CodeGeneratorService {
+
+    private static final String REFERENCE_SEQUENCE = "invoice reference";
+
+    private final CodeBlockAllocator codeBlockAllocator;
+    private final CodeSequence referenceSequence;
+
+    public CodeGeneratorServiceImpl(CodeBlockAllocator codeBlockAllocator,
+                                    @Value("${custom.properties.codes.block.size}") Integer blockSize) {
+        this.codeBlockAllocator = codeBlockAllocator;
+        this.referenceSequence = new CodeSequence(size -> allocate(REFERENCE_SEQUENCE, size), blockSize);
+    }
+
+    /**
+     * Hands out a new reference for an invoice. References come from a block of the reference sequence reserved by this
+     * node, so they never collide with the references of other invoices or other nodes and only the first reference of
+     * every block costs a database round trip.
+     *
+     * @return The new reference.
+     */
+    @Override
+    public String nextReference() {
+        return referenceSequence.next();
+    }
+
+    /**
+     * Hands out the given number of new references, for storing many invoices at once.
+     *
+     * @param count The number of references.
+     * @return The new references.
+     */
+    @Override
+    public List<String> nextReferences(int count) {
+        return referenceSequence.next(count);
+    }
+
+    /**
+     * Checks that the given reference has the format and the check character of the generated references, without a
+     * database lookup.
+     *
+     * @param reference The reference to check.
+     * @return Whether the reference is valid.
+     */
+    @Override
+    public boolean isValidReference(String reference) {
+        return CodeSequence.isValid(reference);
+    }
+
+    private long allocate(String name, int blockSize) {
+        try {
+            return codeBlockAllocator.allocate(name, blockSize);
+        } catch (DataIntegrityViolationException e) {
+            log.info("The {} sequence was created by another node, reserving again", name);
+            return codeBlockAllocator.allocate(name, blockSize);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.lbu.lbucourse.services.impl;
+
+import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lbu.lbucourse.commons.constants.ErrorConstants.CODE_SEQUENCE_EXHAUSTED;
+
+/**
+ * Hands out unique 8 character codes of upper case letters and digits from a sequence which is reserved in blocks. Every
+ * value of the sequence is handed out once, so codes never collide, and a new block is only reserved when the current
+ * one is used up, so generating a code needs no round trip to the database. Values are scrambled by a bijection of the
+ * code space, so consecutive codes do not look consecutive, and encoded as 7 base 36 characters followed by an ISO 7064
+ * MOD 37,36 check character, which catches every single mistyped character and nearly every swap of adjacent characters.
+ */
+public class CodeSequence {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int RADIX = ALPHABET.length();
+    private static final int PAYLOAD_LENGTH = 7;
+    private static final int CODE_LENGTH = PAYLOAD_LENGTH + 1;
+    // 36^7 payloads
+    private static final long CAPACITY = 78_364_164_096L;
+    // Close to CAPACITY / golden ratio, so consecutive values land far apart, and neither even nor a multiple of 3, so it
+    // is coprime to 36^7 and scrambling maps every value to a different payload
+    private static final long MULTIPLIER = 48_432_282_359L;
+    private static final long OFFSET = 23_456_789_012L;
+    private static final int MULTIPLIER_SPLIT_BITS = 20;
+
+    private final BlockAllocator blockAllocator;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    public CodeSequence(BlockAllocator blockAllocator, int blockSize) {
+        this.blockAllocator = blockAllocator;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Hands out the next code of the sequence.
+     *
+     * @return The code.
+     */
+    public String next() {
+        return encode(nextValue());
+    }
+
+    /**
+     * Hands out the given number of codes of the sequence, reserving as many blocks as they need.
+     *
+     * @param count The number of codes.
+     * @return The codes.
+     */
+    public List<String> next(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(next());
+        }
+        return codes;
+    }
+
+    /**
+     * Checks that the code has the format of the sequence's codes and that its check character matches.
+     *
+     * @param code The code to check.
+     * @return Whether the code is valid.
+     */
+    public static boolean isValid(String code) {
+        if (Objects.isNull(code) || code.length() != CODE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            if (ALPHABET.indexOf(code.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return code.charAt(PAYLOAD_LENGTH) == checkCharacter(code);
+    }
+
+    static String encode(long value) {
+        if (value < 0 || value >= CAPACITY) {
+            throw new LBUFinanceRuntimeException(CODE_SEQUENCE_EXHAUSTED.getErrorMessage(), CODE_SEQUENCE_EXHAUSTED.getErrorCode());
+        }
+        long payload = (multiplyModCapacity(value) + OFFSET) % CAPACITY;
+        char[] code = new char[CODE_LENGTH];
+        for (int i = PAYLOAD_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (payload % RADIX));
+            payload /= RADIX;
+        }
+        code[PAYLOAD_LENGTH] = checkCharacter(new String(code, 0, PAYLOAD_LENGTH));
+        return new String(code);
+    }
+
+    private static long multiplyModCapacity(long value) {
+        // value * MULTIPLIER overflows a long, so the multiplier is applied in two parts which both fit
+        long high = (value * (MULTIPLIER >>> MULTIPLIER_SPLIT_BITS)) % CAPACITY;
+        long low = value * (MULTIPLIER & ((1L << MULTIPLIER_SPLIT_BITS) - 1));
+        return (((high << MULTIPLIER_SPLIT_BITS) % CAPACITY) + low % CAPACITY) % CAPACITY;
+    }
+
+    private static char checkCharacter(String code) {
+        int product = RADIX;
+        for (int i = 0; i < PAYLOAD_LENGTH; i++) {
+            int sum = (product + ALPHABET.indexOf(code.charAt(i))) % RADIX;
+            product = ((sum == 0 ? RADIX : sum) * 2) % (RADIX + 1);
+        }
+        return ALPHABET.charAt((RADIX + 1 - product) % RADIX);
+    }
+
+    private long nextValue() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+            synchronized (this) {
+                // Only the first thread to find the block used up reserves the next one, the others retry on it
+                if (block == current) {
+                    long start = blockAllocator.allocate(blockSize);
+                    block = new Block(start, start + blockSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves a block of values of the sequence which no other caller is given, and returns its first value.
+     */
+    @FunctionalInterface
+    public interface BlockAllocator {
+        long allocate(int blockSize);
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
 import com.lbu.lbucourse.models.Invoice;
 import com.lbu.lbucourse.models.Status;
 import com.lbu.lbucourse.repositories.InvoiceRepository;
+import com.lbu.lbucourse.services.AccountSummaryService;
 import com.lbu.lbucourse.services.InvoiceService;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
@@ -18,9 +19,11 @@ import static com.lbu.lbucourse.commons.constants.ErrorConstants.JWT_TOKEN_USER_
 public class InvoiceServiceImpl implements InvoiceService {
 
     private final InvoiceRepository invoiceRepository;
+    private final AccountSummaryService accountSummaryService;
 
-    public InvoiceServiceImpl(InvoiceRepository invoiceRepository) {
+    public InvoiceServiceImpl(InvoiceRepository invoiceRepository, AccountSummaryService accountSummaryService) {
         this.invoiceRepository = invoiceRepository;
+        this.accountSummaryService = accountSummaryService;
     }
 
     /**
@@ -37,8 +40,8 @@ public class InvoiceServiceImpl implements InvoiceService {
 
     /**
      * Cancels an invoice with the specified reference for the authenticated user. It first finds the invoice by its reference,
-     * validates the ownership of the invoice, sets its status to CANCELLED, and saves the changes. If the invoice is not found,
-     * it throws an LBUFinanceRuntimeException.
+     * validates the ownership of the invoice, sets its status to CANCELLED, and saves the changes together with the account
+     * summary in one transaction. If the invoice is not found, it throws an LBUFinanceRuntimeException.
      *
      * @param authUserHref The authentication href of the user canceling the invoice.
      * @param reference The reference of the invoice to be canceled.
@@ -46,12 +49,14 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Transactional(rollbackOn = Exception.class)
     @Override
     public void cancelInvoice(String authUserHref, String reference) {
-        Optional<Invoice> invoiceByReference = invoiceRepository.findInvoiceByReference(reference);
+        Optional<Invoice> invoiceByReference = invoiceRepository.findInvoiceForUpdateByReference(reference);
         if (invoiceByReference.isPresent()) {
             Invoice invoice = invoiceByReference.get();
             validateInvoiceOwnership(invoice, authUserHref);
+            Status previousStatus = invoice.getStatus();
             invoice.setStatus(Status.CANCELLED);
             invoiceRepository.save(invoice);
+            accountSummaryService.recordStatusChange(invoice, previousStatus);
         } else {
             throw new LBUFinanceRuntimeException(INVOICE_NOT_AVAILABLE.getErrorMessage(), INVOICE_NOT_AVAILABLE.getErrorCode());
         }
@@ -59,8 +64,8 @@ public class InvoiceServiceImpl implements InvoiceService {
 
     /**
      * Pays an invoice with the specified reference for the authenticated user. It first finds the invoice by its reference,
-     * validates the ownership of the invoice, sets its status to PAID, and saves the changes. If the invoice is not found,
-     * it throws an LBUFinanceRuntimeException.
+     * validates the ownership of the invoice, sets its status to PAID, and saves the changes together with the account
+     * summary in one transaction. If the invoice is not found, it throws an LBUFinanceRuntimeException.
      *
      * @param authUserHref The authentication href of the user paying the invoice.
      * @param reference The reference of the invoice to be paid.
@@ -68,12 +73,14 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Transactional(rollbackOn = Exception.class)
     @Override
     public void payInvoice(String authUserHref, String reference) {
-        Optional<Invoice> invoiceByReference = invoiceRepository.findInvoiceByReference(reference);
+        Optional<Invoice> invoiceByReference = invoiceRepository.findInvoiceForUpdateByReference(reference);
         if (invoiceByReference.isPresent()) {
             Invoice invoice = invoiceByReference.get();
             validateInvoiceOwnership(invoice, authUserHref);
+            Status previousStatus = invoice.getStatus();
             invoice.setStatus(Status.PAID);
             invoiceRepository.save(invoice);
+            accountSummaryService.recordStatusChange(invoice, previousStatus);
         } else {
             throw new LBUFinanceRuntimeException(INVOICE_NOT_AVAILABLE.getErrorMessage(), INVOICE_NOT_AVAILABLE.getErrorCode());
         }
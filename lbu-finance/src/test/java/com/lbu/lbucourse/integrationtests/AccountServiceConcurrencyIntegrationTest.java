@@ -0,0 +1,172 @@
+package com.lbu.lbucourse.integrationtests;
+
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
+import com.lbu.lbucourse.models.Invoice;
+import com.lbu.lbucourse.models.Type;
+import com.lbu.lbucourse.repositories.AccountRepository;
+import com.lbu.lbucourse.repositories.AccountSummaryRepository;
+import com.lbu.lbucourse.repositories.InvoiceRepository;
+import com.lbu.lbucourse.services.AccountService;
+import com.lbu.lbucourse.services.AccountSummaryService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// The account, summary and invoice upserts rely on ON DUPLICATE KEY UPDATE and on useAffectedRows, so they are tested on MySQL
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public class AccountServiceConcurrencyIntegrationTest {
+
+    private static final int REQUESTS = 100;
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0").withUrlParam("useAffectedRows", "true");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    public void testWhenHundredParallelCreates_ThenSameAccountAndInvoice_ReturnOneAccountOneInvoice() throws Exception {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        String idempotencyKey = "library-fine:" + UUID.randomUUID();
+        List<Integer> created = inParallel(request -> accountService.createFinanceAccount(
+                account(authUserHref, invoice(idempotencyKey))).getInvoiceList().size());
+        Assertions.assertEquals(1, created.stream().mapToInt(Integer::intValue).sum(), "Only one request should create the invoice");
+        Assertions.assertTrue(accountRepository.findAccountByAuthUserHref(authUserHref).isPresent(), "Account was not created");
+        Assertions.assertEquals(1, invoiceRepository.findAllByAccount_AuthUserHref(authUserHref).size(), "Invoice should be stored once");
+        assertSummary(authUserHref, 1);
+    }
+
+    @Test
+    public void testWhenHundredParallelIngests_ThenSharedAndOwnInvoices_ReturnEveryInvoiceOnce() throws Exception {
+        String firstAuthUserHref = "/auth/user/" + UUID.randomUUID();
+        String secondAuthUserHref = "/auth/user/" + UUID.randomUUID();
+        String firstSharedKey = "library-fine:" + UUID.randomUUID();
+        String secondSharedKey = "library-fine:" + UUID.randomUUID();
+        List<Integer> ingested = inParallel(request -> {
+            Account first = account(firstAuthUserHref, invoice(firstSharedKey), invoice(firstSharedKey + ":" + request));
+            Account second = account(secondAuthUserHref, invoice(secondSharedKey), invoice(secondSharedKey + ":" + request));
+            // Half of the batches list the accounts the other way round
+            return accountService.ingestInvoices(request % 2 == 0 ? List.of(first, second) : List.of(second, first));
+        });
+        Assertions.assertEquals(2 * (REQUESTS + 1), ingested.stream().mapToInt(Integer::intValue).sum(), "Invalid ingested invoices");
+        for (String authUserHref : List.of(firstAuthUserHref, secondAuthUserHref)) {
+            Assertions.assertEquals(REQUESTS + 1, invoiceRepository.findAllByAccount_AuthUserHref(authUserHref).size(),
+                    "Every invoice should be stored once");
+            assertSummary(authUserHref, REQUESTS + 1);
+        }
+        List<String> inconsistentAccountIds = accountSummaryService.checkAccountSummaries();
+        for (String authUserHref : List.of(firstAuthUserHref, secondAuthUserHref)) {
+            Assertions.assertFalse(inconsistentAccountIds.contains(accountRepository.findAccountByAuthUserHref(authUserHref).orElseThrow().getId()),
+                    "Account summary is not consistent with its invoices");
+        }
+    }
+
+    @Test
+    public void testWhenHundredParallelFirstReads_ThenSummaryMissing_ReturnOneBuiltSummary() throws Exception {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        accountService.ingestInvoices(List.of(account(authUserHref, invoice("library-fine:" + UUID.randomUUID()),
+                invoice("library-fine:" + UUID.randomUUID()))));
+        // An account from before the summaries were introduced
+        accountSummaryRepository.deleteById(accountRepository.findAccountByAuthUserHref(authUserHref).orElseThrow().getId());
+        List<Long> outstandingInvoices = inParallel(request ->
+                accountSummaryService.getAccountSummary(authUserHref).getOutstandingInvoices());
+        Assertions.assertTrue(outstandingInvoices.stream().allMatch(invoices -> invoices == 2), "Invalid outstanding invoices");
+        assertSummary(authUserHref, 2);
+    }
+
+    @Test
+    public void testWhenRebuildDuringIngests_ThenRebuildAccountSummaries_ReturnConsistentSummary() throws Exception {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        List<Integer> ingested = inParallel(request -> request % 10 == 0
+                ? Math.min(0, accountSummaryService.rebuildAccountSummaries())
+                : accountService.ingestInvoices(List.of(account(authUserHref, invoice("library-fine:" + UUID.randomUUID())))));
+        int invoices = ingested.stream().mapToInt(Integer::intValue).sum();
+        Assertions.assertEquals(REQUESTS - REQUESTS / 10, invoices, "Invalid ingested invoices");
+        assertSummary(authUserHref, invoices);
+        Assertions.assertFalse(accountSummaryService.checkAccountSummaries()
+                        .contains(accountRepository.findAccountByAuthUserHref(authUserHref).orElseThrow().getId()),
+                "Account summary is not consistent with its invoices");
+    }
+
+    private void assertSummary(String authUserHref, int outstandingInvoices) {
+        AccountSummary accountSummary = accountSummaryRepository.findAccountSummaryByAuthUserHref(authUserHref).orElseThrow();
+        Assertions.assertEquals(outstandingInvoices, accountSummary.getOutstandingInvoices(), "Invalid outstanding invoices");
+        Assertions.assertEquals(0, BigDecimal.valueOf(10L * outstandingInvoices).compareTo(accountSummary.getOutstandingTotal()),
+                "Invalid outstanding total");
+    }
+
+    private static <T> List<T> inParallel(Request<T> request) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> calls = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                int requestNumber = i;
+                calls.add(workers.submit((Callable<T>) () -> {
+                    start.await();
+                    return request.send(requestNumber);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> call : calls) {
+                results.add(call.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static Account account(String authUserHref, Invoice... invoices) {
+        Account account = new Account();
+        account.setAuthUserHref(authUserHref);
+        account.setInvoiceList(new ArrayList<>(List.of(invoices)));
+        return account;
+    }
+
+    private static Invoice invoice(String idempotencyKey) {
+        Invoice invoice = new Invoice();
+        invoice.setAmount(10.0);
+        invoice.setDueDate(LocalDate.now().plusDays(7));
+        invoice.setType(Type.LIBRARY_FINE);
+        invoice.setIdempotencyKey(idempotencyKey);
+        return invoice;
+    }
+
+    private interface Request<T> {
+        T send(int requestNumber) throws Exception;
+    }
+}
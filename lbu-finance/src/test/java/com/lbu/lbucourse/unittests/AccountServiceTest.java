@@ -0,0 +1,149 @@
+package com.lbu.lbucourse.unittests;
+
+import com.lbu.lbucourse.commons.exceptions.LBUFinanceRuntimeException;
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.Invoice;
+import com.lbu.lbucourse.repositories.AccountRepository;
+import com.lbu.lbucourse.repositories.InvoiceRepository;
+import com.lbu.lbucourse.services.AccountSummaryService;
+import com.lbu.lbucourse.services.CodeGeneratorService;
+import com.lbu.lbucourse.services.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The upserts themselves are tested on MySQL in AccountServiceConcurrencyIntegrationTest, here the invoice table is a
+// map which, like ON DUPLICATE KEY, reports 0 rows for a clash on the idempotency key, the reference or the id
+public class AccountServiceTest {
+
+    private static final String AUTH_USER_HREF = "/auth/user/6a1d4f3e-2b7c-4c55-9a0e-3c1f2d4b5a6c";
+
+    private final Map<String, String> idempotencyKeysByReference = new ConcurrentHashMap<>();
+    private final Map<String, String> referencesById = new ConcurrentHashMap<>();
+    private final AtomicInteger references = new AtomicInteger();
+    private final AccountSummaryService accountSummaryService = Mockito.mock(AccountSummaryService.class);
+    private final CodeGeneratorService codeGeneratorService = Mockito.mock(CodeGeneratorService.class);
+    private AccountServiceImpl accountService;
+
+    @BeforeEach
+    void setUp() {
+        Account storedAccount = new Account();
+        storedAccount.setId("0b9e7c1a-5d3f-4e2b-8a6c-1f2e3d4c5b6a");
+        storedAccount.setAuthUserHref(AUTH_USER_HREF);
+        AccountRepository accountRepository = Mockito.mock(AccountRepository.class);
+        when(accountRepository.insertAccountIfAbsent(anyString(), anyString())).thenReturn(0);
+        when(accountRepository.findAccountByAuthUserHref(AUTH_USER_HREF)).thenReturn(Optional.of(storedAccount));
+        when(codeGeneratorService.nextReference()).thenAnswer(invocation -> "INV-" + references.incrementAndGet());
+        accountService = new AccountServiceImpl(accountRepository, invoiceRepository(), accountSummaryService,
+                codeGeneratorService);
+    }
+
+    @Test
+    void testWhenInvoiceSentAgain_ThenCreateFinanceAccount_ReturnSkippedWithoutError() {
+        Assertions.assertEquals(1, accountService.createFinanceAccount(account(invoice("library-fine:1"))).getInvoiceList().size(),
+                "Invoice should be created");
+        Assertions.assertEquals(0, accountService.createFinanceAccount(account(invoice("library-fine:1"))).getInvoiceList().size(),
+                "Replayed invoice should be skipped");
+        Assertions.assertEquals(1, idempotencyKeysByReference.size(), "Invoice should be stored once");
+        verify(accountSummaryService, times(1)).recordInvoicesAdded(any(), anyList());
+    }
+
+    @Test
+    void testWhenBatchSentAgain_ThenIngestInvoices_ReturnOnlyNewInvoices() {
+        Assertions.assertEquals(2, accountService.ingestInvoices(List.of(account(invoice("library-fine:1"),
+                invoice("library-fine:2")))), "Invalid ingested invoices");
+        Assertions.assertEquals(1, accountService.ingestInvoices(List.of(account(invoice("library-fine:1"),
+                invoice("library-fine:2"), invoice("library-fine:3")))), "Only the new invoice should be ingested");
+        Assertions.assertEquals(3, idempotencyKeysByReference.size(), "Every invoice should be stored once");
+        // The replayed keys are found up front and do not use up a reference
+        verify(codeGeneratorService, times(3)).nextReference();
+    }
+
+    @Test
+    void testWhenReferenceUsedByAnotherInvoice_ThenCreateFinanceAccount_ReturnError() {
+        accountService.createFinanceAccount(account(invoice("library-fine:1")));
+        // The sequence hands out a reference which is already stored for another idempotency key
+        references.set(0);
+        LBUFinanceRuntimeException exception = Assertions.assertThrows(LBUFinanceRuntimeException.class,
+                () -> accountService.createFinanceAccount(account(invoice("library-fine:2"))));
+        Assertions.assertEquals(10006, exception.getCode(), "Invalid exception code");
+        Assertions.assertEquals("library-fine:1", idempotencyKeysByReference.get("INV-1"), "Stored invoice should not change");
+        verify(accountSummaryService, times(1)).recordInvoicesAdded(any(), anyList());
+    }
+
+    @Test
+    void testWhenReferenceClashesInBatch_ThenIngestInvoices_ReturnError() {
+        accountService.ingestInvoices(List.of(account(invoice("library-fine:1"))));
+        references.set(0);
+        LBUFinanceRuntimeException exception = Assertions.assertThrows(LBUFinanceRuntimeException.class,
+                () -> accountService.ingestInvoices(List.of(account(invoice("library-fine:2")))));
+        Assertions.assertEquals(10006, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    void testWhenInvoiceWithoutKeyClashes_ThenCreateFinanceAccount_ReturnError() {
+        accountService.createFinanceAccount(account(invoice(null)));
+        references.set(0);
+        LBUFinanceRuntimeException exception = Assertions.assertThrows(LBUFinanceRuntimeException.class,
+                () -> accountService.createFinanceAccount(account(invoice(null))));
+        Assertions.assertEquals(10006, exception.getCode(), "Invalid exception code");
+    }
+
+    private InvoiceRepository invoiceRepository() {
+        InvoiceRepository invoiceRepository = Mockito.mock(InvoiceRepository.class);
+        when(invoiceRepository.insertInvoiceIfAbsent(anyString(), anyString(), any(), any(), any(), anyString(), any(), anyString()))
+                .thenAnswer(invocation -> {
+                    String id = invocation.getArgument(0);
+                    String reference = invocation.getArgument(1);
+                    String idempotencyKey = invocation.getArgument(6);
+                    synchronized (idempotencyKeysByReference) {
+                        if (referencesById.containsKey(id) || idempotencyKeysByReference.containsKey(reference)
+                                || (Objects.nonNull(idempotencyKey) && idempotencyKeysByReference.containsValue(idempotencyKey))) {
+                            return 0;
+                        }
+                        referencesById.put(id, reference);
+                        // A null idempotency key is stored as an empty one, the map does not hold nulls
+                        idempotencyKeysByReference.put(reference, Objects.requireNonNullElse(idempotencyKey, ""));
+                        return 1;
+                    }
+                });
+        when(invoiceRepository.findExistingIdempotencyKeys(any())).thenAnswer(invocation -> {
+            Collection<String> idempotencyKeys = invocation.getArgument(0);
+            return idempotencyKeys.stream().filter(idempotencyKeysByReference::containsValue).toList();
+        });
+        return invoiceRepository;
+    }
+
+    private static Account account(Invoice... invoices) {
+        Account account = new Account();
+        account.setAuthUserHref(AUTH_USER_HREF);
+        account.setInvoiceList(new ArrayList<>(List.of(invoices)));
+        return account;
+    }
+
+    private static Invoice invoice(String idempotencyKey) {
+        Invoice invoice = new Invoice();
+        invoice.setAmount(10.0);
+        invoice.setDueDate(LocalDate.now().plusDays(14));
+        invoice.setIdempotencyKey(idempotencyKey);
+        return invoice;
+    }
+}
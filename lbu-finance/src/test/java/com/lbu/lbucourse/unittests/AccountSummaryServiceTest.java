@@ -0,0 +1,186 @@
+package com.lbu.lbucourse.unittests;
+
+import com.lbu.lbucourse.models.Account;
+import com.lbu.lbucourse.models.AccountSummary;
+import com.lbu.lbucourse.models.Status;
+import com.lbu.lbucourse.repositories.AccountRepository;
+import com.lbu.lbucourse.repositories.AccountSummaryRepository;
+import com.lbu.lbucourse.repositories.InvoiceRepository;
+import com.lbu.lbucourse.services.impl.AccountSummaryServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The summary upsert is tested on MySQL in AccountServiceConcurrencyIntegrationTest, here the tables are maps so the
+// paging of the rebuild and the insert of the missing summaries run without a database
+public class AccountSummaryServiceTest {
+
+    private final List<Account> accountTable = new ArrayList<>();
+    private final Map<String, AccountSummary> summaryTable = new ConcurrentHashMap<>();
+    private final List<InvoiceRepository.StatusTotal> invoiceTotals = new ArrayList<>();
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private AccountRepository accountRepository;
+    private AccountSummaryRepository accountSummaryRepository;
+    private InvoiceRepository invoiceRepository;
+    private AccountSummaryServiceImpl accountSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = Mockito.mock(AccountRepository.class);
+        when(accountRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            List<Account> sorted = accountTable.stream().sorted(Comparator.comparing(Account::getId)).toList();
+            int from = (int) Math.min(pageable.getOffset(), sorted.size());
+            int to = Math.min(from + pageable.getPageSize(), sorted.size());
+            return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+        });
+        accountSummaryRepository = Mockito.mock(AccountSummaryRepository.class);
+        when(accountSummaryRepository.findAllForUpdate(any())).thenAnswer(invocation -> {
+            Collection<String> accountIds = invocation.getArgument(0);
+            return accountIds.stream().filter(summaryTable::containsKey).map(summaryTable::get).toList();
+        });
+        when(accountSummaryRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> accountIds = invocation.getArgument(0);
+            List<AccountSummary> summaries = new ArrayList<>();
+            accountIds.forEach(accountId -> {
+                if (summaryTable.containsKey(accountId)) {
+                    summaries.add(summaryTable.get(accountId));
+                }
+            });
+            return summaries;
+        });
+        when(accountSummaryRepository.insertAccountSummaryIfAbsent(anyString(), anyString())).thenAnswer(invocation -> {
+            String accountId = invocation.getArgument(0);
+            return summaryTable.putIfAbsent(accountId, summary(accountId, invocation.getArgument(1), "0.00", 0)) == null ? 1 : 0;
+        });
+        when(accountSummaryRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<AccountSummary> summaries = invocation.getArgument(0);
+            List<AccountSummary> saved = new ArrayList<>();
+            summaries.forEach(summary -> {
+                summaryTable.put(summary.getAccountId(), summary);
+                saved.add(summary);
+            });
+            return saved;
+        });
+        invoiceRepository = Mockito.mock(InvoiceRepository.class);
+        when(invoiceRepository.sumInvoicesByStatus(any())).thenAnswer(invocation -> {
+            Collection<String> accountIds = invocation.getArgument(0);
+            return invoiceTotals.stream().filter(total -> accountIds.contains(total.getAccountId())).toList();
+        });
+        accountSummaryService = new AccountSummaryServiceImpl(accountSummaryRepository, accountRepository,
+                invoiceRepository, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(accountSummaryService, "rebuildBatchSize", 2);
+
+        for (int i = 1; i <= 5; i++) {
+            Account account = new Account();
+            account.setId("account-" + i);
+            account.setAuthUserHref("/auth/user/" + i);
+            accountTable.add(account);
+            invoiceTotals.add(new Total(account.getId(), Status.OUTSTANDING, (long) i, i * 10.0));
+            invoiceTotals.add(new Total(account.getId(), Status.PAID, 1L, 5.0));
+        }
+    }
+
+    @Test
+    void testWhenSummariesMissingOrStale_ThenRebuild_ReturnEveryAccountRebuiltInBatches() {
+        // account-2 and account-5 have no summary, account-3 has a stale one
+        summaryTable.put("account-1", summary("account-1", "/auth/user/1", "10.00", 1));
+        summaryTable.put("account-3", summary("account-3", "/auth/user/3", "99.00", 7));
+        summaryTable.put("account-4", summary("account-4", "/auth/user/4", "40.00", 4));
+        Assertions.assertEquals(Set.of("account-2", "account-3", "account-5"),
+                Set.copyOf(accountSummaryService.checkAccountSummaries()), "Invalid inconsistent summaries");
+
+        Assertions.assertEquals(5, accountSummaryService.rebuildAccountSummaries(), "Every account should be rebuilt");
+        Assertions.assertTrue(accountSummaryService.checkAccountSummaries().isEmpty(), "Summaries should be consistent");
+        for (int i = 1; i <= 5; i++) {
+            AccountSummary accountSummary = summaryTable.get("account-" + i);
+            Assertions.assertEquals(0, new BigDecimal(i * 10 + ".00").compareTo(accountSummary.getOutstandingTotal()), "Invalid total");
+            Assertions.assertEquals(i, accountSummary.getOutstandingInvoices(), "Invalid outstanding invoices");
+            Assertions.assertEquals(1, accountSummary.getPaidInvoices(), "Invalid paid invoices");
+        }
+        verify(accountSummaryRepository).insertAccountSummaryIfAbsent("account-2", "/auth/user/2");
+        verify(accountSummaryRepository).insertAccountSummaryIfAbsent("account-5", "/auth/user/5");
+        verify(accountSummaryRepository, never()).insertAccountSummaryIfAbsent(Mockito.eq("account-1"), anyString());
+        // Three pages of at most two accounts for each check and the rebuild, each page summed with one query
+        verify(invoiceRepository, times(9)).sumInvoicesByStatus(any());
+        // Each page of the rebuild is committed in its own transaction
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void testWhenSummaryCreatedConcurrently_ThenRebuild_ReturnSummaryKeptAndRebuilt() {
+        // A first change of account-2 creates its summary after the rebuild found it missing, so the upsert inserts nothing
+        AccountSummary concurrentSummary = summary("account-2", "/auth/user/2", "0.00", 0);
+        Mockito.doAnswer(invocation -> {
+            summaryTable.putIfAbsent("account-2", concurrentSummary);
+            return 0;
+        }).when(accountSummaryRepository).insertAccountSummaryIfAbsent("account-2", "/auth/user/2");
+
+        Assertions.assertEquals(5, accountSummaryService.rebuildAccountSummaries(), "Every account should be rebuilt");
+        Assertions.assertSame(concurrentSummary, summaryTable.get("account-2"), "Concurrently created summary should be kept");
+        Assertions.assertEquals(2, concurrentSummary.getOutstandingInvoices(), "Invalid outstanding invoices");
+        Assertions.assertEquals(1, concurrentSummary.getPaidInvoices(), "Kept summary should be rebuilt");
+    }
+
+    @Test
+    void testWhenNoAccounts_ThenRebuild_ReturnNothingRebuilt() {
+        accountTable.clear();
+        Assertions.assertEquals(0, accountSummaryService.rebuildAccountSummaries(), "Nothing should be rebuilt");
+        verify(invoiceRepository, never()).sumInvoicesByStatus(any());
+    }
+
+    private static AccountSummary summary(String accountId, String authUserHref, String outstandingTotal, long outstandingInvoices) {
+        AccountSummary accountSummary = new AccountSummary();
+        accountSummary.setAccountId(accountId);
+        accountSummary.setAuthUserHref(authUserHref);
+        accountSummary.setOutstandingTotal(new BigDecimal(outstandingTotal));
+        accountSummary.setOutstandingInvoices(outstandingInvoices);
+        accountSummary.setPaidInvoices(outstandingInvoices == 0 ? 0L : 1L);
+        accountSummary.setCancelledInvoices(0L);
+        return accountSummary;
+    }
+
+    private record Total(String accountId, Status status, Long invoices, Double total) implements InvoiceRepository.StatusTotal {
+        @Override
+        public String getAccountId() {
+            return accountId;
+        }
+
+        @Override
+        public Status getStatus() {
+            return status;
+        }
+
+        @Override
+        public Long getInvoices() {
+            return invoices;
+        }
+
+        @Override
+        public Double getTotal() {
+            return total;
+        }
+    }
+}
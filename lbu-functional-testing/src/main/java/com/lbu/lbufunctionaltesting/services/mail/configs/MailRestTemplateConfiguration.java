@@ -0,0 +1,29 @@
+package com.lbu.lbufunctionaltesting.services.mail.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class MailRestTemplateConfiguration {
+
+
+    @Value("${custom.properties.mail.baseurl}")
+    private String mailBaseUrl;
+
+    private final RestTemplateBuilder restTemplateBuilder;
+
+    public MailRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder) {
+        this.restTemplateBuilder = restTemplateBuilder;
+    }
+
+    @Bean("mailRestTemplate")
+    public RestTemplate createMailRestTemplate() {
+        return restTemplateBuilder
+                .rootUri(mailBaseUrl)
+                .build();
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.lbu.lbufunctionaltesting.services.mail.services;
+
+import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetails;
+
+import java.util.Optional;
+
+public interface MailService {
+    Optional<String> findActivationToken(AccountActivationDetails accountActivationDetails);
+}
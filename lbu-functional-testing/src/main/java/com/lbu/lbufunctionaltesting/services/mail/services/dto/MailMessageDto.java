@@ -0,0 +1,16 @@
+package com.lbu.lbufunctionaltesting.services.mail.services.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MailMessageDto {
+    @JsonProperty("ID")
+    private String id;
+    @JsonProperty("MessageID")
+    private String messageId;
+    @JsonProperty("Text")
+    private String text;
+}
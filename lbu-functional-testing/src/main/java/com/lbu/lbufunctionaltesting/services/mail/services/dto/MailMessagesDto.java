@@ -0,0 +1,10 @@
+package com.lbu.lbufunctionaltesting.services.mail.services.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MailMessagesDto {
+    private List<MailMessageDto> messages;
+}
@@ -0,0 +1,59 @@
+package com.lbu.lbufunctionaltesting.services.mail.services.impl;
+
+import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetails;
+import com.lbu.lbufunctionaltesting.services.mail.services.MailService;
+import com.lbu.lbufunctionaltesting.services.mail.services.dto.MailMessageDto;
+import com.lbu.lbufunctionaltesting.services.mail.services.dto.MailMessagesDto;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class MailServiceImpl implements MailService {
+
+    private static final Pattern ACTIVATION_LINK = Pattern.compile("/activation/([A-Za-z0-9_-]+)");
+    private static final int ATTEMPTS = 30;
+
+    @Qualifier("mailRestTemplate")
+    private final RestTemplate mailRestTemplate;
+
+    public MailServiceImpl(RestTemplate mailRestTemplate) {
+        this.mailRestTemplate = mailRestTemplate;
+    }
+
+    // The auth service stores only the hash of the activation token and clears the queued email once it is sent, so
+    // the token is read from the activation email the mail server received, whose Message-ID carries the hash
+    @SneakyThrows
+    public Optional<String> findActivationToken(AccountActivationDetails accountActivationDetails) {
+        String messageId = accountActivationDetails.getToken() + "@lbu-auth";
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            MailMessagesDto mailMessagesDto = this.mailRestTemplate.getForObject("/api/v1/messages?limit=500", MailMessagesDto.class);
+            Optional<MailMessageDto> summary = Optional.ofNullable(mailMessagesDto)
+                    .map(MailMessagesDto::getMessages)
+                    .flatMap(messages -> messages.stream()
+                            .filter(message -> Objects.nonNull(message.getMessageId())
+                                    && message.getMessageId().replaceAll("[<>]", "").equals(messageId))
+                            .findFirst());
+            if (summary.isPresent()) {
+                MailMessageDto message = this.mailRestTemplate.getForObject("/api/v1/message/" + summary.get().getId(), MailMessageDto.class);
+                return Optional.ofNullable(message)
+                        .map(MailMessageDto::getText)
+                        .map(ACTIVATION_LINK::matcher)
+                        .filter(Matcher::find)
+                        .map(matcher -> matcher.group(1));
+            }
+            // The auth service sends the queued emails shortly after the signup
+            Thread.sleep(1000);
+        }
+        log.error("Activation email {} was not received", messageId);
+        return Optional.empty();
+    }
+}
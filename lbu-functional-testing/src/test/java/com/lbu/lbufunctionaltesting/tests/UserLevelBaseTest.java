@@ -7,6 +7,7 @@ import com.lbu.lbufunctionaltesting.page.signin.steps.SignInSteps;
 import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetails;
 import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetailsRepository;
 import com.lbu.lbufunctionaltesting.services.auth.services.AuthService;
+import com.lbu.lbufunctionaltesting.services.mail.services.MailService;
 import com.lbu.lbufunctionaltesting.tests.wrappers.CredentialWrapper;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
@@ -37,6 +38,9 @@ public class UserLevelBaseTest extends BaseTest {
     @Autowired
     AccountActivationDetailsRepository accountActivationDetailsRepository;
 
+    @Autowired
+    MailService mailService;
+
     @SneakyThrows
     @BeforeEach
     public void setup() {
@@ -50,7 +54,7 @@ public class UserLevelBaseTest extends BaseTest {
         Optional<AccountActivationDetails> byUserUsername = accountActivationDetailsRepository.findByUser_Username(credentialWrapper.getUserName());
         if (byUserUsername.isPresent()) {
             AccountActivationDetails accountActivationDetails = byUserUsername.get();
-            authService.activateUser(accountActivationDetails.getToken());
+            authService.activateUser(mailService.findActivationToken(accountActivationDetails).orElseThrow());
             Thread.sleep(1000);
             loginSteps
                     .givenIAmAtLoginPage()
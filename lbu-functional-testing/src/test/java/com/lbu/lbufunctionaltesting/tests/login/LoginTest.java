@@ -7,6 +7,7 @@ import com.lbu.lbufunctionaltesting.page.signin.steps.SignInSteps;
 import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetails;
 import com.lbu.lbufunctionaltesting.services.auth.database.AccountActivationDetailsRepository;
 import com.lbu.lbufunctionaltesting.services.auth.services.AuthService;
+import com.lbu.lbufunctionaltesting.services.mail.services.MailService;
 import com.lbu.lbufunctionaltesting.tests.BaseTest;
 import com.lbu.lbufunctionaltesting.tests.wrappers.CredentialWrapper;
 import org.junit.jupiter.api.Assertions;
@@ -38,6 +39,9 @@ public class LoginTest extends BaseTest {
     @Autowired
     AccountActivationDetailsRepository accountActivationDetailsRepository;
 
+    @Autowired
+    MailService mailService;
+
     @BeforeEach
     public void setup() {
         loginSteps
@@ -69,7 +73,7 @@ public class LoginTest extends BaseTest {
         Optional<AccountActivationDetails> byUserUsername = accountActivationDetailsRepository.findByUser_Username(credentialWrapper.getUserName());
         if (byUserUsername.isPresent()) {
             AccountActivationDetails accountActivationDetails = byUserUsername.get();
-            authService.activateUser(accountActivationDetails.getToken());
+            authService.activateUser(mailService.findActivationToken(accountActivationDetails).orElseThrow());
             Thread.sleep(1000);
             loginSteps
                     .givenIAmAtLoginPage()
@@ -13,6 +13,8 @@ public enum ErrorConstants {
     JWT_TOKEN_USER_MISMATCH("Invalid user access.", 6005),
     JWT_TOKEN_INVALID("Invalid token.", 6006),
 
+    AUTH_SERVICE_LOGIN_ERROR("An error occurred in the auth service while logging in the service account.", 7000),
+
     STUDENT_NOT_AVAILABLE("Given student id is not available.", 10000),
     BOOK_NOT_AVAILABLE("Given book id is not available.", 10001),
     BOOK_ALREADY_BORROWED("Given book is already borrowed please return it before get new.", 10002),
@@ -20,8 +22,12 @@ public enum ErrorConstants {
     BOOK_NOT_BORROWED("Given book is not borrowed by the student.", 10004),
     BOOK_ALREADY_RETURNED("Given book is already returned.", 10005),
     BOOK__NOT_HAVING_REQUIRED("please add all the required details for the book.", 10006),
+    BOOK_PAGE_CURSOR_INVALID("Given page cursor is invalid.", 10007),
+    STUDENT_NOT_VALID("Given student is not valid.", 10008),
+    CODE_SEQUENCE_EXHAUSTED("No more codes are available in the sequence.", 10009),
 
-    INTERNAL_ERROR("An error occurred.", 9000);
+    INTERNAL_ERROR("An error occurred.", 9000),
+    SERVICE_ACCOUNT_NOT_CONFIGURED("Service account credentials are not configured.", 9001);
 
     private final String errorMessage;
     private final Integer errorCode;
@@ -22,6 +22,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,14 +32,18 @@ import static com.lbu.lbulibrary.commons.constants.ErrorConstants.*;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    @Value("${custom.properties.jwt.public.key}")
-    private String publicKey;
     Pattern BEARER_PATTERN = Pattern.compile("Bearer\\s+(.*)");
     @Qualifier("authRestTemplate")
     private final RestTemplate authRestTemplate;
+    private final JwtParser jwtParser;
+    private final JwtClaimsCache jwtClaimsCache;
 
-    public AuthServiceImpl(RestTemplate authRestTemplate) {
+    public AuthServiceImpl(RestTemplate authRestTemplate,
+                           @Value("${custom.properties.jwt.public.key}") String publicKey,
+                           @Value("${custom.properties.jwt.claims.cache.size}") Integer claimsCacheSize) {
         this.authRestTemplate = authRestTemplate;
+        this.jwtParser = buildJwtParser(publicKey);
+        this.jwtClaimsCache = new JwtClaimsCache(claimsCacheSize);
     }
 
     public boolean validateToken(String token) {
@@ -85,7 +90,13 @@ public class AuthServiceImpl implements AuthService {
 
     private Claims validateAndGetClaims(String authToken) {
         try {
-            return (Claims) Jwts.parser().verifyWith(this.stringToPublicKey(this.publicKey)).build().parse(authToken).getPayload();
+            Claims cachedClaims = jwtClaimsCache.get(authToken);
+            if (Objects.nonNull(cachedClaims)) {
+                return cachedClaims;
+            }
+            Claims claims = (Claims) jwtParser.parse(authToken).getPayload();
+            jwtClaimsCache.put(authToken, claims);
+            return claims;
         } catch (MalformedJwtException | SecurityException e) {
             log.error("Invalid JWT signature", e);
             throw new LBULibraryRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
@@ -98,8 +109,19 @@ public class AuthServiceImpl implements AuthService {
         } catch (IllegalArgumentException e) {
             log.error("JWT token compact of handler are invalid", e);
             throw new LBULibraryRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
+        } catch (JwtException e) {
+            log.error("Invalid JWT token", e);
+            throw new LBULibraryRuntimeException(JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
+        }
+    }
+
+    private JwtParser buildJwtParser(String publicKey) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(stringToPublicKey(publicKey))
+                    .build();
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            log.error("An error occurred while generating public key and private key", e);
+            log.error("An error occurred while generating public key", e);
             throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
     }
@@ -1,5 +1,6 @@
 package com.lbu.lbulibrary.commons.externalservices.finance.configs;
 
+import com.lbu.lbulibrary.commons.externalservices.configs.HttpClientRequestFactoryProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -14,15 +15,19 @@ public class FinanceRestTemplateConfiguration {
     private String financeBaseUrl;
 
     private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
 
-    public FinanceRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder) {
+    public FinanceRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder,
+                                            HttpClientRequestFactoryProvider httpClientRequestFactoryProvider) {
         this.restTemplateBuilder = restTemplateBuilder;
+        this.httpClientRequestFactoryProvider = httpClientRequestFactoryProvider;
     }
 
     @Bean("financeRestTemplate")
     public RestTemplate createAuthRestTemplate() {
         return restTemplateBuilder
                 .rootUri(financeBaseUrl)
+                .requestFactory(() -> httpClientRequestFactoryProvider.create("finance"))
                 .build();
     }
 
@@ -1,6 +1,10 @@
 package com.lbu.lbulibrary.commons.externalservices.finance.services;
 
+import com.lbu.lbulibrary.dtos.finance.FinanceAccountDto;
+
+import java.util.List;
+
 public interface FinanceService {
 
-    void createOrUpdateFinanceAccount(String authUserHref, String token, Double fee, Integer bookPayDuration);
+    void ingestInvoices(List<FinanceAccountDto> accounts, String token);
 }
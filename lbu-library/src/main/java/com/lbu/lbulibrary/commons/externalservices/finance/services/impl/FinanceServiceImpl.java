@@ -3,9 +3,11 @@ package com.lbu.lbulibrary.commons.externalservices.finance.services.impl;
 import com.lbu.lbulibrary.commons.constants.ErrorConstants;
 import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
 import com.lbu.lbulibrary.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbulibrary.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbulibrary.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbulibrary.dtos.MessageDto;
 import com.lbu.lbulibrary.dtos.finance.FinanceAccountDto;
-import com.lbu.lbulibrary.dtos.finance.FinanceInvoiceDto;
-import com.lbu.lbulibrary.dtos.finance.Type;
+import com.lbu.lbulibrary.dtos.finance.FinanceAccountDtos;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -13,7 +15,6 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -21,29 +22,26 @@ import java.util.List;
 public class FinanceServiceImpl implements FinanceService {
 
     private final RestTemplate financeRestTemplate;
+    private final DownstreamGuard financeGuard;
 
-    public FinanceServiceImpl(RestTemplate financeRestTemplate) {
+    public FinanceServiceImpl(RestTemplate financeRestTemplate, DownstreamGuards downstreamGuards) {
         this.financeRestTemplate = financeRestTemplate;
+        this.financeGuard = downstreamGuards.get("finance");
     }
 
     @Override
-    public void createOrUpdateFinanceAccount(String authUserHref, String token, Double fee, Integer bookPayDuration) {
-        try {
+    public void ingestInvoices(List<FinanceAccountDto> accounts, String token) {
+        MessageDto messageDto = financeGuard.execute(() -> {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", token);
-            FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-            financeAccountDto.setAuthUserHref(authUserHref);
-            FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-            financeInvoiceDto.setAmount(fee);
-            financeInvoiceDto.setType(Type.LIBRARY_FINE);
-            financeInvoiceDto.setDueDate(LocalDate.now().plusDays(bookPayDuration));
-            financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-            HttpEntity<FinanceAccountDto> requestEntity = new HttpEntity<>(financeAccountDto, headers);
-            FinanceAccountDto financeAccount = financeRestTemplate.postForObject("/finance/account", requestEntity, FinanceAccountDto.class);
-            log.info("Finance created {}", financeAccount);
-        } catch (Exception e) {
+            FinanceAccountDtos financeAccountDtos = new FinanceAccountDtos();
+            financeAccountDtos.setAccounts(accounts);
+            HttpEntity<FinanceAccountDtos> requestEntity = new HttpEntity<>(financeAccountDtos, headers);
+            return financeRestTemplate.postForObject("/finance/accounts/invoices", requestEntity, MessageDto.class);
+        }, e -> {
             throw new LBULibraryRuntimeException(ErrorConstants.INTERNAL_ERROR.getErrorMessage(), ErrorConstants.INTERNAL_ERROR.getErrorCode(), e);
-        }
+        });
+        log.info("Finance invoices ingested {}", messageDto);
     }
 }
@@ -0,0 +1,78 @@
+package com.lbu.lbulibrary.commons.externalservices.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class DownstreamGuards implements DownstreamGuard.GuardListener {
+
+    @Value("${custom.properties.resilience.bulkhead.max.concurrent}")
+    private Integer maxConcurrent;
+
+    @Value("${custom.properties.resilience.concurrency.min.limit}")
+    private Integer minLimit;
+
+    @Value("${custom.properties.resilience.concurrency.slow.call.millis}")
+    private Long slowCallMillis;
+
+    @Value("${custom.properties.resilience.breaker.window.size}")
+    private Integer windowSize;
+
+    @Value("${custom.properties.resilience.breaker.minimum.calls}")
+    private Integer minimumCalls;
+
+    @Value("${custom.properties.resilience.breaker.failure.rate.percent}")
+    private Integer failureRatePercent;
+
+    @Value("${custom.properties.resilience.breaker.open.millis}")
+    private Long openMillis;
+
+    @Value("${custom.properties.resilience.breaker.half.open.probes}")
+    private Integer halfOpenProbes;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DownstreamGuard> guards = new ConcurrentHashMap<>();
+
+    public DownstreamGuards(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Retrieves the guard of the given downstream service, creating it with the configured limits on first use. The
+     * concurrency limit, the calls in flight and the circuit state (0 closed, 1 half open, 2 open) of each downstream
+     * are published as gauges and the rejected calls are counted by reason.
+     *
+     * @param name The name of the downstream service.
+     * @return The guard of the downstream service.
+     */
+    public DownstreamGuard get(String name) {
+        return guards.computeIfAbsent(name, this::create);
+    }
+
+    @Override
+    public void onRejected(String name, String reason) {
+        meterRegistry.counter("lbu.library.downstream.rejected", "downstream", name, "reason", reason).increment();
+    }
+
+    @Override
+    public void onStateChange(String name, DownstreamGuard.State state) {
+        meterRegistry.counter("lbu.library.downstream.transitions", "downstream", name, "state", state.name()).increment();
+    }
+
+    private DownstreamGuard create(String name) {
+        DownstreamGuard guard = new DownstreamGuard(name, maxConcurrent, minLimit, slowCallMillis, windowSize,
+                minimumCalls, failureRatePercent, openMillis, halfOpenProbes, this);
+        Gauge.builder("lbu.library.downstream.limit", guard, DownstreamGuard::getLimit)
+                .tag("downstream", name).register(meterRegistry);
+        Gauge.builder("lbu.library.downstream.inflight", guard, DownstreamGuard::getInFlight)
+                .tag("downstream", name).register(meterRegistry);
+        Gauge.builder("lbu.library.downstream.state", guard, downstreamGuard -> downstreamGuard.getState().ordinal())
+                .tag("downstream", name).register(meterRegistry);
+        return guard;
+    }
+}
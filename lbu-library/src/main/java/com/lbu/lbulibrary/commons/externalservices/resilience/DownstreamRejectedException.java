@@ -0,0 +1,16 @@
+package com.lbu.lbulibrary.commons.externalservices.resilience;
+
+import lombok.Getter;
+
+@Getter
+public class DownstreamRejectedException extends RuntimeException {
+
+    private final String downstream;
+    private final String reason;
+
+    public DownstreamRejectedException(String downstream, String reason) {
+        super("Call to " + downstream + " rejected: " + reason);
+        this.downstream = downstream;
+        this.reason = reason;
+    }
+}
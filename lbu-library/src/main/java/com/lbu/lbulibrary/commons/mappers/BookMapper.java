@@ -0,0 +1,49 @@
+package com.lbu.lbulibrary.commons.mappers;
+
+import com.lbu.lbulibrary.dtos.BookDto;
+import com.lbu.lbulibrary.models.Book;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps between Book entities and BookDtos with plain accessor calls, so the hot book listing paths do no reflection.
+ */
+@Component
+public class BookMapper {
+
+    /**
+     * Maps the client supplied fields of a BookDto to a new Book. The id, the available copies and the timestamps are
+     * owned by the service and are not taken from the request.
+     *
+     * @param bookDto The BookDto to map.
+     * @return The new Book.
+     */
+    public Book toBook(BookDto bookDto) {
+        Book book = new Book();
+        book.setIsbn(bookDto.getIsbn());
+        book.setTitle(bookDto.getTitle());
+        book.setAuthor(bookDto.getAuthor());
+        book.setYearOfPublished(bookDto.getYearOfPublished());
+        book.setCopies(bookDto.getCopies());
+        return book;
+    }
+
+    /**
+     * Maps a Book to a BookDto. The borrowing status is left unset as it depends on the requesting student.
+     *
+     * @param book The Book to map.
+     * @return The BookDto.
+     */
+    public BookDto toBookDto(Book book) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(book.getId());
+        bookDto.setIsbn(book.getIsbn());
+        bookDto.setTitle(book.getTitle());
+        bookDto.setAuthor(book.getAuthor());
+        bookDto.setYearOfPublished(book.getYearOfPublished());
+        bookDto.setCopies(book.getCopies());
+        bookDto.setAvailableCopies(book.getAvailableCopies());
+        bookDto.setCreatedTimestamp(book.getCreatedTimestamp());
+        bookDto.setUpdatedTimestamp(book.getUpdatedTimestamp());
+        return bookDto;
+    }
+}
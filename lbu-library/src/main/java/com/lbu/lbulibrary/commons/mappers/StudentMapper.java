@@ -0,0 +1,62 @@
+package com.lbu.lbulibrary.commons.mappers;
+
+import com.lbu.lbulibrary.dtos.StudentDto;
+import com.lbu.lbulibrary.dtos.TransactionDto;
+import com.lbu.lbulibrary.models.Student;
+import com.lbu.lbulibrary.models.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maps library students and their transactions to DTOs with plain accessor calls.
+ */
+@Component
+public class StudentMapper {
+
+    private final BookMapper bookMapper;
+
+    public StudentMapper(BookMapper bookMapper) {
+        this.bookMapper = bookMapper;
+    }
+
+    /**
+     * Maps a Student to a StudentDto, including a TransactionDto with the book for every transaction of the student.
+     *
+     * @param student The Student to map.
+     * @return The StudentDto.
+     */
+    public StudentDto toStudentDto(Student student) {
+        StudentDto studentDto = new StudentDto();
+        studentDto.setId(student.getId());
+        studentDto.setAuthUserHref(student.getAuthUserHref());
+        studentDto.setCreatedTimestamp(student.getCreatedTimestamp());
+        studentDto.setUpdatedTimestamp(student.getUpdatedTimestamp());
+        if (Objects.nonNull(student.getTransactions())) {
+            List<TransactionDto> borrowedBooks = new ArrayList<>(student.getTransactions().size());
+            for (Transaction transaction : student.getTransactions()) {
+                borrowedBooks.add(toTransactionDto(transaction));
+            }
+            studentDto.setBorrowedBooks(borrowedBooks);
+        }
+        return studentDto;
+    }
+
+    /**
+     * Maps a Transaction to a TransactionDto with the borrowed book.
+     *
+     * @param transaction The Transaction to map.
+     * @return The TransactionDto.
+     */
+    public TransactionDto toTransactionDto(Transaction transaction) {
+        TransactionDto transactionDto = new TransactionDto();
+        transactionDto.setBook(bookMapper.toBookDto(transaction.getBook()));
+        transactionDto.setDateBorrowed(transaction.getDateBorrowed());
+        transactionDto.setDateReturned(transaction.getDateReturned());
+        transactionDto.setCreatedTimestamp(transaction.getCreatedTimestamp());
+        transactionDto.setUpdatedTimestamp(transaction.getUpdatedTimestamp());
+        return transactionDto;
+    }
+}
@@ -59,10 +59,10 @@ public interface LibraryBooksController {
 
     @GetMapping("/books")
     @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
-    @Operation(summary = "Get All Books")
+    @Operation(summary = "Get Books Page")
     @ApiResponse(
             responseCode = "200",
-            description = "Successfully get all the books",
+            description = "Successfully get the page of books",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = BookDtos.class))
     )
     @ApiResponse(
@@ -75,7 +75,28 @@ public interface LibraryBooksController {
             description = "Internal server error",
             content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
     )
-    ResponseEntity<BookDtos> getBooks(@RequestHeader(HttpHeaders.AUTHORIZATION) String token);
+    ResponseEntity<BookDtos> getBooks(@RequestHeader(HttpHeaders.AUTHORIZATION) String token,
+                                      @RequestParam(required = false) String title,
+                                      @RequestParam(required = false) String author,
+                                      @RequestParam(required = false) Integer year,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size);
+
+    @GetMapping("/books/search")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
+    @Operation(summary = "Search Books")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully searched the books",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = BookDtos.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<BookDtos> searchBooks(@RequestParam String query,
+                                         @RequestParam(required = false) Integer limit);
 
     @PutMapping("/books")
     @PreAuthorize("hasRole('ADMIN')")
@@ -2,6 +2,7 @@ package com.lbu.lbulibrary.controllers;
 
 import com.lbu.lbulibrary.dtos.MessageDto;
 import com.lbu.lbulibrary.dtos.StudentDto;
+import com.lbu.lbulibrary.dtos.StudentDtos;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -36,6 +37,26 @@ public interface LibraryStudentController {
     )
     ResponseEntity<MessageDto> createStudent(@RequestHeader(HttpHeaders.AUTHORIZATION) String token);
 
+    @PostMapping("/students")
+    @PreAuthorize("hasRole('SERVICE')")
+    @Operation(summary = "Create Students In Bulk")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully created the students",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad student content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<MessageDto> createStudents(@RequestBody StudentDtos studentDtos);
+
     @GetMapping("/student")
     @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
     @Operation(summary = "Get Student")
@@ -2,23 +2,27 @@ package com.lbu.lbulibrary.controllers.impl;
 
 import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
 import com.lbu.lbulibrary.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbulibrary.commons.mappers.BookMapper;
 import com.lbu.lbulibrary.controllers.LibraryBooksController;
 import com.lbu.lbulibrary.dtos.BookDto;
 import com.lbu.lbulibrary.dtos.BookDtos;
 import com.lbu.lbulibrary.models.Book;
-import com.lbu.lbulibrary.models.Transaction;
-import com.lbu.lbulibrary.service.BookFineService;
+import com.lbu.lbulibrary.service.BookSearchService;
 import com.lbu.lbulibrary.service.BookService;
 import com.lbu.lbulibrary.service.TransactionService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_PAGE_CURSOR_INVALID;
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK__NOT_HAVING_REQUIRED;
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.INTERNAL_ERROR;
 
@@ -27,27 +31,32 @@ import static com.lbu.lbulibrary.commons.constants.ErrorConstants.INTERNAL_ERROR
 public class LibraryBooksControllerImpl implements LibraryBooksController {
 
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final BookMapper bookMapper;
     private final AuthService authService;
     private final TransactionService transactionService;
+    private final BookSearchService bookSearchService;
 
-    private final BookFineService bookFineService;
+    @Value("${custom.properties.books.page.size.default}")
+    private Integer defaultPageSize;
+
+    @Value("${custom.properties.books.page.size.max}")
+    private Integer maxPageSize;
 
     public LibraryBooksControllerImpl(BookService bookService,
-                                      ModelMapper modelMapper,
+                                      BookMapper bookMapper,
                                       AuthService authService,
                                       TransactionService transactionService,
-                                      BookFineService bookFineService) {
+                                      BookSearchService bookSearchService) {
         this.bookService = bookService;
-        this.modelMapper = modelMapper;
+        this.bookMapper = bookMapper;
         this.authService = authService;
         this.transactionService = transactionService;
-        this.bookFineService = bookFineService;
+        this.bookSearchService = bookSearchService;
     }
 
     /**
      * Creates a new book entry based on the provided BookDto. It validates the BookDto, maps it to a Book entity using
-     * ModelMapper, and then saves the new book. If any exception occurs during mapping or saving, it is caught and rethrown
+     * the BookMapper, and then saves the new book. If any exception occurs during mapping or saving, it is caught and rethrown
      * as an LBULibraryRuntimeException.
      *
      * @param bookDto The BookDto object containing information about the book to be created.
@@ -60,7 +69,7 @@ public class LibraryBooksControllerImpl implements LibraryBooksController {
         // Attempt to map the BookDto to a Book entity
         Book book;
         try {
-            book = modelMapper.map(bookDto, Book.class);
+            book = bookMapper.toBook(bookDto);
         } catch (Exception e) {
             // If an exception occurs during mapping, throw LBULibraryRuntimeException
             throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -69,7 +78,7 @@ public class LibraryBooksControllerImpl implements LibraryBooksController {
         Book savedBook = bookService.createNewBook(book);
         // Attempt to map the saved Book entity back to a BookDto
         try {
-            return ResponseEntity.ok(modelMapper.map(savedBook, BookDto.class));
+            return ResponseEntity.ok(bookMapper.toBookDto(savedBook));
         } catch (Exception e) {
             // If an exception occurs during mapping, throw LBULibraryRuntimeException
             throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -104,7 +113,7 @@ public class LibraryBooksControllerImpl implements LibraryBooksController {
         Book book = bookService.getBookByIsbn(isbn);
         // Attempt to map the retrieved Book entity to a BookDto
         try {
-            return ResponseEntity.ok(modelMapper.map(book, BookDto.class));
+            return ResponseEntity.ok(bookMapper.toBookDto(book));
         } catch (Exception e) {
             // If an exception occurs during mapping, throw LBULibraryRuntimeException
             throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -112,49 +121,79 @@ public class LibraryBooksControllerImpl implements LibraryBooksController {
     }
 
     /**
-     * Retrieves all books and their borrowing status associated with a user based on the provided token. It retrieves
-     * transactions associated with the user, checks for any book fines, and then fetches all books from the database.
-     * Finally, it maps each book to a BookDto and sets its borrowing status. If any exception occurs during this process,
-     * it is caught and rethrown as an LBULibraryRuntimeException.
+     * Retrieves one page of books and their borrowing status for the user of the provided token. The page starts after
+     * the given cursor, is filtered by the optional title, author and year, and holds at most the requested number of
+     * books, bounded by the configured maximum page size. The borrowing status is set with a lookup in the set of ISBNs
+     * currently borrowed by the user. The cursor of the next page is returned while more books are available. If any
+     * exception occurs during mapping, it is caught and rethrown as an LBULibraryRuntimeException.
      *
-     * @param token The authentication token of the user.
-     * @return ResponseEntity containing a list of BookDtos representing all books and their borrowing status.
+     * @param token  The authentication token of the user.
+     * @param title  The title prefix to filter by.
+     * @param author The author prefix to filter by.
+     * @param year   The year of publication to filter by.
+     * @param cursor The cursor of the page returned by the previous request.
+     * @param size   The number of books in the page.
+     * @return ResponseEntity containing the page of BookDtos and the cursor of the next page.
      */
     @Override
-    public ResponseEntity<BookDtos> getBooks(String token) {
-        // Initialize list of transactions
-        List<Transaction> transactions = null;
+    public ResponseEntity<BookDtos> getBooks(String token, String title, String author, Integer year, String cursor, Integer size) {
+        // Initialize set of borrowed ISBNs
+        Set<String> borrowedIsbns = null;
         try {
-            // Validate the user authentication token and retrieve associated transactions
+            // Validate the user authentication token and retrieve the borrowed ISBNs
             String authUserHref = authService.validateAuthUserHref(token);
-            transactions = transactionService.getTransactionsByAuthUserHref(authUserHref);
-            // Check for any book fines associated with the user
-            bookFineService.checkForBookFines(token, authUserHref);
+            borrowedIsbns = transactionService.getBorrowedIsbnsByAuthUserHref(authUserHref);
         } catch (LBULibraryRuntimeException e) {
             // Log error if no data available for the user
             log.error("No data available for the user");
         }
-        // Retrieve all books from the database
-        List<Book> books = bookService.getBooks();
+        int pageSize = Math.min(Math.max(Objects.requireNonNullElse(size, defaultPageSize), 1), maxPageSize);
+        // Retrieve one more book than the page size to find whether a next page exists
+        List<Book> books = bookService.getBooks(decodeCursor(cursor), title, author, year, pageSize + 1);
+        boolean hasNextPage = books.size() > pageSize;
+        if (hasNextPage) {
+            books = books.subList(0, pageSize);
+        }
         try {
-            // Initialize BookDtos object to hold list of BookDto
             BookDtos bookDtos = new BookDtos();
-            List<BookDto> list = new ArrayList<>();
-            // Iterate through each book and map it to a BookDto
+            List<BookDto> list = new ArrayList<>(books.size());
             for (Book book : books) {
-                BookDto dto = modelMapper.map(book, BookDto.class);
-                // Set borrowing status based on associated transactions
-                if (Objects.nonNull(transactions)) {
-                    if (transactions.stream()
-                            .anyMatch(transaction -> transaction.getBook().getIsbn().equals(dto.getIsbn()) && Objects.isNull(transaction.getDateReturned()))) {
-                        dto.setIsBorrowed(Boolean.TRUE);
-                    } else {
-                        dto.setIsBorrowed(Boolean.FALSE);
-                    }
+                BookDto dto = bookMapper.toBookDto(book);
+                // Set borrowing status based on the borrowed ISBNs
+                if (Objects.nonNull(borrowedIsbns)) {
+                    dto.setIsBorrowed(borrowedIsbns.contains(dto.getIsbn()));
                 }
                 list.add(dto);
             }
-            // Set list of books in the BookDtos object and return ResponseEntity
+            bookDtos.setBooks(list);
+            if (hasNextPage) {
+                bookDtos.setNextCursor(encodeCursor(books.get(books.size() - 1).getId()));
+            }
+            return ResponseEntity.ok(bookDtos);
+        } catch (Exception e) {
+            // If an exception occurs during mapping, throw LBULibraryRuntimeException
+            throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Searches the books by title and author with the given query. The books are ranked by the search index, mapped to
+     * BookDtos in the ranked order and returned. If any exception occurs during mapping, it is caught and rethrown as an
+     * LBULibraryRuntimeException.
+     *
+     * @param query The search query.
+     * @param limit The maximum number of books to return.
+     * @return ResponseEntity containing the matching BookDtos, best match first.
+     */
+    @Override
+    public ResponseEntity<BookDtos> searchBooks(String query, Integer limit) {
+        List<Book> books = bookSearchService.searchBooks(query, limit);
+        try {
+            BookDtos bookDtos = new BookDtos();
+            List<BookDto> list = new ArrayList<>(books.size());
+            for (Book book : books) {
+                list.add(bookMapper.toBookDto(book));
+            }
             bookDtos.setBooks(list);
             return ResponseEntity.ok(bookDtos);
         } catch (Exception e) {
@@ -174,4 +213,18 @@ public class LibraryBooksControllerImpl implements LibraryBooksController {
         return null;
     }
 
+    private static String encodeCursor(String bookId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bookId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (Objects.isNull(cursor) || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new LBULibraryRuntimeException(BOOK_PAGE_CURSOR_INVALID.getErrorMessage(), BOOK_PAGE_CURSOR_INVALID.getErrorCode(), e);
+        }
+    }
 }
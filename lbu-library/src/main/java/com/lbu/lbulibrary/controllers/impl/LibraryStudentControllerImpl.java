@@ -2,22 +2,23 @@ package com.lbu.lbulibrary.controllers.impl;
 
 import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
 import com.lbu.lbulibrary.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbulibrary.commons.mappers.StudentMapper;
 import com.lbu.lbulibrary.controllers.LibraryStudentController;
-import com.lbu.lbulibrary.dtos.BookDto;
 import com.lbu.lbulibrary.dtos.MessageDto;
 import com.lbu.lbulibrary.dtos.StudentDto;
-import com.lbu.lbulibrary.dtos.TransactionDto;
+import com.lbu.lbulibrary.dtos.StudentDtos;
 import com.lbu.lbulibrary.models.Student;
-import com.lbu.lbulibrary.service.BookFineService;
 import com.lbu.lbulibrary.service.StudentService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.STUDENT_NOT_VALID;
 
 @Slf4j
 @RestController
@@ -25,17 +26,14 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
 
     private final AuthService authService;
     private final StudentService studentService;
-    private final ModelMapper modelMapper;
-    private final BookFineService bookFineService;
+    private final StudentMapper studentMapper;
 
     public LibraryStudentControllerImpl(AuthService authService,
                                         StudentService studentService,
-                                        ModelMapper modelMapper,
-                                        BookFineService bookFineService) {
+                                        StudentMapper studentMapper) {
         this.authService = authService;
         this.studentService = studentService;
-        this.modelMapper = modelMapper;
-        this.bookFineService = bookFineService;
+        this.studentMapper = studentMapper;
     }
 
     /**
@@ -59,8 +57,30 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     }
 
     /**
-     * Validates the user's authentication token, checks for any book fines associated with the user,
-     * retrieves the student details based on the authenticated user's href, constructs a StudentDto
+     * Creates the students for a batch of authentication user hrefs sent by the outbox relay of the student service.
+     * Every student of the batch must have an authentication user href. Students which already exist are skipped, so
+     * the batch can be delivered again safely. It then constructs a message with the number of created students and
+     * returns it as a ResponseEntity with HTTP status 200.
+     *
+     * @param studentDtos The students to create.
+     * @return ResponseEntity containing a message indicating successful creation of the students.
+     */
+    @Override
+    public ResponseEntity<MessageDto> createStudents(StudentDtos studentDtos) {
+        if (Objects.isNull(studentDtos.getStudents()) || studentDtos.getStudents().stream()
+                .anyMatch(studentDto -> StringUtils.isBlank(studentDto.getAuthUserHref()))) {
+            throw new LBULibraryRuntimeException(STUDENT_NOT_VALID.getErrorMessage(), STUDENT_NOT_VALID.getErrorCode());
+        }
+        int created = studentService.createNewStudents(studentDtos.getStudents().stream()
+                .map(StudentDto::getAuthUserHref).collect(Collectors.toList()));
+        MessageDto messageDto = new MessageDto();
+        messageDto.setCode(200);
+        messageDto.setMessage("Students created " + created);
+        return ResponseEntity.ok(messageDto);
+    }
+
+    /**
+     * Validates the user's authentication token, retrieves the student details based on the authenticated user's href, constructs a StudentDto
      * with borrowed book details, and returns it as a ResponseEntity with HTTP status 200.
      * If any error occurs during model conversion, it is logged and rethrown as an LBULibraryRuntimeException.
      *
@@ -70,17 +90,10 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     @Override
     public ResponseEntity<StudentDto> getStudent(String token) {
         String authUserHref = authService.validateAuthUserHref(token);
-        bookFineService.checkForBookFines(token, authUserHref);
         Student student = studentService.getStudentByAuthUserHref(authUserHref);
         log.info("Found student {}", student);
         try {
-            StudentDto studentDto = modelMapper.map(student, StudentDto.class);
-            studentDto.setBorrowedBooks(student.getTransactions().stream().map(transaction -> {
-                TransactionDto transactionDto = modelMapper.map(transaction, TransactionDto.class);
-                transactionDto.setBook(modelMapper.map(transaction.getBook(), BookDto.class));
-                return transactionDto;
-            }).collect(Collectors.toList()));
-            return ResponseEntity.ok(studentDto);
+            return ResponseEntity.ok(studentMapper.toStudentDto(student));
         } catch (Exception e) {
             log.error("Model conversion error {}", student);
             throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -88,8 +101,7 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     }
 
     /**
-     * Validates the user's authentication token, checks for any book fines associated with the user,
-     * and borrows a book for the authenticated user based on the provided ISBN.
+     * Validates the user's authentication token and borrows a book for the authenticated user based on the provided ISBN.
      * It then constructs a message indicating successful book borrowing and returns it
      * as a ResponseEntity with HTTP status 200.
      *
@@ -100,7 +112,6 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     @Override
     public ResponseEntity<MessageDto> borrowBook(String isbn, String token) {
         String authUserHref = authService.validateAuthUserHref(token);
-        bookFineService.checkForBookFines(token, authUserHref);
         studentService.borrowBook(isbn, authUserHref);
         MessageDto messageDto = new MessageDto();
         messageDto.setCode(200);
@@ -109,8 +120,7 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     }
 
     /**
-     * Validates the user's authentication token, checks for any book fines associated with the user,
-     * and returns a borrowed book for the authenticated user based on the provided ISBN.
+     * Validates the user's authentication token and returns a borrowed book for the authenticated user based on the provided ISBN.
      * It then constructs a message indicating successful book return and returns it
      * as a ResponseEntity with HTTP status 200.
      *
@@ -121,7 +131,6 @@ public class LibraryStudentControllerImpl implements LibraryStudentController {
     @Override
     public ResponseEntity<MessageDto> returnBook(String isbn, String token) {
         String authUserHref = authService.validateAuthUserHref(token);
-        bookFineService.checkForBookFines(token, authUserHref);
         studentService.returnBook(isbn, authUserHref);
         MessageDto messageDto = new MessageDto();
         messageDto.setCode(200);
@@ -20,6 +20,8 @@ public class BookDto {
     private Integer yearOfPublished;
     @Schema(description = "Book copies")
     private Integer copies;
+    @Schema(description = "Book available copies")
+    private Integer availableCopies;
     @Schema(description = "Book created time stamp")
     private Timestamp createdTimestamp;
     @Schema(description = "Book updated time stamp")
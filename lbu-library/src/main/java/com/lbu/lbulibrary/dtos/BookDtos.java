@@ -12,4 +12,7 @@ public class BookDtos {
     @Schema(description = "Book Details")
     List<BookDto> books;
 
+    @Schema(description = "Cursor of the next page, not available on the last page")
+    String nextCursor;
+
 }
@@ -0,0 +1,15 @@
+package com.lbu.lbulibrary.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Student Details")
+public class StudentDtos {
+
+    @Schema(description = "Student Details")
+    List<StudentDto> students;
+
+}
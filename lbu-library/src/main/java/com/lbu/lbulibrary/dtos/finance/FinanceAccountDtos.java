@@ -0,0 +1,10 @@
+package com.lbu.lbulibrary.dtos.finance;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FinanceAccountDtos {
+    List<FinanceAccountDto> accounts;
+}
@@ -2,18 +2,20 @@ package com.lbu.lbulibrary.models;
 
 import jakarta.persistence.*;
 import lombok.Data;
-import org.apache.commons.lang3.RandomStringUtils;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.sql.Timestamp;
 import java.util.HashSet;
-import java.util.Locale;
 import java.util.Set;
 
 @Data
 @Entity
-@Table(name = "book", uniqueConstraints = {@UniqueConstraint(columnNames = {"title", "author", "year"})})
+@Table(name = "book",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"title", "author", "year"})},
+        indexes = {@Index(name = "idx_book_title", columnList = "title"), @Index(name = "idx_book_author", columnList = "author")})
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -30,6 +32,11 @@ public class Book {
 
     private Integer copies;
 
+    @Column(name = "available_copies")
+    private Integer availableCopies;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<Transaction> transactions = new HashSet<>();
 
@@ -40,8 +47,4 @@ public class Book {
     @Column(name = "updated_timestamp")
     @UpdateTimestamp
     private Timestamp updatedTimestamp;
-
-    public void populateIsbn() {
-        this.isbn = RandomStringUtils.random(8, true, true).toUpperCase(Locale.UK);
-    }
 }
@@ -0,0 +1,23 @@
+package com.lbu.lbulibrary.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Table(name = "job_watermark")
+public class JobWatermark {
+    @Id
+    private String name;
+
+    private Timestamp watermark;
+
+    private String lastId;
+
+    @Column(name = "updated_timestamp")
+    @UpdateTimestamp
+    private Timestamp updatedTimestamp;
+}
@@ -0,0 +1,5 @@
+package com.lbu.lbulibrary.models;
+
+public enum OutboxEventType {
+    LIBRARY_FINE
+}
@@ -2,6 +2,8 @@ package com.lbu.lbulibrary.models;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -9,22 +11,34 @@ import java.sql.Timestamp;
 
 @Data
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction",
+        indexes = {@Index(name = "idx_transaction_overdue_scan", columnList = "date_returned, date_borrowed, student_id")},
+        uniqueConstraints = {@UniqueConstraint(name = "uk_transaction_open_loan", columnNames = {"student_id", "book_id", "open_loan"})})
 public class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id")
     private Student student;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
     private Timestamp dateBorrowed;
     private Timestamp dateReturned;
+    // Set when the fine of an overdue loan is recorded, so the overdue scan does not fine the loan again
+    private Timestamp dateFined;
+
+    // TRUE while the book is borrowed and NULL once returned, so the unique constraint only applies to open loans
+    @Column(name = "open_loan")
+    private Boolean openLoan;
 
     @Column(name = "created_timestamp")
     @CreationTimestamp
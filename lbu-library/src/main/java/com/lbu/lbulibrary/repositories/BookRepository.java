@@ -1,12 +1,38 @@
 package com.lbu.lbulibrary.repositories;
 
 import com.lbu.lbulibrary.models.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, String> {
     Optional<Book> findBookByIsbn(String isbn);
+
+    List<Book> findAllByAvailableCopiesIsNull();
+
+    @Query("SELECT b FROM Book b WHERE (:afterId IS NULL OR b.id > :afterId) " +
+            "AND (:title IS NULL OR b.title LIKE CONCAT(:title, '%') ESCAPE '!') " +
+            "AND (:author IS NULL OR b.author LIKE CONCAT(:author, '%') ESCAPE '!') " +
+            "AND (:yearOfPublished IS NULL OR b.yearOfPublished = :yearOfPublished) " +
+            "ORDER BY b.id")
+    List<Book> findBooksAfter(@Param("afterId") String afterId,
+                              @Param("title") String title,
+                              @Param("author") String author,
+                              @Param("yearOfPublished") Integer yearOfPublished,
+                              Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id = :id AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id = :id AND b.availableCopies < b.copies")
+    int incrementAvailableCopies(@Param("id") String id);
 }
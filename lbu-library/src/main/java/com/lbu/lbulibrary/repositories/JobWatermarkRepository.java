@@ -0,0 +1,9 @@
+package com.lbu.lbulibrary.repositories;
+
+import com.lbu.lbulibrary.models.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
@@ -0,0 +1,45 @@
+package com.lbu.lbulibrary.repositories;
+
+import com.lbu.lbulibrary.models.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+
+    // Lock timeout -2 is SKIP LOCKED, so relays running on several instances claim different events
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.deliveredTimestamp IS NULL AND e.deadLetteredTimestamp IS NULL " +
+            "AND e.nextAttemptTimestamp <= :now ORDER BY e.nextAttemptTimestamp, e.id")
+    List<OutboxEvent> findDueEvents(@Param("now") Timestamp now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.deliveredTimestamp = :deliveredTimestamp, e.lastError = NULL WHERE e.id IN :ids")
+    int markDelivered(@Param("ids") Collection<String> ids, @Param("deliveredTimestamp") Timestamp deliveredTimestamp);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.deliveredTimestamp < :deliveredBefore")
+    int deleteDeliveredBefore(@Param("deliveredBefore") Timestamp deliveredBefore);
+
+    long countByDeliveredTimestampIsNullAndDeadLetteredTimestampIsNull();
+
+    long countByDeadLetteredTimestampIsNotNull();
+
+    @Query("SELECT MIN(e.createdTimestamp) FROM OutboxEvent e WHERE e.deliveredTimestamp IS NULL AND e.deadLetteredTimestamp IS NULL")
+    Timestamp findOldestPendingTimestamp();
+
+    List<OutboxEvent> findAllByAuthUserHref(String authUserHref);
+}
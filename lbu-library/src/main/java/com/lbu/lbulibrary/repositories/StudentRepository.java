@@ -1,12 +1,24 @@
 package com.lbu.lbulibrary.repositories;
 
 import com.lbu.lbulibrary.models.Student;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, String> {
     Optional<Student> findStudentByAuthUserHref(String authUserHref);
+
+    // The loans and their books in one query with the student instead of a query per loan
+    @EntityGraph(attributePaths = {"transactions", "transactions.book"})
+    Optional<Student> findStudentWithTransactionsByAuthUserHref(String authUserHref);
+
+    @Query("SELECT s.authUserHref FROM Student s WHERE s.authUserHref IN :authUserHrefs")
+    Set<String> findExistingAuthUserHrefs(@Param("authUserHrefs") Collection<String> authUserHrefs);
 }
@@ -1,25 +1,46 @@
 package com.lbu.lbulibrary.repositories;
 
 import com.lbu.lbulibrary.models.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, String> {
 
         List<Transaction> findAllByStudent_AuthUserHrefAndDateReturnedIsNull(String authUserHref);
 
-        @Query(value = """
-                select * 
-                from transaction t 
-                where t.date_returned is null  
-                and DATE_ADD(t.date_borrowed, INTERVAL :bookReturnSeconds SECOND) < CURRENT_TIMESTAMP
-                and student_id = (select stu.id from student stu where stu.auth_user_href = :authUserHref)
-                """, nativeQuery = true)
-        List<Transaction> findAllDateReturnedIsNull(Long bookReturnSeconds, String authUserHref);
-        List<Transaction> findAllByBook_IsbnAndDateReturnedIsNull(String isbn);
+        @Query("SELECT t.book.isbn FROM Transaction t WHERE t.student.authUserHref = :authUserHref AND t.dateReturned IS NULL")
+        Set<String> findBorrowedIsbnsByAuthUserHref(@Param("authUserHref") String authUserHref);
+
+        Optional<Transaction> findFirstByStudent_AuthUserHrefAndBook_IsbnAndDateReturnedIsNull(String authUserHref, String isbn);
+
+        boolean existsByStudent_IdAndBook_IdAndDateReturnedIsNull(String studentId, String bookId);
+
+        long countByBook_IdAndDateReturnedIsNull(String bookId);
+
+        @Modifying
+        @Query("UPDATE Transaction t SET t.dateReturned = :dateReturned, t.openLoan = NULL WHERE t.id = :id AND t.dateReturned IS NULL")
+        int markReturned(@Param("id") String id, @Param("dateReturned") Timestamp dateReturned);
+
+        @Modifying
+        @Query("UPDATE Transaction t SET t.openLoan = TRUE WHERE t.dateReturned IS NULL AND t.openLoan IS NULL")
+        int markOpenLoans();
+
+        @Query("SELECT t FROM Transaction t JOIN FETCH t.student WHERE t.dateReturned IS NULL AND t.dateFined IS NULL AND t.dateBorrowed <= :overdueBefore " +
+                "AND (t.dateBorrowed > :watermark OR (t.dateBorrowed = :watermark AND t.id > :lastId)) " +
+                "ORDER BY t.dateBorrowed, t.id")
+        List<Transaction> findOverdueTransactionsAfter(@Param("overdueBefore") Timestamp overdueBefore,
+                                                       @Param("watermark") Timestamp watermark,
+                                                       @Param("lastId") String lastId,
+                                                       Pageable pageable);
 
 }
@@ -1,5 +1,5 @@
 package com.lbu.lbulibrary.service;
 
 public interface BookFineService {
-    void checkForBookFines(String token, String authUserHref);
+    void scanOverdueTransactions();
 }
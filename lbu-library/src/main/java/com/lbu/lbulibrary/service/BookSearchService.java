@@ -0,0 +1,13 @@
+package com.lbu.lbulibrary.service;
+
+import com.lbu.lbulibrary.models.Book;
+
+import java.util.List;
+
+public interface BookSearchService {
+    void indexBook(Book book);
+
+    List<Book> searchBooks(String query, Integer limit);
+
+    void rebuildIndex();
+}
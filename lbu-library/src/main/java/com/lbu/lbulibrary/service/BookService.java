@@ -7,8 +7,10 @@ import java.util.List;
 public interface BookService {
     Book createNewBook(Book book);
 
-    List<Book> getBooks();
+    List<Book> getBooks(String afterId, String title, String author, Integer yearOfPublished, int limit);
 
     Book getBookByIsbn(String isbn);
 
+    void initialiseAvailability();
+
 }
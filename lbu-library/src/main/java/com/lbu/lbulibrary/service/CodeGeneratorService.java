@@ -0,0 +1,11 @@
+package com.lbu.lbulibrary.service;
+
+import java.util.List;
+
+public interface CodeGeneratorService {
+    String nextIsbn();
+
+    List<String> nextIsbns(int count);
+
+    boolean isValidIsbn(String isbn);
+}
@@ -0,0 +1,5 @@
+package com.lbu.lbulibrary.service;
+
+public interface OutboxRelayService {
+    void relayOutboxEvents();
+}
@@ -3,9 +3,13 @@ package com.lbu.lbulibrary.service;
 
 import com.lbu.lbulibrary.models.Student;
 
+import java.util.List;
+
 public interface StudentService {
     void createNewStudent(Student student);
 
+    int createNewStudents(List<String> authUserHrefs);
+
     Student getStudentByAuthUserHref(String authUserHref);
 
     void borrowBook(String isbn, String authUserHref);
@@ -1,9 +1,7 @@
 package com.lbu.lbulibrary.service;
 
-import com.lbu.lbulibrary.models.Transaction;
-
-import java.util.List;
+import java.util.Set;
 
 public interface TransactionService {
-    List<Transaction> getTransactionsByAuthUserHref(String authUserHref);
+    Set<String> getBorrowedIsbnsByAuthUserHref(String authUserHref);
 }
@@ -1,19 +1,45 @@
 package com.lbu.lbulibrary.service.impl;
 
-import com.lbu.lbulibrary.commons.externalservices.finance.services.FinanceService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
+import com.lbu.lbulibrary.dtos.finance.FinanceInvoiceDto;
+import com.lbu.lbulibrary.dtos.finance.Type;
+import com.lbu.lbulibrary.models.JobWatermark;
+import com.lbu.lbulibrary.models.OutboxEvent;
+import com.lbu.lbulibrary.models.OutboxEventType;
 import com.lbu.lbulibrary.models.Transaction;
+import com.lbu.lbulibrary.repositories.JobWatermarkRepository;
+import com.lbu.lbulibrary.repositories.OutboxEventRepository;
 import com.lbu.lbulibrary.repositories.TransactionRepository;
 import com.lbu.lbulibrary.service.BookFineService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.INTERNAL_ERROR;
 
 @Slf4j
 @Service
 public class BookFineServiceImpl implements BookFineService {
 
+    private static final String OVERDUE_SCAN_JOB = "book-fine-overdue-scan";
+    private static final String FIRST_ID = "";
+    private static final String FINE_KEY_PREFIX = "library-fine:";
+
     @Value("${custom.properties.seconds.bookreturn}")
     private Long bookReturnTimeInSeconds;
 
@@ -22,40 +48,110 @@ public class BookFineServiceImpl implements BookFineService {
 
     @Value("${custom.properties.feepayduration.bookreturn}")
     private Integer bookReturnDuration;
+
+    @Value("${custom.properties.bookfine.scan.page.size}")
+    private Integer scanPageSize;
+
     private final TransactionRepository transactionRepository;
-    private final FinanceService financeService;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer scanTimer;
+    private final Counter scannedCounter;
+    private final Counter finedCounter;
 
-    public BookFineServiceImpl(TransactionRepository transactionRepository, FinanceService financeService) {
+    public BookFineServiceImpl(TransactionRepository transactionRepository,
+                               JobWatermarkRepository jobWatermarkRepository,
+                               OutboxEventRepository outboxEventRepository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
         this.transactionRepository = transactionRepository;
-        this.financeService = financeService;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.scanTimer = meterRegistry.timer("lbu.library.fines.scan");
+        this.scannedCounter = meterRegistry.counter("lbu.library.fines.scan.transactions");
+        this.finedCounter = meterRegistry.counter("lbu.library.fines.transactions.fined");
     }
 
+    /**
+     Scans the transactions which became overdue since the last run and fines them. The scan resumes from the persisted
+     watermark and walks the transactions in (dateBorrowed, id) order one keyset page at a time, so each run only reads
+     the transactions borrowed after the previous position. Every page is fined in one local transaction, which marks the
+     transactions fined, writes one library fine outbox event per transaction and moves the watermark. The finance
+     service is not called here, the outbox relay delivers the fines to it in batches.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.bookfine.scan.seconds}",
+            initialDelayString = "${custom.properties.bookfine.scan.seconds}", timeUnit = TimeUnit.SECONDS)
+    public void scanOverdueTransactions() {
+        scanTimer.record(this::scanFromWatermark);
+    }
+
+    private void scanFromWatermark() {
+        Timestamp overdueBefore = Timestamp.from(Instant.now().minusSeconds(bookReturnTimeInSeconds));
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> fineNextPage(overdueBefore)))) {
+            log.debug("Overdue transaction page fined, scanning the next page");
+        }
+    }
 
     /**
-     Checks for fines associated with overdue book returns for a specified user.
-     This method creates a new thread to asynchronously check for overdue book transactions
-     in the database. It retrieves all transactions where the return date is null and matches
-     the authenticated user. If any such transactions are found, it iterates through them,
-     logging each transaction ID and initiating a fine for the associated student via the
-     finance service. If an exception occurs during the process, it is caught and logged.
-     @param token The authentication token for the user.
-     @param authUserHref The href of the authenticated user.
+     Fines the next page of overdue transactions after the watermark.
+     @param overdueBefore The borrow time before which a transaction is overdue.
+     @return True if the page was full and another page may follow.
      */
-    public void checkForBookFines(String token, String authUserHref) {
-        Thread bookFineCheckThread = new Thread(() -> {
-            try {
-                List<Transaction> transactions = transactionRepository.findAllDateReturnedIsNull(bookReturnTimeInSeconds, authUserHref);
-                if (!transactions.isEmpty()) {
-                    log.info("checking for student who was not returned books {}", transactions.size());
-                    for (Transaction transaction : transactions) {
-                        log.info("Need to fine the student for the transaction id {}", transaction.getId());
-                        financeService.createOrUpdateFinanceAccount(authUserHref, token, bookReturnFee, bookReturnDuration);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("An error occurred while calling the finance service", e);
-            }
+    private boolean fineNextPage(Timestamp overdueBefore) {
+        JobWatermark jobWatermark = jobWatermarkRepository.findById(OVERDUE_SCAN_JOB).orElseGet(() -> {
+            JobWatermark newWatermark = new JobWatermark();
+            newWatermark.setName(OVERDUE_SCAN_JOB);
+            newWatermark.setWatermark(new Timestamp(0));
+            newWatermark.setLastId(FIRST_ID);
+            return newWatermark;
         });
-        bookFineCheckThread.start();
+        List<Transaction> transactions = transactionRepository.findOverdueTransactionsAfter(overdueBefore,
+                jobWatermark.getWatermark(), jobWatermark.getLastId(), PageRequest.of(0, scanPageSize));
+        if (transactions.isEmpty()) {
+            return false;
+        }
+        scannedCounter.increment(transactions.size());
+        Timestamp dateFined = Timestamp.from(Instant.now());
+        LocalDate dueDate = LocalDate.now().plusDays(bookReturnDuration);
+        List<OutboxEvent> events = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            transaction.setDateFined(dateFined);
+            events.add(toFineEvent(transaction, dateFined, dueDate));
+        }
+        transactionRepository.saveAll(transactions);
+        outboxEventRepository.saveAll(events);
+        Transaction last = transactions.get(transactions.size() - 1);
+        jobWatermark.setWatermark(last.getDateBorrowed());
+        jobWatermark.setLastId(last.getId());
+        jobWatermark = jobWatermarkRepository.save(jobWatermark);
+        finedCounter.increment(transactions.size());
+        log.info("Fined {} overdue transactions, watermark is now {}", transactions.size(), jobWatermark.getWatermark());
+        return transactions.size() == scanPageSize;
+    }
+
+    private OutboxEvent toFineEvent(Transaction transaction, Timestamp dateFined, LocalDate dueDate) {
+        FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
+        financeInvoiceDto.setAmount(bookReturnFee);
+        financeInvoiceDto.setType(Type.LIBRARY_FINE);
+        financeInvoiceDto.setDueDate(dueDate);
+        financeInvoiceDto.setIdempotencyKey(FINE_KEY_PREFIX + transaction.getId());
+        OutboxEvent event = new OutboxEvent();
+        event.setIdempotencyKey(financeInvoiceDto.getIdempotencyKey());
+        event.setEventType(OutboxEventType.LIBRARY_FINE);
+        event.setAuthUserHref(transaction.getStudent().getAuthUserHref());
+        event.setAttempts(0);
+        event.setNextAttemptTimestamp(dateFined);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(financeInvoiceDto));
+        } catch (JsonProcessingException e) {
+            throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+        return event;
     }
 }
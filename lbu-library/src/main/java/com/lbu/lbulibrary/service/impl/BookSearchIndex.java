@@ -0,0 +1,419 @@
+package com.lbu.lbulibrary.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ In-process inverted index over the title and author of the books. Every term keeps a posting list of the documents
+ containing it, sorted by document id, so queries are answered with merges of sorted arrays. Query terms match exactly,
+ by prefix and with one edit (insert, delete, substitute or swap of adjacent characters); a document has to match every
+ query term and is ranked by the kind of match and whether it was found in the title or the author. Fuzzy candidates
+ are found through a map of the terms with one character deleted, so a fuzzy lookup does not scan the dictionary.
+ Updated documents are re-added under a new document id and the old one is tombstoned until the index is compacted.
+ */
+public class BookSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 16;
+    private static final int MIN_DELETED_TO_COMPACT = 1024;
+    private static final float EXACT_WEIGHT = 1.0f;
+    private static final float PREFIX_WEIGHT = 0.6f;
+    private static final float FUZZY_WEIGHT = 0.4f;
+    private static final byte TITLE = 1;
+    private static final byte AUTHOR = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> bookIds = new ArrayList<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, List<String>> deletions = new HashMap<>();
+    private int deletedCount;
+
+    /**
+     Adds the book to the index, replacing the previous version of the book if it was already indexed.
+     @param bookId The id of the book.
+     @param title The title of the book.
+     @param author The author of the book.
+     */
+    public void index(String bookId, String title, String author) {
+        Map<String, Byte> fields = new HashMap<>();
+        tokenize(title).forEach(term -> fields.merge(term, TITLE, (a, b) -> (byte) (a | b)));
+        tokenize(author).forEach(term -> fields.merge(term, AUTHOR, (a, b) -> (byte) (a | b)));
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+            int docId = bookIds.size();
+            bookIds.add(bookId);
+            docIds.put(bookId, docId);
+            fields.forEach((term, mask) -> postings.computeIfAbsent(term, this::addTerm).add(docId, mask));
+            if (deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount * 4 > bookIds.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Removes the book from the index.
+     @param bookId The id of the book.
+     */
+    public void remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Returns the number of books in the index.
+     @return The number of indexed books.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Searches the books matching every term of the query and returns the ids of the best ranked books.
+     @param query The search query.
+     @param limit The maximum number of book ids to return.
+     @return The ids of the matching books, best match first.
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Matches> termMatches = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Matches matches = match(term);
+                if (matches.size == 0) {
+                    return Collections.emptyList();
+                }
+                termMatches.add(matches);
+            }
+            // Intersect from the rarest term so the intermediate results stay small
+            termMatches.sort((a, b) -> Integer.compare(a.size, b.size));
+            Matches result = termMatches.get(0);
+            for (int i = 1; i < termMatches.size() && result.size > 0; i++) {
+                result = intersect(result, termMatches.get(i));
+            }
+            return top(result, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (Objects.isNull(text) || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Matches match(String term) {
+        List<Postings> termPostings = new ArrayList<>();
+        List<Float> weights = new ArrayList<>();
+        Postings exact = postings.get(term);
+        if (Objects.nonNull(exact)) {
+            termPostings.add(exact);
+            weights.add(EXACT_WEIGHT);
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (Postings prefixed : postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                termPostings.add(prefixed);
+                weights.add(PREFIX_WEIGHT);
+            }
+        }
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            for (String candidate : fuzzyCandidates(term)) {
+                termPostings.add(postings.get(candidate));
+                weights.add(FUZZY_WEIGHT);
+            }
+        }
+        float[] termWeights = new float[weights.size()];
+        for (int i = 0; i < termWeights.length; i++) {
+            termWeights[i] = weights.get(i);
+        }
+        return merge(termPostings.toArray(new Postings[0]), termWeights);
+    }
+
+    private Set<String> fuzzyCandidates(String term) {
+        Set<String> candidates = new LinkedHashSet<>();
+        // The term with one character deleted is an indexed term, or shares a deletion with one
+        for (int i = 0; i < term.length(); i++) {
+            String deletion = term.substring(0, i) + term.substring(i + 1);
+            if (postings.containsKey(deletion)) {
+                candidates.add(deletion);
+            }
+            candidates.addAll(deletions.getOrDefault(deletion, Collections.emptyList()));
+        }
+        // An indexed term with one character deleted is the term
+        candidates.addAll(deletions.getOrDefault(term, Collections.emptyList()));
+        candidates.removeIf(candidate -> candidate.startsWith(term) || !withinOneEdit(term, candidate));
+        return candidates;
+    }
+
+    private Postings addTerm(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            deletions.computeIfAbsent(term.substring(0, i) + term.substring(i + 1), key -> new ArrayList<>(1)).add(term);
+        }
+        return new Postings();
+    }
+
+    private void removeTerm(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            String deletion = term.substring(0, i) + term.substring(i + 1);
+            List<String> terms = deletions.get(deletion);
+            if (Objects.nonNull(terms)) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    deletions.remove(deletion);
+                }
+            }
+        }
+    }
+
+    private void removeDocument(String bookId) {
+        Integer docId = docIds.remove(bookId);
+        if (Objects.nonNull(docId)) {
+            deleted.set(docId);
+            deletedCount++;
+        }
+    }
+
+    private void compact() {
+        int[] newDocIds = new int[bookIds.size()];
+        List<String> liveBookIds = new ArrayList<>(docIds.size());
+        for (int docId = 0; docId < bookIds.size(); docId++) {
+            if (deleted.get(docId)) {
+                newDocIds[docId] = -1;
+            } else {
+                newDocIds[docId] = liveBookIds.size();
+                liveBookIds.add(bookIds.get(docId));
+            }
+        }
+        List<String> emptyTerms = new ArrayList<>();
+        postings.forEach((term, termPostings) -> {
+            termPostings.remap(newDocIds);
+            if (termPostings.size == 0) {
+                emptyTerms.add(term);
+            }
+        });
+        emptyTerms.forEach(term -> {
+            postings.remove(term);
+            removeTerm(term);
+        });
+        bookIds.clear();
+        bookIds.addAll(liveBookIds);
+        docIds.clear();
+        for (int docId = 0; docId < bookIds.size(); docId++) {
+            docIds.put(bookIds.get(docId), docId);
+        }
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private Matches merge(Postings[] termPostings, float[] weights) {
+        // k-way merge of the sorted posting lists, keeping the best score of every document
+        int[] positions = new int[termPostings.length];
+        int[] heap = new int[termPostings.length];
+        int heapSize = 0;
+        int total = 0;
+        for (int list = 0; list < termPostings.length; list++) {
+            if (termPostings[list].size > 0) {
+                heap[heapSize++] = list;
+                total += termPostings[list].size;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, termPostings, positions);
+        }
+        Matches result = new Matches(total);
+        while (heapSize > 0) {
+            int list = heap[0];
+            Postings listPostings = termPostings[list];
+            int docId = listPostings.docs[positions[list]];
+            float score = weights[list] * fieldWeight(listPostings.fields[positions[list]]);
+            if (++positions[list] == listPostings.size) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, termPostings, positions);
+            if (deleted.get(docId)) {
+                continue;
+            }
+            if (result.size > 0 && result.docs[result.size - 1] == docId) {
+                result.scores[result.size - 1] = Math.max(result.scores[result.size - 1], score);
+            } else {
+                result.add(docId, score);
+            }
+        }
+        return result;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int index, Postings[] termPostings, int[] positions) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < heapSize && currentDoc(heap[left], termPostings, positions) < currentDoc(heap[smallest], termPostings, positions)) {
+                smallest = left;
+            }
+            if (right < heapSize && currentDoc(heap[right], termPostings, positions) < currentDoc(heap[smallest], termPostings, positions)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+    private static int currentDoc(int list, Postings[] termPostings, int[] positions) {
+        return termPostings[list].docs[positions[list]];
+    }
+
+    private static Matches intersect(Matches a, Matches b) {
+        Matches result = new Matches(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.docs[i] < b.docs[j]) {
+                i++;
+            } else if (b.docs[j] < a.docs[i]) {
+                j++;
+            } else {
+                result.add(a.docs[i], a.scores[i++] + b.scores[j++]);
+            }
+        }
+        return result;
+    }
+
+    private List<String> top(Matches matches, int limit) {
+        // Lowest ranked match at the head, ties ranked by the oldest document
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit, (a, b) -> matches.scores[a] != matches.scores[b]
+                ? Float.compare(matches.scores[a], matches.scores[b])
+                : Integer.compare(matches.docs[b], matches.docs[a]));
+        for (int i = 0; i < matches.size; i++) {
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (best.comparator().compare(i, best.peek()) > 0) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        String[] ids = new String[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = bookIds.get(matches.docs[best.poll()]);
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static float fieldWeight(byte fields) {
+        return ((fields & TITLE) != 0 ? 2f : 0f) + ((fields & AUTHOR) != 0 ? 1f : 0f);
+    }
+
+    private static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        int start = 0;
+        while (start < a.length() && start < b.length() && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        int endA = a.length();
+        int endB = b.length();
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        int differentA = endA - start;
+        int differentB = endB - start;
+        if (differentA <= 1 && differentB <= 1) {
+            return true;
+        }
+        return differentA == 2 && differentB == 2
+                && a.charAt(start) == b.charAt(start + 1) && a.charAt(start + 1) == b.charAt(start);
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        private void add(int docId, byte field) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            docs[size] = docId;
+            fields[size++] = field;
+        }
+
+        private void remap(int[] newDocIds) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                int newDocId = newDocIds[docs[i]];
+                if (newDocId >= 0) {
+                    docs[live] = newDocId;
+                    fields[live++] = fields[i];
+                }
+            }
+            size = live;
+        }
+    }
+
+    private static final class Matches {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        private Matches(int capacity) {
+            this.docs = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        private void add(int docId, float score) {
+            docs[size] = docId;
+            scores[size++] = score;
+        }
+    }
+}
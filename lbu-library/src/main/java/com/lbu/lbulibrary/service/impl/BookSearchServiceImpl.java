@@ -0,0 +1,112 @@
+package com.lbu.lbulibrary.service.impl;
+
+import com.lbu.lbulibrary.models.Book;
+import com.lbu.lbulibrary.repositories.BookRepository;
+import com.lbu.lbulibrary.service.BookSearchService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Value("${custom.properties.books.search.limit.default}")
+    private Integer defaultLimit;
+
+    @Value("${custom.properties.books.search.limit.max}")
+    private Integer maxLimit;
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex = new BookSearchIndex();
+    private final Timer searchTimer;
+
+    public BookSearchServiceImpl(BookRepository bookRepository, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.searchTimer = meterRegistry.timer("lbu.library.books.search");
+        Gauge.builder("lbu.library.books.search.index.size", bookSearchIndex, BookSearchIndex::size).register(meterRegistry);
+    }
+
+    /**
+     Adds the book to the search index, replacing the previous version of the book if it was indexed before. When called
+     inside a transaction the book is indexed once the transaction commits, so rolled back books are never searchable.
+     @param book The created or updated book.
+     */
+    @Override
+    public void indexBook(Book book) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bookSearchIndex.index(book.getId(), book.getTitle(), book.getAuthor());
+                }
+            });
+        } else {
+            bookSearchIndex.index(book.getId(), book.getTitle(), book.getAuthor());
+        }
+    }
+
+    /**
+     Searches the books by title and author. Every term of the query has to match a term of the book exactly, as a prefix
+     or with a single typo, and the books are returned best match first. The ranked book ids come from the in-process
+     index and only the books of the result are loaded from the database.
+     @param query The search query.
+     @param limit The maximum number of books to return, bounded by the configured maximum.
+     @return The matching books, best match first.
+     */
+    @Override
+    public List<Book> searchBooks(String query, Integer limit) {
+        int searchLimit = Math.min(Math.max(Objects.requireNonNullElse(limit, defaultLimit), 1), maxLimit);
+        List<String> bookIds = searchTimer.record(() -> bookSearchIndex.search(query, searchLimit));
+        if (Objects.isNull(bookIds) || bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < bookIds.size(); i++) {
+            ranks.put(bookIds.get(i), i);
+        }
+        return bookRepository.findAllById(bookIds).stream()
+                .sorted(Comparator.comparing(book -> ranks.get(book.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     Builds the search index from the books in the database once the application is ready. The books are read in pages
+     of ids so the whole catalogue is never loaded at once. Books created while the index is built are indexed again
+     by their own transaction, which replaces the same entry.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Override
+    public void rebuildIndex() {
+        String afterId = null;
+        int indexed = 0;
+        List<Book> books;
+        do {
+            books = bookRepository.findBooksAfter(afterId, null, null, null, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            books.forEach(book -> bookSearchIndex.index(book.getId(), book.getTitle(), book.getAuthor()));
+            indexed += books.size();
+            if (!books.isEmpty()) {
+                afterId = books.get(books.size() - 1).getId();
+            }
+        } while (books.size() == REBUILD_PAGE_SIZE);
+        log.info("Indexed {} books for search", indexed);
+    }
+}
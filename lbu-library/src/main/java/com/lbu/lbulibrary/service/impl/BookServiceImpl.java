@@ -3,43 +3,81 @@ package com.lbu.lbulibrary.service.impl;
 import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
 import com.lbu.lbulibrary.models.Book;
 import com.lbu.lbulibrary.repositories.BookRepository;
+import com.lbu.lbulibrary.service.BookSearchService;
 import com.lbu.lbulibrary.service.BookService;
+import com.lbu.lbulibrary.service.CodeGeneratorService;
+import com.lbu.lbulibrary.repositories.TransactionRepository;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_NOT_AVAILABLE;
 
+@Slf4j
 @Service
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
+    private final TransactionRepository transactionRepository;
+    private final BookSearchService bookSearchService;
+    private final CodeGeneratorService codeGeneratorService;
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository,
+                           TransactionRepository transactionRepository,
+                           BookSearchService bookSearchService,
+                           CodeGeneratorService codeGeneratorService) {
         this.bookRepository = bookRepository;
+        this.transactionRepository = transactionRepository;
+        this.bookSearchService = bookSearchService;
+        this.codeGeneratorService = codeGeneratorService;
     }
 
     /**
      Creates a new book entry in the database. This method initiates a transaction and rolls back any changes made
-     in case of an Exception. It populates the ISBN for the book and saves the book entity using the bookRepository.
+     in case of an Exception. It assigns a generated ISBN to the book, makes all copies available, saves the book entity
+     using the bookRepository and adds the book to the search index once the transaction commits.
      @param book The book entity to be created.
      @return The created book entity.
      */
     @Transactional(rollbackOn = Exception.class)
     @Override
     public Book createNewBook(Book book) {
-        book.populateIsbn();
-        return bookRepository.save(book);
+        book.setIsbn(codeGeneratorService.nextIsbn());
+        book.setAvailableCopies(book.getCopies());
+        Book savedBook = bookRepository.save(book);
+        bookSearchService.indexBook(savedBook);
+        return savedBook;
     }
 
     /**
-     Retrieves all books from the database. This method simply delegates the task to the bookRepository's findAll() method.
-     @return A list of all books available in the database.
+     Retrieves one page of books ordered by id, starting after the given book id. The optional title and author filters
+     match the start of the value, with the LIKE wildcards in them escaped so they match literally, and the optional year
+     filter matches exactly. Only the requested number of books is loaded, so the cost of a page does not depend on the
+     size of the catalogue.
+     @param afterId The id of the last book of the previous page, or null for the first page.
+     @param title The title prefix to filter by, or null.
+     @param author The author prefix to filter by, or null.
+     @param yearOfPublished The year of publication to filter by, or null.
+     @param limit The maximum number of books to return.
+     @return The books of the page.
      */
     @Override
-    public List<Book> getBooks() {
-        return bookRepository.findAll();
+    public List<Book> getBooks(String afterId, String title, String author, Integer yearOfPublished, int limit) {
+        return bookRepository.findBooksAfter(afterId, escapeLike(title), escapeLike(author), yearOfPublished, PageRequest.of(0, limit));
+    }
+
+    private static String escapeLike(String prefix) {
+        if (Objects.isNull(prefix)) {
+            return null;
+        }
+        // '!' is the escape character of the book filters, a backslash would also be an escape in MySQL string literals
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     /**
@@ -55,5 +93,20 @@ public class BookServiceImpl implements BookService {
                 .orElseThrow(() -> new LBULibraryRuntimeException(BOOK_NOT_AVAILABLE.getErrorMessage(), BOOK_NOT_AVAILABLE.getErrorCode()));
     }
 
-
+    /**
+     Initialises the availability of books and loans which were stored before the available copies counter existed.
+     The available copies of those books are calculated once from their open transactions and open transactions are
+     marked as open loans so that the unique constraint prevents the same book being borrowed twice by a student.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public void initialiseAvailability() {
+        List<Book> books = bookRepository.findAllByAvailableCopiesIsNull();
+        books.forEach(book -> book.setAvailableCopies(
+                (int) Math.max(0, Objects.requireNonNullElse(book.getCopies(), 0) - transactionRepository.countByBook_IdAndDateReturnedIsNull(book.getId()))));
+        bookRepository.saveAll(books);
+        int openLoans = transactionRepository.markOpenLoans();
+        log.info("Initialised availability of {} books and {} open loans", books.size(), openLoans);
+    }
 }
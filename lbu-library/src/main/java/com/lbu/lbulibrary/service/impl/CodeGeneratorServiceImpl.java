@@ -0,0 +1,64 @@
+package com.lbu.lbulibrary.service.impl;
+
+import com.lbu.lbulibrary.service.CodeGeneratorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+public class CodeGeneratorServiceImpl implements CodeGeneratorService {
+
+    private static final String ISBN_SEQUENCE = "isbn";
+
+    private final CodeBlockAllocator codeBlockAllocator;
+    private final CodeSequence isbnSequence;
+
+    public CodeGeneratorServiceImpl(CodeBlockAllocator codeBlockAllocator,
+                                    @Value("${custom.properties.codes.block.size}") Integer blockSize) {
+        this.codeBlockAllocator = codeBlockAllocator;
+        this.isbnSequence = new CodeSequence(size -> allocate(ISBN_SEQUENCE, size), blockSize);
+    }
+
+    /**
+     Hands out a new ISBN for a book. ISBNs come from a block of the ISBN sequence reserved by this node, so they never
+     collide with the ISBNs of other books or other nodes and only the first ISBN of every block costs a database round trip.
+     @return The new ISBN.
+     */
+    @Override
+    public String nextIsbn() {
+        return isbnSequence.next();
+    }
+
+    /**
+     Hands out the given number of new ISBNs, for creating many books at once.
+     @param count The number of ISBNs.
+     @return The new ISBNs.
+     */
+    @Override
+    public List<String> nextIsbns(int count) {
+        return isbnSequence.next(count);
+    }
+
+    /**
+     Checks that the given ISBN has the format and the check character of the generated ISBNs, without a database lookup.
+     @param isbn The ISBN to check.
+     @return Whether the ISBN is valid.
+     */
+    @Override
+    public boolean isValidIsbn(String isbn) {
+        return CodeSequence.isValid(isbn);
+    }
+
+    private long allocate(String name, int blockSize) {
+        try {
+            return codeBlockAllocator.allocate(name, blockSize);
+        } catch (DataIntegrityViolationException e) {
+            log.info("The {} sequence was created by another node, reserving again", name);
+            return codeBlockAllocator.allocate(name, blockSize);
+        }
+    }
+}
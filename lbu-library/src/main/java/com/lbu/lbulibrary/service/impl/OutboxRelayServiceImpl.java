@@ -0,0 +1,271 @@
+package com.lbu.lbulibrary.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbulibrary.commons.externalservices.auth.services.ServiceTokenService;
+import com.lbu.lbulibrary.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbulibrary.dtos.finance.FinanceAccountDto;
+import com.lbu.lbulibrary.dtos.finance.FinanceInvoiceDto;
+import com.lbu.lbulibrary.models.OutboxEvent;
+import com.lbu.lbulibrary.repositories.OutboxEventRepository;
+import com.lbu.lbulibrary.service.OutboxRelayService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class OutboxRelayServiceImpl implements OutboxRelayService {
+
+    @Value("${custom.properties.outbox.relay.batch.size}")
+    private Integer batchSize;
+
+    @Value("${custom.properties.outbox.relay.lease.seconds}")
+    private Long leaseSeconds;
+
+    @Value("${custom.properties.outbox.retry.backoff.base.millis}")
+    private Long backoffBaseMillis;
+
+    @Value("${custom.properties.outbox.retry.backoff.max.millis}")
+    private Long backoffMaxMillis;
+
+    @Value("${custom.properties.outbox.retention.hours}")
+    private Long retentionHours;
+
+    @Value("${custom.properties.outbox.max.attempts}")
+    private Integer maxAttempts;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final FinanceService financeService;
+    private final ServiceTokenService serviceTokenService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer batchTimer;
+    private final Timer deliveryLagTimer;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong deadLetteredEvents = new AtomicLong();
+
+    public OutboxRelayServiceImpl(OutboxEventRepository outboxEventRepository,
+                                  FinanceService financeService,
+                                  ServiceTokenService serviceTokenService,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.financeService = financeService;
+        this.serviceTokenService = serviceTokenService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.deliveredCounter = meterRegistry.counter("lbu.library.outbox.delivered");
+        this.failedCounter = meterRegistry.counter("lbu.library.outbox.failed");
+        this.deadLetteredCounter = meterRegistry.counter("lbu.library.outbox.dead.lettered");
+        this.batchTimer = meterRegistry.timer("lbu.library.outbox.batch");
+        this.deliveryLagTimer = meterRegistry.timer("lbu.library.outbox.delivery.lag");
+        meterRegistry.gauge("lbu.library.outbox.pending", pendingEvents);
+        meterRegistry.gauge("lbu.library.outbox.lag.seconds", oldestPendingAgeSeconds);
+        meterRegistry.gauge("lbu.library.outbox.dead.lettered.pending", deadLetteredEvents);
+    }
+
+    /**
+     Delivers the pending outbox events to the finance service. Each round claims a batch of due events in a short
+     transaction, which pushes their next attempt past a lease so another relay instance does not pick them up, and
+     sends the whole batch as one bulk invoice ingest outside of any transaction. A delivered batch is marked delivered.
+     A failed batch is scheduled again with an exponential backoff with jitter. The finance service stores every invoice
+     once by its idempotency key, so a batch delivered twice after a lost response does not raise duplicate invoices.
+     An event is dead lettered, kept but never retried, once it reaches the maximum number of attempts or when the
+     finance service rejects it with a client error. A rejected batch is delivered again one event at a time, so only
+     the events which are rejected on their own are dead lettered and the other fines of the batch are delivered.
+     A batch which fails for any other reason is delivered again one student at a time, so a student whose call fails
+     is backed off on its own and the relay moves on to the fines of the other students and to the next batch. The relay
+     only stops for the run when the calls of every student of a batch fail, which is when finance itself is down.
+     The batches are sent with the token of the library service account, which is refreshed before it expires and
+     dropped when the finance service rejects it, so a token rotated by the auth service is replaced on the next run.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.outbox.relay.millis}",
+            initialDelayString = "${custom.properties.outbox.relay.millis}", timeUnit = TimeUnit.MILLISECONDS)
+    public void relayOutboxEvents() {
+        String serviceToken;
+        try {
+            serviceToken = serviceTokenService.getServiceToken();
+        } catch (RuntimeException e) {
+            log.error("Service account token is not available, the outbox relay is retried on its next run", e);
+            return;
+        }
+        while (true) {
+            List<OutboxEvent> events = transactionTemplate.execute(status -> claimDueEvents());
+            if (Objects.isNull(events) || events.isEmpty() || !deliver(events, serviceToken) || events.size() < batchSize) {
+                break;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteDeliveredBefore(
+                Timestamp.from(Instant.now().minus(Duration.ofHours(retentionHours)))));
+        updateLag();
+    }
+
+    private List<OutboxEvent> claimDueEvents() {
+        Instant now = Instant.now();
+        List<OutboxEvent> events = outboxEventRepository.findDueEvents(Timestamp.from(now), PageRequest.of(0, batchSize));
+        events.forEach(event -> {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptTimestamp(Timestamp.from(now.plusSeconds(leaseSeconds)));
+        });
+        return outboxEventRepository.saveAll(events);
+    }
+
+    private boolean deliver(List<OutboxEvent> events, String serviceToken) {
+        long start = System.nanoTime();
+        try {
+            financeService.ingestInvoices(toFinanceAccounts(events), serviceToken);
+        } catch (Exception e) {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (isRejected(e)) {
+                if (events.size() > 1) {
+                    log.warn("{} outbox events were rejected, delivering them one at a time", events.size(), e);
+                    boolean delivered = true;
+                    for (OutboxEvent event : events) {
+                        delivered &= deliver(List.of(event), serviceToken);
+                    }
+                    return delivered;
+                }
+                deadLetter(events, e);
+                return true;
+            }
+            if (!isUnauthorized(e)) {
+                Map<String, List<OutboxEvent>> students = events.stream().collect(Collectors.groupingBy(
+                        OutboxEvent::getAuthUserHref, LinkedHashMap::new, Collectors.toList()));
+                if (students.size() > 1) {
+                    log.warn("Relaying {} outbox events failed, delivering them one student at a time", events.size(), e);
+                    boolean delivered = false;
+                    for (List<OutboxEvent> studentEvents : students.values()) {
+                        delivered |= deliver(studentEvents, serviceToken);
+                    }
+                    return delivered;
+                }
+            }
+            if (isUnauthorized(e)) {
+                serviceTokenService.invalidate(serviceToken);
+            }
+            failedCounter.increment(events.size());
+            log.error("An error occurred while relaying {} outbox events", events.size(), e);
+            scheduleRetry(events, e);
+            return false;
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Instant deliveredAt = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDelivered(
+                events.stream().map(OutboxEvent::getId).collect(Collectors.toList()), Timestamp.from(deliveredAt)));
+        deliveredCounter.increment(events.size());
+        events.forEach(event -> deliveryLagTimer.record(
+                Duration.between(event.getCreatedTimestamp().toInstant(), deliveredAt)));
+        log.info("Relayed {} outbox events", events.size());
+        return true;
+    }
+
+    /**
+     Whether the call failed because of the events themselves, an unreadable payload or a client error other than an
+     authentication, throttling or timeout reply, so delivering the same events again cannot succeed.
+     */
+    private static boolean isRejected(Exception e) {
+        if (Objects.nonNull(ExceptionUtils.throwableOfType(e, JsonProcessingException.class))) {
+            return true;
+        }
+        HttpClientErrorException clientError = ExceptionUtils.throwableOfType(e, HttpClientErrorException.class);
+        return Objects.nonNull(clientError) && !isUnauthorized(e)
+                && !clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                && !clientError.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT);
+    }
+
+    private static boolean isUnauthorized(Exception e) {
+        HttpClientErrorException clientError = ExceptionUtils.throwableOfType(e, HttpClientErrorException.class);
+        return Objects.nonNull(clientError) && (clientError.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)
+                || clientError.getStatusCode().isSameCodeAs(HttpStatus.FORBIDDEN));
+    }
+
+    private List<FinanceAccountDto> toFinanceAccounts(List<OutboxEvent> events) throws Exception {
+        Map<String, FinanceAccountDto> accounts = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            FinanceAccountDto account = accounts.computeIfAbsent(event.getAuthUserHref(), authUserHref -> {
+                FinanceAccountDto financeAccountDto = new FinanceAccountDto();
+                financeAccountDto.setAuthUserHref(authUserHref);
+                financeAccountDto.setInvoiceList(new ArrayList<>());
+                return financeAccountDto;
+            });
+            account.getInvoiceList().add(objectMapper.readValue(event.getPayload(), FinanceInvoiceDto.class));
+        }
+        return new ArrayList<>(accounts.values());
+    }
+
+    private void scheduleRetry(List<OutboxEvent> events, Exception e) {
+        Map<Boolean, List<OutboxEvent>> exhausted = events.stream()
+                .collect(Collectors.partitioningBy(event -> event.getAttempts() >= maxAttempts));
+        if (!exhausted.get(true).isEmpty()) {
+            deadLetter(exhausted.get(true), e);
+        }
+        List<OutboxEvent> retried = exhausted.get(false);
+        if (retried.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        retried.forEach(event -> {
+            event.setNextAttemptTimestamp(Timestamp.from(now.plusMillis(backoffMillis(event.getAttempts()))));
+            event.setLastError(StringUtils.abbreviate(e.toString(), 1000));
+        });
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(retried));
+    }
+
+    private void deadLetter(List<OutboxEvent> events, Exception e) {
+        Timestamp deadLetteredAt = Timestamp.from(Instant.now());
+        events.forEach(event -> {
+            event.setDeadLetteredTimestamp(deadLetteredAt);
+            event.setNextAttemptTimestamp(null);
+            event.setLastError(StringUtils.abbreviate(e.toString(), 1000));
+        });
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(events));
+        deadLetteredCounter.increment(events.size());
+        log.error("Dead lettered {} outbox events {}", events.size(),
+                events.stream().map(OutboxEvent::getIdempotencyKey).collect(Collectors.toList()), e);
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = backoffBaseMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(backoff, backoffMaxMillis);
+        // Half of the backoff is random, so events that failed together are not retried together
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void updateLag() {
+        pendingEvents.set(outboxEventRepository.countByDeliveredTimestampIsNullAndDeadLetteredTimestampIsNull());
+        deadLetteredEvents.set(outboxEventRepository.countByDeadLetteredTimestampIsNotNull());
+        Timestamp oldestPending = outboxEventRepository.findOldestPendingTimestamp();
+        oldestPendingAgeSeconds.set(Objects.isNull(oldestPending) ? 0
+                : Duration.between(oldestPending.toInstant(), Instant.now()).toSeconds());
+    }
+}
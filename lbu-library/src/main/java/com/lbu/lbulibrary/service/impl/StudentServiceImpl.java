@@ -10,13 +10,16 @@ import com.lbu.lbulibrary.repositories.TransactionRepository;
 import com.lbu.lbulibrary.service.StudentService;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_ALREADY_BORROWED;
 import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_ALREADY_RETURNED;
@@ -62,25 +65,57 @@ public class StudentServiceImpl implements StudentService {
         }
     }
 
+    /**
+     * Creates the students for a batch of authentication user hrefs sent by the outbox relay of the student service.
+     * The hrefs which already have a student are looked up with one query and skipped, so a batch which is delivered
+     * again after a retry creates every student once. The new students are saved together in one transaction.
+     *
+     * @param authUserHrefs The authentication user hrefs to create students for.
+     * @return The number of students which were created.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    @Override
+    public int createNewStudents(List<String> authUserHrefs) {
+        Set<String> existingAuthUserHrefs = studentRepository.findExistingAuthUserHrefs(authUserHrefs);
+        List<Student> students = new LinkedHashSet<>(authUserHrefs).stream()
+                .filter(authUserHref -> !existingAuthUserHrefs.contains(authUserHref))
+                .map(authUserHref -> {
+                    Student student = new Student();
+                    student.setAuthUserHref(authUserHref);
+                    return student;
+                }).collect(Collectors.toList());
+        try {
+            studentRepository.saveAll(students);
+            log.info("Students created {}", students.size());
+            return students.size();
+        } catch (Exception e) {
+            log.error("An error occurred while creating the students", e);
+            throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
     /**
      * Retrieves a student record by the provided authentication user href. It queries the repository for the student
-     * associated with the given authentication user href. If the student is found, it returns the student object. If not
-     * found, it throws an LBULibraryRuntimeException indicating that the student is not available.
+     * associated with the given authentication user href, together with the transactions of the student and their books
+     * in the same query. If the student is found, it returns the student object. If not found, it throws an
+     * LBULibraryRuntimeException indicating that the student is not available.
      *
      * @param authUserHref The authentication user href associated with the student.
      * @return The student object retrieved from the database.
      */
     @Override
     public Student getStudentByAuthUserHref(String authUserHref) {
-        Optional<Student> studentOptional = studentRepository.findStudentByAuthUserHref(authUserHref);
+        Optional<Student> studentOptional = studentRepository.findStudentWithTransactionsByAuthUserHref(authUserHref);
         return studentOptional
                 .orElseThrow(() -> new LBULibraryRuntimeException(STUDENT_NOT_AVAILABLE.getErrorMessage(), STUDENT_NOT_AVAILABLE.getErrorCode()));
     }
 
     /**
-     * Allows a student to borrow a book. It checks if the student has already borrowed the book and if there are available
-     * copies of the book. If conditions are met, it creates a new transaction for the borrowed book. If not, it throws
-     * appropriate exceptions indicating the issue.
+     * Allows a student to borrow a book. It checks if the student has already borrowed the book and then reserves a copy
+     * with a single conditional update of the available copies, so concurrent borrowers can never take more copies than
+     * the book has. If a copy is reserved, it creates a new open loan transaction for the borrowed book. The unique open
+     * loan constraint rejects a concurrent second borrow of the same book by the same student. If the conditions are not
+     * met, it throws appropriate exceptions indicating the issue and the reserved copy is rolled back.
      *
      * @param isbn         The ISBN of the book to be borrowed.
      * @param authUserHref The authentication user href of the student.
@@ -89,34 +124,38 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public void borrowBook(String isbn, String authUserHref) {
         Student student = getStudent(authUserHref);
-        log.info("Student details found {}", student);
+        log.info("Student details found {}", student.getId());
         Book book = bookRepository.findBookByIsbn(isbn)
                 .orElseThrow(() -> new LBULibraryRuntimeException(BOOK_NOT_AVAILABLE.getErrorMessage(), BOOK_NOT_AVAILABLE.getErrorCode()));
-        log.info("Book details found {}", book);
-        List<Transaction> transactionForAuthUserId = transactionRepository.findAllByStudent_AuthUserHrefAndDateReturnedIsNull(authUserHref);
-        if (transactionForAuthUserId.stream().anyMatch(transaction -> transaction.getBook().getIsbn().equals(book.getIsbn()) && Objects.isNull(transaction.getDateReturned()))) {
-            log.info("given student already borrowed the given book {}", book);
+        log.info("Book details found {}", book.getId());
+        if (transactionRepository.existsByStudent_IdAndBook_IdAndDateReturnedIsNull(student.getId(), book.getId())) {
+            log.info("given student already borrowed the given book {}", book.getId());
             throw new LBULibraryRuntimeException(BOOK_ALREADY_BORROWED.getErrorMessage(), BOOK_ALREADY_BORROWED.getErrorCode());
         }
-        long noOfBooksBorrowedAlready = transactionRepository.findAllByBook_IsbnAndDateReturnedIsNull(book.getIsbn())
-                .stream().filter(transaction -> Objects.isNull(transaction.getDateReturned())).count();
-        if (book.getCopies() > noOfBooksBorrowedAlready) {
-            Transaction transaction = new Transaction();
-            transaction.setBook(book);
-            transaction.setStudent(student);
-            transaction.setDateBorrowed(Timestamp.from(Instant.now()));
-            Transaction save = transactionRepository.save(transaction);
-            log.info("New book borrowed {}", save);
-        } else {
+        if (bookRepository.decrementAvailableCopies(book.getId()) == 0) {
             log.info("all the books are borrowed please try again later");
             throw new LBULibraryRuntimeException(MAX_BOOK_ALREADY_BORROWED.getErrorMessage(), MAX_BOOK_ALREADY_BORROWED.getErrorCode());
         }
+        Transaction transaction = new Transaction();
+        transaction.setBook(book);
+        transaction.setStudent(student);
+        transaction.setDateBorrowed(Timestamp.from(Instant.now()));
+        transaction.setOpenLoan(Boolean.TRUE);
+        try {
+            Transaction save = transactionRepository.saveAndFlush(transaction);
+            log.info("New book borrowed {}", save.getId());
+        } catch (DataIntegrityViolationException e) {
+            log.info("given student already borrowed the given book {}", book.getId());
+            throw new LBULibraryRuntimeException(BOOK_ALREADY_BORROWED.getErrorMessage(), BOOK_ALREADY_BORROWED.getErrorCode(), e);
+        }
     }
 
     /**
-     * Allows a student to return a borrowed book. It verifies if the book has been borrowed by the student and if it has
-     * not already been returned. If conditions are met, it updates the transaction with the return date. If not, it throws
-     * appropriate exceptions indicating the issue.
+     * Allows a student to return a borrowed book. It verifies if the book has been borrowed by the student and closes the
+     * open loan with a conditional update, so a concurrent second return of the same loan fails as already returned and
+     * the copy it made available again is rolled back. A return which finds every copy already available still closes the
+     * loan and is logged, since the available copies are then out of step with the open loans. If the conditions are not
+     * met, it throws appropriate exceptions indicating the issue.
      *
      * @param isbn         The ISBN of the book to be returned.
      * @param authUserHref The authentication user href of the student.
@@ -126,23 +165,22 @@ public class StudentServiceImpl implements StudentService {
     public void returnBook(String isbn, String authUserHref) {
         Book book = bookRepository.findBookByIsbn(isbn)
                 .orElseThrow(() -> new LBULibraryRuntimeException(BOOK_NOT_AVAILABLE.getErrorMessage(), BOOK_NOT_AVAILABLE.getErrorCode()));
-        log.info("Book details found {}", book);
-        Optional<Transaction> optionalTransaction = transactionRepository.findAllByStudent_AuthUserHrefAndDateReturnedIsNull(authUserHref)
-                .stream()
-                .filter(transaction -> transaction.getBook().getIsbn().equals(book.getIsbn()))
-                .findAny();
-        if (optionalTransaction.isPresent()) {
-            Transaction transaction = optionalTransaction.get();
-            if (Objects.nonNull(transaction.getDateReturned())) {
-                throw new LBULibraryRuntimeException(BOOK_ALREADY_RETURNED.getErrorMessage(), BOOK_ALREADY_RETURNED.getErrorCode());
-            }
-            transaction.setDateReturned(Timestamp.from(Instant.now()));
-            Transaction save = transactionRepository.save(transaction);
-            log.info("Book returned {}", save);
-        } else {
-            log.info("given student not borrowed the given book {}", book);
-            throw new LBULibraryRuntimeException(BOOK_NOT_BORROWED.getErrorMessage(), BOOK_NOT_BORROWED.getErrorCode());
+        log.info("Book details found {}", book.getId());
+        Transaction transaction = transactionRepository.findFirstByStudent_AuthUserHrefAndBook_IsbnAndDateReturnedIsNull(authUserHref, isbn)
+                .orElseThrow(() -> {
+                    log.info("given student not borrowed the given book {}", book.getId());
+                    return new LBULibraryRuntimeException(BOOK_NOT_BORROWED.getErrorMessage(), BOOK_NOT_BORROWED.getErrorCode());
+                });
+        // Book row first, the same lock order as borrowBook
+        int released = bookRepository.incrementAvailableCopies(book.getId());
+        if (transactionRepository.markReturned(transaction.getId(), Timestamp.from(Instant.now())) == 0) {
+            throw new LBULibraryRuntimeException(BOOK_ALREADY_RETURNED.getErrorMessage(), BOOK_ALREADY_RETURNED.getErrorCode());
+        }
+        if (released == 0) {
+            // The loan is still closed, a student holding the book must always be able to return it
+            log.warn("available copies of book {} are already at its copies, the count is out of step with the open loans", book.getId());
         }
+        log.info("Book returned {}", transaction.getId());
     }
 
     /**
@@ -1,12 +1,11 @@
 package com.lbu.lbulibrary.service.impl;
 
-import com.lbu.lbulibrary.models.Transaction;
 import com.lbu.lbulibrary.repositories.TransactionRepository;
 import com.lbu.lbulibrary.service.TransactionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -20,15 +19,15 @@ public class TransactionServiceImpl implements TransactionService {
 
 
     /**
-     Retrieves a list of transactions associated with the authenticated user's href. It queries the transaction repository
-     to find all transactions where the student's AuthUserHref matches the provided authUserHref and the date returned
-     is null, indicating ongoing transactions. Returns a list of Transaction objects matching the criteria.
+     Retrieves the ISBNs of the books currently borrowed by the authenticated user. It queries the transaction repository
+     for the ISBNs of the transactions where the student's AuthUserHref matches the provided authUserHref and the date
+     returned is null, indicating ongoing transactions, so only the ISBNs are loaded instead of the transactions.
 
-     @param authUserHref The href of the authenticated user whose transactions are to be retrieved.
-     @return A list of Transaction objects associated with the authenticated user's href and ongoing transactions.
+     @param authUserHref The href of the authenticated user whose borrowed books are to be retrieved.
+     @return A set of the ISBNs borrowed by the authenticated user.
      */
     @Override
-    public List<Transaction> getTransactionsByAuthUserHref(String authUserHref) {
-        return transactionRepository.findAllByStudent_AuthUserHrefAndDateReturnedIsNull(authUserHref);
+    public Set<String> getBorrowedIsbnsByAuthUserHref(String authUserHref) {
+        return transactionRepository.findBorrowedIsbnsByAuthUserHref(authUserHref);
     }
 }
@@ -2,6 +2,7 @@ package com.lbu.lbulibrary;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lbu.lbulibrary.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbulibrary.commons.externalservices.auth.services.ServiceTokenService;
 import com.lbu.lbulibrary.commons.externalservices.finance.services.FinanceService;
 import com.lbu.lbulibrary.configuration.TestDataConfiguration;
 import com.lbu.lbulibrary.repositories.BookRepository;
@@ -42,6 +43,9 @@ public abstract class LbuLibraryApplicationTests {
     @MockBean
     protected FinanceService financeService;
 
+    @MockBean
+    protected ServiceTokenService serviceTokenService;
+
     @Autowired
     protected StudentRepository studentRepository;
 
@@ -88,6 +92,16 @@ public abstract class LbuLibraryApplicationTests {
         return token;
     }
 
+    protected String withAuthenticationWithService() {
+        String token = "afasasfasfasfas";
+        when(authService.validateToken(token)).thenReturn(Boolean.TRUE);
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_SERVICE");
+        grantedAuthorities.add(authority);
+        when(authService.getAuthentication(token)).thenReturn(new PreAuthenticatedAuthenticationToken(new User("lbu-student", "", grantedAuthorities), token, grantedAuthorities));
+        return token;
+    }
+
     protected static String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
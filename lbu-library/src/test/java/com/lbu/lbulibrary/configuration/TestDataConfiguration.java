@@ -6,6 +6,7 @@ import com.lbu.lbulibrary.models.Transaction;
 import com.lbu.lbulibrary.repositories.BookRepository;
 import com.lbu.lbulibrary.repositories.StudentRepository;
 import com.lbu.lbulibrary.repositories.TransactionRepository;
+import com.lbu.lbulibrary.service.CodeGeneratorService;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,9 @@ public class TestDataConfiguration {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private CodeGeneratorService codeGeneratorService;
+
     @Value("${custom.properties.seconds.bookreturn}")
     private Integer secondsReturn;
 
@@ -74,7 +78,7 @@ public class TestDataConfiguration {
         for (int i = 1; i < 9; i++) {
             Book book = new Book();
             book.setAuthor("Book Author " + i);
-            book.populateIsbn();
+            book.setIsbn(codeGeneratorService.nextIsbn());
             book.setCopies(i);
             book.setTitle("Book Title " + i);
             book.setYearOfPublished(Integer.parseInt("200" + i));
@@ -0,0 +1,277 @@
+package com.lbu.lbulibrary.integrationtests;
+
+import com.lbu.lbulibrary.LbuLibraryApplicationTests;
+import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
+import com.lbu.lbulibrary.dtos.finance.FinanceAccountDto;
+import com.lbu.lbulibrary.dtos.finance.FinanceInvoiceDto;
+import com.lbu.lbulibrary.models.Book;
+import com.lbu.lbulibrary.models.OutboxEvent;
+import com.lbu.lbulibrary.models.Student;
+import com.lbu.lbulibrary.models.Transaction;
+import com.lbu.lbulibrary.repositories.JobWatermarkRepository;
+import com.lbu.lbulibrary.repositories.OutboxEventRepository;
+import com.lbu.lbulibrary.service.BookFineService;
+import com.lbu.lbulibrary.service.OutboxRelayService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.AUTH_SERVICE_LOGIN_ERROR;
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookFineServiceIntegrationTest extends LbuLibraryApplicationTests {
+
+    private static final String SERVICE_TOKEN = "Bearer service-token";
+
+    @Autowired
+    private BookFineService bookFineService;
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @BeforeEach
+    public void resetWatermark() {
+        // Test transactions are backdated, so every test scans from the beginning
+        jobWatermarkRepository.deleteAll();
+    }
+
+    @BeforeEach
+    public void withServiceToken() {
+        when(serviceTokenService.getServiceToken()).thenReturn(SERVICE_TOKEN);
+    }
+
+    @Test
+    public void testWhenOverdueScanRunsTwice_ThenOverdueBooks_ReturnOneOutboxEventPerTransaction() {
+        List<Transaction> transactions = createOverdueTransactions(3);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        bookFineService.scanOverdueTransactions();
+        bookFineService.scanOverdueTransactions();
+        List<OutboxEvent> events = outboxEventRepository.findAllByAuthUserHref(authUserHref);
+        Assertions.assertEquals(3, events.size(), "One fine event per overdue transaction");
+        Assertions.assertEquals(transactions.stream().map(transaction -> "library-fine:" + transaction.getId()).collect(Collectors.toSet()),
+                events.stream().map(OutboxEvent::getIdempotencyKey).collect(Collectors.toSet()), "Idempotency keys are invalid");
+        Assertions.assertTrue(isFined(transactions));
+        verify(financeService, never()).ingestInvoices(anyList(), anyString());
+    }
+
+    @Test
+    public void testWhenOutboxRelayRuns_ThenFinedBooks_ReturnSingleBatchedFinanceCall() {
+        List<Transaction> transactions = createOverdueTransactions(3);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> hasInvoices(accounts, authUserHref, 3)),
+                eq(SERVICE_TOKEN));
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> Objects.nonNull(event.getDeliveredTimestamp())), "Events were not delivered");
+    }
+
+    @Test
+    public void testWhenFinanceCallFails_ThenOutboxEvents_ReturnDeliveredOnRetryWithoutRefining() {
+        List<Transaction> transactions = createOverdueTransactions(2);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        doThrow(new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode()))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        Assertions.assertTrue(isFined(transactions));
+        List<OutboxEvent> events = outboxEventRepository.findAllByAuthUserHref(authUserHref);
+        Assertions.assertTrue(events.stream().allMatch(event -> Objects.isNull(event.getDeliveredTimestamp())
+                && event.getAttempts() == 1
+                && Objects.nonNull(event.getLastError())
+                && event.getNextAttemptTimestamp().after(Timestamp.from(Instant.now()))), "Failed events were not backed off");
+
+        // Still backing off, so the next run does not call the finance service again
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> hasInvoices(accounts, authUserHref, 2)),
+                eq(SERVICE_TOKEN));
+
+        events.forEach(event -> event.setNextAttemptTimestamp(Timestamp.from(Instant.now().minusSeconds(1))));
+        outboxEventRepository.saveAll(events);
+        doNothing().when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, times(2)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> hasInvoices(accounts, authUserHref, 2)),
+                eq(SERVICE_TOKEN));
+        List<OutboxEvent> retriedEvents = outboxEventRepository.findAllByAuthUserHref(authUserHref);
+        Assertions.assertEquals(2, retriedEvents.size(), "Transactions were fined again");
+        Assertions.assertTrue(retriedEvents.stream().allMatch(event -> Objects.nonNull(event.getDeliveredTimestamp())
+                && event.getAttempts() == 2), "Events were not delivered on retry");
+    }
+
+    @Test
+    public void testWhenFinanceRejectsOneFine_ThenOutboxEvents_ReturnPoisonDeadLetteredAndOthersDelivered() {
+        List<Transaction> transactions = createOverdueTransactions(3);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        String poisonKey = "library-fine:" + transactions.get(0).getId();
+        doAnswer(invocation -> {
+            List<FinanceAccountDto> accounts = invocation.getArgument(0);
+            if (accounts.stream().flatMap(account -> account.getInvoiceList().stream())
+                    .anyMatch(invoice -> poisonKey.equals(invoice.getIdempotencyKey()))) {
+                throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(),
+                        HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+            }
+            return null;
+        }).when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        for (OutboxEvent event : outboxEventRepository.findAllByAuthUserHref(authUserHref)) {
+            if (event.getIdempotencyKey().equals(poisonKey)) {
+                Assertions.assertNull(event.getDeliveredTimestamp(), "Rejected fine should not be delivered");
+                Assertions.assertNotNull(event.getDeadLetteredTimestamp(), "Rejected fine was not dead lettered");
+            } else {
+                Assertions.assertNotNull(event.getDeliveredTimestamp(), "Other fines were not delivered");
+            }
+        }
+        // A dead lettered fine is never claimed again
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> accounts.stream()
+                .anyMatch(account -> account.getInvoiceList().size() == 1 && poisonKey.equals(account.getInvoiceList().get(0).getIdempotencyKey()))),
+                eq(SERVICE_TOKEN));
+    }
+
+    @Test
+    public void testWhenFinanceFailsForOneStudent_ThenOutboxEvents_ReturnOtherStudentsDelivered() {
+        String failingAuthUserHref = createOverdueTransactions(2).get(0).getStudent().getAuthUserHref();
+        String authUserHref = createOverdueTransactions(1).get(0).getStudent().getAuthUserHref();
+        doAnswer(invocation -> {
+            List<FinanceAccountDto> accounts = invocation.getArgument(0);
+            if (accounts.stream().anyMatch(account -> account.getAuthUserHref().equals(failingAuthUserHref))) {
+                throw new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode());
+            }
+            return null;
+        }).when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> Objects.nonNull(event.getDeliveredTimestamp())), "Fines of the other student were not delivered");
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(failingAuthUserHref).stream()
+                .allMatch(event -> Objects.isNull(event.getDeliveredTimestamp())
+                        && Objects.isNull(event.getDeadLetteredTimestamp())
+                        && event.getNextAttemptTimestamp().after(Timestamp.from(Instant.now()))), "Failed student was not backed off");
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> accounts.size() == 1
+                && hasInvoices(accounts, failingAuthUserHref, 2)), eq(SERVICE_TOKEN));
+    }
+
+    @Test
+    public void testWhenFinanceKeepsFailing_ThenMaxAttempts_ReturnEventsDeadLettered() {
+        List<Transaction> transactions = createOverdueTransactions(1);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        doThrow(new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode()))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            List<OutboxEvent> events = outboxEventRepository.findAllByAuthUserHref(authUserHref);
+            events.forEach(event -> event.setNextAttemptTimestamp(Objects.isNull(event.getDeadLetteredTimestamp())
+                    ? Timestamp.from(Instant.now().minusSeconds(1)) : null));
+            outboxEventRepository.saveAll(events);
+            outboxRelayService.relayOutboxEvents();
+        }
+        OutboxEvent event = outboxEventRepository.findAllByAuthUserHref(authUserHref).get(0);
+        Assertions.assertEquals(3, event.getAttempts(), "Invalid attempts");
+        Assertions.assertNotNull(event.getDeadLetteredTimestamp(), "Event was not dead lettered after the last attempt");
+        Assertions.assertNull(event.getNextAttemptTimestamp(), "Dead lettered event should not be retried");
+    }
+
+    @Test
+    public void testWhenFinanceRejectsServiceToken_ThenOutboxEvents_ReturnTokenInvalidatedAndRetried() {
+        List<Transaction> transactions = createOverdueTransactions(2);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        doThrow(new LBULibraryRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(),
+                HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8)))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        verify(serviceTokenService, times(1)).invalidate(SERVICE_TOKEN);
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> Objects.isNull(event.getDeadLetteredTimestamp())
+                        && Objects.nonNull(event.getNextAttemptTimestamp())), "Rejected token should not dead letter the events");
+    }
+
+    @Test
+    public void testWhenServiceTokenUnavailable_ThenOutboxRelay_ReturnEventsNotClaimed() {
+        List<Transaction> transactions = createOverdueTransactions(1);
+        String authUserHref = transactions.get(0).getStudent().getAuthUserHref();
+        when(serviceTokenService.getServiceToken()).thenThrow(new LBULibraryRuntimeException(
+                AUTH_SERVICE_LOGIN_ERROR.getErrorMessage(), AUTH_SERVICE_LOGIN_ERROR.getErrorCode()));
+        bookFineService.scanOverdueTransactions();
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, never()).ingestInvoices(anyList(), anyString());
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> event.getAttempts() == 0), "Events should not be claimed without a token");
+    }
+
+    @Test
+    public void testWhenOverdueScanRuns_ThenBooksNotOverdue_ReturnNotFined() {
+        Student student = saveStudent();
+        Book book = bookRepository.findAll().get(0);
+        Transaction transaction = new Transaction();
+        transaction.setBook(book);
+        transaction.setStudent(student);
+        transaction.setDateBorrowed(Timestamp.from(Instant.now()));
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        bookFineService.scanOverdueTransactions();
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(student.getAuthUserHref()).isEmpty(), "Fine event created");
+        Assertions.assertFalse(isFined(List.of(savedTransaction)));
+    }
+
+    private static boolean hasInvoices(List<FinanceAccountDto> accounts, String authUserHref, int invoices) {
+        return accounts.stream().anyMatch(account -> account.getAuthUserHref().equals(authUserHref)
+                && account.getInvoiceList().size() == invoices
+                && account.getInvoiceList().stream().map(FinanceInvoiceDto::getIdempotencyKey).collect(Collectors.toSet()).size() == invoices);
+    }
+
+    private Student saveStudent() {
+        Student student = new Student();
+        student.setAuthUserHref("/auth/user/" + UUID.randomUUID());
+        return studentRepository.save(student);
+    }
+
+    private List<Transaction> createOverdueTransactions(int count) {
+        Student student = saveStudent();
+        List<Book> books = bookRepository.findAll().stream().limit(count).collect(Collectors.toList());
+        List<Transaction> transactions = books.stream().map(book -> {
+            Transaction transaction = new Transaction();
+            transaction.setBook(book);
+            transaction.setStudent(student);
+            transaction.setDateBorrowed(Timestamp.from(Instant.now().minusSeconds(3600)));
+            return transaction;
+        }).collect(Collectors.toList());
+        return transactionRepository.saveAll(transactions);
+    }
+
+    private boolean isFined(List<Transaction> transactions) {
+        List<String> ids = transactions.stream().map(Transaction::getId).collect(Collectors.toList());
+        return transactionRepository.findAllById(ids).stream().allMatch(transaction -> Objects.nonNull(transaction.getDateFined()));
+    }
+}
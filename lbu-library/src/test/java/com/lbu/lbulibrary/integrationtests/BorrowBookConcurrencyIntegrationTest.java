@@ -0,0 +1,139 @@
+package com.lbu.lbulibrary.integrationtests;
+
+import com.lbu.lbulibrary.LbuLibraryApplicationTests;
+import com.lbu.lbulibrary.commons.exceptions.LBULibraryRuntimeException;
+import com.lbu.lbulibrary.models.Book;
+import com.lbu.lbulibrary.models.Student;
+import com.lbu.lbulibrary.service.BookService;
+import com.lbu.lbulibrary.service.StudentService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_ALREADY_BORROWED;
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_NOT_BORROWED;
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.MAX_BOOK_ALREADY_BORROWED;
+
+public class BorrowBookConcurrencyIntegrationTest extends LbuLibraryApplicationTests {
+
+    private static final int PARALLEL_BORROWERS = 200;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Test
+    public void testWhenParallelStudentsBorrow_ThenLimitedCopies_ReturnNoOverAllocation() throws Exception {
+        int copies = 5;
+        Book book = createBook(copies);
+        List<String> authUserHrefs = new ArrayList<>();
+        for (int i = 0; i < PARALLEL_BORROWERS; i++) {
+            authUserHrefs.add(createStudent().getAuthUserHref());
+        }
+        Map<Integer, AtomicInteger> results = runInParallel(authUserHrefs.stream()
+                .map(authUserHref -> (Runnable) () -> studentService.borrowBook(book.getIsbn(), authUserHref))
+                .toList());
+
+        Assertions.assertEquals(copies, count(results, 200));
+        Assertions.assertEquals(PARALLEL_BORROWERS - copies, count(results, MAX_BOOK_ALREADY_BORROWED.getErrorCode()));
+        Assertions.assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+        Assertions.assertEquals(copies, transactionRepository.countByBook_IdAndDateReturnedIsNull(book.getId()));
+    }
+
+    @Test
+    public void testWhenSameStudentBorrowsInParallel_ThenSameBook_ReturnSingleLoan() throws Exception {
+        int copies = 50;
+        int attempts = 20;
+        Book book = createBook(copies);
+        String authUserHref = createStudent().getAuthUserHref();
+        List<Runnable> borrows = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            borrows.add(() -> studentService.borrowBook(book.getIsbn(), authUserHref));
+        }
+        Map<Integer, AtomicInteger> results = runInParallel(borrows);
+
+        Assertions.assertEquals(1, count(results, 200));
+        Assertions.assertEquals(attempts - 1, count(results, BOOK_ALREADY_BORROWED.getErrorCode()));
+        Assertions.assertEquals(copies - 1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    public void testWhenSameLoanReturnedInParallel_ThenBorrowedBook_ReturnSingleCopyBack() throws Exception {
+        int copies = 3;
+        int attempts = 20;
+        Book book = createBook(copies);
+        String authUserHref = createStudent().getAuthUserHref();
+        studentService.borrowBook(book.getIsbn(), authUserHref);
+        Assertions.assertEquals(copies - 1, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+        List<Runnable> returns = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            returns.add(() -> studentService.returnBook(book.getIsbn(), authUserHref));
+        }
+        Map<Integer, AtomicInteger> results = runInParallel(returns);
+
+        Assertions.assertEquals(1, count(results, 200));
+        Assertions.assertEquals(copies, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+        Assertions.assertEquals(0, transactionRepository.countByBook_IdAndDateReturnedIsNull(book.getId()));
+        Assertions.assertThrows(LBULibraryRuntimeException.class, () -> studentService.returnBook(book.getIsbn(), authUserHref),
+                BOOK_NOT_BORROWED.getErrorMessage());
+    }
+
+    private Map<Integer, AtomicInteger> runInParallel(List<Runnable> tasks) throws InterruptedException {
+        Map<Integer, AtomicInteger> results = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        for (Runnable task : tasks) {
+            executor.execute(() -> {
+                int result;
+                try {
+                    start.await();
+                    task.run();
+                    result = 200;
+                } catch (LBULibraryRuntimeException e) {
+                    result = e.getCode();
+                } catch (Exception e) {
+                    result = -1;
+                }
+                results.computeIfAbsent(result, key -> new AtomicInteger()).incrementAndGet();
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Parallel tasks did not finish");
+        Assertions.assertFalse(results.containsKey(-1), "Unexpected errors " + results);
+        return results;
+    }
+
+    private int count(Map<Integer, AtomicInteger> results, int result) {
+        AtomicInteger count = results.get(result);
+        return count == null ? 0 : count.get();
+    }
+
+    private Book createBook(int copies) {
+        Book book = new Book();
+        book.setTitle("Concurrent Book " + UUID.randomUUID());
+        book.setAuthor("Concurrent Author");
+        book.setYearOfPublished(2024);
+        book.setCopies(copies);
+        return bookService.createNewBook(book);
+    }
+
+    private Student createStudent() {
+        Student student = new Student();
+        student.setAuthUserHref("/auth/user/" + UUID.randomUUID());
+        return studentRepository.save(student);
+    }
+}
@@ -14,8 +14,14 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+
+import static com.lbu.lbulibrary.commons.constants.ErrorConstants.BOOK_PAGE_CURSOR_INVALID;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
 
 public class LibraryGetBookControllerIntegrationTest extends LbuLibraryApplicationTests {
 
@@ -123,6 +129,102 @@ public class LibraryGetBookControllerIntegrationTest extends LbuLibraryApplicati
         Assertions.assertEquals(book.getIsbn(), bookDto.getIsbn(), "Book ISBN is invalid");
     }
 
+    @Test
+    public void testWhenGetBooksByPage_ThenGet_ReturnEveryBookOnce() throws Exception {
+        List<Book> books = bookRepository.findAll();
+        String token = withAuthenticationWithAdmin();
+        Set<String> isbns = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BookDtos page = getBooksPage(token, "size=3" + (Objects.isNull(cursor) ? "" : "&cursor=" + cursor));
+            Assertions.assertTrue(page.getBooks().size() <= 3, "Page size is exceeded");
+            page.getBooks().forEach(bookDto -> Assertions.assertTrue(isbns.add(bookDto.getIsbn()), "Book is returned twice"));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (Objects.nonNull(cursor));
+        Assertions.assertEquals(books.size(), isbns.size(), "Books are not equal");
+        Assertions.assertEquals((books.size() + 2) / 3, pages, "Pages are not equal");
+    }
+
+    @Test
+    public void testWhenGetBooksWithFilters_ThenGet_ReturnMatchingBooks() throws Exception {
+        String token = withAuthenticationWithAdmin();
+        BookDtos byAuthor = getBooksPage(token, "author=Book Author 2");
+        Assertions.assertFalse(byAuthor.getBooks().isEmpty(), "Books are empty");
+        byAuthor.getBooks().forEach(bookDto -> Assertions.assertTrue(bookDto.getAuthor().startsWith("Book Author 2")));
+        BookDtos byYear = getBooksPage(token, "year=2003&title=Book Title");
+        Assertions.assertFalse(byYear.getBooks().isEmpty(), "Books are empty");
+        byYear.getBooks().forEach(bookDto -> Assertions.assertEquals(2003, bookDto.getYearOfPublished()));
+    }
+
+    @Test
+    public void testWhenGetBooksWithWildcardFilters_ThenGet_ReturnLiteralMatchesOnly() throws Exception {
+        String token = withAuthenticationWithAdmin();
+        Assertions.assertTrue(getBooksPage(token, "title=%").getBooks().isEmpty(), "Percent should match literally");
+        Assertions.assertTrue(getBooksPage(token, "title=Book_Title").getBooks().isEmpty(), "Underscore should match literally");
+        Assertions.assertTrue(getBooksPage(token, "author=Book!Author").getBooks().isEmpty(), "Escape character should match literally");
+        Assertions.assertFalse(getBooksPage(token, "title=Book Title").getBooks().isEmpty(), "Books are empty");
+    }
+
+    @Test
+    public void testWhenGetBooks_ThenStudentBorrowedBooks_ReturnBorrowedStatus() throws Exception {
+        String authUserHref = studentRepository.findAll().get(0).getAuthUserHref();
+        Set<String> borrowedIsbns = transactionRepository.findBorrowedIsbnsByAuthUserHref(authUserHref);
+        String token = withAuthenticationWithStudent();
+        when(authService.validateAuthUserHref(anyString())).thenReturn(authUserHref);
+        BookDtos page = getBooksPage(token, "size=500");
+        Assertions.assertFalse(page.getBooks().isEmpty(), "Books are empty");
+        page.getBooks().forEach(bookDto ->
+                Assertions.assertEquals(borrowedIsbns.contains(bookDto.getIsbn()), bookDto.getIsBorrowed(), "Borrowed status is invalid"));
+    }
+
+    @Test
+    public void testWhenGetBooksWithInvalidCursor_ThenGet_ReturnErrorMessage() throws Exception {
+        String token = withAuthenticationWithAdmin();
+        mockMvc.perform(MockMvcRequestBuilders.get("/library/books?cursor=***")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(BOOK_PAGE_CURSOR_INVALID.getErrorCode()));
+    }
+
+    @Test
+    public void testWhenSearchBooks_ThenCreatedBook_ReturnMatchingBook() throws Exception {
+        String token = withAuthenticationWithAdmin();
+        BookDto bookDto = getBookDto("Quentin Zyxwvut", 2, "Searchable Catalogue Entries", 2021);
+        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/library/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .content(asJsonString(bookDto)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        String isbn = new ObjectMapper()
+                .readValue(resultActions.andReturn().getResponse().getContentAsString(), BookDto.class).getIsbn();
+        for (String query : List.of("zyxwvut", "searcha catalog", "zyxvwut entries")) {
+            BookDtos books = searchBooks(token, query);
+            Assertions.assertFalse(books.getBooks().isEmpty(), "Books are empty for " + query);
+            Assertions.assertEquals(isbn, books.getBooks().get(0).getIsbn(), "Book ISBN is invalid for " + query);
+        }
+        Assertions.assertTrue(searchBooks(token, "zyxwvut unrelated").getBooks().isEmpty(), "Books should be empty");
+    }
+
+    private BookDtos searchBooks(String token, String query) throws Exception {
+        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.get("/library/books/search")
+                        .param("query", query)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        return new ObjectMapper().readValue(resultActions.andReturn().getResponse().getContentAsString(), BookDtos.class);
+    }
+
+    private BookDtos getBooksPage(String token, String query) throws Exception {
+        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.get("/library/books?" + query)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        return new ObjectMapper().readValue(resultActions.andReturn().getResponse().getContentAsString(), BookDtos.class);
+    }
+
     private static BookDto getBookDto(String author, Integer copyCount, String title, Integer yearOfPublished) {
         BookDto dto = new BookDto();
         dto.setAuthor(author);
@@ -1,13 +1,25 @@
 package com.lbu.lbulibrary.integrationtests;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lbu.lbulibrary.LbuLibraryApplicationTests;
+import com.lbu.lbulibrary.dtos.MessageDto;
+import com.lbu.lbulibrary.dtos.StudentDto;
+import com.lbu.lbulibrary.dtos.StudentDtos;
 import com.lbu.lbulibrary.models.Book;
 import com.lbu.lbulibrary.models.Student;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class LibraryStudentControllerIntegrationTest extends LbuLibraryApplicationTests {
 
@@ -32,6 +44,57 @@ public class LibraryStudentControllerIntegrationTest extends LbuLibraryApplicati
 
     }
 
+    /*create the students in bulk*/
+    @Test
+    public void testWhenWithStudentAccessLevel_ThenTryCreateStudents_ReturnError() throws Exception {
+        testInvalidAccessLevel(studentDtos(UUID.randomUUID().toString()), "/library/students", HttpMethod.POST);
+        String token = withAuthenticationWithStudent();
+        mockMvc.perform(MockMvcRequestBuilders.post("/library/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .content(asJsonString(studentDtos(UUID.randomUUID().toString()))))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    public void testWhenWithAdminAccessLevel_ThenTryCreateStudents_ReturnError() throws Exception {
+        String token = withAuthenticationWithAdmin();
+        mockMvc.perform(MockMvcRequestBuilders.post("/library/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .content(asJsonString(studentDtos(UUID.randomUUID().toString()))))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    public void testWhenStudentsDeliveredTwice_ThenCreateStudents_ReturnEachStudentCreatedOnce() throws Exception {
+        String existingAuthUserHref = getAnyStudentFromDb().getAuthUserHref();
+        String newAuthUserHref = "/auth/user/" + UUID.randomUUID();
+        StudentDtos studentDtos = studentDtos(existingAuthUserHref, newAuthUserHref, newAuthUserHref);
+        String token = withAuthenticationWithService();
+        for (String expectedMessage : List.of("Students created 1", "Students created 0")) {
+            ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/library/students")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .content(asJsonString(studentDtos)))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+            MessageDto messageDto = new ObjectMapper()
+                    .readValue(resultActions.andReturn().getResponse().getContentAsString(), MessageDto.class);
+            Assertions.assertEquals(expectedMessage, messageDto.getMessage(), "Invalid message");
+        }
+        Assertions.assertTrue(studentRepository.findStudentByAuthUserHref(newAuthUserHref).isPresent(), "Student was not created");
+    }
+
+    private static StudentDtos studentDtos(String... authUserHrefs) {
+        StudentDtos studentDtos = new StudentDtos();
+        studentDtos.setStudents(Arrays.stream(authUserHrefs).map(authUserHref -> {
+            StudentDto studentDto = new StudentDto();
+            studentDto.setAuthUserHref(authUserHref);
+            return studentDto;
+        }).collect(Collectors.toList()));
+        return studentDtos;
+    }
+
     /*@Test
     public void testWhenSameStudentDetailsProvided_ThenTryCreateStudent_ReturnErrorMessage() throws Exception {
         Student studentFromDb = getAnyStudentFromDb();
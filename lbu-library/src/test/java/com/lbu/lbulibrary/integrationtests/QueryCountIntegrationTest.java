@@ -0,0 +1,111 @@
+package com.lbu.lbulibrary.integrationtests;
+
+import com.lbu.lbulibrary.LbuLibraryApplicationTests;
+import com.lbu.lbulibrary.models.Book;
+import com.lbu.lbulibrary.models.Student;
+import com.lbu.lbulibrary.service.BookService;
+import com.lbu.lbulibrary.service.StudentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class QueryCountIntegrationTest extends LbuLibraryApplicationTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Test
+    public void testWhenGetStudent_ThenLoansFetchedWithStudent_ReturnOneStatementForAnyLoanCount() throws Exception {
+        String token = withAuthenticationWithStudent();
+        for (int loans : new int[]{0, 3}) {
+            Student student = createStudentWithLoans(loans);
+            when(authService.validateAuthUserHref(anyString())).thenReturn(student.getAuthUserHref());
+            long statements = countStatements(() -> mockMvc.perform(MockMvcRequestBuilders.get("/library/student")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.borrowedBooks.length()").value(loans)));
+            Assertions.assertEquals(1, statements, "Get student with " + loans + " loans should be one statement");
+        }
+    }
+
+    @Test
+    public void testWhenBorrowBook_ThenLoanHistoryNotLoaded_ReturnFiveStatementsForAnyLoanCount() throws Exception {
+        String token = withAuthenticationWithStudent();
+        for (int loans : new int[]{0, 3}) {
+            Student student = createStudentWithLoans(loans);
+            Book book = createBook();
+            when(authService.validateAuthUserHref(anyString())).thenReturn(student.getAuthUserHref());
+            long statements = countStatements(() -> mockMvc.perform(MockMvcRequestBuilders.post("/library/student/borrow/" + book.getIsbn())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(MockMvcResultMatchers.status().isOk()));
+            // Student, book, open loan check, copy reservation and the new loan
+            Assertions.assertEquals(5, statements, "Borrow by a student with " + loans + " loans should be five statements");
+        }
+    }
+
+    @Test
+    public void testWhenGetBooks_ThenPageSize_ReturnTwoStatementsForAnyPageSize() throws Exception {
+        String token = withAuthenticationWithStudent();
+        Student student = createStudentWithLoans(2);
+        when(authService.validateAuthUserHref(anyString())).thenReturn(student.getAuthUserHref());
+        for (int size : new int[]{2, 8}) {
+            long statements = countStatements(() -> mockMvc.perform(MockMvcRequestBuilders.get("/library/books?size=" + size)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.books.length()").value(size)));
+            // Borrowed ISBNs of the student and the page of books
+            Assertions.assertEquals(2, statements, "Get books page of " + size + " should be two statements");
+        }
+    }
+
+    private long countStatements(Request request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        request.perform();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Student createStudentWithLoans(int loans) {
+        Student student = new Student();
+        student.setAuthUserHref("/auth/user/" + UUID.randomUUID());
+        student = studentRepository.save(student);
+        for (int i = 0; i < loans; i++) {
+            studentService.borrowBook(createBook().getIsbn(), student.getAuthUserHref());
+        }
+        return student;
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setTitle("Query Count Book " + UUID.randomUUID());
+        book.setAuthor("Query Count Author");
+        book.setYearOfPublished(2024);
+        book.setCopies(1);
+        return bookService.createNewBook(book);
+    }
+
+    private interface Request {
+        void perform() throws Exception;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lbu.lbulibrary.unittests;
+
+import com.lbu.lbulibrary.commons.mappers.BookMapper;
+import com.lbu.lbulibrary.dtos.BookDto;
+import com.lbu.lbulibrary.models.Book;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.modelmapper.ModelMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookMapperTest {
+
+    private final BookMapper bookMapper = new BookMapper();
+
+    @Test
+    void testWhenMapBook_ThenSameAsReflectiveMapping_ReturnBookDto() {
+        Book book = book(1);
+        Assertions.assertEquals(reflectiveMapper().map(book, BookDto.class), bookMapper.toBookDto(book), "Book mapping is invalid");
+    }
+
+    @Test
+    void testWhenMapBookDto_ThenServiceOwnedFieldsSkipped_ReturnBook() {
+        BookDto bookDto = reflectiveMapper().map(book(1), BookDto.class);
+        Book book = bookMapper.toBook(bookDto);
+        Assertions.assertEquals("Book Title 1", book.getTitle(), "Title is invalid");
+        Assertions.assertEquals("Book Author 1", book.getAuthor(), "Author is invalid");
+        Assertions.assertEquals(2001, book.getYearOfPublished(), "Year is invalid");
+        Assertions.assertEquals(1, book.getCopies(), "Copies is invalid");
+        Assertions.assertNull(book.getId(), "Id should not be mapped");
+        Assertions.assertNull(book.getAvailableCopies(), "Available copies should not be mapped");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.mapper.benchmark", matches = "true")
+    void benchmarkReflectiveAndGeneratedBookMapping() {
+        ModelMapper modelMapper = reflectiveMapper();
+        for (int size : new int[]{1, 10, 100, 1_000, 10_000, 100_000}) {
+            List<Book> books = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                books.add(book(i));
+            }
+            int rounds = Math.max(5, 1_000_000 / size);
+            long reflective = measure(rounds, () -> {
+                List<BookDto> bookDtos = new ArrayList<>(books.size());
+                for (Book book : books) {
+                    bookDtos.add(modelMapper.map(book, BookDto.class));
+                }
+                return bookDtos.size();
+            });
+            long mapped = measure(rounds, () -> {
+                List<BookDto> bookDtos = new ArrayList<>(books.size());
+                for (Book book : books) {
+                    bookDtos.add(bookMapper.toBookDto(book));
+                }
+                return bookDtos.size();
+            });
+            System.out.printf("Book->BookDto list of %d: reflective %.1f us, mapper %.1f us%n",
+                    size, reflective / 1_000.0, mapped / 1_000.0);
+            Assertions.assertTrue(mapped < reflective, "Mapper should be faster than reflective mapping for " + size);
+        }
+    }
+
+    private static long measure(int rounds, java.util.function.IntSupplier mapping) {
+        for (int i = 0; i < rounds; i++) {
+            mapping.getAsInt();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            mapping.getAsInt();
+        }
+        return (System.nanoTime() - start) / rounds;
+    }
+
+    private static ModelMapper reflectiveMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setAmbiguityIgnored(true);
+        return modelMapper;
+    }
+
+    private static Book book(int i) {
+        Book book = new Book();
+        book.setId("book-" + i);
+        book.setIsbn("ISBN" + i);
+        book.setTitle("Book Title " + i);
+        book.setAuthor("Book Author " + i);
+        book.setYearOfPublished(2000 + i);
+        book.setCopies(i);
+        book.setAvailableCopies(i);
+        book.setCreatedTimestamp(new Timestamp(i));
+        book.setUpdatedTimestamp(new Timestamp(i));
+        return book;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lbu.lbulibrary.unittests;
+
+import com.lbu.lbulibrary.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class BookSearchIndexTest {
+
+    @Test
+    void testWhenSearch_ThenExactPrefixAndTypo_ReturnMatchingBooks() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index("1", "Distributed Systems", "Maarten van Steen");
+        index.index("2", "Designing Data-Intensive Applications", "Martin Kleppmann");
+        index.index("3", "The Art of Computer Programming", "Donald Knuth");
+
+        Assertions.assertEquals(List.of("2"), index.search("kleppmann", 10), "Exact match is invalid");
+        Assertions.assertEquals(List.of("2"), index.search("data intens", 10), "Prefix match is invalid");
+        Assertions.assertEquals(List.of("3"), index.search("progarmming knuht", 10), "Typo match is invalid");
+        Assertions.assertEquals(List.of("1"), index.search("distribted", 10), "Typo match is invalid");
+        Assertions.assertTrue(index.search("knuth kleppmann", 10).isEmpty(), "Every term should match");
+        Assertions.assertTrue(index.search("  ", 10).isEmpty(), "Blank query should not match");
+    }
+
+    @Test
+    void testWhenSearch_ThenTitleAndExactMatches_ReturnRankedFirst() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index("author", "Cooking at Home", "Java Smith");
+        index.index("title", "Java Concurrency in Practice", "Brian Goetz");
+        index.index("prefix", "Javascript Patterns", "Stoyan Stefanov");
+
+        Assertions.assertEquals(List.of("title", "prefix", "author"), index.search("java", 10), "Ranking is invalid");
+        Assertions.assertEquals(List.of("title", "prefix"), index.search("java", 2), "Limit is invalid");
+    }
+
+    @Test
+    void testWhenIndexUpdatedAndRemoved_ThenSearch_ReturnLatestVersion() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index("1", "Old Title", "Some Author");
+        index.index("1", "New Title", "Some Author");
+        index.index("2", "Another Title", "Other Author");
+
+        Assertions.assertTrue(index.search("old", 10).isEmpty(), "Old version should not match");
+        Assertions.assertEquals(List.of("1"), index.search("new", 10), "New version is invalid");
+        index.remove("1");
+        Assertions.assertTrue(index.search("new", 10).isEmpty(), "Removed book should not match");
+        Assertions.assertEquals(1, index.size(), "Index size is invalid");
+    }
+
+    @Test
+    void testWhenManyUpdates_ThenIndexCompacted_ReturnLatestVersions() {
+        BookSearchIndex index = new BookSearchIndex();
+        String[] versions = {"alpha", "bravo", "charlie", "delta", "echo"};
+        for (String version : versions) {
+            for (int book = 0; book < 1000; book++) {
+                index.index("book-" + book, "Title " + version + " number" + book, "Author" + book);
+            }
+        }
+        Assertions.assertEquals(1000, index.size(), "Index size is invalid");
+        Assertions.assertEquals("book-42", index.search("echo number42", 10).get(0), "Latest version is invalid");
+        Assertions.assertTrue(index.search("delta number42", 10).isEmpty(), "Old version should not match");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.search.benchmark", matches = "true")
+    void benchmarkSearchOnSyntheticCatalogue() {
+        int books = Integer.getInteger("lbu.search.benchmark.books", 1_000_000);
+        Random random = new Random(42);
+        String[] words = new String[20_000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = syntheticWord(random);
+        }
+        BookSearchIndex index = new BookSearchIndex();
+        long indexStart = System.nanoTime();
+        for (int i = 0; i < books; i++) {
+            index.index("book-" + i, sentence(words, random, 3 + random.nextInt(4)), sentence(words, random, 2));
+        }
+        System.out.printf("Indexed %d books in %d ms%n", books, (System.nanoTime() - indexStart) / 1_000_000);
+
+        int queries = 5_000;
+        String[] searches = new String[queries];
+        for (int i = 0; i < queries; i++) {
+            String word = words[random.nextInt(words.length)];
+            switch (i % 4) {
+                case 0 -> searches[i] = word;
+                case 1 -> searches[i] = word.substring(0, Math.max(2, word.length() - 2));
+                case 2 -> searches[i] = word.substring(0, 1) + word.substring(2);
+                default -> searches[i] = word + " " + words[random.nextInt(words.length)];
+            }
+        }
+        for (String search : searches) {
+            index.search(search, 20);
+        }
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            index.search(searches[i], 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        double p50 = latencies[queries / 2] / 1_000_000.0;
+        double p99 = latencies[queries * 99 / 100] / 1_000_000.0;
+        System.out.printf("Search latency over %d books: p50 %.3f ms, p99 %.3f ms%n", books, p50, p99);
+        Assertions.assertTrue(p99 < 10.0, "p99 search latency should be under 10 ms but was " + p99);
+    }
+
+    private static String syntheticWord(Random random) {
+        String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "te", "vo", "zi", "bra", "cor", "dun", "fel", "gri", "hol", "jas"};
+        StringBuilder word = new StringBuilder();
+        int length = 2 + random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String sentence(String[] words, Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(i == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.lbu.lbulibrary.unittests;
+
+import com.lbu.lbulibrary.service.impl.CodeSequence;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class CodeSequenceTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Test
+    void testWhenTenMillionCodesOnTwoNodes_ThenGenerateConcurrently_ReturnUniqueValidCodes() throws Exception {
+        int threads = 8;
+        int codesPerThread = 1_250_000;
+        AtomicLong database = new AtomicLong();
+        AtomicInteger allocations = new AtomicInteger();
+        CodeSequence.BlockAllocator blockAllocator = blockSize -> {
+            allocations.incrementAndGet();
+            return database.getAndAdd(blockSize);
+        };
+        CodeSequence[] nodes = {new CodeSequence(blockAllocator, 1000), new CodeSequence(blockAllocator, 1000)};
+        long[] codes = new long[threads * codesPerThread];
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                CodeSequence node = nodes[thread % nodes.length];
+                int offset = thread * codesPerThread;
+                results.add(workers.submit(() -> {
+                    boolean valid = true;
+                    for (int i = 0; i < codesPerThread; i++) {
+                        String code = node.next();
+                        valid &= CodeSequence.isValid(code);
+                        codes[offset + i] = Long.parseLong(code, ALPHABET.length());
+                    }
+                    return valid;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get(), "Every code should have a valid check character");
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        Arrays.sort(codes);
+        for (int i = 1; i < codes.length; i++) {
+            Assertions.assertNotEquals(codes[i - 1], codes[i], "Codes should be unique");
+        }
+        Assertions.assertTrue(allocations.get() <= codes.length / 1000 + nodes.length,
+                "Blocks should only be reserved when used up but " + allocations.get() + " were reserved");
+    }
+
+    @Test
+    void testWhenCodeMistyped_ThenValidate_ReturnInvalid() {
+        CodeSequence codeSequence = new CodeSequence(new AtomicLong()::getAndAdd, 100);
+        for (String code : codeSequence.next(1000)) {
+            Assertions.assertEquals(8, code.length(), "Code length is invalid");
+            Assertions.assertTrue(CodeSequence.isValid(code), "Generated code should be valid");
+            for (int position = 0; position < code.length(); position++) {
+                for (char character : ALPHABET.toCharArray()) {
+                    if (character != code.charAt(position)) {
+                        String mistyped = code.substring(0, position) + character + code.substring(position + 1);
+                        Assertions.assertFalse(CodeSequence.isValid(mistyped), "Mistyped code should be invalid " + mistyped);
+                    }
+                }
+            }
+        }
+        Assertions.assertFalse(CodeSequence.isValid(null), "Missing code should be invalid");
+        Assertions.assertFalse(CodeSequence.isValid("ABC"), "Short code should be invalid");
+        Assertions.assertFalse(CodeSequence.isValid("abcdefgh"), "Lower case code should be invalid");
+    }
+
+    @Test
+    void testWhenBlockUsedUp_ThenNext_ReturnCodesOfNewBlock() {
+        List<Long> starts = new ArrayList<>();
+        AtomicLong database = new AtomicLong(500);
+        CodeSequence codeSequence = new CodeSequence(blockSize -> {
+            long start = database.getAndAdd(blockSize);
+            starts.add(start);
+            return start;
+        }, 10);
+        Set<String> codes = new HashSet<>(codeSequence.next(25));
+        Assertions.assertEquals(25, codes.size(), "Codes should be unique");
+        Assertions.assertEquals(List.of(500L, 510L, 520L), starts, "Blocks should be reserved one after the other");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.codes.benchmark", matches = "true")
+    void benchmarkCodeGenerationThroughput() throws Exception {
+        int codesPerThread = 2_000_000;
+        for (int threads : new int[]{1, 4, 8}) {
+            AtomicLong database = new AtomicLong();
+            AtomicInteger allocations = new AtomicInteger();
+            CodeSequence codeSequence = new CodeSequence(blockSize -> {
+                allocations.incrementAndGet();
+                return database.getAndAdd(blockSize);
+            }, 1000);
+            long sequenceNanos = generate(threads, codesPerThread, codeSequence::next);
+            long randomNanos = generate(threads, codesPerThread, () -> RandomStringUtils.random(8, true, true).toUpperCase(Locale.UK));
+            long codes = (long) threads * codesPerThread;
+            System.out.printf("%d threads: block sequence %.1f M codes/s with %d block reservations (%.4f per code), random strings %.1f M codes/s%n",
+                    threads, codes * 1_000.0 / sequenceNanos, allocations.get(), allocations.get() / (double) codes,
+                    codes * 1_000.0 / randomNanos);
+        }
+    }
+
+    private static long generate(int threads, int codesPerThread, Supplier<String> generator) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int thread = 0; thread < threads; thread++) {
+                results.add(workers.submit(() -> {
+                    for (int i = 0; i < codesPerThread; i++) {
+                        generator.get();
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
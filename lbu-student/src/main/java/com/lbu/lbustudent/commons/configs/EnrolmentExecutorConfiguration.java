@@ -0,0 +1,32 @@
+package com.lbu.lbustudent.commons.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class EnrolmentExecutorConfiguration {
+
+    @Value("${custom.properties.enrolment.pool.size}")
+    private Integer poolSize;
+
+    @Value("${custom.properties.enrolment.queue.capacity}")
+    private Integer queueCapacity;
+
+    @Bean("enrolmentExecutor")
+    public ThreadPoolTaskExecutor enrolmentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("enrolment-");
+        // When the pool is saturated the request thread makes the call itself instead of failing the enrolment
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -17,6 +17,7 @@ public enum ErrorConstants {
     COURSE_SERVICE_GET_ERROR("An error occurred in the course service.", 7001),
     LIBRARY_SERVICE_GET_ERROR("An error occurred in the library service.", 7002),
     FINANCE_SERVICE_GET_ERROR("An error occurred in the finance service.", 7003),
+    AUTH_SERVICE_LOGIN_ERROR("An error occurred in the auth service while logging in the service account.", 7004),
 
     STUDENT_NOT_AVAILABLE("Given student id is not available.", 10000),
     STUDENT_VALIDATION_ERROR("Invalid course details provided.", 10001),
@@ -24,7 +25,8 @@ public enum ErrorConstants {
 
     INTERNAL_ERROR("An error occurred.", 9000),
     INVALID_UUID("Invalid UUID provided.", 9001),
-    INVALID_HREF("Invalid href provided.", 9002);
+    INVALID_HREF("Invalid href provided.", 9002),
+    SERVICE_ACCOUNT_NOT_CONFIGURED("Service account credentials are not configured.", 9003);
 
 
     private final String errorMessage;
@@ -1,5 +1,6 @@
 package com.lbu.lbustudent.commons.externalservices.auth.configs;
 
+import com.lbu.lbustudent.commons.externalservices.configs.HttpClientRequestFactoryProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -14,15 +15,19 @@ public class AuthRestTemplateConfiguration {
     private String authBaseUrl;
 
     private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
 
-    public AuthRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder) {
+    public AuthRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder,
+                                         HttpClientRequestFactoryProvider httpClientRequestFactoryProvider) {
         this.restTemplateBuilder = restTemplateBuilder;
+        this.httpClientRequestFactoryProvider = httpClientRequestFactoryProvider;
     }
 
     @Bean("authRestTemplate")
     public RestTemplate createAuthRestTemplate() {
         return restTemplateBuilder
                 .rootUri(authBaseUrl)
+                .requestFactory(() -> httpClientRequestFactoryProvider.create("auth"))
                 .build();
     }
 
@@ -0,0 +1,8 @@
+package com.lbu.lbustudent.commons.externalservices.auth.services;
+
+public interface ServiceTokenService {
+
+    String getServiceToken();
+
+    void invalidate(String serviceToken);
+}
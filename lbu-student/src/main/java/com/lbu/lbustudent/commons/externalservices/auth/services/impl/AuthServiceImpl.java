@@ -3,6 +3,8 @@ package com.lbu.lbustudent.commons.externalservices.auth.services.impl;
 import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
 import com.lbu.lbustudent.commons.constants.ErrorConstants;
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
 import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
 import io.jsonwebtoken.*;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,14 +37,21 @@ import java.util.regex.Pattern;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    @Value("${custom.properties.jwt.public.key}")
-    private String publicKey;
     Pattern BEARER_PATTERN = Pattern.compile("Bearer\\s+(.*)");
     @Qualifier("authRestTemplate")
     private final RestTemplate authRestTemplate;
+    private final JwtParser jwtParser;
+    private final JwtClaimsCache jwtClaimsCache;
+    private final DownstreamGuard authGuard;
 
-    public AuthServiceImpl(RestTemplate authRestTemplate) {
+    public AuthServiceImpl(RestTemplate authRestTemplate,
+                           DownstreamGuards downstreamGuards,
+                           @Value("${custom.properties.jwt.public.key}") String publicKey,
+                           @Value("${custom.properties.jwt.claims.cache.size}") Integer claimsCacheSize) {
         this.authRestTemplate = authRestTemplate;
+        this.authGuard = downstreamGuards.get("auth");
+        this.jwtParser = buildJwtParser(publicKey);
+        this.jwtClaimsCache = new JwtClaimsCache(claimsCacheSize);
     }
 
     public boolean validateToken(String token) {
@@ -78,7 +88,13 @@ public class AuthServiceImpl implements AuthService {
 
     private Claims validateAndGetClaims(String authToken) {
         try {
-            return (Claims) Jwts.parser().verifyWith(this.stringToPublicKey(this.publicKey)).build().parse(authToken).getPayload();
+            Claims cachedClaims = jwtClaimsCache.get(authToken);
+            if (Objects.nonNull(cachedClaims)) {
+                return cachedClaims;
+            }
+            Claims claims = (Claims) jwtParser.parse(authToken).getPayload();
+            jwtClaimsCache.put(authToken, claims);
+            return claims;
         } catch (MalformedJwtException | SecurityException e) {
             log.error("Invalid JWT signature", e);
             throw new LBUStudentsRuntimeException(ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
@@ -91,20 +107,31 @@ public class AuthServiceImpl implements AuthService {
         } catch (IllegalArgumentException e) {
             log.error("JWT token compact of handler are invalid", e);
             throw new LBUStudentsRuntimeException(ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            log.error("An error occurred while generating public key and private key", e);
-            throw new LBUStudentsRuntimeException(ErrorConstants.INTERNAL_ERROR.getErrorMessage(), ErrorConstants.INTERNAL_ERROR.getErrorCode(), e);
+        } catch (JwtException e) {
+            log.error("Invalid JWT token", e);
+            throw new LBUStudentsRuntimeException(ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorMessage(), ErrorConstants.JWT_TOKEN_INVALID_SIGNATURE.getErrorCode(), e);
         }
     }
 
     public JWTTokenDto updateUserStatus(String authUserHref, String token) {
-        try {
+        return authGuard.execute(() -> {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", token);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
             return this.authRestTemplate.postForObject(authUserHref, requestEntity, JWTTokenDto.class);
-        } catch (Exception e) {
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.INTERNAL_ERROR.getErrorMessage(), ErrorConstants.INTERNAL_ERROR.getErrorCode(), e);
+        });
+    }
+
+    private JwtParser buildJwtParser(String publicKey) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(stringToPublicKey(publicKey))
+                    .build();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            log.error("An error occurred while generating public key", e);
             throw new LBUStudentsRuntimeException(ErrorConstants.INTERNAL_ERROR.getErrorMessage(), ErrorConstants.INTERNAL_ERROR.getErrorCode(), e);
         }
     }
@@ -0,0 +1,82 @@
+package com.lbu.lbustudent.commons.externalservices.auth.services.impl;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of verified token claims keyed by the SHA-256 hash of the token. An entry is only kept until the
+ * token's exp claim, so a cached token is never accepted after it has expired. Lookups do not lock, so concurrent
+ * requests are not serialised on the cache. When the cache is full the expired entries are purged by one thread at a
+ * time, and if it is still full an arbitrary tenth of the entries is dropped, so the purge does not run on every miss.
+ */
+class JwtClaimsCache {
+
+    private final int maxSize;
+    private final Map<String, Claims> claimsByTokenHash = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    JwtClaimsCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    Claims get(String token) {
+        String tokenHash = hash(token);
+        Claims claims = claimsByTokenHash.get(tokenHash);
+        if (Objects.nonNull(claims) && isExpired(claims)) {
+            claimsByTokenHash.remove(tokenHash, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    void put(String token, Claims claims) {
+        if (maxSize <= 0 || Objects.isNull(claims.getExpiration())) {
+            return;
+        }
+        if (claimsByTokenHash.size() >= maxSize) {
+            evict();
+        }
+        claimsByTokenHash.put(hash(token), claims);
+    }
+
+    private void evict() {
+        // Other threads keep caching while one purges, so the size can briefly go past the bound by the threads in flight
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            claimsByTokenHash.values().removeIf(this::isExpired);
+            int excess = claimsByTokenHash.size() - maxSize + Math.max(1, maxSize / 10);
+            Iterator<String> tokenHashes = claimsByTokenHash.keySet().iterator();
+            while (excess-- > 0 && tokenHashes.hasNext()) {
+                tokenHashes.next();
+                tokenHashes.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.lbu.lbustudent.commons.externalservices.auth.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbustudent.commons.constants.ErrorConstants;
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.ServiceTokenService;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
+import com.lbu.lbustudent.dtos.auth.LoginDto;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+
+@Slf4j
+@Service
+public class ServiceTokenServiceImpl implements ServiceTokenService {
+
+    private static final String BEARER = "Bearer ";
+
+    private final RestTemplate authRestTemplate;
+    private final DownstreamGuard authGuard;
+    private final ObjectMapper objectMapper;
+    private final LoginDto loginDto = new LoginDto();
+    private final Duration refreshBefore;
+    private volatile ServiceToken serviceToken;
+
+    /**
+     * Constructor for ServiceTokenServiceImpl. The service account credentials are required, so the service does not
+     * start without them rather than starting and silently never reaching the services it calls.
+     *
+     * @param authRestTemplate Rest template of the auth service.
+     * @param downstreamGuards Guards of the downstream services.
+     * @param objectMapper     Mapper used to read the expiry of the token.
+     * @param username         Username of the service account.
+     * @param password         Password of the service account.
+     * @param refreshSeconds   How long before its expiry the token is refreshed.
+     * @throws LBUStudentsRuntimeException If the service account is not configured.
+     */
+    public ServiceTokenServiceImpl(@Qualifier("authRestTemplate") RestTemplate authRestTemplate,
+                                   DownstreamGuards downstreamGuards,
+                                   ObjectMapper objectMapper,
+                                   @Value("${custom.properties.service.account.username}") String username,
+                                   @Value("${custom.properties.service.account.password}") String password,
+                                   @Value("${custom.properties.service.account.refresh.seconds}") Long refreshSeconds) {
+        if (StringUtils.isAnyBlank(username, password)) {
+            throw new LBUStudentsRuntimeException(ErrorConstants.SERVICE_ACCOUNT_NOT_CONFIGURED.getErrorMessage(),
+                    ErrorConstants.SERVICE_ACCOUNT_NOT_CONFIGURED.getErrorCode());
+        }
+        this.authRestTemplate = authRestTemplate;
+        this.authGuard = downstreamGuards.get("auth");
+        this.objectMapper = objectMapper;
+        this.loginDto.setUserName(username);
+        this.loginDto.setPassword(password);
+        this.refreshBefore = Duration.ofSeconds(refreshSeconds);
+    }
+
+    /**
+     * Returns the bearer token of the service account. The token is obtained by logging in to the auth service and is
+     * reused until shortly before it expires, when the next call logs in again. If that login fails while the current
+     * token is still valid, the current token is returned so a short auth outage does not stop the callers.
+     *
+     * @return The bearer token of the service account.
+     * @throws LBUStudentsRuntimeException If no valid token is available and the login fails.
+     */
+    @Override
+    public String getServiceToken() {
+        ServiceToken current = serviceToken;
+        Instant now = Instant.now();
+        if (Objects.nonNull(current) && now.isBefore(current.refreshAt())) {
+            return current.token();
+        }
+        synchronized (this) {
+            current = serviceToken;
+            if (Objects.nonNull(current) && now.isBefore(current.refreshAt())) {
+                return current.token();
+            }
+            try {
+                serviceToken = login();
+                return serviceToken.token();
+            } catch (LBUStudentsRuntimeException e) {
+                if (Objects.nonNull(current) && now.isBefore(current.expiresAt())) {
+                    log.warn("Service account token could not be refreshed, using the current token until it expires", e);
+                    return current.token();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops the given token, so the next call logs in again. Called when a service rejects the token, for example after
+     * the auth service rotated its keys.
+     *
+     * @param serviceToken The bearer token which was rejected.
+     */
+    @Override
+    public synchronized void invalidate(String serviceToken) {
+        if (Objects.nonNull(this.serviceToken) && this.serviceToken.token().equals(serviceToken)) {
+            this.serviceToken = null;
+        }
+    }
+
+    private ServiceToken login() {
+        JWTTokenDto jwtTokenDto = authGuard.execute(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            return authRestTemplate.postForObject("/auth/login", new HttpEntity<>(loginDto, headers), JWTTokenDto.class);
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorMessage(), ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorCode(), e);
+        });
+        if (Objects.isNull(jwtTokenDto) || StringUtils.isBlank(jwtTokenDto.getJwtToken())) {
+            throw new LBUStudentsRuntimeException(ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorMessage(), ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorCode());
+        }
+        Instant now = Instant.now();
+        Instant expiresAt = expiresAt(jwtTokenDto.getJwtToken(), now);
+        // Refresh ahead of the expiry, but never later than half way through the lifetime of a short lived token
+        Instant halfLife = now.plus(Duration.between(now, expiresAt).dividedBy(2));
+        Instant refreshAt = expiresAt.minus(refreshBefore).isAfter(halfLife) ? expiresAt.minus(refreshBefore) : halfLife;
+        log.info("Logged in the service account [{}], the token expires at {}", loginDto.getUserName(), expiresAt);
+        return new ServiceToken(BEARER + jwtTokenDto.getJwtToken(), refreshAt, expiresAt);
+    }
+
+    /**
+     * Reads the expiry of the token from its payload. The token was just received from the auth service, so its
+     * signature is not verified here; the services it is sent to verify it.
+     */
+    private Instant expiresAt(String jwtToken, Instant now) {
+        try {
+            String[] parts = jwtToken.split("\\.");
+            JsonNode payload = objectMapper.readTree(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+            if (payload.hasNonNull("exp")) {
+                return Instant.ofEpochSecond(payload.get("exp").asLong());
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the expiry of the service account token", e);
+        }
+        return now.plus(refreshBefore);
+    }
+
+    private record ServiceToken(String token, Instant refreshAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.lbu.lbustudent.commons.externalservices.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Slf4j
+@Component
+public class HttpClientRequestFactoryProvider implements DisposableBean {
+
+    @Value("${custom.properties.http.client.max.connections}")
+    private Integer maxConnections;
+
+    @Value("${custom.properties.http.client.connect.timeout.millis}")
+    private Long connectTimeoutMillis;
+
+    @Value("${custom.properties.http.client.read.timeout.millis}")
+    private Long readTimeoutMillis;
+
+    @Value("${custom.properties.http.client.acquire.timeout.millis}")
+    private Long acquireTimeoutMillis;
+
+    @Value("${custom.properties.http.client.idle.seconds}")
+    private Long idleSeconds;
+
+    @Value("${custom.properties.http.client.ttl.seconds}")
+    private Long timeToLiveSeconds;
+
+    @Value("${custom.properties.http.client.http2.enabled}")
+    private Boolean http2Enabled;
+
+    private final MeterRegistry meterRegistry;
+    private final List<CloseableHttpClient> httpClients = new CopyOnWriteArrayList<>();
+
+    public HttpClientRequestFactoryProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates the request factory of the rest template of a downstream service. Each downstream gets its own pool of
+     * keep-alive connections, so a slow service cannot take the connections of the others. Connections are checked
+     * when they were idle, evicted after the idle time and replaced after their time to live. Responses are requested
+     * compressed and decompressed transparently. The pool size, leased and pending connections are published as
+     * httpcomponents.httpclient.pool metrics tagged with the downstream name, and the latency of every request is
+     * recorded per host by the observation customizer of the rest template builder.
+     * When HTTP/2 is enabled the JDK client is used instead, which multiplexes the requests to a host over a single
+     * connection and does not have a connection pool to report.
+     *
+     * @param name The name of the downstream service.
+     * @return The request factory of the downstream service.
+     */
+    public ClientHttpRequestFactory create(String name) {
+        if (Boolean.TRUE.equals(http2Enabled)) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+            log.info("HTTP/2 client created for {}", name);
+            return requestFactory;
+        }
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setTcpNoDelay(true)
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleSeconds))
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+        httpClients.add(httpClient);
+        log.info("Pooled HTTP client created for {} max connections: {}", name, maxConnections);
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Override
+    public void destroy() {
+        for (CloseableHttpClient httpClient : httpClients) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("An error occurred while closing the HTTP client", e);
+            }
+        }
+    }
+}
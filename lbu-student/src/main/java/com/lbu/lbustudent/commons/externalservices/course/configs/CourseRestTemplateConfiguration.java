@@ -1,5 +1,6 @@
 package com.lbu.lbustudent.commons.externalservices.course.configs;
 
+import com.lbu.lbustudent.commons.externalservices.configs.HttpClientRequestFactoryProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -14,15 +15,19 @@ public class CourseRestTemplateConfiguration {
     private String authBaseUrl;
 
     private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
 
-    public CourseRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder) {
+    public CourseRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder,
+                                           HttpClientRequestFactoryProvider httpClientRequestFactoryProvider) {
         this.restTemplateBuilder = restTemplateBuilder;
+        this.httpClientRequestFactoryProvider = httpClientRequestFactoryProvider;
     }
 
     @Bean("courseRestTemplate")
     public RestTemplate createAuthRestTemplate() {
         return restTemplateBuilder
                 .rootUri(authBaseUrl)
+                .requestFactory(() -> httpClientRequestFactoryProvider.create("course"))
                 .build();
     }
 
@@ -1,7 +1,12 @@
 package com.lbu.lbustudent.commons.externalservices.course.services;
 
 import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.course.CourseDtos;
+
+import java.util.List;
 
 public interface CourseService {
     CourseDto getCourseDetails(String courseHref, String token);
+
+    CourseDtos getCourses(List<String> courseIds, String token);
 }
@@ -3,31 +3,187 @@ package com.lbu.lbustudent.commons.externalservices.course.services.impl;
 import com.lbu.lbustudent.commons.constants.ErrorConstants;
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
 import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
 import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.course.CourseDtos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class CourseServiceImpl implements CourseService {
 
+    @Value("${custom.properties.course.cache.ttl.seconds}")
+    private Long cacheTtlSeconds;
+
     private final RestTemplate courseRestTemplate;
+    private final DownstreamGuard courseGuard;
+    private final Map<String, CachedCourse> courses;
+    private final Map<String, CompletableFuture<CourseDto>> loads = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter notModified;
+    private final Counter modified;
 
-    public CourseServiceImpl(RestTemplate courseRestTemplate) {
+    public CourseServiceImpl(RestTemplate courseRestTemplate,
+                             DownstreamGuards downstreamGuards,
+                             @Value("${custom.properties.course.cache.size}") Integer cacheSize,
+                             MeterRegistry meterRegistry) {
         this.courseRestTemplate = courseRestTemplate;
+        this.courseGuard = downstreamGuards.get("course");
+        this.courses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCourse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.hits = meterRegistry.counter("lbu.student.course.cache.requests", "result", "hit");
+        this.coalesced = meterRegistry.counter("lbu.student.course.cache.requests", "result", "coalesced");
+        this.misses = meterRegistry.counter("lbu.student.course.cache.requests", "result", "miss");
+        this.notModified = meterRegistry.counter("lbu.student.course.cache.revalidations", "result", "not modified");
+        this.modified = meterRegistry.counter("lbu.student.course.cache.revalidations", "result", "modified");
     }
 
+    /**
+     * Retrieves the details of the course, which are the same for every student, from the local course cache. A course
+     * cached within the TTL is returned without calling the course service. Otherwise one caller fetches the course
+     * and concurrent callers for the same course wait for that fetch instead of calling the course service as well.
+     * An expired course is revalidated with its ETag, so an unchanged course is answered with 304 Not Modified and no
+     * body. Failed fetches are not cached. The returned course is shared by the callers and must not be modified.
+     *
+     * @param courseHref The HREF of the course.
+     * @param token      The authentication token of the caller.
+     * @return The details of the course.
+     */
     @Override
     public CourseDto getCourseDetails(String courseHref, String token) {
+        CachedCourse cachedCourse = getCached(courseHref);
+        if (isFresh(cachedCourse)) {
+            hits.increment();
+            return cachedCourse.courseDto;
+        }
+        CompletableFuture<CourseDto> load = new CompletableFuture<>();
+        CompletableFuture<CourseDto> inFlight = loads.putIfAbsent(courseHref, load);
+        if (Objects.nonNull(inFlight)) {
+            coalesced.increment();
+            return await(inFlight);
+        }
         try {
+            // A fetch which completed between the cache check and the claim has already cached the course
+            cachedCourse = getCached(courseHref);
+            CourseDto courseDto;
+            if (isFresh(cachedCourse)) {
+                hits.increment();
+                courseDto = cachedCourse.courseDto;
+            } else {
+                misses.increment();
+                courseDto = fetch(courseHref, token, cachedCourse);
+            }
+            load.complete(courseDto);
+            return courseDto;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(courseHref, load);
+        }
+    }
+
+    @Override
+    public CourseDtos getCourses(List<String> courseIds, String token) {
+        return courseGuard.execute(() -> {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", token);
+            HttpEntity<List<String>> requestEntity = new HttpEntity<>(courseIds, headers);
+            return courseRestTemplate.postForObject("/courses/list", requestEntity, CourseDtos.class);
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorCode(), e);
+        });
+    }
+
+    private CourseDto fetch(String courseHref, String token, CachedCourse expiredCourse) {
+        return courseGuard.execute(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", token);
+            if (Objects.nonNull(expiredCourse) && Objects.nonNull(expiredCourse.eTag)) {
+                headers.setIfNoneMatch(expiredCourse.eTag);
+            }
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
             ResponseEntity<CourseDto> courseDtoResponseEntity = courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class);
-            return courseDtoResponseEntity.getBody();
-        } catch (Exception e) {
+            if (courseDtoResponseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED && Objects.nonNull(expiredCourse)) {
+                notModified.increment();
+                putCached(courseHref, new CachedCourse(expiredCourse.courseDto, expiredCourse.eTag, System.nanoTime()));
+                return expiredCourse.courseDto;
+            }
+            if (Objects.nonNull(expiredCourse)) {
+                modified.increment();
+            }
+            CourseDto courseDto = courseDtoResponseEntity.getBody();
+            if (Objects.nonNull(courseDto)) {
+                putCached(courseHref, new CachedCourse(courseDto, courseDtoResponseEntity.getHeaders().getETag(), System.nanoTime()));
+            }
+            return courseDto;
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorCode(), e);
+        });
+    }
+
+    private static CourseDto await(CompletableFuture<CourseDto> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LBUStudentsRuntimeException exception) {
+                throw exception;
+            }
+            throw new LBUStudentsRuntimeException(ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorCode(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new LBUStudentsRuntimeException(ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.COURSE_SERVICE_GET_ERROR.getErrorCode(), e);
         }
     }
+
+    private boolean isFresh(CachedCourse cachedCourse) {
+        return Objects.nonNull(cachedCourse)
+                && System.nanoTime() - cachedCourse.loadedAt < TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+    }
+
+    private CachedCourse getCached(String courseHref) {
+        synchronized (courses) {
+            return courses.get(courseHref);
+        }
+    }
+
+    private void putCached(String courseHref, CachedCourse cachedCourse) {
+        synchronized (courses) {
+            courses.put(courseHref, cachedCourse);
+        }
+    }
+
+    private static class CachedCourse {
+        private final CourseDto courseDto;
+        private final String eTag;
+        private final long loadedAt;
+
+        private CachedCourse(CourseDto courseDto, String eTag, long loadedAt) {
+            this.courseDto = courseDto;
+            this.eTag = eTag;
+            this.loadedAt = loadedAt;
+        }
+    }
 }
@@ -1,8 +1,12 @@
 package com.lbu.lbustudent.commons.externalservices.finance.services;
 
-import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+
+import java.util.List;
 
 public interface FinanceService {
 
-    void createOrUpdateFinanceAccount(CourseDto courseDto, String authUserHref, String token);
+    void ingestInvoices(List<FinanceAccountDto> accounts, String token);
+
+    FinanceAccountDto getFinanceAccount(String token);
 }
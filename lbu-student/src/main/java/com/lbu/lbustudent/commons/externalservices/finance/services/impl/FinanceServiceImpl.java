@@ -3,18 +3,19 @@ package com.lbu.lbustudent.commons.externalservices.finance.services.impl;
 import com.lbu.lbustudent.commons.constants.ErrorConstants;
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
 import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
-import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.dtos.MessageDto;
 import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
-import com.lbu.lbustudent.dtos.finance.FinanceInvoiceDto;
-import com.lbu.lbustudent.dtos.finance.Type;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDtos;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -22,29 +23,39 @@ import java.util.List;
 public class FinanceServiceImpl implements FinanceService {
 
     private final RestTemplate financeRestTemplate;
+    private final DownstreamGuard financeGuard;
 
-    public FinanceServiceImpl(RestTemplate financeRestTemplate) {
+    public FinanceServiceImpl(RestTemplate financeRestTemplate, DownstreamGuards downstreamGuards) {
         this.financeRestTemplate = financeRestTemplate;
+        this.financeGuard = downstreamGuards.get("finance");
     }
 
     @Override
-    public void createOrUpdateFinanceAccount(CourseDto courseDto, String authUserHref, String token) {
-        try {
+    public void ingestInvoices(List<FinanceAccountDto> accounts, String token) {
+        MessageDto messageDto = financeGuard.execute(() -> {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", token);
-            FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-            financeAccountDto.setAuthUserHref(authUserHref);
-            FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-            financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
-            financeInvoiceDto.setType(Type.TUITION_FEES);
-            financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
-            financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-            HttpEntity<FinanceAccountDto> requestEntity = new HttpEntity<>(financeAccountDto, headers);
-            FinanceAccountDto financeAccount = financeRestTemplate.postForObject("/finance/account", requestEntity, FinanceAccountDto.class);
-            log.info("Finance created {}", financeAccount);
-        } catch (Exception e) {
+            FinanceAccountDtos financeAccountDtos = new FinanceAccountDtos();
+            financeAccountDtos.setAccounts(accounts);
+            HttpEntity<FinanceAccountDtos> requestEntity = new HttpEntity<>(financeAccountDtos, headers);
+            return financeRestTemplate.postForObject("/finance/accounts/invoices", requestEntity, MessageDto.class);
+        }, e -> {
             throw new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode(), e);
-        }
+        });
+        log.info("Finance invoices ingested {}", messageDto);
+    }
+
+    @Override
+    public FinanceAccountDto getFinanceAccount(String token) {
+        return financeGuard.execute(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", token);
+            HttpEntity<String> requestEntity = new HttpEntity<>(headers);
+            return financeRestTemplate.exchange("/finance/account", HttpMethod.GET, requestEntity, FinanceAccountDto.class).getBody();
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode(), e);
+        });
     }
 }
@@ -1,5 +1,6 @@
 package com.lbu.lbustudent.commons.externalservices.library.configs;
 
+import com.lbu.lbustudent.commons.externalservices.configs.HttpClientRequestFactoryProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -14,15 +15,19 @@ public class LibraryRestTemplateConfiguration {
     private String libraryBaseUrl;
 
     private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
 
-    public LibraryRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder) {
+    public LibraryRestTemplateConfiguration(RestTemplateBuilder restTemplateBuilder,
+                                            HttpClientRequestFactoryProvider httpClientRequestFactoryProvider) {
         this.restTemplateBuilder = restTemplateBuilder;
+        this.httpClientRequestFactoryProvider = httpClientRequestFactoryProvider;
     }
 
     @Bean("libraryRestTemplate")
     public RestTemplate createAuthRestTemplate() {
         return restTemplateBuilder
                 .rootUri(libraryBaseUrl)
+                .requestFactory(() -> httpClientRequestFactoryProvider.create("library"))
                 .build();
     }
 
@@ -1,7 +1,13 @@
 package com.lbu.lbustudent.commons.externalservices.library.service;
 
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+
+import java.util.List;
+
 public interface LibraryService {
 
-    boolean createLibraryAccount(String token);
+    void createLibraryAccounts(List<String> authUserHrefs, String token);
+
+    LibraryStudentDto getLibraryAccount(String token);
 
 }
@@ -3,7 +3,11 @@ package com.lbu.lbustudent.commons.externalservices.library.service.impl;
 import com.lbu.lbustudent.commons.constants.ErrorConstants;
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
 import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
 import com.lbu.lbustudent.dtos.MessageDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDtos;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -13,27 +17,50 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Slf4j
 @Service
 public class LibraryServiceImpl implements LibraryService {
     private final RestTemplate libraryRestTemplate;
+    private final DownstreamGuard libraryGuard;
 
-    public LibraryServiceImpl(RestTemplate libraryRestTemplate) {
+    public LibraryServiceImpl(RestTemplate libraryRestTemplate, DownstreamGuards downstreamGuards) {
         this.libraryRestTemplate = libraryRestTemplate;
+        this.libraryGuard = downstreamGuards.get("library");
+    }
+
+    @Override
+    public void createLibraryAccounts(List<String> authUserHrefs, String token) {
+        ResponseEntity<MessageDto> messageDto = libraryGuard.execute(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", token);
+            LibraryStudentDtos libraryStudentDtos = new LibraryStudentDtos();
+            libraryStudentDtos.setStudents(authUserHrefs.stream().map(authUserHref -> {
+                LibraryStudentDto libraryStudentDto = new LibraryStudentDto();
+                libraryStudentDto.setAuthUserHref(authUserHref);
+                return libraryStudentDto;
+            }).collect(Collectors.toList()));
+            HttpEntity<LibraryStudentDtos> requestEntity = new HttpEntity<>(libraryStudentDtos, headers);
+            return libraryRestTemplate.exchange("/library/students", HttpMethod.POST, requestEntity, MessageDto.class);
+        }, e -> {
+            throw new LBUStudentsRuntimeException(ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorCode(), e);
+        });
+        log.info("Library students created {}", messageDto.getBody());
     }
 
     @Override
-    public boolean createLibraryAccount(String token) {
-        try {
+    public LibraryStudentDto getLibraryAccount(String token) {
+        return libraryGuard.execute(() -> {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", token);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-            ResponseEntity<MessageDto> messageDto = libraryRestTemplate.exchange("/library/student", HttpMethod.POST, requestEntity, MessageDto.class);
-            log.info("Finance created {}", messageDto.getBody());
-            return true;
-        } catch (Exception e) {
+            return libraryRestTemplate.exchange("/library/student", HttpMethod.GET, requestEntity, LibraryStudentDto.class).getBody();
+        }, e -> {
             throw new LBUStudentsRuntimeException(ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorCode(), e);
-        }
+        });
     }
 }
@@ -0,0 +1,192 @@
+package com.lbu.lbustudent.commons.externalservices.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one downstream service. A call is only started when the circuit breaker permits it and there is
+ * room under the concurrency limit, otherwise it is rejected at once, so a slow or failing downstream cannot hold more
+ * than a few request threads. The concurrency limit adapts to the observed latency: it grows by one while the calls
+ * complete within the slow call threshold and the limit is in use, and it is cut when a call is slow or fails.
+ * The circuit breaker opens when the failure rate of the last calls reaches the threshold, rejects every call while it
+ * is open and then lets a few probe calls through, closing again when all of them succeed. Client errors (4xx) are
+ * answers of a healthy downstream and do not count as failures. Each state change starts a new generation and a call
+ * only counts towards the circuit of the generation it was started in, so a call started while closed which ends while
+ * half open is not taken for a probe.
+ */
+@Slf4j
+public class DownstreamGuard {
+
+    public enum State {CLOSED, HALF_OPEN, OPEN}
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int minLimit;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final GuardListener listener;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private double limit;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public DownstreamGuard(String name, int maxConcurrent, int minLimit, long slowCallMillis, int windowSize,
+                           int minimumCalls, int failureRatePercent, long openMillis, int halfOpenProbes,
+                           GuardListener listener) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.minLimit = minLimit;
+        this.slowCallNanos = slowCallMillis * 1_000_000;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = openMillis * 1_000_000;
+        this.halfOpenProbes = halfOpenProbes;
+        this.listener = listener;
+        this.limit = maxConcurrent;
+    }
+
+    /**
+     * Makes the given call under the guard.
+     *
+     * @param call     The remote call.
+     * @param fallback The hook that is given the rejection or the failure of the call and either returns a fallback
+     *                 result or throws the error to report.
+     * @return The result of the call or of the fallback.
+     */
+    public <T> T execute(Supplier<T> call, Function<RuntimeException, T> fallback) {
+        long startedGeneration;
+        try {
+            startedGeneration = acquire();
+        } catch (DownstreamRejectedException rejection) {
+            listener.onRejected(name, rejection.getReason());
+            return fallback.apply(rejection);
+        }
+        int startedInFlight = inFlight.get();
+        long start = System.nanoTime();
+        T result = null;
+        RuntimeException failure = null;
+        boolean succeeded = false;
+        try {
+            result = call.get();
+            succeeded = true;
+        } catch (HttpClientErrorException e) {
+            failure = e;
+            succeeded = true;
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            // Also reached by an Error, which counts as a failure, so the call never keeps its place under the limit
+            release(succeeded, System.nanoTime() - start, startedInFlight, startedGeneration);
+        }
+        return failure == null ? result : fallback.apply(failure);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized long acquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                throw new DownstreamRejectedException(name, "circuit open");
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                throw new DownstreamRejectedException(name, "circuit half open");
+            }
+            probesStarted++;
+        } else if (inFlight.get() >= (int) limit) {
+            throw new DownstreamRejectedException(name, "concurrency limit");
+        }
+        inFlight.incrementAndGet();
+        return generation;
+    }
+
+    private synchronized void release(boolean succeeded, long latencyNanos, int startedInFlight, long startedGeneration) {
+        inFlight.decrementAndGet();
+        boolean slow = latencyNanos > slowCallNanos;
+        if (!succeeded || slow) {
+            limit = Math.max(minLimit, limit * 0.75);
+        } else if ((startedInFlight + 1) * 2 >= limit) {
+            limit = Math.min(maxConcurrent, limit + 1);
+        }
+        if (startedGeneration != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (!succeeded) {
+                transition(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(!succeeded);
+            if (recordedCalls >= minimumCalls && failedCalls * 100 >= failureRatePercent * recordedCalls) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            failedCalls -= outcomes[outcomeIndex] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        outcomes[outcomeIndex] = failed;
+        failedCalls += failed ? 1 : 0;
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+    }
+
+    private void transition(State newState) {
+        log.warn("Circuit of {} moved from {} to {}", name, state, newState);
+        state = newState;
+        generation++;
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        probesStarted = 0;
+        probesSucceeded = 0;
+        outcomeIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+        listener.onStateChange(name, newState);
+    }
+
+    /**
+     * Receives the rejections and state changes of a guard, for the metrics of the downstream.
+     */
+    public interface GuardListener {
+        void onRejected(String name, String reason);
+
+        void onStateChange(String name, State state);
+    }
+}
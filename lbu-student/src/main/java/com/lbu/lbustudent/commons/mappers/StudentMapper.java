@@ -0,0 +1,62 @@
+package com.lbu.lbustudent.commons.mappers;
+
+import com.lbu.lbustudent.dtos.StudentDto;
+import com.lbu.lbustudent.models.Enrollment;
+import com.lbu.lbustudent.models.Student;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maps between Student entities and StudentDtos with plain accessor calls.
+ */
+@Component
+public class StudentMapper {
+
+    /**
+     * Maps the student details of a StudentDto to a new Student. Enrollments and timestamps are owned by the service
+     * and are not taken from the request.
+     *
+     * @param studentDto The StudentDto to map.
+     * @return The new Student.
+     */
+    public Student toStudent(StudentDto studentDto) {
+        Student student = new Student();
+        student.setId(studentDto.getId());
+        student.setAuthUserHref(studentDto.getAuthUserHref());
+        student.setAddress(studentDto.getAddress());
+        student.setEmergencyContact(studentDto.getEmergencyContact());
+        student.setDateOfBirth(studentDto.getDateOfBirth());
+        student.setPhoneContact(studentDto.getPhoneContact());
+        return student;
+    }
+
+    /**
+     * Maps a Student to a StudentDto with the course hrefs of the enrollments of the student.
+     *
+     * @param student The Student to map.
+     * @return The StudentDto.
+     */
+    public StudentDto toStudentDto(Student student) {
+        StudentDto studentDto = new StudentDto();
+        studentDto.setId(student.getId());
+        studentDto.setAuthUserHref(student.getAuthUserHref());
+        studentDto.setAddress(student.getAddress());
+        studentDto.setEmergencyContact(student.getEmergencyContact());
+        studentDto.setDateOfBirth(student.getDateOfBirth());
+        studentDto.setPhoneContact(student.getPhoneContact());
+        studentDto.setCreatedTimestamp(student.getCreatedTimestamp());
+        studentDto.setUpdatedTimestamp(student.getUpdatedTimestamp());
+        studentDto.setJwtTokenDto(student.getJwtTokenDto());
+        if (Objects.nonNull(student.getEnrollments())) {
+            List<String> courseHrefs = new ArrayList<>(student.getEnrollments().size());
+            for (Enrollment enrollment : student.getEnrollments()) {
+                courseHrefs.add(enrollment.getCourseHref());
+            }
+            studentDto.setCourseHrefs(courseHrefs);
+        }
+        return studentDto;
+    }
+}
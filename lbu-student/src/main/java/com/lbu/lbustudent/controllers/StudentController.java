@@ -1,6 +1,7 @@
 package com.lbu.lbustudent.controllers;
 
 import com.lbu.lbustudent.dtos.MessageDto;
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
 import com.lbu.lbustudent.dtos.StudentDto;
 import com.lbu.lbustudent.dtos.StudentEnrolmentDto;
 import io.swagger.v3.oas.annotations.Operation;
@@ -80,4 +81,25 @@ public interface StudentController {
                                           @RequestParam(required = false) String studentId,
                                           @RequestHeader(HttpHeaders.AUTHORIZATION) String token);
 
+    @GetMapping("/student/dashboard")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')")
+    @Operation(summary = "Get Student Dashboard")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully get the student dashboard",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = StudentDashboardDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Bad user content",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = MessageDto.class))
+    )
+    ResponseEntity<StudentDashboardDto> getStudentDashboard(@RequestParam String authUserHref,
+                                                            @RequestHeader(HttpHeaders.AUTHORIZATION) String token);
+
 }
@@ -1,19 +1,18 @@
 package com.lbu.lbustudent.controllers.impl;
 
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.mappers.StudentMapper;
 import com.lbu.lbustudent.controllers.StudentController;
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
 import com.lbu.lbustudent.dtos.StudentDto;
 import com.lbu.lbustudent.dtos.StudentEnrolmentDto;
-import com.lbu.lbustudent.models.Enrollment;
 import com.lbu.lbustudent.models.Student;
+import com.lbu.lbustudent.service.StudentDashboardService;
 import com.lbu.lbustudent.service.StudentService;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.stream.Collectors;
-
 import static com.lbu.lbustudent.commons.constants.ErrorConstants.INTERNAL_ERROR;
 
 @Slf4j
@@ -21,11 +20,15 @@ import static com.lbu.lbustudent.commons.constants.ErrorConstants.INTERNAL_ERROR
 public class StudentControllerImpl implements StudentController {
 
     private final StudentService studentService;
-    private final ModelMapper modelMapper;
+    private final StudentDashboardService studentDashboardService;
+    private final StudentMapper studentMapper;
 
-    public StudentControllerImpl(StudentService studentService, ModelMapper modelMapper) {
+    public StudentControllerImpl(StudentService studentService,
+                                 StudentDashboardService studentDashboardService,
+                                 StudentMapper studentMapper) {
         this.studentService = studentService;
-        this.modelMapper = modelMapper;
+        this.studentDashboardService = studentDashboardService;
+        this.studentMapper = studentMapper;
     }
 
     /**
@@ -66,7 +69,7 @@ public class StudentControllerImpl implements StudentController {
             String authToken) {
         Student student;
         try {
-            student = modelMapper.map(studentDto, Student.class);
+            student = studentMapper.toStudent(studentDto);
         } catch (Exception e) {
             log.error("Model conversion error {}", studentDto);
             throw new LBUStudentsRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -93,9 +96,22 @@ public class StudentControllerImpl implements StudentController {
                 studentService.getStudentDetailsFromAuthIdOrStudentId(authUserHref, studentId, authToken)));
     }
 
+    /**
+     * Retrieves the dashboard of the student, the student details with the enrolled courses and the finance and
+     * library accounts, in one response. It delegates the composition to the studentDashboardService.
+     *
+     * @param authUserHref The href of the authenticated user.
+     * @param authToken    The authorization token for the request.
+     * @return ResponseEntity containing the StudentDashboardDto.
+     */
+    @Override
+    public ResponseEntity<StudentDashboardDto> getStudentDashboard(String authUserHref, String authToken) {
+        return ResponseEntity.ok(studentDashboardService.getDashboard(authUserHref, authToken));
+    }
+
     /**
      * Converts a Student object to a StudentDto.
-     * It uses ModelMapper for the conversion and sets additional attributes such as courseHrefs.
+     * It uses the StudentMapper for the conversion, which also sets the courseHrefs of the enrollments.
      * Any exceptions occurring during the conversion are caught and rethrown as an LBUStudentsRuntimeException.
      *
      * @param student The student object to convert.
@@ -103,9 +119,7 @@ public class StudentControllerImpl implements StudentController {
      */
     private StudentDto convertStudentDto(Student student) {
         try {
-            StudentDto studentDto = modelMapper.map(student, StudentDto.class);
-            studentDto.setCourseHrefs(student.getEnrollments().stream().map(Enrollment::getCourseHref).collect(Collectors.toList()));
-            return studentDto;
+            return studentMapper.toStudentDto(student);
         } catch (Exception e) {
             log.error("Model conversion error {}", student);
             throw new LBUStudentsRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
@@ -0,0 +1,11 @@
+package com.lbu.lbustudent.dtos;
+
+import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import lombok.Data;
+
+@Data
+public class EnrolmentDetailsDto {
+    private JWTTokenDto jwtTokenDto;
+    private CourseDto courseDto;
+}
@@ -0,0 +1,24 @@
+package com.lbu.lbustudent.dtos;
+
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Student dashboard")
+public class StudentDashboardDto {
+    @Schema(description = "Student details")
+    private StudentDto student;
+    @Schema(description = "Enrolled course details")
+    private List<CourseDto> courses;
+    @Schema(description = "Finance account with the invoices of the student")
+    private FinanceAccountDto financeAccount;
+    @Schema(description = "Library account with the borrowed books of the student")
+    private LibraryStudentDto libraryAccount;
+    @Schema(description = "Sections which could not be loaded, one of courses, finance or library")
+    private List<String> unavailableSections;
+}
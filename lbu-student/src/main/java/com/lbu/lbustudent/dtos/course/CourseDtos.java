@@ -0,0 +1,13 @@
+package com.lbu.lbustudent.dtos.course;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Course details list")
+public class CourseDtos {
+    @Schema(description = "courses")
+    private List<CourseDto> courses;
+}
@@ -0,0 +1,19 @@
+package com.lbu.lbustudent.dtos.library;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Library Book Detail")
+public class LibraryBookDto {
+    @Schema(description = "Book id")
+    private String id;
+    @Schema(description = "Book isbn")
+    private String isbn;
+    @Schema(description = "Book title")
+    private String title;
+    @Schema(description = "Book author")
+    private String author;
+    @Schema(description = "Book year")
+    private Integer yearOfPublished;
+}
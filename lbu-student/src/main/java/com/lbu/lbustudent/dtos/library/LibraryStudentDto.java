@@ -0,0 +1,17 @@
+package com.lbu.lbustudent.dtos.library;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Library Student Details")
+public class LibraryStudentDto {
+    @Schema(description = "Student id")
+    private String id;
+    @Schema(description = "Student auth user id")
+    private String authUserHref;
+    @Schema(description = "Student borrowed books")
+    private List<LibraryTransactionDto> borrowedBooks;
+}
@@ -0,0 +1,10 @@
+package com.lbu.lbustudent.dtos.library;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LibraryStudentDtos {
+    List<LibraryStudentDto> students;
+}
@@ -0,0 +1,17 @@
+package com.lbu.lbustudent.dtos.library;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+@Data
+@Schema(description = "Library book transaction")
+public class LibraryTransactionDto {
+    @Schema(description = "book details")
+    private LibraryBookDto book;
+    @Schema(description = "book borrowed time stamp")
+    private Timestamp dateBorrowed;
+    @Schema(description = "book returned time stamp")
+    private Timestamp dateReturned;
+}
@@ -0,0 +1,48 @@
+package com.lbu.lbustudent.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Table(name = "outbox_event",
+        indexes = {@Index(name = "idx_outbox_event_due", columnList = "delivered_timestamp, next_attempt_timestamp")})
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    // Sent with the event so the receiving service stores it once however often it is delivered
+    @Column(name = "idempotency_key", unique = true, nullable = false)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType eventType;
+
+    private String authUserHref;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private Integer attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_timestamp")
+    private Timestamp nextAttemptTimestamp;
+
+    @Column(name = "delivered_timestamp")
+    private Timestamp deliveredTimestamp;
+
+    // Set once the event is given up on, it is then kept for inspection and never retried
+    @Column(name = "dead_lettered_timestamp")
+    private Timestamp deadLetteredTimestamp;
+
+    @Column(name = "created_timestamp")
+    @CreationTimestamp
+    private Timestamp createdTimestamp;
+}
@@ -0,0 +1,6 @@
+package com.lbu.lbustudent.models;
+
+public enum OutboxEventType {
+    LIBRARY_ACCOUNT,
+    TUITION_FEE
+}
@@ -3,6 +3,8 @@ package com.lbu.lbustudent.models;
 import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -26,7 +28,10 @@ public class Student {
     @Column(length = 11)
     private String phoneContact;
 
-    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Loaded with the student only by the lookups which return the course hrefs
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Enrollment> enrollments;
 
     @Column(name = "created_timestamp")
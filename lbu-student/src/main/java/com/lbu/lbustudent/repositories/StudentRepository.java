@@ -1,6 +1,7 @@
 package com.lbu.lbustudent.repositories;
 
 import com.lbu.lbustudent.models.Student;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,13 @@ public interface StudentRepository extends JpaRepository<Student, String> {
 
     Optional<Student> findByAuthUserHref(String authUserHref);
 
+    boolean existsByAuthUserHref(String authUserHref);
+
+    // The enrollments in one query with the student instead of a second query for the collection
+    @EntityGraph(attributePaths = "enrollments")
+    Optional<Student> findWithEnrollmentsByAuthUserHref(String authUserHref);
+
+    @EntityGraph(attributePaths = "enrollments")
+    Optional<Student> findWithEnrollmentsById(String id);
+
 }
@@ -0,0 +1,10 @@
+package com.lbu.lbustudent.service;
+
+import com.lbu.lbustudent.dtos.EnrolmentDetailsDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+
+public interface EnrolmentOrchestrationService {
+    EnrolmentDetailsDto enrolNewStudent(String authUserHref, String courseHref, String token);
+
+    CourseDto enrolExistingStudent(String authUserHref, String courseHref, String token);
+}
@@ -0,0 +1,5 @@
+package com.lbu.lbustudent.service;
+
+public interface OutboxRelayService {
+    void relayOutboxEvents();
+}
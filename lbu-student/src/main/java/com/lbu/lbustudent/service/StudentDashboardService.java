@@ -0,0 +1,10 @@
+package com.lbu.lbustudent.service;
+
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
+
+public interface StudentDashboardService {
+
+    StudentDashboardDto getDashboard(String authUserHref, String token);
+
+    void invalidate(String authUserHref);
+}
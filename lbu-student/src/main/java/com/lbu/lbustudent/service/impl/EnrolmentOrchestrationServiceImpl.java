@@ -0,0 +1,140 @@
+package com.lbu.lbustudent.service.impl;
+
+import com.lbu.lbustudent.commons.constants.ErrorConstants;
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
+import com.lbu.lbustudent.dtos.EnrolmentDetailsDto;
+import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.service.EnrolmentOrchestrationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.lbu.lbustudent.commons.constants.ErrorConstants.*;
+
+@Slf4j
+@Service
+public class EnrolmentOrchestrationServiceImpl implements EnrolmentOrchestrationService {
+
+    @Value("${custom.properties.enrolment.call.timeout.millis}")
+    private Long callTimeoutMillis;
+
+    private final AuthService authService;
+    private final CourseService courseService;
+    private final AsyncTaskExecutor enrolmentExecutor;
+
+    public EnrolmentOrchestrationServiceImpl(AuthService authService,
+                                             CourseService courseService,
+                                             @Qualifier("enrolmentExecutor") AsyncTaskExecutor enrolmentExecutor) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.enrolmentExecutor = enrolmentExecutor;
+    }
+
+    /**
+     * Makes the remote calls of a first enrolment. The user upgrade in the auth service and the course lookup with the
+     * caller's token run concurrently, each with its own deadline, and when one fails or times out the other is
+     * cancelled. Failures are reported in the order auth, course. The library and finance accounts are not created here,
+     * the student service writes them to its outbox with the student.
+     *
+     * @param authUserHref The HREF of the authenticated user.
+     * @param courseHref   The HREF of the course to enrol the student in.
+     * @param token        The authentication token of the caller.
+     * @return The token of the upgraded student and the details of the course.
+     */
+    @Override
+    public EnrolmentDetailsDto enrolNewStudent(String authUserHref, String courseHref, String token) {
+        List<RemoteCall<?>> calls = new ArrayList<>();
+        try {
+            RemoteCall<JWTTokenDto> authCall = start(calls, AUTH_SERVICE_USER_UPDATE_ERROR,
+                    () -> upgradeUser(authUserHref, token));
+            RemoteCall<CourseDto> courseCall = start(calls, COURSE_SERVICE_GET_ERROR,
+                    () -> courseService.getCourseDetails(courseHref, token));
+            EnrolmentDetailsDto enrolmentDetailsDto = new EnrolmentDetailsDto();
+            enrolmentDetailsDto.setJwtTokenDto(authCall.await());
+            enrolmentDetailsDto.setCourseDto(courseCall.await());
+            return enrolmentDetailsDto;
+        } finally {
+            calls.forEach(RemoteCall::cancel);
+        }
+    }
+
+    /**
+     * Makes the remote call of a further enrolment of an existing student, the course lookup with its own deadline.
+     *
+     * @param authUserHref The HREF of the authenticated user.
+     * @param courseHref   The HREF of the course to enrol the student in.
+     * @param token        The authentication token of the student.
+     * @return The details of the course.
+     */
+    @Override
+    public CourseDto enrolExistingStudent(String authUserHref, String courseHref, String token) {
+        List<RemoteCall<?>> calls = new ArrayList<>();
+        try {
+            return start(calls, COURSE_SERVICE_GET_ERROR, () -> courseService.getCourseDetails(courseHref, token)).await();
+        } finally {
+            calls.forEach(RemoteCall::cancel);
+        }
+    }
+
+    private JWTTokenDto upgradeUser(String authUserHref, String token) {
+        JWTTokenDto jwtTokenDto = authService.updateUserStatus(authUserHref, token);
+        log.info("Auth user updated to STUDENT {}", jwtTokenDto.getUserId());
+        return jwtTokenDto;
+    }
+
+    private <T> RemoteCall<T> start(List<RemoteCall<?>> calls, ErrorConstants error, Callable<T> call) {
+        RemoteCall<T> remoteCall = new RemoteCall<>(enrolmentExecutor.submit(call), error,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis));
+        calls.add(remoteCall);
+        return remoteCall;
+    }
+
+    /**
+     * A remote call running on the enrolment executor with its deadline and the error reported when it fails.
+     */
+    private static class RemoteCall<T> {
+        private final Future<T> future;
+        private final ErrorConstants error;
+        private final long deadline;
+
+        private RemoteCall(Future<T> future, ErrorConstants error, long deadline) {
+            this.future = future;
+            this.error = error;
+            this.deadline = deadline;
+        }
+
+        private T await() {
+            try {
+                return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof LBUStudentsRuntimeException exception && error != AUTH_SERVICE_USER_UPDATE_ERROR) {
+                    throw exception;
+                }
+                throw new LBUStudentsRuntimeException(error.getErrorMessage(), error.getErrorCode(), e.getCause());
+            } catch (TimeoutException e) {
+                log.error("Remote call timed out {}", error.getErrorMessage());
+                throw new LBUStudentsRuntimeException(error.getErrorMessage(), error.getErrorCode(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LBUStudentsRuntimeException(error.getErrorMessage(), error.getErrorCode(), e);
+            }
+        }
+
+        private void cancel() {
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.lbu.lbustudent.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbustudent.commons.externalservices.auth.services.ServiceTokenService;
+import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.dtos.finance.FinanceInvoiceDto;
+import com.lbu.lbustudent.models.OutboxEvent;
+import com.lbu.lbustudent.models.OutboxEventType;
+import com.lbu.lbustudent.repositories.OutboxEventRepository;
+import com.lbu.lbustudent.service.OutboxRelayService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class OutboxRelayServiceImpl implements OutboxRelayService {
+
+    @Value("${custom.properties.outbox.relay.batch.size}")
+    private Integer batchSize;
+
+    @Value("${custom.properties.outbox.relay.lease.seconds}")
+    private Long leaseSeconds;
+
+    @Value("${custom.properties.outbox.retry.backoff.base.millis}")
+    private Long backoffBaseMillis;
+
+    @Value("${custom.properties.outbox.retry.backoff.max.millis}")
+    private Long backoffMaxMillis;
+
+    @Value("${custom.properties.outbox.retention.hours}")
+    private Long retentionHours;
+
+    @Value("${custom.properties.outbox.max.attempts}")
+    private Integer maxAttempts;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ServiceTokenService serviceTokenService;
+    private final LibraryService libraryService;
+    private final FinanceService financeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<OutboxEventType, Counter> deliveredCounters = new EnumMap<>(OutboxEventType.class);
+    private final Map<OutboxEventType, Counter> failedCounters = new EnumMap<>(OutboxEventType.class);
+    private final Map<OutboxEventType, Counter> deadLetteredCounters = new EnumMap<>(OutboxEventType.class);
+    private final Map<OutboxEventType, Timer> batchTimers = new EnumMap<>(OutboxEventType.class);
+    private final Timer deliveryLagTimer;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong deadLetteredEvents = new AtomicLong();
+
+    public OutboxRelayServiceImpl(OutboxEventRepository outboxEventRepository,
+                                  ServiceTokenService serviceTokenService,
+                                  LibraryService libraryService,
+                                  FinanceService financeService,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.serviceTokenService = serviceTokenService;
+        this.libraryService = libraryService;
+        this.financeService = financeService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        for (OutboxEventType eventType : OutboxEventType.values()) {
+            deliveredCounters.put(eventType, meterRegistry.counter("lbu.student.outbox.delivered", "type", eventType.name()));
+            failedCounters.put(eventType, meterRegistry.counter("lbu.student.outbox.failed", "type", eventType.name()));
+            deadLetteredCounters.put(eventType, meterRegistry.counter("lbu.student.outbox.dead.lettered", "type", eventType.name()));
+            batchTimers.put(eventType, meterRegistry.timer("lbu.student.outbox.batch", "type", eventType.name()));
+        }
+        this.deliveryLagTimer = meterRegistry.timer("lbu.student.outbox.delivery.lag");
+        meterRegistry.gauge("lbu.student.outbox.pending", pendingEvents);
+        meterRegistry.gauge("lbu.student.outbox.lag.seconds", oldestPendingAgeSeconds);
+        meterRegistry.gauge("lbu.student.outbox.dead.lettered.pending", deadLetteredEvents);
+    }
+
+    /**
+     * Delivers the pending enrolment outbox events to the library and finance services. Each round claims a batch of due
+     * events in a short transaction, which pushes their next attempt past a lease so another relay instance does not pick
+     * them up. The library accounts of the batch are then created with one bulk call and the tuition fee invoices are
+     * ingested with another, both outside of any transaction. Delivered events are marked delivered and the events of a
+     * failed call are scheduled again with an exponential backoff with jitter. The receiving services store every event
+     * once by its idempotency key, so an event delivered twice after a lost response has no further effect. The calls
+     * are authenticated with the token of the service account, which is refreshed before it expires.
+     * <p>
+     * An event is dead lettered, kept but never retried, once it reaches the maximum number of attempts or when it is
+     * rejected by the receiving service with a client error. A rejected batch is delivered again one event at a time,
+     * so only the events which are rejected on their own are dead lettered and the rest of the batch is delivered.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${custom.properties.outbox.relay.millis}",
+            initialDelayString = "${custom.properties.outbox.relay.millis}", timeUnit = TimeUnit.MILLISECONDS)
+    public void relayOutboxEvents() {
+        String serviceToken;
+        try {
+            serviceToken = serviceTokenService.getServiceToken();
+        } catch (RuntimeException e) {
+            log.error("Service account token is not available, the outbox relay is retried on its next run", e);
+            return;
+        }
+        while (true) {
+            List<OutboxEvent> events = transactionTemplate.execute(status -> claimDueEvents());
+            if (Objects.isNull(events) || events.isEmpty()) {
+                break;
+            }
+            Map<OutboxEventType, List<OutboxEvent>> eventsByType = events.stream()
+                    .collect(Collectors.groupingBy(OutboxEvent::getEventType, () -> new EnumMap<>(OutboxEventType.class),
+                            Collectors.toList()));
+            boolean delivered = true;
+            for (Map.Entry<OutboxEventType, List<OutboxEvent>> entry : eventsByType.entrySet()) {
+                delivered &= deliver(entry.getKey(), entry.getValue(), serviceToken);
+            }
+            if (!delivered || events.size() < batchSize) {
+                break;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteDeliveredBefore(
+                Timestamp.from(Instant.now().minus(Duration.ofHours(retentionHours)))));
+        updateLag();
+    }
+
+    private List<OutboxEvent> claimDueEvents() {
+        Instant now = Instant.now();
+        List<OutboxEvent> events = outboxEventRepository.findDueEvents(Timestamp.from(now), PageRequest.of(0, batchSize));
+        events.forEach(event -> {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptTimestamp(Timestamp.from(now.plusSeconds(leaseSeconds)));
+        });
+        return outboxEventRepository.saveAll(events);
+    }
+
+    private boolean deliver(OutboxEventType eventType, List<OutboxEvent> events, String serviceToken) {
+        long start = System.nanoTime();
+        try {
+            if (eventType == OutboxEventType.LIBRARY_ACCOUNT) {
+                libraryService.createLibraryAccounts(events.stream().map(OutboxEvent::getAuthUserHref)
+                        .distinct().collect(Collectors.toList()), serviceToken);
+            } else {
+                financeService.ingestInvoices(toFinanceAccounts(events), serviceToken);
+            }
+        } catch (Exception e) {
+            batchTimers.get(eventType).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (isRejected(e)) {
+                if (events.size() > 1) {
+                    log.warn("{} {} outbox events were rejected, delivering them one at a time", events.size(), eventType, e);
+                    boolean delivered = true;
+                    for (OutboxEvent event : events) {
+                        delivered &= deliver(eventType, List.of(event), serviceToken);
+                    }
+                    return delivered;
+                }
+                deadLetter(eventType, events, e);
+                return true;
+            }
+            if (isUnauthorized(e)) {
+                serviceTokenService.invalidate(serviceToken);
+            }
+            failedCounters.get(eventType).increment(events.size());
+            log.error("An error occurred while relaying {} {} outbox events", events.size(), eventType, e);
+            scheduleRetry(eventType, events, e);
+            return false;
+        }
+        batchTimers.get(eventType).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Instant deliveredAt = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDelivered(
+                events.stream().map(OutboxEvent::getId).collect(Collectors.toList()), Timestamp.from(deliveredAt)));
+        deliveredCounters.get(eventType).increment(events.size());
+        events.forEach(event -> deliveryLagTimer.record(
+                Duration.between(event.getCreatedTimestamp().toInstant(), deliveredAt)));
+        log.info("Relayed {} {} outbox events", events.size(), eventType);
+        return true;
+    }
+
+    /**
+     * Whether the call failed because of the events themselves, an unreadable payload or a client error other than an
+     * authentication, throttling or timeout reply, so delivering the same events again cannot succeed.
+     */
+    private static boolean isRejected(Exception e) {
+        if (Objects.nonNull(ExceptionUtils.throwableOfType(e, JsonProcessingException.class))) {
+            return true;
+        }
+        HttpClientErrorException clientError = ExceptionUtils.throwableOfType(e, HttpClientErrorException.class);
+        return Objects.nonNull(clientError) && !isUnauthorized(e)
+                && !clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                && !clientError.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT);
+    }
+
+    private static boolean isUnauthorized(Exception e) {
+        HttpClientErrorException clientError = ExceptionUtils.throwableOfType(e, HttpClientErrorException.class);
+        return Objects.nonNull(clientError) && (clientError.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)
+                || clientError.getStatusCode().isSameCodeAs(HttpStatus.FORBIDDEN));
+    }
+
+    private List<FinanceAccountDto> toFinanceAccounts(List<OutboxEvent> events) throws Exception {
+        Map<String, FinanceAccountDto> accounts = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            FinanceAccountDto account = accounts.computeIfAbsent(event.getAuthUserHref(), authUserHref -> {
+                FinanceAccountDto financeAccountDto = new FinanceAccountDto();
+                financeAccountDto.setAuthUserHref(authUserHref);
+                financeAccountDto.setInvoiceList(new ArrayList<>());
+                return financeAccountDto;
+            });
+            account.getInvoiceList().add(objectMapper.readValue(event.getPayload(), FinanceInvoiceDto.class));
+        }
+        return new ArrayList<>(accounts.values());
+    }
+
+    private void scheduleRetry(OutboxEventType eventType, List<OutboxEvent> events, Exception e) {
+        Map<Boolean, List<OutboxEvent>> exhausted = events.stream()
+                .collect(Collectors.partitioningBy(event -> event.getAttempts() >= maxAttempts));
+        if (!exhausted.get(true).isEmpty()) {
+            deadLetter(eventType, exhausted.get(true), e);
+        }
+        List<OutboxEvent> retried = exhausted.get(false);
+        if (retried.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        retried.forEach(event -> {
+            event.setNextAttemptTimestamp(Timestamp.from(now.plusMillis(backoffMillis(event.getAttempts()))));
+            event.setLastError(StringUtils.abbreviate(e.toString(), 1000));
+        });
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(retried));
+    }
+
+    private void deadLetter(OutboxEventType eventType, List<OutboxEvent> events, Exception e) {
+        Timestamp deadLetteredAt = Timestamp.from(Instant.now());
+        events.forEach(event -> {
+            event.setDeadLetteredTimestamp(deadLetteredAt);
+            event.setNextAttemptTimestamp(null);
+            event.setLastError(StringUtils.abbreviate(e.toString(), 1000));
+        });
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(events));
+        deadLetteredCounters.get(eventType).increment(events.size());
+        log.error("Dead lettered {} {} outbox events {}", events.size(), eventType,
+                events.stream().map(OutboxEvent::getIdempotencyKey).collect(Collectors.toList()), e);
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = backoffBaseMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(backoff, backoffMaxMillis);
+        // Half of the backoff is random, so events that failed together are not retried together
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void updateLag() {
+        pendingEvents.set(outboxEventRepository.countByDeliveredTimestampIsNullAndDeadLetteredTimestampIsNull());
+        deadLetteredEvents.set(outboxEventRepository.countByDeadLetteredTimestampIsNotNull());
+        Timestamp oldestPending = outboxEventRepository.findOldestPendingTimestamp();
+        oldestPendingAgeSeconds.set(Objects.isNull(oldestPending) ? 0
+                : Duration.between(oldestPending.toInstant(), Instant.now()).toSeconds());
+    }
+}
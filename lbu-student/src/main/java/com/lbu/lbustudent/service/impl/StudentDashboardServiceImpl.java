@@ -0,0 +1,271 @@
+package com.lbu.lbustudent.service.impl;
+
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
+import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
+import com.lbu.lbustudent.commons.mappers.StudentMapper;
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
+import com.lbu.lbustudent.dtos.StudentDto;
+import com.lbu.lbustudent.dtos.course.CourseDtos;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+import com.lbu.lbustudent.models.Student;
+import com.lbu.lbustudent.repositories.StudentRepository;
+import com.lbu.lbustudent.service.StudentDashboardService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static com.lbu.lbustudent.commons.constants.ErrorConstants.INTERNAL_ERROR;
+import static com.lbu.lbustudent.commons.constants.ErrorConstants.STUDENT_NOT_AVAILABLE;
+
+@Slf4j
+@Service
+public class StudentDashboardServiceImpl implements StudentDashboardService {
+
+    private static final String COURSE_HREF_PREFIX = "/courses/";
+    private static final String COURSES_SECTION = "courses";
+    private static final String FINANCE_SECTION = "finance";
+    private static final String LIBRARY_SECTION = "library";
+
+    @Value("${custom.properties.dashboard.call.timeout.millis}")
+    private Long callTimeoutMillis;
+
+    @Value("${custom.properties.dashboard.cache.ttl.seconds}")
+    private Long cacheTtlSeconds;
+
+    private final StudentRepository studentRepository;
+    private final StudentMapper studentMapper;
+    private final AuthService authService;
+    private final CourseService courseService;
+    private final FinanceService financeService;
+    private final LibraryService libraryService;
+    private final AsyncTaskExecutor dashboardExecutor;
+    private final Map<String, CachedDashboard> dashboards;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTimer;
+    private long generation;
+
+    public StudentDashboardServiceImpl(StudentRepository studentRepository,
+                                       StudentMapper studentMapper,
+                                       AuthService authService,
+                                       CourseService courseService,
+                                       FinanceService financeService,
+                                       LibraryService libraryService,
+                                       @Qualifier("dashboardExecutor") AsyncTaskExecutor dashboardExecutor,
+                                       @Value("${custom.properties.dashboard.cache.size}") Integer cacheSize,
+                                       MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.studentMapper = studentMapper;
+        this.authService = authService;
+        this.courseService = courseService;
+        this.financeService = financeService;
+        this.libraryService = libraryService;
+        this.dashboardExecutor = dashboardExecutor;
+        this.dashboards = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDashboard> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.hits = meterRegistry.counter("lbu.student.dashboard.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("lbu.student.dashboard.cache.requests", "result", "miss");
+        this.loadTimer = meterRegistry.timer("lbu.student.dashboard.load");
+    }
+
+    /**
+     * Retrieves the dashboard of the student, the student details, the details of the enrolled courses and the finance
+     * and library accounts, in one response instead of a request per service from the client. The token is checked
+     * against the given user first. A dashboard loaded within the cache TTL is returned from the per-user cache, with
+     * only its finance account fetched again, as invoices are paid and cancelled in the finance service without the
+     * dashboard being invalidated. Otherwise the student is read from the database and the courses are fetched with one
+     * batched call while the finance and library accounts are fetched in parallel, each within the call deadline. A
+     * section whose service fails or misses the deadline is left empty and named in the unavailable sections, and a
+     * dashboard with any section other than the finance account missing is not cached.
+     *
+     * @param authUserHref The HREF of the authenticated user.
+     * @param token        The authentication token of the student.
+     * @return The dashboard of the student.
+     */
+    @Override
+    public StudentDashboardDto getDashboard(String authUserHref, String token) {
+        authService.validateAuthUserHref(authUserHref, token);
+        StudentDashboardDto cachedDashboard = getCached(authUserHref);
+        if (Objects.nonNull(cachedDashboard)) {
+            hits.increment();
+            return withFinanceAccount(cachedDashboard, token);
+        }
+        misses.increment();
+        long loadGeneration = currentGeneration();
+        StudentDashboardDto dashboard = loadTimer.record(() -> load(authUserHref, token));
+        if (dashboard.getUnavailableSections().stream().allMatch(FINANCE_SECTION::equals)) {
+            putCached(authUserHref, dashboard, loadGeneration);
+        }
+        return dashboard;
+    }
+
+    /**
+     * Invalidates the cached dashboard of the student, after an enrolment or an update of the student details. When
+     * called inside a transaction the dashboard is invalidated once the transaction commits, so a load in between
+     * cannot cache the old details again. A load which started before the invalidation is not cached.
+     *
+     * @param authUserHref The HREF of the authenticated user.
+     */
+    @Override
+    public void invalidate(String authUserHref) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(authUserHref);
+                }
+            });
+        } else {
+            invalidateNow(authUserHref);
+        }
+    }
+
+    private void invalidateNow(String authUserHref) {
+        synchronized (dashboards) {
+            generation++;
+            dashboards.remove(authUserHref);
+        }
+    }
+
+    private StudentDashboardDto load(String authUserHref, String token) {
+        StudentDto studentDto = studentMapper.toStudentDto(findStudent(authUserHref));
+        List<String> courseIds = Objects.isNull(studentDto.getCourseHrefs()) ? List.of() : studentDto.getCourseHrefs().stream()
+                .map(courseHref -> courseHref.substring(COURSE_HREF_PREFIX.length()))
+                .collect(Collectors.toList());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        List<Future<?>> calls = new ArrayList<>();
+        try {
+            Future<CourseDtos> courseCall = courseIds.isEmpty() ? null
+                    : submit(calls, dashboardExecutor.submit(() -> courseService.getCourses(courseIds, token)));
+            Future<FinanceAccountDto> financeCall = submit(calls, dashboardExecutor.submit(() -> financeService.getFinanceAccount(token)));
+            Future<LibraryStudentDto> libraryCall = submit(calls, dashboardExecutor.submit(() -> libraryService.getLibraryAccount(token)));
+            List<String> unavailableSections = new ArrayList<>();
+            StudentDashboardDto dashboard = new StudentDashboardDto();
+            dashboard.setStudent(studentDto);
+            if (Objects.isNull(courseCall)) {
+                dashboard.setCourses(List.of());
+            } else {
+                CourseDtos courseDtos = await(courseCall, COURSES_SECTION, deadline, unavailableSections);
+                dashboard.setCourses(Objects.isNull(courseDtos) ? null : courseDtos.getCourses());
+            }
+            dashboard.setFinanceAccount(await(financeCall, FINANCE_SECTION, deadline, unavailableSections));
+            dashboard.setLibraryAccount(await(libraryCall, LIBRARY_SECTION, deadline, unavailableSections));
+            dashboard.setUnavailableSections(unavailableSections);
+            return dashboard;
+        } finally {
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
+
+    // The cached dashboard is shared, so the fresh finance account is set on a copy
+    private StudentDashboardDto withFinanceAccount(StudentDashboardDto cachedDashboard, String token) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        Future<FinanceAccountDto> financeCall = dashboardExecutor.submit(() -> financeService.getFinanceAccount(token));
+        try {
+            List<String> unavailableSections = new ArrayList<>();
+            StudentDashboardDto dashboard = new StudentDashboardDto();
+            dashboard.setStudent(cachedDashboard.getStudent());
+            dashboard.setCourses(cachedDashboard.getCourses());
+            dashboard.setFinanceAccount(await(financeCall, FINANCE_SECTION, deadline, unavailableSections));
+            dashboard.setLibraryAccount(cachedDashboard.getLibraryAccount());
+            dashboard.setUnavailableSections(unavailableSections);
+            return dashboard;
+        } finally {
+            financeCall.cancel(true);
+        }
+    }
+
+    private Student findStudent(String authUserHref) {
+        try {
+            return studentRepository.findWithEnrollmentsByAuthUserHref(authUserHref)
+                    .orElseThrow(() -> new LBUStudentsRuntimeException(STUDENT_NOT_AVAILABLE.getErrorMessage(), STUDENT_NOT_AVAILABLE.getErrorCode()));
+        } catch (DataAccessException e) {
+            log.info("An error occurred while calling the database", e);
+            throw new LBUStudentsRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+    }
+
+    private static <T> Future<T> submit(List<Future<?>> calls, Future<T> call) {
+        calls.add(call);
+        return call;
+    }
+
+    private static <T> T await(Future<T> call, String section, long deadline, List<String> unavailableSections) {
+        try {
+            return call.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            log.error("Dashboard section {} is not available", section, e.getCause());
+        } catch (TimeoutException e) {
+            log.error("Dashboard section {} timed out", section);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unavailableSections.add(section);
+        return null;
+    }
+
+    private StudentDashboardDto getCached(String authUserHref) {
+        synchronized (dashboards) {
+            CachedDashboard cachedDashboard = dashboards.get(authUserHref);
+            if (Objects.isNull(cachedDashboard)) {
+                return null;
+            }
+            if (System.nanoTime() - cachedDashboard.loadedAt >= TimeUnit.SECONDS.toNanos(cacheTtlSeconds)) {
+                dashboards.remove(authUserHref);
+                return null;
+            }
+            return cachedDashboard.dashboard;
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (dashboards) {
+            return generation;
+        }
+    }
+
+    private void putCached(String authUserHref, StudentDashboardDto dashboard, long loadGeneration) {
+        synchronized (dashboards) {
+            if (loadGeneration == generation) {
+                dashboards.put(authUserHref, new CachedDashboard(dashboard, System.nanoTime()));
+            }
+        }
+    }
+
+    private static class CachedDashboard {
+        private final StudentDashboardDto dashboard;
+        private final long loadedAt;
+
+        private CachedDashboard(StudentDashboardDto dashboard, long loadedAt) {
+            this.dashboard = dashboard;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
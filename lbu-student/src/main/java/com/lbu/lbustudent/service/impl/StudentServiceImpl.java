@@ -1,24 +1,36 @@
 package com.lbu.lbustudent.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
 import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
-import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
-import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
-import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
-import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
+import com.lbu.lbustudent.dtos.EnrolmentDetailsDto;
 import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.finance.FinanceInvoiceDto;
+import com.lbu.lbustudent.dtos.finance.Type;
 import com.lbu.lbustudent.models.Enrollment;
+import com.lbu.lbustudent.models.OutboxEvent;
+import com.lbu.lbustudent.models.OutboxEventType;
 import com.lbu.lbustudent.models.Student;
+import com.lbu.lbustudent.repositories.OutboxEventRepository;
 import com.lbu.lbustudent.repositories.StudentRepository;
+import com.lbu.lbustudent.service.EnrolmentOrchestrationService;
+import com.lbu.lbustudent.service.StudentDashboardService;
 import com.lbu.lbustudent.service.StudentService;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 
 import static com.lbu.lbustudent.commons.constants.ErrorConstants.*;
 
@@ -26,85 +38,131 @@ import static com.lbu.lbustudent.commons.constants.ErrorConstants.*;
 @Service
 public class StudentServiceImpl implements StudentService {
 
+    private static final String LIBRARY_ACCOUNT_KEY_PREFIX = "library-account:";
+    private static final String TUITION_FEE_KEY_PREFIX = "tuition-fee:";
+
     private final StudentRepository studentRepository;
+    private final OutboxEventRepository outboxEventRepository;
     private final AuthService authService;
-    private final FinanceService financeService;
-    private final CourseService courseService;
-    private final LibraryService libraryService;
+    private final EnrolmentOrchestrationService enrolmentOrchestrationService;
+    private final StudentDashboardService studentDashboardService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
 
     public StudentServiceImpl(StudentRepository studentRepository,
+                              OutboxEventRepository outboxEventRepository,
                               AuthService authService,
-                              FinanceService financeService,
-                              CourseService courseService,
-                              LibraryService libraryService) {
+                              EnrolmentOrchestrationService enrolmentOrchestrationService,
+                              StudentDashboardService studentDashboardService,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper) {
         this.studentRepository = studentRepository;
+        this.outboxEventRepository = outboxEventRepository;
         this.authService = authService;
-        this.financeService = financeService;
-        this.courseService = courseService;
-        this.libraryService = libraryService;
+        this.enrolmentOrchestrationService = enrolmentOrchestrationService;
+        this.studentDashboardService = studentDashboardService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Creates a student enrolment in the system. Validates the provided user and course HREFs, and the authentication token.
-     * If the student already exists, adds course details to their enrolment and updates related services accordingly.
-     * If the student is new, creates a new student record, updates authentication status, and sets up related services.
-     * Handles database access exceptions and rolls back the transaction in case of any exception.
+     * The remote calls which the response depends on, the user upgrade in the auth service and the course lookup, are
+     * made first by the enrolment orchestration without holding a database connection. The student or the new enrolment
+     * is then saved in one local transaction together with the outbox events for the library account and the tuition
+     * fee invoice, which the outbox relay delivers to the library and finance services afterwards. If the student
+     * already exists, adds the course to their enrolments. If the student is new, creates a new student record with the
+     * upgraded token of the user. The cached dashboard of the student is invalidated. Handles database access exceptions.
      *
      * @param authUserHref The HREF of the authenticated user.
      * @param courseHref   The HREF of the course to enrol the student in.
      * @param token        The authentication token.
      * @return The created or updated student record.
      */
-    @Transactional(rollbackOn = Exception.class)
     @Override
     public Student createStudentEnrolment(String authUserHref, String courseHref, String token) {
         validateHrefAndGetId(courseHref);
         validateHrefAndGetId(authUserHref);
         authService.validateAuthUserHref(authUserHref, token);
         try {
-            Optional<Student> optionalStudent = studentRepository.findByAuthUserHref(authUserHref);
-            if (optionalStudent.isPresent()) {
-                Student student = optionalStudent.get();
-                log.info("Existing student and we are adding the course details into the enrolment {}", student.getId());
-                Enrollment enrollment = new Enrollment();
-                enrollment.setStudent(student);
-                enrollment.setCourseHref(courseHref);
-                student.getEnrollments().add(enrollment);
-                CourseDto courseDto = courseService.getCourseDetails(courseHref, token);
-                financeService.createOrUpdateFinanceAccount(courseDto, authUserHref, token);
-                return studentRepository.saveAndFlush(student);
+            if (studentRepository.existsByAuthUserHref(authUserHref)) {
+                log.info("Existing student and we are adding the course details into the enrolment {}", authUserHref);
+                CourseDto courseDto = enrolmentOrchestrationService.enrolExistingStudent(authUserHref, courseHref, token);
+                Student enrolledStudent = transactionTemplate.execute(status -> {
+                    Student student = studentRepository.findWithEnrollmentsByAuthUserHref(authUserHref)
+                            .orElseThrow(() -> new LBUStudentsRuntimeException(STUDENT_NOT_AVAILABLE.getErrorMessage(), STUDENT_NOT_AVAILABLE.getErrorCode()));
+                    Enrollment enrollment = new Enrollment();
+                    enrollment.setStudent(student);
+                    enrollment.setCourseHref(courseHref);
+                    student.getEnrollments().add(enrollment);
+                    Student savedStudent = studentRepository.saveAndFlush(student);
+                    outboxEventRepository.save(tuitionFeeEvent(authUserHref, courseDto));
+                    return savedStudent;
+                });
+                studentDashboardService.invalidate(authUserHref);
+                return enrolledStudent;
             } else {
                 log.info("Student is not available and this is first enrolment {}", authUserHref);
-                Student student = new Student();
-                student.setAuthUserHref(authUserHref);
-                Enrollment enrollment = new Enrollment();
-                enrollment.setStudent(student);
-                enrollment.setCourseHref(courseHref);
-                student.setEnrollments(List.of(enrollment));
-                Student savedStudent = studentRepository.saveAndFlush(student);
-                log.info("student creation success student id{} auth id {}", student.getId(), student.getAuthUserHref());
-                JWTTokenDto jwtTokenDto;
-                try {
-                    jwtTokenDto = authService.updateUserStatus(authUserHref, token);
-                    savedStudent.setJwtTokenDto(jwtTokenDto);
-                    log.info("Auth user updated to STUDENT {}", jwtTokenDto.getUserId());
-                } catch (Exception e) {
-                    throw new LBUStudentsRuntimeException(AUTH_SERVICE_USER_UPDATE_ERROR.getErrorMessage(), AUTH_SERVICE_USER_UPDATE_ERROR.getErrorCode(), e);
-                }
-                CourseDto courseDto = courseService.getCourseDetails(courseHref, "Bearer " + jwtTokenDto.getJwtToken());
-                libraryService.createLibraryAccount("Bearer " + jwtTokenDto.getJwtToken());
-                financeService.createOrUpdateFinanceAccount(courseDto, authUserHref, "Bearer " + jwtTokenDto.getJwtToken());
+                EnrolmentDetailsDto enrolmentDetailsDto = enrolmentOrchestrationService.enrolNewStudent(authUserHref, courseHref, token);
+                Student savedStudent = transactionTemplate.execute(status -> {
+                    Student student = new Student();
+                    student.setAuthUserHref(authUserHref);
+                    Enrollment enrollment = new Enrollment();
+                    enrollment.setStudent(student);
+                    enrollment.setCourseHref(courseHref);
+                    student.setEnrollments(List.of(enrollment));
+                    Student newStudent = studentRepository.saveAndFlush(student);
+                    outboxEventRepository.saveAll(List.of(libraryAccountEvent(authUserHref),
+                            tuitionFeeEvent(authUserHref, enrolmentDetailsDto.getCourseDto())));
+                    return newStudent;
+                });
+                log.info("student creation success student id{} auth id {}", savedStudent.getId(), savedStudent.getAuthUserHref());
+                studentDashboardService.invalidate(authUserHref);
+                savedStudent.setJwtTokenDto(enrolmentDetailsDto.getJwtTokenDto());
                 return savedStudent;
             }
-        } catch (DataAccessException e) {
+        } catch (DataAccessException | TransactionException e) {
             log.info("An error occurred while calling the database", e);
             throw new LBUStudentsRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
         }
     }
 
+    private OutboxEvent libraryAccountEvent(String authUserHref) {
+        OutboxEvent event = newOutboxEvent(OutboxEventType.LIBRARY_ACCOUNT, authUserHref);
+        // The library creates one student per user, so the user is the identity of the event
+        event.setIdempotencyKey(LIBRARY_ACCOUNT_KEY_PREFIX + authUserHref);
+        return event;
+    }
+
+    private OutboxEvent tuitionFeeEvent(String authUserHref, CourseDto courseDto) {
+        FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
+        financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
+        financeInvoiceDto.setType(Type.TUITION_FEES);
+        financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
+        financeInvoiceDto.setIdempotencyKey(TUITION_FEE_KEY_PREFIX + UUID.randomUUID());
+        OutboxEvent event = newOutboxEvent(OutboxEventType.TUITION_FEE, authUserHref);
+        event.setIdempotencyKey(financeInvoiceDto.getIdempotencyKey());
+        try {
+            event.setPayload(objectMapper.writeValueAsString(financeInvoiceDto));
+        } catch (JsonProcessingException e) {
+            throw new LBUStudentsRuntimeException(INTERNAL_ERROR.getErrorMessage(), INTERNAL_ERROR.getErrorCode(), e);
+        }
+        return event;
+    }
+
+    private OutboxEvent newOutboxEvent(OutboxEventType eventType, String authUserHref) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAuthUserHref(authUserHref);
+        event.setAttempts(0);
+        event.setNextAttemptTimestamp(Timestamp.from(Instant.now()));
+        return event;
+    }
+
     /**
      * Updates details of an existing student in the system. Validates the provided student object and authentication token.
-     * If the student exists, updates their details and saves the changes to the database.
+     * If the student exists, updates their details, saves the changes to the database and invalidates the cached
+     * dashboard of the student.
      * Throws an exception if the student is not found.
      * Handles database access exceptions and rolls back the transaction in case of any exception.
      *
@@ -118,7 +176,7 @@ public class StudentServiceImpl implements StudentService {
         validateStudent(student);
         authService.validateAuthUserHref(student.getAuthUserHref(), authToken);
         try {
-            Optional<Student> optionalStudent = studentRepository.findByAuthUserHref(student.getAuthUserHref());
+            Optional<Student> optionalStudent = studentRepository.findWithEnrollmentsByAuthUserHref(student.getAuthUserHref());
             if (optionalStudent.isPresent()) {
                 Student existingStudent = optionalStudent.get();
                 existingStudent.setEmergencyContact(student.getEmergencyContact());
@@ -126,7 +184,9 @@ public class StudentServiceImpl implements StudentService {
                 existingStudent.setDateOfBirth(student.getDateOfBirth());
                 existingStudent.setPhoneContact(student.getPhoneContact());
                 log.info("Updating the student details {}", existingStudent);
-                return studentRepository.save(existingStudent);
+                Student updatedStudent = studentRepository.save(existingStudent);
+                studentDashboardService.invalidate(student.getAuthUserHref());
+                return updatedStudent;
             } else {
                 throw new LBUStudentsRuntimeException(STUDENT_NOT_AVAILABLE.getErrorMessage(), STUDENT_NOT_AVAILABLE.getErrorCode());
             }
@@ -153,14 +213,14 @@ public class StudentServiceImpl implements StudentService {
         authService.validateAuthUserHref(authUserHref, authToken);
         try {
             if (Objects.nonNull(authUserHref)) {
-                Optional<Student> studentOptional = studentRepository.findByAuthUserHref(authUserHref);
+                Optional<Student> studentOptional = studentRepository.findWithEnrollmentsByAuthUserHref(authUserHref);
                 if (studentOptional.isPresent()) {
                     return studentOptional.get();
                 } else {
                     throw new LBUStudentsRuntimeException(STUDENT_NOT_AVAILABLE.getErrorMessage(), STUDENT_NOT_AVAILABLE.getErrorCode());
                 }
             } else if (Objects.nonNull(studentId)) {
-                Optional<Student> studentOptional = studentRepository.findById(studentId);
+                Optional<Student> studentOptional = studentRepository.findWithEnrollmentsById(studentId);
                 if (studentOptional.isPresent()) {
                     return studentOptional.get();
                 } else {
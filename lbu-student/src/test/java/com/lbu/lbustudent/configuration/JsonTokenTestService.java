@@ -23,6 +23,10 @@ public class JsonTokenTestService {
     private static final String ROLES = "roles";
 
     public String getJwtToken(String role, String authUserId) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return getJwtToken(role, authUserId, Instant.now().plusMillis(24 * 60 * 60 * 1000));
+    }
+
+    public String getJwtToken(String role, String authUserId, Instant expiration) throws NoSuchAlgorithmException, InvalidKeySpecException {
         Map<String, Object> claims = new HashMap<>();
         claims.put(ROLES, role);
         claims.put(USER_ID, authUserId);
@@ -35,7 +39,7 @@ public class JsonTokenTestService {
                 .issuedAt(Date.from(Instant.now()))
                 .encodePayload(true)
                 .id(UUID.randomUUID().toString())
-                .expiration(new Date(System.currentTimeMillis() + (24 * 60 * 60 * 1000)))
+                .expiration(Date.from(expiration))
                 .signWith(stringToPrivateKey(privateKey))
                 .claims(claims)
                 .compact();
@@ -0,0 +1,29 @@
+package com.lbu.lbustudent.configuration;
+
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Guards for the tests which build the external services by hand, with limits small and short enough to trip in a test
+public final class TestDownstreamGuards {
+
+    private TestDownstreamGuards() {
+    }
+
+    public static DownstreamGuards create(MeterRegistry meterRegistry) {
+        return create(meterRegistry, 4);
+    }
+
+    public static DownstreamGuards create(MeterRegistry meterRegistry, int minimumCalls) {
+        DownstreamGuards downstreamGuards = new DownstreamGuards(meterRegistry);
+        ReflectionTestUtils.setField(downstreamGuards, "maxConcurrent", 5);
+        ReflectionTestUtils.setField(downstreamGuards, "minLimit", 1);
+        ReflectionTestUtils.setField(downstreamGuards, "slowCallMillis", 2000L);
+        ReflectionTestUtils.setField(downstreamGuards, "windowSize", 10);
+        ReflectionTestUtils.setField(downstreamGuards, "minimumCalls", minimumCalls);
+        ReflectionTestUtils.setField(downstreamGuards, "failureRatePercent", 50);
+        ReflectionTestUtils.setField(downstreamGuards, "openMillis", 300L);
+        ReflectionTestUtils.setField(downstreamGuards, "halfOpenProbes", 2);
+        return downstreamGuards;
+    }
+}
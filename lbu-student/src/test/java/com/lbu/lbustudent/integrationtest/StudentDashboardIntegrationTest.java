@@ -0,0 +1,171 @@
+package com.lbu.lbustudent.integrationtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbustudent.commons.constants.ErrorConstants;
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
+import com.lbu.lbustudent.dtos.StudentEnrolmentDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.course.CourseDtos;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+import com.lbu.lbustudent.models.Enrollment;
+import com.lbu.lbustudent.models.Student;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StudentDashboardIntegrationTest extends StudentIntegrationTestConfig {
+
+    @Test
+    public void testWhenGetDashboardWithoutHeader_ThenGetDashboard_ReturnError() throws Exception {
+        testWithoutHeaders(null, "/student/dashboard?authUserHref=/auth/user/" + UUID.randomUUID(), HttpMethod.GET);
+    }
+
+    @Test
+    public void testWhenGetDashboard_ThenComposeServices_ReturnDashboardWithOneBatchedCourseCall() throws Exception {
+        Student student = newStudent(2);
+        String token = withAuthenticationWithStudent();
+        List<String> courseIds = courseIds(student);
+        stubServices(student, courseIds);
+
+        StudentDashboardDto dashboard = getDashboard(student, token);
+
+        Assertions.assertEquals(student.getId(), dashboard.getStudent().getId(), "Student is invalid");
+        Assertions.assertEquals(2, dashboard.getCourses().size(), "Courses are invalid");
+        Assertions.assertEquals(student.getAuthUserHref(), dashboard.getFinanceAccount().getAuthUserHref(), "Finance account is invalid");
+        Assertions.assertEquals(student.getAuthUserHref(), dashboard.getLibraryAccount().getAuthUserHref(), "Library account is invalid");
+        Assertions.assertTrue(dashboard.getUnavailableSections().isEmpty(), "No section should be unavailable");
+        verify(courseService, times(1)).getCourses(eq(courseIds), any());
+    }
+
+    @Test
+    public void testWhenGetDashboardTwice_ThenCachedDashboard_ReturnDashboardWithFreshFinanceAccount() throws Exception {
+        Student student = newStudent(1);
+        String token = withAuthenticationWithStudent();
+        stubServices(student, courseIds(student));
+
+        getDashboard(student, token);
+        StudentDashboardDto dashboard = getDashboard(student, token);
+
+        Assertions.assertEquals(1, dashboard.getCourses().size(), "Courses are invalid");
+        verify(courseService, times(1)).getCourses(eq(courseIds(student)), any());
+        verify(libraryService, times(1)).getLibraryAccount(any());
+        verify(financeService, times(2)).getFinanceAccount(any());
+    }
+
+    @Test
+    public void testWhenFinanceServiceFails_ThenGetDashboard_ReturnPartialDashboardWithOtherSectionsCached() throws Exception {
+        Student student = newStudent(1);
+        String token = withAuthenticationWithStudent();
+        stubServices(student, courseIds(student));
+        when(financeService.getFinanceAccount(any())).thenThrow(new LBUStudentsRuntimeException(
+                ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()));
+
+        StudentDashboardDto dashboard = getDashboard(student, token);
+        getDashboard(student, token);
+
+        Assertions.assertNull(dashboard.getFinanceAccount(), "Finance account should be empty");
+        Assertions.assertEquals(List.of("finance"), dashboard.getUnavailableSections(), "Finance should be unavailable");
+        Assertions.assertEquals(1, dashboard.getCourses().size(), "Courses are invalid");
+        verify(courseService, times(1)).getCourses(eq(courseIds(student)), any());
+        verify(financeService, times(2)).getFinanceAccount(any());
+    }
+
+    @Test
+    public void testWhenNewEnrolment_ThenGetDashboard_ReturnDashboardWithNewCourse() throws Exception {
+        Student student = newStudent(1);
+        String token = withAuthenticationWithStudent();
+        stubServices(student, courseIds(student));
+        getDashboard(student, token);
+
+        StudentEnrolmentDto studentEnrolmentDto = new StudentEnrolmentDto();
+        studentEnrolmentDto.setAuthUserHref(student.getAuthUserHref());
+        studentEnrolmentDto.setCourseHref("/courses/" + UUID.randomUUID());
+        when(courseService.getCourseDetails(eq(studentEnrolmentDto.getCourseHref()), any())).thenReturn(course(studentEnrolmentDto.getCourseHref()));
+        mockMvc.perform(MockMvcRequestBuilders.post("/student/enrolment")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .content(asJsonString(studentEnrolmentDto)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        List<String> courseIds = new ArrayList<>(courseIds(student));
+        courseIds.add(studentEnrolmentDto.getCourseHref().replace("/courses/", ""));
+        when(courseService.getCourses(anyList(), any())).thenReturn(courses(courseIds));
+
+        StudentDashboardDto dashboard = getDashboard(student, token);
+
+        Assertions.assertEquals(2, dashboard.getCourses().size(), "Dashboard should show the new enrolment");
+        Assertions.assertEquals(2, dashboard.getStudent().getCourseHrefs().size(), "Student should show the new enrolment");
+    }
+
+    private StudentDashboardDto getDashboard(Student student, String token) throws Exception {
+        String response = mockMvc.perform(MockMvcRequestBuilders.get("/student/dashboard")
+                        .param("authUserHref", student.getAuthUserHref())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readValue(response, StudentDashboardDto.class);
+    }
+
+    private void stubServices(Student student, List<String> courseIds) {
+        when(courseService.getCourses(anyList(), any())).thenReturn(courses(courseIds));
+        FinanceAccountDto financeAccountDto = new FinanceAccountDto();
+        financeAccountDto.setAuthUserHref(student.getAuthUserHref());
+        financeAccountDto.setInvoiceList(List.of());
+        when(financeService.getFinanceAccount(any())).thenReturn(financeAccountDto);
+        LibraryStudentDto libraryStudentDto = new LibraryStudentDto();
+        libraryStudentDto.setAuthUserHref(student.getAuthUserHref());
+        libraryStudentDto.setBorrowedBooks(List.of());
+        when(libraryService.getLibraryAccount(any())).thenReturn(libraryStudentDto);
+    }
+
+    private Student newStudent(int enrolments) {
+        Student student = new Student();
+        student.setAuthUserHref("/auth/user/" + UUID.randomUUID());
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < enrolments; i++) {
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudent(student);
+            enrollment.setCourseHref("/courses/" + UUID.randomUUID());
+            enrollments.add(enrollment);
+        }
+        student.setEnrollments(enrollments);
+        return studentRepository.save(student);
+    }
+
+    private static List<String> courseIds(Student student) {
+        return student.getEnrollments().stream().map(enrollment -> enrollment.getCourseHref().replace("/courses/", "")).toList();
+    }
+
+    private static CourseDtos courses(List<String> courseIds) {
+        CourseDtos courseDtos = new CourseDtos();
+        courseDtos.setCourses(courseIds.stream().map(courseId -> course("/courses/" + courseId)).toList());
+        return courseDtos;
+    }
+
+    private static CourseDto course(String courseHref) {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setIdHref(courseHref);
+        courseDto.setTitle("Testing");
+        courseDto.setFees(new BigDecimal("123.0"));
+        courseDto.setDurationInDays(10);
+        return courseDto;
+    }
+}
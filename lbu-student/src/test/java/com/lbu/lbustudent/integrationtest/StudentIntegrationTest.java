@@ -20,7 +20,6 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
 public class StudentIntegrationTest extends StudentIntegrationTestConfig {
@@ -85,7 +84,6 @@ public class StudentIntegrationTest extends StudentIntegrationTestConfig {
         courseDto.setTitle("Testing");
         courseDto.setDurationInDays(10);
         when(courseService.getCourseDetails(studentEnrolmentDto.getCourseHref(), token)).thenReturn(courseDto);
-        doNothing().when(financeService).createOrUpdateFinanceAccount(courseDto, studentEnrolmentDto.getAuthUserHref(), token);
         ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/student/enrolment")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
@@ -111,12 +109,10 @@ public class StudentIntegrationTest extends StudentIntegrationTestConfig {
         courseDto.setDurationInDays(10);
         /*mocking external services*/
         when(courseService.getCourseDetails(studentEnrolmentDto.getCourseHref(), token)).thenReturn(courseDto);
-        doNothing().when(financeService).createOrUpdateFinanceAccount(courseDto, authUserHref, token);
         JWTTokenDto jwtTokenDto = new JWTTokenDto();
         jwtTokenDto.setUserId(userId);
         jwtTokenDto.setJwtToken(token);
         when(authService.updateUserStatus(any(), any())).thenReturn(jwtTokenDto);
-        when(libraryService.createLibraryAccount("Bearer " + token)).thenReturn(Boolean.TRUE);
 
         ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/student/enrolment")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -91,7 +91,7 @@ public abstract class StudentIntegrationTestConfig {
     protected Student getAnExistingStudent() {
         List<Student> existingStudents = studentRepository.findAll();
         Assertions.assertTrue((long) existingStudents.size() > 0, "No existingStudents available");
-        return existingStudents.get(0);
+        return studentRepository.findWithEnrollmentsById(existingStudents.get(0).getId()).orElseThrow();
     }
 
     protected void testWithoutHeaders(Object dto, String url, HttpMethod httpMethod) throws Exception {
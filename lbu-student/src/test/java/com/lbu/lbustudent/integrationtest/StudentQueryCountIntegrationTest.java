@@ -0,0 +1,92 @@
+package com.lbu.lbustudent.integrationtest;
+
+import com.lbu.lbustudent.dtos.StudentEnrolmentDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.models.Enrollment;
+import com.lbu.lbustudent.models.Student;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class StudentQueryCountIntegrationTest extends StudentIntegrationTestConfig {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testWhenGetStudent_ThenEnrollmentsFetchedWithStudent_ReturnOneStatementForAnyEnrollmentCount() throws Exception {
+        String token = withAuthenticationWithStudent();
+        for (int enrolments : new int[]{1, 5}) {
+            Student student = newStudent(enrolments);
+            long statements = countStatements(() -> mockMvc.perform(MockMvcRequestBuilders.get("/student")
+                            .param("authUserHref", student.getAuthUserHref())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.courseHrefs.length()").value(enrolments)));
+            Assertions.assertEquals(1, statements, "Get student with " + enrolments + " enrolments should be one statement");
+        }
+    }
+
+    @Test
+    public void testWhenEnrolExistingStudent_ThenEnrolmentHistory_ReturnSameStatementCount() throws Exception {
+        String token = withAuthenticationWithStudent();
+        CourseDto courseDto = new CourseDto();
+        courseDto.setFees(new BigDecimal("123.0"));
+        courseDto.setDurationInDays(10);
+        when(courseService.getCourseDetails(any(), any())).thenReturn(courseDto);
+        List<Long> statements = new ArrayList<>();
+        for (int enrolments : new int[]{1, 5}) {
+            StudentEnrolmentDto studentEnrolmentDto = new StudentEnrolmentDto();
+            studentEnrolmentDto.setAuthUserHref(newStudent(enrolments).getAuthUserHref());
+            studentEnrolmentDto.setCourseHref("/courses/" + UUID.randomUUID());
+            statements.add(countStatements(() -> mockMvc.perform(MockMvcRequestBuilders.post("/student/enrolment")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .content(asJsonString(studentEnrolmentDto)))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.courseHrefs.length()").value(enrolments + 1))));
+        }
+        Assertions.assertEquals(statements.get(0), statements.get(1), "Enrolment statements should not grow with the enrolment history");
+    }
+
+    private long countStatements(Request request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        request.perform();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Student newStudent(int enrolments) {
+        Student student = new Student();
+        student.setAuthUserHref("/auth/user/" + UUID.randomUUID());
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < enrolments; i++) {
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudent(student);
+            enrollment.setCourseHref("/courses/" + UUID.randomUUID());
+            enrollments.add(enrollment);
+        }
+        student.setEnrollments(enrollments);
+        return studentRepository.save(student);
+    }
+
+    private interface Request {
+        void perform() throws Exception;
+    }
+}
@@ -0,0 +1,123 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbustudent.commons.externalservices.auth.services.impl.AuthServiceImpl;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.configuration.JsonTokenTestService;
+import io.jsonwebtoken.JwtParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AuthServiceTest extends StudentTestConfig {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JsonTokenTestService jsonTokenTestService;
+
+    @Value("${custom.properties.jwt.public.key}")
+    private String publicKey;
+
+    @Test
+    void testWhenValidateTokenTwice_ThenValidToken_ReturnSameAuthentication() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        String authUserId = UUID.randomUUID().toString();
+        String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", authUserId);
+        Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+        Authentication authentication = authService.getAuthentication(token);
+        Assertions.assertEquals("test", authentication.getName(), "Invalid principal name");
+        Assertions.assertEquals("ROLE_STUDENT", authentication.getAuthorities().iterator().next().getAuthority(), "Invalid authority");
+        Assertions.assertEquals("/auth/user/" + authUserId, authService.validateAuthUserHref("/auth/user/" + authUserId, "Bearer " + token), "Invalid auth user href");
+    }
+
+    @Test
+    void testWhenValidateToken_ThenTamperedToken_ReturnCustomException() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", UUID.randomUUID().toString());
+        Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+        String[] parts = token.split("\\.");
+        String tamperedToken = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                () -> authService.validateToken(tamperedToken));
+        Assertions.assertEquals(6002, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    void testWhenValidateTokenRepeatedly_ThenCachedClaims_ParseSignatureOnce() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        JwtParser jwtParser = (JwtParser) ReflectionTestUtils.getField(authService, "jwtParser");
+        JwtParser countingParser = Mockito.mock(JwtParser.class, AdditionalAnswers.delegatesTo(jwtParser));
+        ReflectionTestUtils.setField(authService, "jwtParser", countingParser);
+        try {
+            String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", UUID.randomUUID().toString());
+            for (int i = 0; i < 10; i++) {
+                Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+                Assertions.assertEquals("test", authService.getAuthentication(token).getName(), "Invalid principal name");
+            }
+            Mockito.verify(countingParser, Mockito.times(1)).parse(token);
+        } finally {
+            ReflectionTestUtils.setField(authService, "jwtParser", jwtParser);
+        }
+    }
+
+    @Test
+    void testWhenCachedTokenExpires_ThenValidateToken_ReturnExpiredException() throws Exception {
+        String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", UUID.randomUUID().toString(), Instant.now().plusSeconds(1));
+        Assertions.assertTrue(authService.validateToken(token), "Token should be valid");
+        // The exp claim has a precision of one second
+        Thread.sleep(2100);
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                () -> authService.validateToken(token));
+        Assertions.assertEquals(6001, exception.getCode(), "Cached token should not be accepted after it expired");
+    }
+
+    @Test
+    void testWhenManyTokensValidatedConcurrently_ThenClaimsCache_ReturnBoundedAndAllValid() throws Exception {
+        int threads = 8;
+        AuthServiceImpl boundedAuthService = new AuthServiceImpl(Mockito.mock(RestTemplate.class),
+                Mockito.mock(DownstreamGuards.class), publicKey, 100);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(jsonTokenTestService.getJwtToken("ROLE_STUDENT", UUID.randomUUID().toString()));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread * 125;
+                results.add(executorService.submit(() -> {
+                    boolean valid = true;
+                    for (int i = 0; i < tokens.size(); i++) {
+                        valid &= boundedAuthService.validateToken(tokens.get((offset + i) % tokens.size()));
+                    }
+                    return valid;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get(), "Every token should be valid");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Map<?, ?> claimsByTokenHash = (Map<?, ?>) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(boundedAuthService, "jwtClaimsCache"), "claimsByTokenHash");
+        Assertions.assertTrue(claimsByTokenHash.size() <= 100 + threads, "Claims cache should stay bounded");
+    }
+}
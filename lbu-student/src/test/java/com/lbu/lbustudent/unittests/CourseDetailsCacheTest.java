@@ -0,0 +1,163 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.course.services.impl.CourseServiceImpl;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.configuration.TestDownstreamGuards;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CourseDetailsCacheTest {
+
+    private static final String TOKEN = "Bearer caller";
+    private static final String COURSE_HREF = "/courses/1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger courseRequests = new AtomicInteger();
+    private final AtomicInteger conditionalRequests = new AtomicInteger();
+    private volatile long courseDelayMillis;
+    private volatile int courseStatus = 200;
+    private volatile String courseTitle = "Testing";
+    private volatile String courseETag = "\"v1\"";
+    private HttpServer courseServer;
+    private CourseServiceImpl courseService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        courseServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        courseServer.createContext("/courses", this::respond);
+        courseServer.setExecutor(Executors.newFixedThreadPool(16));
+        courseServer.start();
+        DownstreamGuards downstreamGuards = TestDownstreamGuards.create(meterRegistry);
+        courseService = new CourseServiceImpl(new RestTemplateBuilder()
+                .rootUri("http://localhost:" + courseServer.getAddress().getPort()).build(), downstreamGuards, 100, meterRegistry);
+        ReflectionTestUtils.setField(courseService, "cacheTtlSeconds", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseServer.stop(0);
+    }
+
+    @Test
+    void testWhenThousandSimultaneousEnrolments_ThenMissesCoalesced_ReturnOneCourseFetch() throws Exception {
+        courseDelayMillis = 500;
+        int enrolments = 1_000;
+        ExecutorService workers = Executors.newFixedThreadPool(enrolments);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CourseDto>> calls = new ArrayList<>();
+            for (int i = 0; i < enrolments; i++) {
+                calls.add(workers.submit(() -> {
+                    start.await();
+                    return courseService.getCourseDetails(COURSE_HREF, TOKEN);
+                }));
+            }
+            start.countDown();
+            for (Future<CourseDto> call : calls) {
+                Assertions.assertEquals("Testing", call.get(10, TimeUnit.SECONDS).getTitle(), "Course is invalid");
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        double hits = requests("hit");
+        double coalesced = requests("coalesced");
+        Assertions.assertEquals(1, courseRequests.get(), "Concurrent misses should share one course fetch");
+        Assertions.assertEquals(1, requests("miss"), "Invalid misses");
+        Assertions.assertEquals(enrolments - 1, hits + coalesced, "Every other enrolment should avoid the course service");
+    }
+
+    @Test
+    void testWhenCourseCached_ThenGetCourseDetails_ReturnCourseWithoutFetch() {
+        courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        CourseDto courseDto = courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        Assertions.assertEquals("Testing", courseDto.getTitle(), "Course is invalid");
+        Assertions.assertEquals(1, courseRequests.get(), "Cached course should not be fetched");
+        Assertions.assertEquals(1, requests("hit"), "Invalid hits");
+    }
+
+    @Test
+    void testWhenCourseExpiredAndUnchanged_ThenRevalidateWithETag_ReturnCachedCourse() {
+        CourseDto cachedCourseDto = courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        ReflectionTestUtils.setField(courseService, "cacheTtlSeconds", 0L);
+        CourseDto courseDto = courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        Assertions.assertSame(cachedCourseDto, courseDto, "Unchanged course should be served from the cache");
+        Assertions.assertEquals(1, conditionalRequests.get(), "Expired course should be revalidated with its ETag");
+        Assertions.assertEquals(1, meterRegistry.get("lbu.student.course.cache.revalidations")
+                .tag("result", "not modified").counter().count(), "Invalid revalidations");
+    }
+
+    @Test
+    void testWhenCourseExpiredAndChanged_ThenRevalidateWithETag_ReturnNewCourse() {
+        courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        ReflectionTestUtils.setField(courseService, "cacheTtlSeconds", 0L);
+        courseTitle = "Changed";
+        courseETag = "\"v2\"";
+        CourseDto courseDto = courseService.getCourseDetails(COURSE_HREF, TOKEN);
+        Assertions.assertEquals("Changed", courseDto.getTitle(), "Changed course should be fetched");
+        Assertions.assertEquals(1, meterRegistry.get("lbu.student.course.cache.revalidations")
+                .tag("result", "modified").counter().count(), "Invalid revalidations");
+    }
+
+    @Test
+    void testWhenCourseFetchFails_ThenGetCourseDetails_ReturnErrorNotCached() {
+        courseStatus = 500;
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                () -> courseService.getCourseDetails(COURSE_HREF, TOKEN));
+        Assertions.assertEquals(7001, exception.getCode(), "Invalid exception code");
+        courseStatus = 200;
+        Assertions.assertEquals("Testing", courseService.getCourseDetails(COURSE_HREF, TOKEN).getTitle(), "Course is invalid");
+        Assertions.assertEquals(2, courseRequests.get(), "Failed fetch should not be cached");
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("lbu.student.course.cache.requests").tag("result", result).counter().count();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        courseRequests.incrementAndGet();
+        try {
+            Thread.sleep(courseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            conditionalRequests.incrementAndGet();
+        }
+        exchange.getResponseHeaders().add("ETag", courseETag);
+        if (courseStatus == 200 && courseETag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = ("{\"idHref\":\"" + COURSE_HREF + "\",\"title\":\"" + courseTitle + "\",\"fees\":100.0,\"durationInDays\":5}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(courseStatus, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.configs.HttpClientRequestFactoryProvider;
+import com.lbu.lbustudent.commons.externalservices.course.services.impl.CourseServiceImpl;
+import com.lbu.lbustudent.commons.externalservices.finance.services.impl.FinanceServiceImpl;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuard;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamRejectedException;
+import com.lbu.lbustudent.configuration.TestDownstreamGuards;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DownstreamGuardFaultInjectionTest {
+
+    private static final String TOKEN = "Bearer caller";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger financeRequests = new AtomicInteger();
+    private final AtomicInteger financeInFlight = new AtomicInteger();
+    private final AtomicInteger financeMaxInFlight = new AtomicInteger();
+    private volatile long financeDelayMillis;
+    private volatile int financeStatus = 200;
+    private volatile int courseStatus = 200;
+    private HttpServer financeServer;
+    private HttpServer courseServer;
+    private HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
+    private DownstreamGuards downstreamGuards;
+    private FinanceServiceImpl financeService;
+    private CourseServiceImpl courseService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        financeServer = stubServer("/finance/accounts/invoices", exchange -> {
+            financeRequests.incrementAndGet();
+            financeMaxInFlight.accumulateAndGet(financeInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(financeDelayMillis);
+                respond(exchange, financeStatus, "{\"message\":\"Given invoices successfully ingested.\",\"code\":2002}");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                financeInFlight.decrementAndGet();
+            }
+        });
+        courseServer = stubServer("/courses", exchange -> respond(exchange, courseStatus,
+                "{\"idHref\":\"/courses/1\",\"title\":\"Testing\",\"fees\":100.0,\"durationInDays\":5}"));
+        httpClientRequestFactoryProvider = new HttpClientRequestFactoryProvider(meterRegistry);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "maxConnections", 50);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "readTimeoutMillis", 3000L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "idleSeconds", 30L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "timeToLiveSeconds", 300L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "http2Enabled", false);
+        downstreamGuards = TestDownstreamGuards.create(meterRegistry);
+        financeService = new FinanceServiceImpl(restTemplate(financeServer, "finance"), downstreamGuards);
+        courseService = new CourseServiceImpl(restTemplate(courseServer, "course"), downstreamGuards, 100, meterRegistry);
+        // Every course call is a cache miss so the calls reach the course service
+        ReflectionTestUtils.setField(courseService, "cacheTtlSeconds", 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClientRequestFactoryProvider.destroy();
+        financeServer.stop(0);
+        courseServer.stop(0);
+    }
+
+    @Test
+    void testWhenFinanceHangs_ThenWorkersCallBothServices_ReturnCourseCallsUnaffected() throws Exception {
+        financeDelayMillis = 1500;
+        ExecutorService workers = Executors.newFixedThreadPool(40);
+        try {
+            List<Future<Long>> financeCalls = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                financeCalls.add(workers.submit(() -> timed(() -> financeService.ingestInvoices(List.of(), TOKEN))));
+            }
+            Thread.sleep(100);
+            List<Future<Long>> courseCalls = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                courseCalls.add(workers.submit(() -> timed(() -> courseService.getCourseDetails("/courses/1", TOKEN))));
+            }
+            for (Future<Long> courseCall : courseCalls) {
+                Assertions.assertTrue(courseCall.get(5, TimeUnit.SECONDS) < 1000, "Course call was held up by finance");
+            }
+            long rejected = 0;
+            for (Future<Long> financeCall : financeCalls) {
+                if (financeCall.get(5, TimeUnit.SECONDS) < 500) {
+                    rejected++;
+                }
+            }
+            Assertions.assertTrue(financeMaxInFlight.get() <= 5, "Bulkhead let " + financeMaxInFlight.get() + " calls through");
+            Assertions.assertTrue(rejected >= 25, "Calls over the bulkhead should fail fast but only " + rejected + " did");
+            Assertions.assertTrue(meterRegistry.get("lbu.student.downstream.rejected").tag("downstream", "finance")
+                    .tag("reason", "concurrency limit").counter().count() >= 25, "Rejections were not counted");
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWhenFinanceFails_ThenFailureRateReached_ReturnCircuitOpenWithoutCalls() {
+        financeStatus = 500;
+        for (int i = 0; i < 4; i++) {
+            assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        }
+        LBUStudentsRuntimeException exception = assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        Assertions.assertInstanceOf(DownstreamRejectedException.class, exception.getCause(), "Call should be rejected");
+        Assertions.assertEquals(4, financeRequests.get(), "Open circuit should not call finance");
+        Assertions.assertEquals(DownstreamGuard.State.OPEN, downstreamGuards.get("finance").getState(), "Circuit should be open");
+    }
+
+    @Test
+    void testWhenFinanceRecovers_ThenHalfOpenProbesSucceed_ReturnCircuitClosed() throws Exception {
+        financeStatus = 500;
+        for (int i = 0; i < 4; i++) {
+            assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        }
+        financeStatus = 200;
+        Thread.sleep(400);
+        financeService.ingestInvoices(List.of(), TOKEN);
+        Assertions.assertEquals(DownstreamGuard.State.HALF_OPEN, downstreamGuards.get("finance").getState(), "Circuit should be half open");
+        financeService.ingestInvoices(List.of(), TOKEN);
+        Assertions.assertEquals(DownstreamGuard.State.CLOSED, downstreamGuards.get("finance").getState(), "Circuit should be closed");
+        Assertions.assertEquals(6, financeRequests.get(), "Invalid finance calls");
+    }
+
+    @Test
+    void testWhenFinanceStillFails_ThenHalfOpenProbeFails_ReturnCircuitOpenAgain() throws Exception {
+        financeStatus = 500;
+        for (int i = 0; i < 4; i++) {
+            assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        }
+        Thread.sleep(400);
+        assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        Assertions.assertEquals(DownstreamGuard.State.OPEN, downstreamGuards.get("finance").getState(), "Circuit should open again");
+        assertFinanceError(() -> financeService.ingestInvoices(List.of(), TOKEN));
+        Assertions.assertEquals(5, financeRequests.get(), "Only the probe should call finance");
+    }
+
+    @Test
+    void testWhenCourseNotFound_ThenClientErrors_ReturnCircuitClosed() {
+        courseStatus = 404;
+        for (int i = 0; i < 10; i++) {
+            LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                    () -> courseService.getCourseDetails("/courses/1", TOKEN));
+            Assertions.assertEquals(7001, exception.getCode(), "Invalid exception code");
+        }
+        Assertions.assertEquals(DownstreamGuard.State.CLOSED, downstreamGuards.get("course").getState(), "Client errors should not open the circuit");
+    }
+
+    @Test
+    void testWhenCallsAreSlow_ThenAdaptiveLimit_ReturnLimitReducedAndExcessRejected() {
+        ReflectionTestUtils.setField(downstreamGuards, "slowCallMillis", 100L);
+        DownstreamGuard guard = downstreamGuards.get("slow");
+        Assertions.assertEquals(5, guard.getLimit(), "Invalid initial limit");
+        for (int i = 0; i < 6; i++) {
+            guard.execute(() -> sleep(150), e -> {
+                throw e;
+            });
+        }
+        Assertions.assertEquals(1, guard.getLimit(), "Slow calls should cut the limit to the minimum");
+        Assertions.assertEquals(DownstreamGuard.State.CLOSED, guard.getState(), "Slow calls should not open the circuit");
+        RuntimeException rejection = guard.execute(() -> guard.execute(() -> null, e -> e), e -> e);
+        Assertions.assertInstanceOf(DownstreamRejectedException.class, rejection, "Call over the limit should be rejected");
+    }
+
+    @Test
+    void testWhenCircuitOpen_ThenFallbackHook_ReturnFallbackResult() {
+        DownstreamGuard guard = downstreamGuards.get("course");
+        courseStatus = 500;
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThrows(LBUStudentsRuntimeException.class, () -> courseService.getCourseDetails("/courses/1", TOKEN));
+        }
+        CourseDto fallback = new CourseDto();
+        fallback.setTitle("Cached");
+        CourseDto courseDto = guard.execute(() -> courseService.getCourseDetails("/courses/1", TOKEN), e -> fallback);
+        Assertions.assertEquals("Cached", courseDto.getTitle(), "Fallback was not used");
+    }
+
+    @Test
+    void testWhenCallStartedBeforeCircuitOpened_ThenEndsWhileHalfOpen_ReturnNotCountedAsProbe() throws Exception {
+        DownstreamGuard guard = downstreamGuards.get("stale");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> staleCall = worker.submit(() -> guard.execute(() -> {
+                started.countDown();
+                await(finish);
+                return Boolean.TRUE;
+            }, e -> {
+                throw e;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 4; i++) {
+                guard.execute(() -> {
+                    throw new IllegalStateException("down");
+                }, e -> null);
+            }
+            Assertions.assertEquals(DownstreamGuard.State.OPEN, guard.getState(), "Circuit should be open");
+            Thread.sleep(400);
+            guard.execute(() -> Boolean.TRUE, e -> null);
+            Assertions.assertEquals(DownstreamGuard.State.HALF_OPEN, guard.getState(), "Circuit should be half open");
+            finish.countDown();
+            Assertions.assertTrue(staleCall.get(5, TimeUnit.SECONDS), "Stale call should complete");
+            Assertions.assertEquals(DownstreamGuard.State.HALF_OPEN, guard.getState(), "Call started while closed is not a probe");
+            guard.execute(() -> Boolean.TRUE, e -> null);
+            Assertions.assertEquals(DownstreamGuard.State.CLOSED, guard.getState(), "Circuit should close after the probes");
+            Assertions.assertEquals(0, guard.getInFlight(), "Every call should be released");
+        } finally {
+            finish.countDown();
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWhenCallThrowsError_ThenGuard_ReturnCallReleased() {
+        DownstreamGuard guard = downstreamGuards.get("error");
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThrows(AssertionError.class, () -> guard.execute(() -> {
+                throw new AssertionError("broken");
+            }, e -> null));
+        }
+        Assertions.assertEquals(0, guard.getInFlight(), "Call ended by an error should be released");
+        Assertions.assertEquals(DownstreamGuard.State.OPEN, guard.getState(), "Errors should count as failures");
+    }
+
+    private static Boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Boolean.TRUE;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long timed(Runnable call) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (LBUStudentsRuntimeException e) {
+            // Rejected and failed calls are measured the same as successful ones
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static LBUStudentsRuntimeException assertFinanceError(Runnable call) {
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class, call::run);
+        Assertions.assertEquals(7003, exception.getCode(), "Invalid exception code");
+        return exception;
+    }
+
+    private RestTemplate restTemplate(HttpServer server, String name) {
+        return new RestTemplateBuilder().rootUri("http://localhost:" + server.getAddress().getPort())
+                .requestFactory(() -> httpClientRequestFactoryProvider.create(name)).build();
+    }
+
+    private static HttpServer stubServer(String path, com.sun.net.httpserver.HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(path, handler);
+        server.setExecutor(Executors.newFixedThreadPool(64));
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
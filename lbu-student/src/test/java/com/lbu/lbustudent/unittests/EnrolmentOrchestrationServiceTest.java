@@ -0,0 +1,120 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
+import com.lbu.lbustudent.dtos.EnrolmentDetailsDto;
+import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.service.impl.EnrolmentOrchestrationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class EnrolmentOrchestrationServiceTest {
+
+    private static final String AUTH_USER_HREF = "/auth/user/a5aea676-4e5f-4fe2-bf60-193c398fa60a";
+    private static final String COURSE_HREF = "/courses/0b7c7ff6-4b1e-4bd8-93f4-7e1dd7a0b3f4";
+
+    private final AuthService authService = Mockito.mock(AuthService.class);
+    private final CourseService courseService = Mockito.mock(CourseService.class);
+    private ThreadPoolTaskExecutor executor;
+    private EnrolmentOrchestrationServiceImpl enrolmentOrchestrationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.initialize();
+        enrolmentOrchestrationService = new EnrolmentOrchestrationServiceImpl(authService, courseService, executor);
+        ReflectionTestUtils.setField(enrolmentOrchestrationService, "callTimeoutMillis", 2000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testWhenEnrolNewStudent_ThenIndependentCallsOverlap_ReturnStudentTokenAndCourse() {
+        stubDownstreams(500, 500);
+        long start = System.nanoTime();
+        EnrolmentDetailsDto enrolmentDetailsDto = enrolmentOrchestrationService.enrolNewStudent(AUTH_USER_HREF, COURSE_HREF, "Bearer caller");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertEquals("student", enrolmentDetailsDto.getJwtTokenDto().getJwtToken(), "Student token is invalid");
+        Assertions.assertEquals(5, enrolmentDetailsDto.getCourseDto().getDurationInDays(), "Course is invalid");
+        Assertions.assertTrue(elapsedMillis < 900, "Calls should overlap but enrolment took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testWhenEnrolNewStudent_ThenCourseCallTimesOut_ReturnCourseError() {
+        stubDownstreams(0, 10_000);
+        ReflectionTestUtils.setField(enrolmentOrchestrationService, "callTimeoutMillis", 200L);
+        long start = System.nanoTime();
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                () -> enrolmentOrchestrationService.enrolNewStudent(AUTH_USER_HREF, COURSE_HREF, "Bearer caller"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertEquals(7001, exception.getCode(), "Invalid exception code");
+        Assertions.assertTrue(elapsedMillis < 2000, "Course call should be cut at its deadline but took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testWhenEnrolNewStudent_ThenAuthAndCourseFail_ReturnAuthErrorFirst() {
+        when(authService.updateUserStatus(anyString(), anyString())).thenReturn(null);
+        when(courseService.getCourseDetails(anyString(), anyString())).thenThrow(new LBUStudentsRuntimeException("course", 7001));
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
+                () -> enrolmentOrchestrationService.enrolNewStudent(AUTH_USER_HREF, COURSE_HREF, "Bearer caller"));
+        Assertions.assertEquals(7000, exception.getCode(), "Invalid exception code");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.enrolment.benchmark", matches = "true")
+    void benchmarkEnrolmentLatencyAgainstStubbedDownstreams() {
+        long[][] latencies = {{100, 100}, {50, 200}, {200, 50}};
+        for (long[] latency : latencies) {
+            stubDownstreams(latency[0], latency[1]);
+            long[] samples = new long[10];
+            for (int i = 0; i < samples.length; i++) {
+                long start = System.nanoTime();
+                enrolmentOrchestrationService.enrolNewStudent(AUTH_USER_HREF, COURSE_HREF, "Bearer caller");
+                samples[i] = (System.nanoTime() - start) / 1_000_000;
+            }
+            Arrays.sort(samples);
+            long sequential = Arrays.stream(latency).sum();
+            long criticalPath = Math.max(latency[0], latency[1]);
+            System.out.printf("Downstream latencies %s ms: sequential %d ms, critical path %d ms, orchestrated median %d ms%n",
+                    Arrays.toString(latency), sequential, criticalPath, samples[samples.length / 2]);
+            Assertions.assertTrue(samples[samples.length / 2] < sequential, "Orchestrated enrolment should beat the sequential sum");
+        }
+    }
+
+    private void stubDownstreams(long authMillis, long courseMillis) {
+        Mockito.reset(authService, courseService);
+        JWTTokenDto jwtTokenDto = new JWTTokenDto();
+        jwtTokenDto.setJwtToken("student");
+        jwtTokenDto.setUserId("a5aea676-4e5f-4fe2-bf60-193c398fa60a");
+        CourseDto courseDto = new CourseDto();
+        courseDto.setFees(new BigDecimal("100.00"));
+        courseDto.setDurationInDays(5);
+        when(authService.updateUserStatus(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(authMillis);
+            return jwtTokenDto;
+        });
+        when(courseService.getCourseDetails(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(courseMillis);
+            return courseDto;
+        });
+    }
+}
@@ -0,0 +1,168 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.externalservices.configs.HttpClientRequestFactoryProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+public class HttpClientRequestFactoryProviderTest {
+
+    private static final String BODY = "{\"title\":\"" + "course ".repeat(200) + "\"}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private HttpClientRequestFactoryProvider httpClientRequestFactoryProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/courses", exchange -> respond(exchange, BODY.getBytes(StandardCharsets.UTF_8), false));
+        server.createContext("/compressed", exchange -> respond(exchange, gzip(BODY), true));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, BODY.getBytes(StandardCharsets.UTF_8), false);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.start();
+        httpClientRequestFactoryProvider = new HttpClientRequestFactoryProvider(meterRegistry);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "maxConnections", 50);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "readTimeoutMillis", 500L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "idleSeconds", 30L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "timeToLiveSeconds", 300L);
+        ReflectionTestUtils.setField(httpClientRequestFactoryProvider, "http2Enabled", false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClientRequestFactoryProvider.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void testWhenSequentialRequests_ThenPooledClient_ReturnResponsesOverOneConnection() {
+        RestTemplate restTemplate = pooledRestTemplate();
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(BODY, restTemplate.getForObject("/courses", String.class), "Response is invalid");
+        }
+        Assertions.assertEquals(1, clientPorts.size(), "Connection was not kept alive");
+    }
+
+    @Test
+    void testWhenCompressedResponse_ThenPooledClient_ReturnDecompressedBody() {
+        Assertions.assertEquals(BODY, pooledRestTemplate().getForObject("/compressed", String.class), "Response was not decompressed");
+    }
+
+    @Test
+    void testWhenSlowResponse_ThenPooledClient_ReturnTimeoutError() {
+        RestTemplate restTemplate = pooledRestTemplate();
+        long start = System.nanoTime();
+        Assertions.assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject("/slow", String.class));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(elapsedMillis < 1500, "Read should time out but took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testWhenPooledClientCreated_ThenMetricsBound_ReturnPoolGauges() {
+        pooledRestTemplate().getForObject("/courses", String.class);
+        Assertions.assertEquals(50.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "course").gauge().value(), "Pool max gauge is invalid");
+        Assertions.assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "course").tag("state", "available").gauge().value(), "Available connections gauge is invalid");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.httpclient.benchmark", matches = "true")
+    void benchmarkPooledAndDefaultClientThroughput() throws Exception {
+        RestTemplate defaultRestTemplate = new RestTemplateBuilder().rootUri(baseUrl())
+                .requestFactory(SimpleClientHttpRequestFactory::new).build();
+        RestTemplate pooledRestTemplate = pooledRestTemplate();
+        for (int threads : new int[]{1, 8, 32}) {
+            double defaultThroughput = throughput(defaultRestTemplate, threads, 2_000);
+            double pooledThroughput = throughput(pooledRestTemplate, threads, 2_000);
+            System.out.printf("%d threads: default client %.0f req/s, pooled client %.0f req/s, connections opened %d%n",
+                    threads, defaultThroughput, pooledThroughput, clientPorts.size());
+            Assertions.assertTrue(pooledThroughput > defaultThroughput * 0.9, "Pooled client should not be slower for " + threads);
+        }
+    }
+
+    private RestTemplate pooledRestTemplate() {
+        return new RestTemplateBuilder().rootUri(baseUrl())
+                .requestFactory(() -> httpClientRequestFactoryProvider.create("course")).build();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static double throughput(RestTemplate restTemplate, int threads, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < requests / 4; i++) {
+                restTemplate.getForObject("/courses", String.class);
+            }
+            long start = System.nanoTime();
+            Future<?>[] futures = new Future<?>[requests];
+            for (int i = 0; i < requests; i++) {
+                futures[i] = executor.submit(() -> restTemplate.getForObject("/courses", String.class));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return requests / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void respond(HttpExchange exchange, byte[] body, boolean gzip) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (gzip) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+            gzipOutputStream.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,200 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.constants.ErrorConstants;
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.ServiceTokenService;
+import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.models.OutboxEvent;
+import com.lbu.lbustudent.models.OutboxEventType;
+import com.lbu.lbustudent.repositories.OutboxEventRepository;
+import com.lbu.lbustudent.service.OutboxRelayService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboxRelayServiceTest extends StudentTestConfig {
+
+    private static final String SERVICE_TOKEN = "Bearer service-token";
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private LibraryService libraryService;
+
+    @MockBean
+    private FinanceService financeService;
+
+    @MockBean
+    private ServiceTokenService serviceTokenService;
+
+    @BeforeEach
+    void setUp() {
+        when(serviceTokenService.getServiceToken()).thenReturn(SERVICE_TOKEN);
+    }
+
+    @Test
+    void testWhenRelayRuns_ThenPendingEvents_ReturnOneBulkCallPerService() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        saveEvents(authUserHref);
+        outboxRelayService.relayOutboxEvents();
+        outboxRelayService.relayOutboxEvents();
+        verify(libraryService, times(1)).createLibraryAccounts(argThat((List<String> authUserHrefs) -> authUserHrefs.contains(authUserHref)),
+                eq(SERVICE_TOKEN));
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> hasTuitionFees(accounts, authUserHref, 2)),
+                eq(SERVICE_TOKEN));
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> Objects.nonNull(event.getDeliveredTimestamp()) && event.getAttempts() == 1), "Events were not delivered");
+    }
+
+    @Test
+    void testWhenFinanceServiceFails_ThenPendingEvents_ReturnInvoicesBackedOffAndLibraryDelivered() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        saveEvents(authUserHref);
+        doThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        outboxRelayService.relayOutboxEvents();
+        outboxRelayService.relayOutboxEvents();
+        verify(financeService, times(1)).ingestInvoices(argThat((List<FinanceAccountDto> accounts) -> hasTuitionFees(accounts, authUserHref, 2)),
+                eq(SERVICE_TOKEN));
+        Timestamp now = Timestamp.from(Instant.now());
+        for (OutboxEvent event : outboxEventRepository.findAllByAuthUserHref(authUserHref)) {
+            if (event.getEventType() == OutboxEventType.LIBRARY_ACCOUNT) {
+                Assertions.assertNotNull(event.getDeliveredTimestamp(), "Library account was not delivered");
+            } else {
+                Assertions.assertNull(event.getDeliveredTimestamp(), "Invoice should not be delivered");
+                Assertions.assertEquals(1, event.getAttempts(), "Invalid attempts");
+                Assertions.assertNotNull(event.getLastError(), "Error was not recorded");
+                Assertions.assertTrue(event.getNextAttemptTimestamp().after(now), "Invoice was not backed off");
+            }
+        }
+    }
+
+    @Test
+    void testWhenFinanceRejectsOneInvoice_ThenPendingEvents_ReturnPoisonDeadLetteredAndOthersDelivered() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        saveEvents(authUserHref);
+        OutboxEvent poison = outboxEventRepository.save(event(OutboxEventType.TUITION_FEE, authUserHref, "tuition-fee:" + UUID.randomUUID(),
+                "{\"amount\":-1.0,\"type\":\"TUITION_FEES\",\"dueDate\":\"2030-01-01\"}"));
+        doAnswer(invocation -> {
+            List<FinanceAccountDto> accounts = invocation.getArgument(0);
+            if (accounts.stream().flatMap(account -> account.getInvoiceList().stream()).anyMatch(invoice -> invoice.getAmount() < 0)) {
+                throw new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode(),
+                        HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+            }
+            return null;
+        }).when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        outboxRelayService.relayOutboxEvents();
+        for (OutboxEvent event : outboxEventRepository.findAllByAuthUserHref(authUserHref)) {
+            if (event.getId().equals(poison.getId())) {
+                Assertions.assertNull(event.getDeliveredTimestamp(), "Rejected invoice should not be delivered");
+                Assertions.assertNotNull(event.getDeadLetteredTimestamp(), "Rejected invoice was not dead lettered");
+                Assertions.assertNull(event.getNextAttemptTimestamp(), "Rejected invoice should not be retried");
+            } else {
+                Assertions.assertNotNull(event.getDeliveredTimestamp(), "Other events were not delivered");
+                Assertions.assertNull(event.getDeadLetteredTimestamp(), "Other events should not be dead lettered");
+            }
+        }
+    }
+
+    @Test
+    void testWhenPayloadUnreadable_ThenPendingEvents_ReturnPoisonDeadLettered() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        OutboxEvent poison = outboxEventRepository.save(event(OutboxEventType.TUITION_FEE, authUserHref, "tuition-fee:" + UUID.randomUUID(), "{not json"));
+        outboxRelayService.relayOutboxEvents();
+        OutboxEvent event = outboxEventRepository.findById(poison.getId()).orElseThrow();
+        Assertions.assertNotNull(event.getDeadLetteredTimestamp(), "Unreadable event was not dead lettered");
+        Assertions.assertEquals(1, event.getAttempts(), "Invalid attempts");
+    }
+
+    @Test
+    void testWhenFinanceKeepsFailing_ThenMaxAttempts_ReturnEventsDeadLettered() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        OutboxEvent exhausted = event(OutboxEventType.TUITION_FEE, authUserHref, "tuition-fee:" + UUID.randomUUID(),
+                "{\"amount\":100.0,\"type\":\"TUITION_FEES\",\"dueDate\":\"2030-01-01\"}");
+        exhausted.setAttempts(2);
+        OutboxEvent saved = outboxEventRepository.save(exhausted);
+        doThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        outboxRelayService.relayOutboxEvents();
+        OutboxEvent event = outboxEventRepository.findById(saved.getId()).orElseThrow();
+        Assertions.assertEquals(3, event.getAttempts(), "Invalid attempts");
+        Assertions.assertNotNull(event.getDeadLetteredTimestamp(), "Event was not dead lettered after the last attempt");
+    }
+
+    @Test
+    void testWhenServiceTokenRejected_ThenPendingEvents_ReturnTokenInvalidatedAndEventsRetried() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        saveEvents(authUserHref);
+        doThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode(),
+                HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8)))
+                .when(financeService).ingestInvoices(anyList(), eq(SERVICE_TOKEN));
+        outboxRelayService.relayOutboxEvents();
+        verify(serviceTokenService).invalidate(SERVICE_TOKEN);
+        outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .filter(event -> event.getEventType() == OutboxEventType.TUITION_FEE)
+                .forEach(event -> {
+                    Assertions.assertNull(event.getDeadLetteredTimestamp(), "Event should not be dead lettered");
+                    Assertions.assertNotNull(event.getNextAttemptTimestamp(), "Event was not scheduled again");
+                });
+    }
+
+    @Test
+    void testWhenServiceTokenUnavailable_ThenPendingEvents_ReturnNothingClaimed() {
+        String authUserHref = "/auth/user/" + UUID.randomUUID();
+        saveEvents(authUserHref);
+        when(serviceTokenService.getServiceToken()).thenThrow(new LBUStudentsRuntimeException(
+                ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorMessage(), ErrorConstants.AUTH_SERVICE_LOGIN_ERROR.getErrorCode()));
+        outboxRelayService.relayOutboxEvents();
+        Assertions.assertTrue(outboxEventRepository.findAllByAuthUserHref(authUserHref).stream()
+                .allMatch(event -> event.getAttempts() == 0), "Events should not be claimed without a token");
+    }
+
+    private void saveEvents(String authUserHref) {
+        outboxEventRepository.saveAll(List.of(event(OutboxEventType.LIBRARY_ACCOUNT, authUserHref, "library-account:" + authUserHref, null),
+                event(OutboxEventType.TUITION_FEE, authUserHref, "tuition-fee:" + UUID.randomUUID(), "{\"amount\":100.0,\"type\":\"TUITION_FEES\",\"dueDate\":\"2030-01-01\"}"),
+                event(OutboxEventType.TUITION_FEE, authUserHref, "tuition-fee:" + UUID.randomUUID(), "{\"amount\":200.0,\"type\":\"TUITION_FEES\",\"dueDate\":\"2030-01-01\"}")));
+    }
+
+    private static OutboxEvent event(OutboxEventType eventType, String authUserHref, String idempotencyKey, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAuthUserHref(authUserHref);
+        event.setIdempotencyKey(idempotencyKey);
+        event.setPayload(payload);
+        event.setAttempts(0);
+        event.setNextAttemptTimestamp(Timestamp.from(Instant.now().minusSeconds(1)));
+        return event;
+    }
+
+    private static boolean hasTuitionFees(List<FinanceAccountDto> accounts, String authUserHref, int invoices) {
+        return accounts.stream().anyMatch(account -> account.getAuthUserHref().equals(authUserHref)
+                && account.getInvoiceList().size() == invoices);
+    }
+}
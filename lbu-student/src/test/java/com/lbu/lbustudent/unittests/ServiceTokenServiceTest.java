@@ -0,0 +1,121 @@
+package com.lbu.lbustudent.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lbu.lbustudent.commons.exceptions.LBUStudentsRuntimeException;
+import com.lbu.lbustudent.commons.externalservices.auth.services.impl.ServiceTokenServiceImpl;
+import com.lbu.lbustudent.commons.externalservices.resilience.DownstreamGuards;
+import com.lbu.lbustudent.configuration.TestDownstreamGuards;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServiceTokenServiceTest {
+
+    private final AtomicInteger logins = new AtomicInteger();
+    private volatile long expiresInSeconds = 3600;
+    private volatile int loginStatus = 200;
+    private HttpServer authServer;
+    private RestTemplate authRestTemplate;
+    private DownstreamGuards downstreamGuards;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        authServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        authServer.createContext("/auth/login", exchange -> {
+            int login = logins.incrementAndGet();
+            respond(exchange, loginStatus, "{\"jwtToken\":\"" + jwt(login, Instant.now().getEpochSecond() + expiresInSeconds) + "\",\"userId\":\"service\"}");
+        });
+        authServer.start();
+        authRestTemplate = new RestTemplateBuilder().rootUri("http://localhost:" + authServer.getAddress().getPort()).build();
+        downstreamGuards = TestDownstreamGuards.create(new SimpleMeterRegistry(), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        authServer.stop(0);
+    }
+
+    @Test
+    void testWhenServiceAccountNotConfigured_ThenCreate_ReturnCustomException() {
+        Assertions.assertThrows(LBUStudentsRuntimeException.class, () -> serviceTokenService(" ", "password"));
+        Assertions.assertThrows(LBUStudentsRuntimeException.class, () -> serviceTokenService("lbu-student", ""));
+    }
+
+    @Test
+    void testWhenGetServiceTokenRepeatedly_ThenValidToken_ReturnOneLogin() {
+        ServiceTokenServiceImpl serviceTokenService = serviceTokenService("lbu-student", "password");
+        String token = serviceTokenService.getServiceToken();
+        Assertions.assertTrue(token.startsWith("Bearer "), "Token should be a bearer token");
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(token, serviceTokenService.getServiceToken(), "Token should be reused");
+        }
+        Assertions.assertEquals(1, logins.get(), "Invalid logins");
+    }
+
+    @Test
+    void testWhenGetServiceToken_ThenTokenExpiring_ReturnRefreshedToken() {
+        expiresInSeconds = 60;
+        ServiceTokenServiceImpl serviceTokenService = serviceTokenService("lbu-student", "password");
+        String token = serviceTokenService.getServiceToken();
+        Assertions.assertEquals(token, serviceTokenService.getServiceToken(), "Token should be reused until half its lifetime");
+        expiresInSeconds = -1;
+        ServiceTokenServiceImpl expiredTokenService = serviceTokenService("lbu-student", "password");
+        String expiredToken = expiredTokenService.getServiceToken();
+        Assertions.assertNotEquals(expiredToken, expiredTokenService.getServiceToken(), "Expired token should be refreshed");
+        Assertions.assertEquals(3, logins.get(), "Invalid logins");
+    }
+
+    @Test
+    void testWhenInvalidate_ThenRejectedToken_ReturnNewLogin() {
+        ServiceTokenServiceImpl serviceTokenService = serviceTokenService("lbu-student", "password");
+        String token = serviceTokenService.getServiceToken();
+        serviceTokenService.invalidate("Bearer another-token");
+        Assertions.assertEquals(token, serviceTokenService.getServiceToken(), "Another token should not drop the current one");
+        serviceTokenService.invalidate(token);
+        Assertions.assertNotEquals(token, serviceTokenService.getServiceToken(), "Rejected token should be replaced");
+        Assertions.assertEquals(2, logins.get(), "Invalid logins");
+    }
+
+    @Test
+    void testWhenLoginFails_ThenNoToken_ReturnCustomException() {
+        loginStatus = 401;
+        ServiceTokenServiceImpl serviceTokenService = serviceTokenService("lbu-student", "password");
+        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class, serviceTokenService::getServiceToken);
+        Assertions.assertEquals(7004, exception.getCode(), "Invalid exception code");
+    }
+
+    private ServiceTokenServiceImpl serviceTokenService(String username, String password) {
+        return new ServiceTokenServiceImpl(authRestTemplate, downstreamGuards, new ObjectMapper(), username, password, 300L);
+    }
+
+    private static String jwt(int login, long expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"sub\":\"lbu-student\",\"jti\":\"" + login + "\",\"exp\":" + expiresAt + "}").getBytes(StandardCharsets.UTF_8))
+                + ".signature";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.lbu.lbustudent.unittests;
+
+import com.lbu.lbustudent.commons.externalservices.auth.services.AuthService;
+import com.lbu.lbustudent.commons.externalservices.course.services.CourseService;
+import com.lbu.lbustudent.commons.externalservices.finance.services.FinanceService;
+import com.lbu.lbustudent.commons.externalservices.library.service.LibraryService;
+import com.lbu.lbustudent.commons.mappers.StudentMapper;
+import com.lbu.lbustudent.dtos.StudentDashboardDto;
+import com.lbu.lbustudent.dtos.course.CourseDto;
+import com.lbu.lbustudent.dtos.course.CourseDtos;
+import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
+import com.lbu.lbustudent.dtos.library.LibraryStudentDto;
+import com.lbu.lbustudent.models.Enrollment;
+import com.lbu.lbustudent.models.Student;
+import com.lbu.lbustudent.repositories.StudentRepository;
+import com.lbu.lbustudent.service.impl.StudentDashboardServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class StudentDashboardServiceTest {
+
+    private static final String AUTH_USER_HREF = "/auth/user/a5aea676-4e5f-4fe2-bf60-193c398fa60a";
+    private static final String COURSE_HREF = "/courses/0b7c7ff6-4b1e-4bd8-93f4-7e1dd7a0b3f4";
+
+    private final StudentRepository studentRepository = Mockito.mock(StudentRepository.class);
+    private final AuthService authService = Mockito.mock(AuthService.class);
+    private final CourseService courseService = Mockito.mock(CourseService.class);
+    private final FinanceService financeService = Mockito.mock(FinanceService.class);
+    private final LibraryService libraryService = Mockito.mock(LibraryService.class);
+    private ThreadPoolTaskExecutor executor;
+    private StudentDashboardServiceImpl studentDashboardService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.initialize();
+        studentDashboardService = new StudentDashboardServiceImpl(studentRepository, new StudentMapper(), authService,
+                courseService, financeService, libraryService, executor, 100, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(studentDashboardService, "callTimeoutMillis", 2000L);
+        ReflectionTestUtils.setField(studentDashboardService, "cacheTtlSeconds", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testWhenGetDashboard_ThenServiceCallsOverlap_ReturnComposedDashboard() {
+        stubDownstreams(300, 300, 300);
+        long start = System.nanoTime();
+        StudentDashboardDto dashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertEquals(1, dashboard.getCourses().size(), "Courses are invalid");
+        Assertions.assertNotNull(dashboard.getFinanceAccount(), "Finance account is invalid");
+        Assertions.assertNotNull(dashboard.getLibraryAccount(), "Library account is invalid");
+        Assertions.assertTrue(dashboard.getUnavailableSections().isEmpty(), "No section should be unavailable");
+        Assertions.assertTrue(elapsedMillis < 700, "Calls should overlap but the dashboard took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testWhenGetDashboard_ThenLibraryCallTimesOut_ReturnPartialDashboard() {
+        stubDownstreams(0, 0, 10_000);
+        ReflectionTestUtils.setField(studentDashboardService, "callTimeoutMillis", 200L);
+        long start = System.nanoTime();
+        StudentDashboardDto dashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertNull(dashboard.getLibraryAccount(), "Library account should be empty");
+        Assertions.assertEquals(List.of("library"), dashboard.getUnavailableSections(), "Library should be unavailable");
+        Assertions.assertNotNull(dashboard.getFinanceAccount(), "Finance account is invalid");
+        Assertions.assertTrue(elapsedMillis < 2000, "Library call should be cut at its deadline but took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testWhenInvalidate_ThenGetDashboard_ReturnReloadedDashboard() {
+        stubDownstreams(0, 0, 0);
+        studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        studentDashboardService.invalidate(AUTH_USER_HREF);
+        studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        Mockito.verify(studentRepository, Mockito.times(2)).findWithEnrollmentsByAuthUserHref(AUTH_USER_HREF);
+    }
+
+    @Test
+    void testWhenDashboardCached_ThenGetDashboard_ReturnFreshFinanceAccount() {
+        stubDownstreams(0, 0, 0);
+        StudentDashboardDto firstDashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        StudentDashboardDto secondDashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        Mockito.verify(studentRepository, Mockito.times(1)).findWithEnrollmentsByAuthUserHref(AUTH_USER_HREF);
+        Mockito.verify(libraryService, Mockito.times(1)).getLibraryAccount(anyString());
+        Mockito.verify(financeService, Mockito.times(2)).getFinanceAccount(anyString());
+        Assertions.assertNotSame(firstDashboard.getFinanceAccount(), secondDashboard.getFinanceAccount(),
+                "Finance account should not be cached");
+        Assertions.assertSame(firstDashboard.getLibraryAccount(), secondDashboard.getLibraryAccount(), "Library account should be cached");
+    }
+
+    @Test
+    void testWhenFinanceCallFails_ThenGetDashboard_ReturnOtherSectionsCached() {
+        stubDownstreams(0, 0, 0);
+        when(financeService.getFinanceAccount(anyString())).thenThrow(new IllegalStateException("finance is down"));
+        StudentDashboardDto dashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        Assertions.assertEquals(List.of("finance"), dashboard.getUnavailableSections(), "Finance should be unavailable");
+        when(financeService.getFinanceAccount(anyString())).thenReturn(new FinanceAccountDto());
+        dashboard = studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        Assertions.assertNotNull(dashboard.getFinanceAccount(), "Finance account is invalid");
+        Assertions.assertTrue(dashboard.getUnavailableSections().isEmpty(), "No section should be unavailable");
+        Mockito.verify(studentRepository, Mockito.times(1)).findWithEnrollmentsByAuthUserHref(AUTH_USER_HREF);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "lbu.dashboard.benchmark", matches = "true")
+    void benchmarkDashboardAgainstSequentialPageRequests() {
+        long roundTripMillis = 40;
+        long serviceMillis = 60;
+        stubDownstreams(serviceMillis, serviceMillis, serviceMillis);
+        // The graduation page reads the student, then its courses, then the finance account, one request after another
+        long[] sequential = sample(() -> {
+            sleep(roundTripMillis);
+            studentRepository.findWithEnrollmentsByAuthUserHref(AUTH_USER_HREF);
+            sleep(roundTripMillis);
+            courseService.getCourses(List.of(), "Bearer student");
+            sleep(roundTripMillis);
+            financeService.getFinanceAccount("Bearer student");
+        });
+        long[] cold = sample(() -> {
+            studentDashboardService.invalidate(AUTH_USER_HREF);
+            sleep(roundTripMillis);
+            studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        });
+        long[] warm = sample(() -> {
+            sleep(roundTripMillis);
+            studentDashboardService.getDashboard(AUTH_USER_HREF, "Bearer student");
+        });
+        System.out.printf("Graduation page with %d ms round trips and %d ms services: sequential 3 round trips p95 %d ms, "
+                        + "dashboard 1 round trip p95 cold %d ms, warm %d ms%n",
+                roundTripMillis, serviceMillis, p95(sequential), p95(cold), p95(warm));
+        Assertions.assertTrue(p95(cold) < p95(sequential), "Dashboard should beat the sequential page requests");
+        Assertions.assertTrue(p95(warm) < p95(cold), "Cached dashboard should beat a cold load");
+    }
+
+    private static long[] sample(Runnable page) {
+        long[] samples = new long[20];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            page.run();
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long p95(long[] samples) {
+        return samples[(int) Math.ceil(samples.length * 0.95) - 1];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stubDownstreams(long courseMillis, long financeMillis, long libraryMillis) {
+        Mockito.reset(studentRepository, courseService, financeService, libraryService);
+        Student student = new Student();
+        student.setId("0d0f6b0e-7e4f-4e8e-9c7a-9f1f3c2b1a10");
+        student.setAuthUserHref(AUTH_USER_HREF);
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudent(student);
+        enrollment.setCourseHref(COURSE_HREF);
+        student.setEnrollments(List.of(enrollment));
+        when(studentRepository.findWithEnrollmentsByAuthUserHref(AUTH_USER_HREF)).thenReturn(Optional.of(student));
+        CourseDto courseDto = new CourseDto();
+        courseDto.setIdHref(COURSE_HREF);
+        CourseDtos courseDtos = new CourseDtos();
+        courseDtos.setCourses(List.of(courseDto));
+        when(courseService.getCourses(anyList(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(courseMillis);
+            return courseDtos;
+        });
+        when(financeService.getFinanceAccount(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(financeMillis);
+            return new FinanceAccountDto();
+        });
+        when(libraryService.getLibraryAccount(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(libraryMillis);
+            return new LibraryStudentDto();
+        });
+    }
+}
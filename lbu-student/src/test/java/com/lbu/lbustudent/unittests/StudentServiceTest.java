@@ -6,10 +6,10 @@ import com.lbu.lbustudent.configuration.JsonTokenTestService;
 import com.lbu.lbustudent.dtos.MessageDto;
 import com.lbu.lbustudent.dtos.auth.JWTTokenDto;
 import com.lbu.lbustudent.dtos.course.CourseDto;
-import com.lbu.lbustudent.dtos.finance.FinanceAccountDto;
-import com.lbu.lbustudent.dtos.finance.FinanceInvoiceDto;
-import com.lbu.lbustudent.dtos.finance.Type;
+import com.lbu.lbustudent.models.OutboxEvent;
+import com.lbu.lbustudent.models.OutboxEventType;
 import com.lbu.lbustudent.models.Student;
+import com.lbu.lbustudent.repositories.OutboxEventRepository;
 import com.lbu.lbustudent.service.StudentService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -22,12 +22,17 @@ import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class StudentServiceTest extends StudentTestConfig {
@@ -38,6 +43,9 @@ public class StudentServiceTest extends StudentTestConfig {
     @Autowired
     private JsonTokenTestService jsonTokenTestService;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
     @Qualifier("authRestTemplate")
     @MockBean
     private RestTemplate authRestTemplate;
@@ -74,7 +82,7 @@ public class StudentServiceTest extends StudentTestConfig {
     }
 
     @Test
-    void testWhenCreateCourseEnrolment_ThenExisingStudentButFinanceServiceNotWorking_ReturnCustomException() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    void testWhenCreateCourseEnrolment_ThenExisingStudentButFinanceServiceNotWorking_ReturnEnrolmentWithQueuedInvoice() throws NoSuchAlgorithmException, InvalidKeySpecException {
         Optional<Student> optionalStudent = studentRepository.findAll().stream().findAny();
         if (optionalStudent.isPresent()) {
             String courseHref = "/courses/" + UUID.randomUUID();
@@ -93,21 +101,15 @@ public class StudentServiceTest extends StudentTestConfig {
             courseDto.setDurationInDays(5);
 
             when(courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class)).thenReturn(ResponseEntity.ok(courseDto));
+            when(financeRestTemplate.postForObject(any(String.class), any(), any())).thenThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()));
 
-            FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-            financeAccountDto.setAuthUserHref(student.getAuthUserHref());
-            FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-            financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
-            financeInvoiceDto.setType(Type.TUITION_FEES);
-            financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
-            financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-            HttpEntity<FinanceAccountDto> requestEntityFinance = new HttpEntity<>(financeAccountDto, headers);
-            when(financeRestTemplate.postForObject("/finance/account", requestEntityFinance, FinanceAccountDto.class)).thenThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()));
-
-            LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
-                    () -> studentService.createStudentEnrolment(student.getAuthUserHref(), courseHref, authToken));
-            Assertions.assertEquals("An error occurred in the finance service.", exception.getMessage(), "Invalid exception message");
-            Assertions.assertEquals(7003, exception.getCode(), "Invalid exception code");
+            int enrollments = studentRepository.findWithEnrollmentsById(student.getId()).orElseThrow().getEnrollments().size();
+            Student studentUpdated = studentService.createStudentEnrolment(student.getAuthUserHref(), courseHref, authToken);
+            Assertions.assertEquals(enrollments + 1, studentUpdated.getEnrollments().size(), "Enrolment was not created");
+            List<OutboxEvent> events = outboxEventRepository.findAllByAuthUserHref(student.getAuthUserHref());
+            Assertions.assertTrue(events.stream().anyMatch(event -> event.getEventType() == OutboxEventType.TUITION_FEE
+                    && Objects.isNull(event.getDeliveredTimestamp())), "Tuition fee was not queued");
+            verify(financeRestTemplate, never()).postForObject(any(String.class), any(), any());
         } else {
             Assertions.fail("No students are available");
         }
@@ -152,45 +154,13 @@ public class StudentServiceTest extends StudentTestConfig {
     }
 
     @Test
-    void testWhenCreateCourseEnrolment_ThenNewStudentButLibraryServiceNotWorking_ReturnCustomException() throws NoSuchAlgorithmException, InvalidKeySpecException {
-        String authUserId = UUID.randomUUID().toString();
-        String authUserHref = "/auth/user/" + authUserId;
-        String courseHref = "/courses/" + UUID.randomUUID();
-        String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", authUserId);
-        String authToken = "Bearer " + token;
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", authToken);
-        HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-
-        JWTTokenDto tokenDto = new JWTTokenDto();
-        tokenDto.setJwtToken(token);
-        tokenDto.setUserId(authUserId);
-
-        when(authRestTemplate.postForObject(authUserHref, requestEntity, JWTTokenDto.class)).thenReturn(tokenDto);
-
-        CourseDto courseDto = new CourseDto();
-        courseDto.setFees(new BigDecimal("100.00"));
-        courseDto.setDurationInDays(5);
-
-        when(courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class)).thenReturn(ResponseEntity.ok(courseDto));
-
-        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
-                () -> studentService.createStudentEnrolment(authUserHref, courseHref, authToken));
-        Assertions.assertEquals("An error occurred in the library service.", exception.getMessage(), "Invalid exception message");
-        Assertions.assertEquals(7002, exception.getCode(), "Invalid exception code");
-    }
-
-    @Test
-    void testWhenCreateCourseEnrolment_ThenNewStudentButFinanceServiceNotWorking_ReturnCustomException() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    void testWhenCreateCourseEnrolment_ThenNewStudentButLibraryAndFinanceServicesNotWorking_ReturnStudentWithQueuedAccounts() throws NoSuchAlgorithmException, InvalidKeySpecException {
         String authUserId = UUID.randomUUID().toString();
         String authUserHref = "/auth/user/" + authUserId;
         String courseHref = "/courses/" + UUID.randomUUID();
         String token = jsonTokenTestService.getJwtToken("ROLE_STUDENT", authUserId);
         String authToken = "Bearer " + token;
 
-
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.set("Authorization", authToken);
@@ -207,27 +177,18 @@ public class StudentServiceTest extends StudentTestConfig {
         courseDto.setDurationInDays(5);
 
         when(courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class)).thenReturn(ResponseEntity.ok(courseDto));
+        when(libraryRestTemplate.exchange(any(String.class), any(HttpMethod.class), any(), eq(MessageDto.class))).thenThrow(new LBUStudentsRuntimeException(ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.LIBRARY_SERVICE_GET_ERROR.getErrorCode()));
+        when(financeRestTemplate.postForObject(any(String.class), any(), any())).thenThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()));
 
-        MessageDto messageDto = new MessageDto();
-        messageDto.setMessage("ssss");
-        messageDto.setCode(24);
-        when(libraryRestTemplate.exchange("/library/student", HttpMethod.POST, requestEntity, MessageDto.class)).thenReturn(ResponseEntity.ok(messageDto));
-
-        FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-        financeAccountDto.setAuthUserHref(authUserHref);
-        FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-        financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
-        financeInvoiceDto.setType(Type.TUITION_FEES);
-        financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
-        financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-        HttpEntity<FinanceAccountDto> requestEntityFinance = new HttpEntity<>(financeAccountDto, headers);
-        when(financeRestTemplate.postForObject("/finance/account", requestEntityFinance, FinanceAccountDto.class)).thenThrow(new LBUStudentsRuntimeException(ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorMessage(), ErrorConstants.FINANCE_SERVICE_GET_ERROR.getErrorCode()));
-
-
-        LBUStudentsRuntimeException exception = Assertions.assertThrows(LBUStudentsRuntimeException.class,
-                () -> studentService.createStudentEnrolment(authUserHref, courseHref, authToken));
-        Assertions.assertEquals("An error occurred in the finance service.", exception.getMessage(), "Invalid exception message");
-        Assertions.assertEquals(7003, exception.getCode(), "Invalid exception code");
+        Student student = studentService.createStudentEnrolment(authUserHref, courseHref, authToken);
+        Assertions.assertEquals(token, student.getJwtTokenDto().getJwtToken(), "Student token is invalid");
+        Assertions.assertFalse(student.getEnrollments().isEmpty(), "Enrolments were not created");
+        List<OutboxEvent> events = outboxEventRepository.findAllByAuthUserHref(authUserHref);
+        Assertions.assertEquals(Set.of(OutboxEventType.LIBRARY_ACCOUNT, OutboxEventType.TUITION_FEE),
+                events.stream().map(OutboxEvent::getEventType).collect(Collectors.toSet()), "Outbox events are invalid");
+        Assertions.assertTrue(events.stream().allMatch(event -> Objects.isNull(event.getDeliveredTimestamp())
+                && event.getAttempts() == 0), "Outbox events should be pending");
+        verify(libraryRestTemplate, never()).exchange(any(String.class), any(HttpMethod.class), any(), eq(MessageDto.class));
     }
 
     @Test
@@ -307,21 +268,6 @@ public class StudentServiceTest extends StudentTestConfig {
         courseDto.setDurationInDays(5);
         when(courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class)).thenReturn(ResponseEntity.ok(courseDto));
 
-        MessageDto messageDto = new MessageDto();
-        messageDto.setMessage("ssss");
-        messageDto.setCode(24);
-        when(libraryRestTemplate.exchange("/library/student", HttpMethod.POST, requestEntity, MessageDto.class)).thenReturn(ResponseEntity.ok(messageDto));
-
-        FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-        financeAccountDto.setAuthUserHref(authUserHref);
-        FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-        financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
-        financeInvoiceDto.setType(Type.TUITION_FEES);
-        financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
-        financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-        HttpEntity<FinanceAccountDto> requestEntityFinance = new HttpEntity<>(financeAccountDto, headers);
-        when(financeRestTemplate.postForObject("/finance/account", requestEntityFinance, FinanceAccountDto.class)).thenReturn(financeAccountDto);
-
         Student student = studentService.createStudentEnrolment(authUserHref, courseHref, authToken);
         Assertions.assertTrue(Objects.nonNull(student.getJwtTokenDto()), "Not a new student");
         Assertions.assertFalse(student.getEnrollments().isEmpty(), "Enrolments were not created");
@@ -346,16 +292,6 @@ public class StudentServiceTest extends StudentTestConfig {
             courseDto.setDurationInDays(5);
             when(courseRestTemplate.exchange(courseHref, HttpMethod.GET, requestEntity, CourseDto.class)).thenReturn(ResponseEntity.ok(courseDto));
 
-            FinanceAccountDto financeAccountDto = new FinanceAccountDto();
-            financeAccountDto.setAuthUserHref(student.getAuthUserHref());
-            FinanceInvoiceDto financeInvoiceDto = new FinanceInvoiceDto();
-            financeInvoiceDto.setAmount(courseDto.getFees().doubleValue());
-            financeInvoiceDto.setType(Type.TUITION_FEES);
-            financeInvoiceDto.setDueDate(LocalDate.now().plusDays(courseDto.getDurationInDays()));
-            financeAccountDto.setInvoiceList(List.of(financeInvoiceDto));
-            HttpEntity<FinanceAccountDto> requestEntityFinance = new HttpEntity<>(financeAccountDto, headers);
-            when(financeRestTemplate.postForObject("/finance/account", requestEntityFinance, FinanceAccountDto.class)).thenReturn(financeAccountDto);
-
             Student studentUpdated = studentService.createStudentEnrolment(student.getAuthUserHref(), courseHref, authToken);
             Assertions.assertFalse(Objects.nonNull(studentUpdated.getJwtTokenDto()), "Not a new student");
             Assertions.assertFalse(studentUpdated.getEnrollments().isEmpty(), "Enrolments were not created");
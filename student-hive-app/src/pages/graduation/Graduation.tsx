@@ -4,11 +4,9 @@ import Layout from "../../layout/Layout";
 import Letter from "../../components/letter/Letter";
 import CourseSummery from "../../components/coursesummery/CourseSummery";
 import StudentService from "../../services/student/StudentService";
-import CourseService from "../../services/course/CourseService";
 import {ICourses} from "../../services/course/CourseDto";
 import {JwtDto} from "../../services/auth/AuthDto";
 import Certificate from "../../components/certificate/Certificate";
-import FinanceService from "../../services/finance/FinanceService";
 import {InvoiceDetailDtos} from "../../services/finance/FinanceDto";
 
 interface GraduationProps {
@@ -52,11 +50,12 @@ const Graduation = (prop: GraduationProps) => {
         handleToggle()
         const fetchData = async () => {
             try {
-                const studentData = await StudentService.getStudentDetail();
-                const courseData = await CourseService.getCoursesForList(studentData.courseHrefs.map(course => course.replace('/courses/', '')))
-                const financeAccountData = await FinanceService.getFinanceAccount();
-                setInvoices(financeAccountData);
-                setCourses(courseData);
+                const dashboard = await StudentService.getStudentDashboard();
+                if (dashboard.unavailableSections.includes("courses") || dashboard.unavailableSections.includes("finance")) {
+                    throw new Error("LBU Student service error. Please try again later!!");
+                }
+                setInvoices(dashboard.financeAccount);
+                setCourses({courses: dashboard.courses ?? []});
                 handleClose();
             } catch (error) {
                 // @ts-ignore
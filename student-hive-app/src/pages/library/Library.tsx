@@ -77,13 +77,46 @@ const Library = (props: LibraryProps) => {
     const [page, setPage] = React.useState(0);
     const [rowsPerPage, setRowsPerPage] = React.useState(10);
 
-    const handleChangePage = (event: unknown, newPage: number) => {
-        setPage(newPage);
+    const handleChangePage = async (event: unknown, newPage: number) => {
+        if (await loadBooks(newPage, rowsPerPage)) {
+            setPage(newPage);
+        }
+    };
+
+    const handleChangeRowsPerPage = async (event: React.ChangeEvent<HTMLInputElement>) => {
+        const newRowsPerPage = +event.target.value;
+        if (await loadBooks(0, newRowsPerPage)) {
+            setRowsPerPage(newRowsPerPage);
+            setPage(0);
+        }
     };
 
-    const handleChangeRowsPerPage = (event: React.ChangeEvent<HTMLInputElement>) => {
-        setRowsPerPage(+event.target.value);
-        setPage(0);
+    // Only the pages of books needed for the shown table page are requested, the rest is loaded when the user pages on
+    const loadBooks = async (newPage: number, newRowsPerPage: number) => {
+        let books = bookList ? bookList.books : [];
+        let nextCursor = bookList ? bookList.nextCursor : undefined;
+        if (!nextCursor || books.length >= (newPage + 1) * newRowsPerPage) {
+            return true;
+        }
+        setOpen(true);
+        try {
+            do {
+                const bookData = await LibraryService.getBooks(nextCursor);
+                books = books.concat(bookData.books);
+                nextCursor = bookData.nextCursor || undefined;
+            } while (nextCursor && books.length < (newPage + 1) * newRowsPerPage);
+            setBooks({books: books, nextCursor: nextCursor});
+            handleClose();
+            return true;
+        } catch (error) {
+            // @ts-ignore
+            if (error.message) {
+                // @ts-ignore
+                setError(error.message);
+            }
+            handleClose();
+            return false;
+        }
     };
 
     const [confirmationStatus, setConfirmationStatus] = React.useState({
@@ -124,7 +157,7 @@ const Library = (props: LibraryProps) => {
         handleToggle()
         const fetchData = async () => {
             try {
-                const bookData = await LibraryService.getAllBooks();
+                const bookData = await LibraryService.getBooks();
                 setBooks(bookData)
                 handleClose();
             } catch (error) {
@@ -224,7 +257,7 @@ const Library = (props: LibraryProps) => {
                         <TablePagination
                             rowsPerPageOptions={[10, 25]}
                             component="div"
-                            count={bookList ? bookList?.books.length : 0}
+                            count={bookList?.nextCursor ? -1 : (bookList ? bookList.books.length : 0)}
                             rowsPerPage={rowsPerPage}
                             page={page}
                             onPageChange={handleChangePage}
@@ -7,12 +7,14 @@ export interface EnvironmentDetails {
     LBU_ID_COURSE_LIST_URL: string;
     LBU_STUDENT_DETAIL_URL: string;
     LBU_STUDENT_ENROLMENT_URL: string;
+    LBU_STUDENT_DASHBOARD_URL: string;
     LBU_FINANCE_ACCOUNT_URL: string;
     LBU_FINANCE_INVOICE_CANCEL_URL: string;
     LBU_FINANCE_INVOICE_PAY_URL: string;
     LBU_LIBRARY_GET_ALL_BOOKS_URL: string;
     LBU_LIBRARY_BORROW_BOOKS_URL: string;
     LBU_LIBRARY_RETURN_BOOKS_URL: string;
+    LBU_LIBRARY_BOOKS_PAGE_SIZE: number;
 }
 
 export default function ServiceConstants(invoiceReference?: string) {
@@ -31,12 +33,14 @@ export default function ServiceConstants(invoiceReference?: string) {
         LBU_ID_COURSE_LIST_URL: COURSE_BASE_URL + "/courses/list",
         LBU_STUDENT_DETAIL_URL: STUDENT_BASE_URL + "/student",
         LBU_STUDENT_ENROLMENT_URL: STUDENT_BASE_URL + "/student/enrolment",
+        LBU_STUDENT_DASHBOARD_URL: STUDENT_BASE_URL + "/student/dashboard",
         LBU_FINANCE_ACCOUNT_URL: FINANCE_BASE_URL + "/finance/account",
         LBU_FINANCE_INVOICE_CANCEL_URL: FINANCE_BASE_URL + `/finance/invoice/${invoiceReference}/cancel`,
         LBU_FINANCE_INVOICE_PAY_URL: FINANCE_BASE_URL + `/finance/invoice/${invoiceReference}/pay`,
         LBU_LIBRARY_GET_ALL_BOOKS_URL: LIBRARY_BASE_URL + `/library/books`,
         LBU_LIBRARY_BORROW_BOOKS_URL: LIBRARY_BASE_URL + `/library/student/borrow/`,
-        LBU_LIBRARY_RETURN_BOOKS_URL: LIBRARY_BASE_URL + `/library/student/return/`
+        LBU_LIBRARY_RETURN_BOOKS_URL: LIBRARY_BASE_URL + `/library/student/return/`,
+        LBU_LIBRARY_BOOKS_PAGE_SIZE: 50
     }
     return env;
 }
\ No newline at end of file
@@ -10,7 +10,8 @@ export interface BookDto {
 }
 
 export interface BookDtos {
-    books: BookDto[]
+    books: BookDto[];
+    nextCursor?: string;
 }
 
 export interface TransactionDto {
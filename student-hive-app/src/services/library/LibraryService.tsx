@@ -6,10 +6,15 @@ import {MessageDto} from "../auth/MessageDto";
 
 const LibraryService = {
 
-    getAllBooks: async () => {
+    getBooks: async (cursor?: string) => {
         try {
             if (ServiceConstants().LBU_LIBRARY_GET_ALL_BOOKS_URL) {
+                // One page of books is returned, the next page is requested with its nextCursor
                 const response = await axios.get(ServiceConstants().LBU_LIBRARY_GET_ALL_BOOKS_URL, {
+                    params: {
+                        size: ServiceConstants().LBU_LIBRARY_BOOKS_PAGE_SIZE,
+                        cursor: cursor
+                    },
                     headers: {
                         'Authorization': 'Bearer ' + AuthService.getJwtToken()
                     }
@@ -0,0 +1,27 @@
+import {IStudentDto} from "./IStudentDto";
+import {ICourse} from "../course/CourseDto";
+import {InvoiceDetailDtos} from "../finance/FinanceDto";
+
+export interface ILibraryBorrowedBookDto {
+    book: {
+        id: string,
+        isbn: string,
+        title: string,
+        author: string,
+        yearOfPublished: number
+    },
+    dateBorrowed: string,
+    dateReturned?: string
+}
+
+export interface IStudentDashboardDto {
+    student: IStudentDto,
+    courses?: ICourse[],
+    financeAccount?: InvoiceDetailDtos,
+    libraryAccount?: {
+        id: string,
+        authUserHref: string,
+        borrowedBooks: ILibraryBorrowedBookDto[]
+    },
+    unavailableSections: string[]
+}